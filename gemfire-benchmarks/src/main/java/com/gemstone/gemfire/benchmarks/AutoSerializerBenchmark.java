@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.InternalDataSerializer;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.pdx.ReflectionBasedAutoSerializer;
+
+/**
+ * Measures serializing and deserializing an object with the
+ * ReflectionBasedAutoSerializer. The values have the same fields as the
+ * PdxSerializable in {@link SerializationBenchmark}, so the two can be
+ * compared. The <code>Safe</code> benchmarks run in a fork with
+ * <code>gemfire.AutoSerializer.SAFE</code> set, which makes the auto
+ * serializer access fields through reflection instead of Unsafe.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AutoSerializerBenchmark {
+  private Cache cache;
+  private HeapDataOutputStream out;
+  private AutoValue value;
+  private byte[] bytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    // the auto serializer skips com.gemstone classes unless told otherwise
+    System.setProperty("gemfire.auto.serialization.no.hardcoded.excludes", "true");
+    this.cache = BenchmarkCache.create(new ReflectionBasedAutoSerializer(Pattern.quote(AutoValue.class.getName())));
+    this.out = new HeapDataOutputStream(1024, Version.CURRENT);
+    this.value = new AutoValue(42, 123456789L, 3.5, "a string value");
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    InternalDataSerializer.writeObject(this.value, hdos);
+    this.bytes = hdos.toByteArray();
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.cache.close();
+    System.clearProperty("gemfire.auto.serialization.no.hardcoded.excludes");
+  }
+
+  @Benchmark
+  public int serializeAuto() throws IOException {
+    this.out.reset();
+    InternalDataSerializer.writeObject(this.value, this.out);
+    return this.out.size();
+  }
+
+  @Benchmark
+  public Object deserializeAuto() throws IOException, ClassNotFoundException {
+    return InternalDataSerializer.readObject(new DataInputStream(new ByteArrayInputStream(this.bytes)));
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dgemfire.AutoSerializer.SAFE=true")
+  public int serializeAutoSafe() throws IOException {
+    return serializeAuto();
+  }
+
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dgemfire.AutoSerializer.SAFE=true")
+  public Object deserializeAutoSafe() throws IOException, ClassNotFoundException {
+    return deserializeAuto();
+  }
+
+  public static class AutoValue {
+    private int id;
+    private long time;
+    private double price;
+    private String name;
+
+    public AutoValue() {
+    }
+
+    public AutoValue(int id, long time, double price, String name) {
+      this.id = id;
+      this.time = time;
+      this.price = price;
+      this.name = name;
+    }
+  }
+}
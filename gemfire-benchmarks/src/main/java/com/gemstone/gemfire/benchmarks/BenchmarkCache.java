@@ -0,0 +1,54 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.util.Properties;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.pdx.PdxSerializer;
+
+/**
+ * Creates the loner cache that the benchmarks run against.
+ * Logging and statistics are turned down so that they do not
+ * show up in the measurements.
+ */
+public class BenchmarkCache {
+  private BenchmarkCache() {
+  }
+
+  public static Cache create() {
+    return create(new Properties());
+  }
+
+  public static Cache create(Properties props) {
+    return factory(props).create();
+  }
+
+  public static Cache create(PdxSerializer pdxSerializer) {
+    return factory(new Properties()).setPdxSerializer(pdxSerializer).create();
+  }
+
+  private static CacheFactory factory(Properties props) {
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    props.setProperty(DistributionConfig.LOG_LEVEL_NAME, "warning");
+    props.setProperty(DistributionConfig.STATISTIC_SAMPLING_ENABLED_NAME, "false");
+    return new CacheFactory(props);
+  }
+}
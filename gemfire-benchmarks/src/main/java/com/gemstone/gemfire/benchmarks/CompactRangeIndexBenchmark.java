@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.internal.index.CompactRangeIndex;
+
+/**
+ * Measures equality and range queries that are answered by a
+ * {@link CompactRangeIndex} on a replicated region.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CompactRangeIndexBenchmark {
+  @Param({"10000"})
+  public int entryCount;
+
+  private Cache cache;
+  private Query equalityQuery;
+  private Query rangeQuery;
+  private int next;
+
+  @Setup
+  public void setUp() throws Exception {
+    this.cache = BenchmarkCache.create();
+    Region<Integer, Trade> region = this.cache.<Integer, Trade>createRegionFactory(RegionShortcut.REPLICATE).create("trades");
+    for (int i = 0; i < this.entryCount; i++) {
+      region.put(i, new Trade(i, i % 100));
+    }
+    QueryService qs = this.cache.getQueryService();
+    qs.createIndex("idIndex", "t.id", "/trades t");
+    this.equalityQuery = qs.newQuery("select * from /trades t where t.id = $1");
+    this.rangeQuery = qs.newQuery("select * from /trades t where t.id >= $1 and t.id < $2");
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  private int nextId() {
+    int id = this.next++;
+    if (this.next >= this.entryCount) {
+      this.next = 0;
+    }
+    return id;
+  }
+
+  @Benchmark
+  public Object equalityLookup() throws Exception {
+    return this.equalityQuery.execute(new Object[] {nextId()});
+  }
+
+  @Benchmark
+  public Object rangeLookup() throws Exception {
+    int id = nextId();
+    return this.rangeQuery.execute(new Object[] {id, id + 10});
+  }
+
+  public static class Trade implements Serializable {
+    private final int id;
+    private final int account;
+
+    public Trade(int id, int account) {
+      this.id = id;
+      this.account = account;
+    }
+
+    public int getId() {
+      return this.id;
+    }
+
+    public int getAccount() {
+      return this.account;
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.internal.FileUtil;
+
+/**
+ * Measures puts on a persistent region, each of which appends
+ * a record to the current Oplog of its disk store.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class OplogBenchmark {
+  @Param({"10000"})
+  public int entryCount;
+
+  @Param({"100", "1000"})
+  public int valueSize;
+
+  private File diskDir;
+  private Cache cache;
+  private Region<Integer, byte[]> region;
+  private byte[] value;
+  private int next;
+
+  @Setup
+  public void setUp() throws IOException {
+    this.diskDir = Files.createTempDirectory("oplogBenchmark").toFile();
+    this.cache = BenchmarkCache.create();
+    this.cache.createDiskStoreFactory()
+        .setDiskDirs(new File[] {this.diskDir})
+        .setAutoCompact(false)
+        .create("benchmark");
+    this.region = this.cache.<Integer, byte[]>createRegionFactory(RegionShortcut.LOCAL_PERSISTENT)
+        .setDiskStoreName("benchmark")
+        .setDiskSynchronous(true)
+        .create("persistent");
+    this.value = new byte[this.valueSize];
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    this.cache.close();
+    FileUtil.delete(this.diskDir);
+  }
+
+  @Benchmark
+  public byte[] put() {
+    int key = this.next++;
+    if (this.next >= this.entryCount) {
+      this.next = 0;
+    }
+    return this.region.put(key, this.value);
+  }
+}
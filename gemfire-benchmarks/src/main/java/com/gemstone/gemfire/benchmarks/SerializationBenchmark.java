@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.gemstone.gemfire.DataSerializable;
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.InternalDataSerializer;
+import com.gemstone.gemfire.internal.Version;
+import com.gemstone.gemfire.pdx.PdxReader;
+import com.gemstone.gemfire.pdx.PdxSerializable;
+import com.gemstone.gemfire.pdx.PdxWriter;
+
+/**
+ * Measures serializing and deserializing the same object with
+ * InternalDataSerializer as a DataSerializable and as a PdxSerializable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+  private Cache cache;
+  private HeapDataOutputStream out;
+  private DataSerializableValue dsValue;
+  private PdxValue pdxValue;
+  private byte[] dsBytes;
+  private byte[] pdxBytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    // PDX needs a cache for its type registry
+    this.cache = BenchmarkCache.create();
+    this.out = new HeapDataOutputStream(1024, Version.CURRENT);
+    this.dsValue = new DataSerializableValue(42, 123456789L, 3.5, "a string value");
+    this.pdxValue = new PdxValue(42, 123456789L, 3.5, "a string value");
+    this.dsBytes = serialize(this.dsValue);
+    this.pdxBytes = serialize(this.pdxValue);
+  }
+
+  @TearDown
+  public void tearDown() {
+    this.cache.close();
+  }
+
+  private byte[] serialize(Object o) throws IOException {
+    HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+    InternalDataSerializer.writeObject(o, hdos);
+    return hdos.toByteArray();
+  }
+
+  @Benchmark
+  public int serializeDataSerializable() throws IOException {
+    this.out.reset();
+    InternalDataSerializer.writeObject(this.dsValue, this.out);
+    return this.out.size();
+  }
+
+  @Benchmark
+  public Object deserializeDataSerializable() throws IOException, ClassNotFoundException {
+    return InternalDataSerializer.readObject(new DataInputStream(new ByteArrayInputStream(this.dsBytes)));
+  }
+
+  @Benchmark
+  public int serializePdx() throws IOException {
+    this.out.reset();
+    InternalDataSerializer.writeObject(this.pdxValue, this.out);
+    return this.out.size();
+  }
+
+  @Benchmark
+  public Object deserializePdx() throws IOException, ClassNotFoundException {
+    return InternalDataSerializer.readObject(new DataInputStream(new ByteArrayInputStream(this.pdxBytes)));
+  }
+
+  public static class DataSerializableValue implements DataSerializable {
+    private int id;
+    private long time;
+    private double price;
+    private String name;
+
+    public DataSerializableValue() {
+    }
+
+    public DataSerializableValue(int id, long time, double price, String name) {
+      this.id = id;
+      this.time = time;
+      this.price = price;
+      this.name = name;
+    }
+
+    @Override
+    public void toData(DataOutput out) throws IOException {
+      out.writeInt(this.id);
+      out.writeLong(this.time);
+      out.writeDouble(this.price);
+      out.writeUTF(this.name);
+    }
+
+    @Override
+    public void fromData(DataInput in) throws IOException, ClassNotFoundException {
+      this.id = in.readInt();
+      this.time = in.readLong();
+      this.price = in.readDouble();
+      this.name = in.readUTF();
+    }
+  }
+
+  public static class PdxValue implements PdxSerializable {
+    private int id;
+    private long time;
+    private double price;
+    private String name;
+
+    public PdxValue() {
+    }
+
+    public PdxValue(int id, long time, double price, String name) {
+      this.id = id;
+      this.time = time;
+      this.price = price;
+      this.name = name;
+    }
+
+    @Override
+    public void toData(PdxWriter writer) {
+      writer.writeInt("id", this.id);
+      writer.writeLong("time", this.time);
+      writer.writeDouble("price", this.price);
+      writer.writeString("name", this.name);
+    }
+
+    @Override
+    public void fromData(PdxReader reader) {
+      this.id = reader.readInt("id");
+      this.time = reader.readLong("time");
+      this.price = reader.readDouble("price");
+      this.name = reader.readString("name");
+    }
+  }
+}
@@ -475,6 +475,7 @@ public class AttributesFactory<K,V> {
       UserSpecifiedRegionAttributes<K,V> nonDefault = (UserSpecifiedRegionAttributes<K,V>) regionAttributes;
       this.regionAttributes.initHasFields(nonDefault);
       this.regionAttributes.requiresPoolName = nonDefault.requiresPoolName;
+      this.regionAttributes.registersInvalidationInterest = nonDefault.registersInvalidationInterest;
     } else {
       // Set all fields to false, essentially starting with a new set of defaults
       this.regionAttributes.setAllHasFields(false);
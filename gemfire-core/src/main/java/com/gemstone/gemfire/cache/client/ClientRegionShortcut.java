@@ -67,6 +67,23 @@ public enum ClientRegionShortcut {
      */
   CACHING_PROXY_OVERFLOW,
 
+  /**
+   * A NEAR_CACHE region is a CACHING_PROXY that keeps a bounded number of
+   * recently used entries locally and relies on the server to tell it when
+   * they change. When the region is created it registers interest in all
+   * keys, receiving updates as invalidates, so its pool must have
+   * subscriptions enabled. The updates queued for it are coalesced into one
+   * invalidate per key when the server region has subscription conflation
+   * enabled, or when the server sets gemfire.HARegionQueue.CONFLATE_INVALIDATES,
+   * so a frequently updated entry costs one message.
+   * The actual RegionAttributes for a NEAR_CACHE set the {@link DataPolicy} to {@link DataPolicy#NORMAL}
+   * and {@link EvictionAttributes} are set to {@link EvictionAlgorithm#LRU_ENTRY}
+   * with {@link EvictionAction#LOCAL_DESTROY}. Set the eviction attributes on the
+   * region factory to change the number of entries kept.
+   * @since 9.0
+   */
+  NEAR_CACHE,
+
   /**
    * A LOCAL region only has local state and never sends operations to a server.
    * The actual RegionAttributes for a LOCAL region set the {@link DataPolicy} to {@link DataPolicy#NORMAL}.
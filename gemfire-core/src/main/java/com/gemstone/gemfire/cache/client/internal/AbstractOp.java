@@ -63,6 +63,15 @@ public abstract class AbstractOp implements Op {
   }
   protected void initMessagePart() {
     
+  }
+  /**
+   * Gives the pooled buffers of this op's message back.
+   * A message is not cleared when it is sent since a failed attempt sends
+   * it again, so this is called once the op will not be executed again.
+   * @since 9.0
+   */
+  protected void releaseMessage() {
+    getMessage().clearParts();
   }
   /**
    * Sets the transaction id on the message
@@ -358,6 +367,45 @@ public abstract class AbstractOp implements Op {
    * Set to true if this attempt timed out
    */
   protected boolean timedOut;
+  /**
+   * Set to true if this op was submitted asynchronously
+   */
+  private boolean async;
+  /**
+   * The start time of the current attempt in the asynchronous op stats
+   */
+  private long asyncStart;
+
+  /**
+   * Marks this op as submitted asynchronously so that its attempts are
+   * also recorded in the asynchronous region operation stats.
+   * @since 9.0
+   */
+  void setAsync() {
+    this.async = true;
+  }
+
+  /**
+   * Called by the thread that dispatches an op submitted asynchronously
+   * just before the op is first sent. An op whose message carries an event
+   * id makes it here, so that the ids increase in the order the ops are
+   * sent rather than the order they were submitted in.
+   * @since 9.0
+   */
+  void beforeAsyncDispatch() {
+  }
+
+  private void startAsyncAttempt(Connection cnx) {
+    if (this.async) {
+      this.asyncStart = cnx.getStats().startAsyncRegionOp();
+    }
+  }
+
+  private void endAsyncAttempt(Connection cnx) {
+    if (this.async) {
+      cnx.getStats().endAsyncRegionOp(this.asyncStart, this.timedOut, this.failed);
+    }
+  }
 
   /* (non-Javadoc)
    * @see com.gemstone.gemfire.cache.client.internal.Op#attempt(com.gemstone.gemfire.cache.client.internal.Connection)
@@ -365,6 +413,7 @@ public abstract class AbstractOp implements Op {
   public Object attempt(Connection cnx) throws Exception {
     this.failed = true;
     this.timedOut = false;
+    startAsyncAttempt(cnx);
     long start = startAttempt(cnx.getStats());
     try {
       try {
@@ -387,8 +436,75 @@ public abstract class AbstractOp implements Op {
       }
     } finally {
       endAttempt(cnx.getStats(), start);
+      endAsyncAttempt(cnx);
     }
   }
+
+  /**
+   * Sends this op's message without reading its reply so that the messages
+   * of an {@link OpPipeline} can be in flight together on one connection.
+   * Every successful call must be followed by exactly one call of
+   * {@link #attemptReadPipelinedResponse} or {@link #abandonPipelined}.
+   * @return the start time to pass to the method that completes the attempt
+   * @since 9.0
+   */
+  long attemptSendPipelined(Connection cnx) throws Exception {
+    this.failed = true;
+    this.timedOut = false;
+    startAsyncAttempt(cnx);
+    long start = startAttempt(cnx.getStats());
+    try {
+      attemptSend(cnx);
+      this.failed = false;
+    } finally {
+      endSendAttempt(cnx.getStats(), start);
+      if (this.failed) {
+        endAttempt(cnx.getStats(), start);
+        endAsyncAttempt(cnx);
+      }
+    }
+    return start;
+  }
+
+  /**
+   * Returns the number of bytes {@link #attemptSendPipelined} writes.
+   * @since 9.0
+   */
+  int getPipelinedLength() {
+    return getMessage().getSendLength();
+  }
+
+  /**
+   * Reads the reply to a message sent by {@link #attemptSendPipelined}.
+   * @since 9.0
+   */
+  Object attemptReadPipelinedResponse(Connection cnx, long start) throws Exception {
+    this.failed = true;
+    try {
+      Object result = attemptReadResponse(cnx);
+      this.failed = false;
+      return result;
+    } catch (SocketTimeoutException ste) {
+      this.failed = false;
+      this.timedOut = true;
+      throw ste;
+    } finally {
+      endAttempt(cnx.getStats(), start);
+      endAsyncAttempt(cnx);
+    }
+  }
+
+  /**
+   * Ends an attempt whose message was sent by {@link #attemptSendPipelined}
+   * but whose reply will never be read because the connection failed.
+   * @since 9.0
+   */
+  void abandonPipelined(Connection cnx, long start) {
+    this.failed = true;
+    endAttempt(cnx.getStats(), start);
+    endAsyncAttempt(cnx);
+  }
+
   protected final boolean hasFailed() {
     return this.failed;
   }
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * Executes the ops submitted by {@link PoolImpl#executeAsync(AbstractOp)}
+ * on a few dispatcher threads. Each dispatcher takes all the ops that have
+ * queued up for it, up to {@link #MAX_BATCH_SIZE}, and executes them as one
+ * {@link OpPipeline}. So a handful of threads keep many requests in flight
+ * instead of the application needing a thread for each one.
+ * <p>
+ * All the ops submitted by one thread are queued for the same dispatcher,
+ * which executes its batches one after the other, so they reach the server
+ * in the order they were submitted. An op that carries an event id is given
+ * it by the dispatcher just before it is sent (see
+ * {@link AbstractOp#beforeAsyncDispatch()}), so the ids of a dispatcher's
+ * ops increase in the order the server receives them and its event tracker
+ * never takes one of them for a duplicate of a later one. Async ops are not
+ * ordered with the submitting thread's synchronous ops; wait for the
+ * future first to order them.
+ * <p>
+ * The futures are completed by the dispatcher threads, so anything slow
+ * that depends on them should use the async methods of CompletableFuture.
+ *
+ * @since 9.0
+ */
+class AsyncOpDispatcher {
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of threads that execute the async ops of each pool.
+   */
+  static final int THREADS = Integer.getInteger("gemfire.PoolImpl.ASYNC_THREADS", 2);
+  /**
+   * The most queued ops that one dispatcher executes as one pipeline.
+   */
+  static final int MAX_BATCH_SIZE = Integer.getInteger("gemfire.PoolImpl.ASYNC_BATCH_SIZE", 64);
+
+  private final PoolImpl pool;
+  /** the ops waiting for each dispatcher thread */
+  private final LinkedBlockingQueue<AsyncOp>[] queues;
+  private final Thread[] threads;
+  /** guarded by this */
+  private boolean started;
+  private volatile boolean closed;
+
+  @SuppressWarnings("unchecked")
+  AsyncOpDispatcher(PoolImpl pool) {
+    this.pool = pool;
+    int count = Math.max(THREADS, 1);
+    this.queues = new LinkedBlockingQueue[count];
+    for (int i = 0; i < count; i++) {
+      this.queues[i] = new LinkedBlockingQueue<AsyncOp>();
+    }
+    this.threads = new Thread[count];
+  }
+
+  /**
+   * Queues the op to be executed by the dispatcher thread of the calling
+   * thread.
+   * @return a future that is completed with the op's result or failure
+   */
+  CompletableFuture<Object> submit(AbstractOp op) {
+    CompletableFuture<Object> future = new CompletableFuture<Object>();
+    if (this.closed) {
+      future.completeExceptionally(cancelledException());
+      return future;
+    }
+    op.setAsync();
+    int index = (int)(Thread.currentThread().getId() % this.queues.length);
+    this.pool.getStats().incAsyncRegionOpsQueued(1);
+    this.queues[index].add(new AsyncOp(op, future));
+    startThreads();
+    if (this.closed) {
+      // close may have run before the op was queued
+      failQueued(this.queues[index]);
+    }
+    return future;
+  }
+
+  private synchronized void startThreads() {
+    if (this.started || this.closed) {
+      return;
+    }
+    this.started = true;
+    for (int i = 0; i < this.threads.length; i++) {
+      Thread t = new Thread(new Dispatcher(this.queues[i]),
+          "AsyncOpDispatcher-" + this.pool.getName() + "-" + (i + 1));
+      t.setDaemon(true);
+      this.threads[i] = t;
+      t.start();
+    }
+  }
+
+  /**
+   * Stops the dispatcher threads and fails the ops that are still queued.
+   */
+  void close() {
+    synchronized (this) {
+      this.closed = true;
+      for (Thread t : this.threads) {
+        if (t != null) {
+          t.interrupt();
+        }
+      }
+    }
+    for (LinkedBlockingQueue<AsyncOp> queue : this.queues) {
+      failQueued(queue);
+    }
+  }
+
+  private void failQueued(LinkedBlockingQueue<AsyncOp> queue) {
+    AsyncOp asyncOp;
+    while ((asyncOp = queue.poll()) != null) {
+      this.pool.getStats().incAsyncRegionOpsQueued(-1);
+      asyncOp.future.completeExceptionally(cancelledException());
+    }
+  }
+
+  private RuntimeException cancelledException() {
+    RuntimeException e = this.pool.getCancelCriterion().generateCancelledException(null);
+    if (e == null) {
+      // closed before the pool was marked destroyed
+      e = new IllegalStateException("Pool " + this.pool.getName() + " is shut down");
+    }
+    return e;
+  }
+
+  /**
+   * Executes one batch of queued ops and completes their futures.
+   */
+  void dispatch(List<AsyncOp> batch, List<AbstractOp> ops) {
+    OpPipeline pipeline;
+    try {
+      pipeline = this.pool.executePipelined(ops);
+    } catch (RuntimeException e) {
+      for (AsyncOp asyncOp : batch) {
+        asyncOp.future.completeExceptionally(e);
+      }
+      return;
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      CompletableFuture<Object> future = batch.get(i).future;
+      RuntimeException failure = pipeline.getFailure(i);
+      if (failure != null) {
+        future.completeExceptionally(failure);
+      } else {
+        future.complete(pipeline.getResult(i));
+      }
+    }
+  }
+
+  private class Dispatcher implements Runnable {
+    private final LinkedBlockingQueue<AsyncOp> queue;
+
+    Dispatcher(LinkedBlockingQueue<AsyncOp> queue) {
+      this.queue = queue;
+    }
+
+    public void run() {
+      List<AsyncOp> batch = new ArrayList<AsyncOp>(MAX_BATCH_SIZE);
+      List<AbstractOp> ops = new ArrayList<AbstractOp>(MAX_BATCH_SIZE);
+      while (!closed) {
+        try {
+          batch.add(this.queue.take());
+        } catch (InterruptedException e) {
+          break;
+        }
+        this.queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+        pool.getStats().incAsyncRegionOpsQueued(-batch.size());
+        try {
+          for (AsyncOp asyncOp : batch) {
+            asyncOp.op.beforeAsyncDispatch();
+            ops.add(asyncOp.op);
+          }
+          dispatch(batch, ops);
+        } catch (RuntimeException e) {
+          for (AsyncOp asyncOp : batch) {
+            asyncOp.future.completeExceptionally(e);
+          }
+        } catch (Error e) {
+          for (AsyncOp asyncOp : batch) {
+            asyncOp.future.completeExceptionally(e);
+          }
+          throw e;
+        } finally {
+          batch.clear();
+          ops.clear();
+        }
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("{} stopped", Thread.currentThread().getName());
+      }
+      failQueued(this.queue);
+    }
+  }
+
+  static class AsyncOp {
+    final AbstractOp op;
+    final CompletableFuture<Object> future;
+
+    AsyncOp(AbstractOp op, CompletableFuture<Object> future) {
+      this.op = op;
+      this.future = future;
+    }
+  }
+}
@@ -392,6 +392,12 @@ public class ConnectionStats implements MessageStats {
   private final static int executeFunctionId;
   private final static int executeFunctionDurationId;
   
+  private final static int asyncRegionOpInProgressId;
+  private final static int asyncRegionOpTimedOutId;
+  private final static int asyncRegionOpFailedId;
+  private final static int asyncRegionOpId;
+  private final static int asyncRegionOpDurationId;
+  
   private final static int getClientPRMetadataInProgressId;
   private final static int getClientPRMetadataSendInProgressId;
   private final static int getClientPRMetadataSendFailedId;
@@ -663,6 +669,12 @@ public class ConnectionStats implements MessageStats {
         f.createIntCounter("asyncExecuteFunctionTimeouts", "Total number of asynchronous Function attempts that have timed out", "asyncExecuteFunctions"), 
         f.createLongCounter("asyncExecuteFunctionTime", "Total amount of time, in nanoseconds spent doing asynchronous Functions", "nanoseconds"),
         
+        f.createIntGauge("asyncRegionOpsInProgress", "Current number of asynchronous region operations sent to the server that have not completed", "asyncRegionOps"), 
+        f.createIntCounter("asyncRegionOps", "Total number of asynchronous region operation attempts completed successfully", "asyncRegionOps"), 
+        f.createIntCounter("asyncRegionOpFailures", "Total number of asynchronous region operation attempts that have failed", "asyncRegionOps"), 
+        f.createIntCounter("asyncRegionOpTimeouts", "Total number of asynchronous region operation attempts that have timed out", "asyncRegionOps"), 
+        f.createLongCounter("asyncRegionOpTime", "Total amount of time, in nanoseconds spent doing asynchronous region operations", "nanoseconds"),
+        
         f.createIntGauge("getClientPRMetadataInProgress", "Current number of getClientPRMetadata operations being executed", "getClientPRMetadata"),
         f.createIntCounter("getClientPRMetadataFailures", "Total number of getClientPRMetadata operation attempts that have failed", "getClientPRMetadata"), 
         f.createIntCounter("getClientPRMetadataSuccessful", "Total number of getClientPRMetadata operations completed successfully", "getClientPRMetadata"),
@@ -1206,6 +1218,12 @@ public class ConnectionStats implements MessageStats {
     executeFunctionId = type.nameToId("executeFunctions");
     executeFunctionDurationId = type.nameToId("executeFunctionTime");
     
+    asyncRegionOpInProgressId = type.nameToId("asyncRegionOpsInProgress");
+    asyncRegionOpTimedOutId = type.nameToId("asyncRegionOpTimeouts");
+    asyncRegionOpFailedId = type.nameToId("asyncRegionOpFailures");
+    asyncRegionOpId = type.nameToId("asyncRegionOps");
+    asyncRegionOpDurationId = type.nameToId("asyncRegionOpTime");
+    
     getClientPRMetadataInProgressId= type.nameToId("getClientPRMetadataInProgress");
     getClientPRMetadataSendInProgressId= sendType.nameToId("getClientPRMetadataSendsInProgress");
     getClientPRMetadataSendFailedId=sendType.nameToId("getClientPRMetadataSendFailures");
@@ -2706,6 +2724,57 @@ public class ConnectionStats implements MessageStats {
     }
   }
   
+  /**
+   * Records that an asynchronous region operation is being attempted.
+   * This is in addition to the stats of the operation itself.
+   * <p>
+   * Note: for every call of this method the caller must also call
+   * {@link #endAsyncRegionOp}.
+   * 
+   * @return the start time of this asynchronous region operation
+   * @since 9.0
+   */
+  public long startAsyncRegionOp() {
+    this.stats.incInt(asyncRegionOpInProgressId, 1);
+    return getStatTime();
+  }
+
+  /**
+   * Records that the specified asynchronous region operation attempt has ended
+   * 
+   * @param startTime
+   *          the value returned by {@link #startAsyncRegionOp}.
+   * @param timedOut
+   *          true if the attempt timed out
+   * @param failed
+   *          true if the attempt failed
+   * @since 9.0
+   */
+  public void endAsyncRegionOp(long startTime, boolean timedOut, boolean failed) {
+    long duration = getStatTime() - startTime;
+    this.stats.incInt(asyncRegionOpInProgressId, -1);
+    int endAsyncRegionOpId;
+    if (timedOut) {
+      endAsyncRegionOpId = asyncRegionOpTimedOutId;
+    }
+    else if (failed) {
+      endAsyncRegionOpId = asyncRegionOpFailedId;
+    }
+    else {
+      endAsyncRegionOpId = asyncRegionOpId;
+    }
+    this.stats.incInt(endAsyncRegionOpId, 1);
+    this.stats.incLong(asyncRegionOpDurationId, duration);
+  }
+
+  public int getAsyncRegionOpsInProgress() {
+    return this.stats.getInt(asyncRegionOpInProgressId);
+  }
+
+  public int getAsyncRegionOps() {
+    return this.stats.getInt(asyncRegionOpId);
+  }
+
   /**
    * Records that the specified execute Function is starting
    * <p>
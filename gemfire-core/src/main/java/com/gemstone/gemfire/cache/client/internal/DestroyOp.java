@@ -67,30 +67,34 @@ public class DestroyOp {
     }
     AbstractOp op = new DestroyOpImpl(region, key, expectedOldValue,
         operation, event, callbackArg, prSingleHopEnabled);
-    if (prSingleHopEnabled) {
-      ClientMetadataService cms = region.getCache()
-          .getClientMetadataService();
-      ServerLocation server = cms.getBucketServerLocation(region,
-          Operation.DESTROY, key, null, callbackArg);
-      if (server != null) {
-        try {
-          PoolImpl poolImpl = (PoolImpl)pool;
-          boolean onlyUseExistingCnx = ((poolImpl.getMaxConnections() != -1 && poolImpl
-              .getConnectionCount() >= poolImpl.getMaxConnections()) ? true
-              : false);
-          return pool.executeOn(server, op, true, onlyUseExistingCnx);
-        }
-        catch (AllConnectionsInUseException e) {
-        }
-        catch (ServerConnectivityException e) {
-          if (e instanceof ServerOperationException) {
-            throw e; // fixed 44656
+    try {
+      if (prSingleHopEnabled) {
+        ClientMetadataService cms = region.getCache()
+            .getClientMetadataService();
+        ServerLocation server = cms.getBucketServerLocation(region,
+            Operation.DESTROY, key, null, callbackArg);
+        if (server != null) {
+          try {
+            PoolImpl poolImpl = (PoolImpl)pool;
+            boolean onlyUseExistingCnx = ((poolImpl.getMaxConnections() != -1 && poolImpl
+                .getConnectionCount() >= poolImpl.getMaxConnections()) ? true
+                : false);
+            return pool.executeOn(server, op, true, onlyUseExistingCnx);
+          }
+          catch (AllConnectionsInUseException e) {
+          }
+          catch (ServerConnectivityException e) {
+            if (e instanceof ServerOperationException) {
+              throw e; // fixed 44656
+            }
+            cms.removeBucketServerLocation(server);
           }
-          cms.removeBucketServerLocation(server);
         }
       }
+      return pool.execute(op);
+    } finally {
+      op.releaseMessage();
     }
-    return pool.execute(op);
   }
   
   /**
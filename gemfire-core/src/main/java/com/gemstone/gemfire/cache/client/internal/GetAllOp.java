@@ -60,8 +60,12 @@ public class GetAllOp {
                                                Object callback)
   {
     AbstractOp op = new GetAllOpImpl(region, keys, callback);
-    op.initMessagePart();
-    return ((VersionedObjectList)pool.execute(op)).setKeys(keys);
+    try {
+      op.initMessagePart();
+      return ((VersionedObjectList)pool.execute(op)).setKeys(keys);
+    } finally {
+      op.releaseMessage();
+    }
   }
   
   public static VersionedObjectList execute(ExecutablePool pool,
@@ -74,8 +78,12 @@ public class GetAllOp {
         keys, region, true);
     
     if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
-      op.initMessagePart();
-      return ((VersionedObjectList)pool.execute(op)).setKeys(keys);
+      try {
+        op.initMessagePart();
+        return ((VersionedObjectList)pool.execute(op)).setKeys(keys);
+      } finally {
+        op.releaseMessage();
+      }
     }
     else {
       VersionedObjectList result = null;
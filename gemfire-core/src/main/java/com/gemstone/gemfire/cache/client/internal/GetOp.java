@@ -66,36 +66,40 @@ public class GetOp {
     AbstractOp op = new GetOpImpl(region, key, callbackArg,
         prSingleHopEnabled, clientEvent);
 
-    if (logger.isDebugEnabled()) {
-      logger.debug("GetOp invoked for key {}", key);
-    }
-    if (prSingleHopEnabled) {
-      ServerLocation server = cms.getBucketServerLocation(region,
-          Operation.GET, key, null, callbackArg);
-        if (server != null) {
-          try {
-            PoolImpl poolImpl = (PoolImpl)pool;
-            boolean onlyUseExistingCnx = ((poolImpl.getMaxConnections() != -1 && poolImpl
-                .getConnectionCount() >= poolImpl.getMaxConnections()) ? true
-                : false);
-            return pool.executeOn(new ServerLocation(server.getHostName(),
-                server.getPort()), op, true, onlyUseExistingCnx);
-          }
-          catch (AllConnectionsInUseException e) {
-          }
-          catch (ServerConnectivityException e) {
-            if (e instanceof ServerOperationException) {
-              throw e; // fixed 44656
+    try {
+      if (logger.isDebugEnabled()) {
+        logger.debug("GetOp invoked for key {}", key);
+      }
+      if (prSingleHopEnabled) {
+        ServerLocation server = cms.getBucketServerLocation(region,
+            Operation.GET, key, null, callbackArg);
+          if (server != null) {
+            try {
+              PoolImpl poolImpl = (PoolImpl)pool;
+              boolean onlyUseExistingCnx = ((poolImpl.getMaxConnections() != -1 && poolImpl
+                  .getConnectionCount() >= poolImpl.getMaxConnections()) ? true
+                  : false);
+              return pool.executeOn(new ServerLocation(server.getHostName(),
+                  server.getPort()), op, true, onlyUseExistingCnx);
             }
-            cms.removeBucketServerLocation(server);
-          }
-          catch (CacheLoaderException e) {
-            if (e.getCause() instanceof ServerConnectivityException)
+            catch (AllConnectionsInUseException e) {
+            }
+            catch (ServerConnectivityException e) {
+              if (e instanceof ServerOperationException) {
+                throw e; // fixed 44656
+              }
               cms.removeBucketServerLocation(server);
+            }
+            catch (CacheLoaderException e) {
+              if (e.getCause() instanceof ServerConnectivityException)
+                cms.removeBucketServerLocation(server);
+            }
           }
-        }
+      }
+      return pool.execute(op);
+    } finally {
+      op.releaseMessage();
     }
-    return pool.execute(op);
   }
 
                                                                
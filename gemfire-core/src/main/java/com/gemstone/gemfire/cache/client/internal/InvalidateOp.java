@@ -46,7 +46,11 @@ public class InvalidateOp {
                             String region, EntryEventImpl event)
   {
     AbstractOp op = new InvalidateOpImpl(region, event);
-    pool.execute(op);
+    try {
+      pool.execute(op);
+    } finally {
+      op.releaseMessage();
+    }
   }
                                                                
   private InvalidateOp() {
@@ -217,6 +217,56 @@ public class OpExecutorImpl implements ExecutablePool {
     }
   }
 
+  /**
+   * Executes the given ops by sending their messages on one connection
+   * without waiting for each reply. Ops that can not be pipelined, because
+   * of server affinity, credentials, or a connection failure part way
+   * through, are executed one at a time with {@link #execute(Op)}.
+   * @since 9.0
+   */
+  public OpPipeline executePipelined(List<? extends AbstractOp> ops) {
+    OpPipeline pipeline = new OpPipeline(ops);
+    if (ops.size() > 1 && OpPipeline.MAX_IN_FLIGHT > 1 && !this.serverAffinity.get()) {
+      Connection conn = connectionManager.borrowConnection(serverTimeout);
+      try {
+        if (!conn.getServer().getRequiresCredentials()) {
+          try {
+            pipeline.execute(conn, OpPipeline.MAX_IN_FLIGHT, OpPipeline.getMaxInFlightBytes(conn));
+            conn.getEndpoint().updateLastExecute();
+          } catch (Exception e) {
+            int failedIndex = pipeline.getFailedIndex();
+            if (pipeline.isOutOfStep()) {
+              conn.destroy();
+            }
+            try {
+              // throws if the op should not be retried
+              handleException(e, conn, 0, false);
+            } catch (RuntimeException ex) {
+              pipeline.setFailure(failedIndex, ex);
+            }
+          }
+        }
+      } finally {
+        connectionManager.returnConnection(conn);
+      }
+    }
+    for (int i = 0; i < pipeline.size(); i++) {
+      if (pipeline.isDone(i)) {
+        continue;
+      }
+      AbstractOp op = pipeline.getOp(i);
+      if (pipeline.wasSent(i)) {
+        op.getMessage().setIsRetry();
+      }
+      try {
+        pipeline.setResult(i, execute(op));
+      } catch (RuntimeException ex) {
+        pipeline.setFailure(i, ex);
+      }
+    }
+    return pipeline;
+  }
+
   /**
    * execute the given op on the given server. If the server cannot
    * be reached, sends a TXFailoverOp, then retries the given op
@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import java.net.SocketException;
+import java.util.List;
+
+/**
+ * A batch of ops whose messages are written to one connection without
+ * waiting for the reply to each one. A server processes the messages it
+ * receives on a connection one at a time, in the order they were sent, so
+ * the replies are read back in that same order. This lets a single
+ * connection have several small operations in flight at once instead of
+ * paying a full round trip for each of them.
+ * <p>
+ * While its replies are unread the client keeps sending, and the server
+ * may be blocked writing replies the client is not reading yet. So that the
+ * client can not block writing at the same time, the request bytes sent
+ * but not yet answered are kept within what the connection's socket send
+ * buffer holds; a write then always completes without the server reading,
+ * and the client goes on to read the replies however large they are.
+ * <p>
+ * Created and run by {@link PoolImpl#executePipelined(List)}. Once that
+ * returns each op has either a result or a failure.
+ *
+ * @since 9.0
+ */
+public class OpPipeline {
+  /**
+   * The most messages that are sent on a connection before their replies
+   * are read. The bytes of those messages are bounded separately by
+   * {@link #getMaxInFlightBytes(Connection)}.
+   */
+  public static final int MAX_IN_FLIGHT = Integer.getInteger("gemfire.PoolImpl.PIPELINE_DEPTH", 16);
+
+  private final List<? extends AbstractOp> ops;
+  private final Object[] results;
+  private final RuntimeException[] failures;
+  private final boolean[] done;
+  /** the number of ops, from the start of the list, whose message was sent */
+  private int sent;
+  /** the index of the op whose send or read failed; -1 if none did */
+  private int failedIndex = -1;
+  /** true if the failure left replies unread on the connection */
+  private boolean outOfStep;
+
+  OpPipeline(List<? extends AbstractOp> ops) {
+    this.ops = ops;
+    this.results = new Object[ops.size()];
+    this.failures = new RuntimeException[ops.size()];
+    this.done = new boolean[ops.size()];
+  }
+
+  public int size() {
+    return this.ops.size();
+  }
+
+  /**
+   * Returns the result of the op at the given index.
+   * @throws RuntimeException the op's failure if it failed
+   */
+  public Object getResult(int index) {
+    RuntimeException failure = this.failures[index];
+    if (failure != null) {
+      throw failure;
+    }
+    return this.results[index];
+  }
+
+  /**
+   * Returns the exception the op at the given index failed with;
+   * null if it succeeded.
+   */
+  public RuntimeException getFailure(int index) {
+    return this.failures[index];
+  }
+
+  AbstractOp getOp(int index) {
+    return this.ops.get(index);
+  }
+
+  boolean isDone(int index) {
+    return this.done[index];
+  }
+
+  void setResult(int index, Object result) {
+    this.results[index] = result;
+    this.done[index] = true;
+  }
+
+  void setFailure(int index, RuntimeException failure) {
+    this.failures[index] = failure;
+    this.done[index] = true;
+  }
+
+  /**
+   * Returns true if the op at the given index had its message sent,
+   * in which case running it again is a retry.
+   */
+  boolean wasSent(int index) {
+    return index < this.sent;
+  }
+
+  /**
+   * Returns the index of the op that {@link #execute} failed on.
+   */
+  int getFailedIndex() {
+    return this.failedIndex;
+  }
+
+  /**
+   * Returns true if {@link #execute} failed with messages sent whose replies
+   * were not read. The connection is then out of step with the server and
+   * must not be used again.
+   */
+  boolean isOutOfStep() {
+    return this.outOfStep;
+  }
+
+  /**
+   * Returns the most request bytes that may be sent on the given connection
+   * without their replies having been read: the size of its socket send
+   * buffer, or 0, which only allows one message at a time, if that is not
+   * known.
+   */
+  static int getMaxInFlightBytes(Connection cnx) {
+    try {
+      return cnx.getSocket().getSendBufferSize();
+    } catch (SocketException e) {
+      return 0;
+    }
+  }
+
+  /**
+   * Sends the messages of all the ops on the given connection, keeping at
+   * most maxInFlight of them and maxInFlightBytes of their bytes
+   * outstanding, and reads their replies. A message is always sent once no
+   * other one is outstanding, however large it is.
+   * If an exception is thrown the ops before {@link #getFailedIndex()} are
+   * done and the others are not.
+   */
+  void execute(Connection cnx, int maxInFlight, int maxInFlightBytes) throws Exception {
+    final int count = this.ops.size();
+    final long[] starts = new long[count];
+    final int[] lengths = new int[count];
+    int read = 0;
+    long inFlightBytes = 0;
+    boolean reading = false;
+    try {
+      while (read < count) {
+        while (this.sent < count && this.sent - read < maxInFlight) {
+          AbstractOp op = this.ops.get(this.sent);
+          int length = op.getPipelinedLength();
+          if (this.sent > read && inFlightBytes + length > maxInFlightBytes) {
+            break;
+          }
+          this.failedIndex = this.sent;
+          starts[this.sent] = op.attemptSendPipelined(cnx);
+          lengths[this.sent] = length;
+          inFlightBytes += length;
+          this.sent++;
+        }
+        this.failedIndex = read;
+        reading = true;
+        Object result = this.ops.get(read).attemptReadPipelinedResponse(cnx, starts[read]);
+        reading = false;
+        setResult(read, result);
+        inFlightBytes -= lengths[read];
+        read++;
+      }
+      this.failedIndex = -1;
+    } finally {
+      if (this.failedIndex != -1) {
+        // the op being read has already ended its attempt
+        int i = reading ? read + 1 : read;
+        this.outOfStep = i < this.sent;
+        for (; i < this.sent; i++) {
+          this.ops.get(i).abandonPipelined(cnx, starts[i]);
+        }
+      }
+    }
+  }
+}
@@ -25,6 +25,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
@@ -123,6 +124,7 @@ public class PoolImpl implements InternalPool {
   private final PoolStats stats;
   private ScheduledExecutorService backgroundProcessor; 
   private final OpExecutorImpl executor;
+  private final AsyncOpDispatcher asyncDispatcher;
   private final RegisterInterestTracker riTracker = new RegisterInterestTracker();
   private final InternalDistributedSystem dsys; 
 
@@ -250,6 +252,7 @@ public class PoolImpl implements InternalPool {
     executor = new OpExecutorImpl(manager, queueManager, endpointManager,
         riTracker, retryAttempts, freeConnectionTimeout, threadLocalConnections,
         new PoolOrCacheStopper(), this);
+    asyncDispatcher = new AsyncOpDispatcher(this);
     if (this.multiuserSecureModeEnabled) {
       this.proxyCacheList = new ArrayList<ProxyCache>();
     } else {
@@ -526,6 +529,8 @@ public class PoolImpl implements InternalPool {
       // LOG: changed from config to info
       logger.info(LocalizedMessage.create(LocalizedStrings.PoolImpl_DESTROYING_CONNECTION_POOL_0, name));
 
+      asyncDispatcher.close();
+
       try {
         if (backgroundProcessor != null) {
           backgroundProcessor.shutdown();
@@ -726,6 +731,55 @@ public class PoolImpl implements InternalPool {
     return executor.execute(op, retries);
   }
 
+  /**
+   * Execute the given ops on one of the servers that this pool connects to,
+   * sending all of their messages on one connection without waiting for
+   * each reply. This is meant for many small independent ops, like gets
+   * and puts, where the round trip time dominates.
+   * @param ops the operations to execute
+   * @return the result or failure of each op
+   * @since 9.0
+   */
+  public OpPipeline executePipelined(List<? extends AbstractOp> ops) {
+    if (this.multiuserSecureModeEnabled) {
+      // each op may need its own user authenticated so do them one at a time
+      OpPipeline pipeline = new OpPipeline(ops);
+      for (int i = 0; i < ops.size(); i++) {
+        try {
+          pipeline.setResult(i, execute(ops.get(i)));
+        } catch (RuntimeException ex) {
+          pipeline.setFailure(i, ex);
+        }
+      }
+      return pipeline;
+    }
+    return executor.executePipelined(ops);
+  }
+
+  /**
+   * Execute the given op on one of the servers that this pool connects to
+   * without waiting for it to complete. The op is executed by one of a few
+   * threads, together with the other async ops that are waiting, using
+   * {@link #executePipelined(List)}. The async ops of a thread are executed
+   * in the order they were submitted.
+   * @param op the operation to execute
+   * @return a future that completes with the result of the op
+   * @since 9.0
+   */
+  public CompletableFuture<Object> executeAsync(AbstractOp op) {
+    if (this.multiuserSecureModeEnabled) {
+      // the user of the op is bound to the calling thread
+      CompletableFuture<Object> future = new CompletableFuture<Object>();
+      try {
+        future.complete(execute(op));
+      } catch (RuntimeException ex) {
+        future.completeExceptionally(ex);
+      }
+      return future;
+    }
+    return this.asyncDispatcher.submit(op);
+  }
+
   /**
    * Execute the given op on the given server.
    * @param server the server to do the execution on
@@ -81,7 +81,11 @@ public class PutAllOp {
     if(isRetry) {
       op.getMessage().setIsRetry();
     }
-    return (VersionedObjectList)pool.execute(op);
+    try {
+      return (VersionedObjectList)pool.execute(op);
+    } finally {
+      op.releaseMessage();
+    }
   }
   
   /**
@@ -108,8 +112,12 @@ public class PutAllOp {
     if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
       AbstractOp op = new PutAllOpImpl(region, map,
           eventId, ((PoolImpl)pool).getPRSingleHopEnabled(), skipCallbacks, callbackArg);
-      op.initMessagePart();
-      return (VersionedObjectList)pool.execute(op);
+      try {
+        op.initMessagePart();
+        return (VersionedObjectList)pool.execute(op);
+      } finally {
+        op.releaseMessage();
+      }
     }
 
     List callableTasks = constructAndGetPutAllTasks(region, map,
@@ -27,6 +27,7 @@ import com.gemstone.gemfire.distributed.internal.ServerLocation;
 import com.gemstone.gemfire.distributed.internal.membership.InternalDistributedMember;
 import com.gemstone.gemfire.internal.cache.CachedDeserializable;
 import com.gemstone.gemfire.internal.cache.EntryEventImpl;
+import com.gemstone.gemfire.internal.cache.EventID;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ChunkedMessage;
@@ -78,30 +79,34 @@ public class PutOp {
         expectedOldValue, callbackArg,
         false/*donot send full obj; send delta*/, prSingleHopEnabled);
 
-    if (prSingleHopEnabled) {
-      ClientMetadataService cms = region.getCache().getClientMetadataService();
-      ServerLocation server = cms.getBucketServerLocation(region,
-          Operation.UPDATE, key, value, callbackArg);
-      if (server != null) {
-        try {
-          PoolImpl poolImpl = (PoolImpl)pool;
-          boolean onlyUseExistingCnx = ((poolImpl.getMaxConnections() != -1 && poolImpl
-              .getConnectionCount() >= poolImpl.getMaxConnections()) ? true
-              : false);
-          return pool.executeOn(new ServerLocation(server.getHostName(), server
-              .getPort()), op, true, onlyUseExistingCnx);
-        }
-        catch (AllConnectionsInUseException e) {
-        }
-        catch (ServerConnectivityException e) {
-          if (e instanceof ServerOperationException) {
-            throw e; // fixed 44656
+    try {
+      if (prSingleHopEnabled) {
+        ClientMetadataService cms = region.getCache().getClientMetadataService();
+        ServerLocation server = cms.getBucketServerLocation(region,
+            Operation.UPDATE, key, value, callbackArg);
+        if (server != null) {
+          try {
+            PoolImpl poolImpl = (PoolImpl)pool;
+            boolean onlyUseExistingCnx = ((poolImpl.getMaxConnections() != -1 && poolImpl
+                .getConnectionCount() >= poolImpl.getMaxConnections()) ? true
+                : false);
+            return pool.executeOn(new ServerLocation(server.getHostName(), server
+                .getPort()), op, true, onlyUseExistingCnx);
+          }
+          catch (AllConnectionsInUseException e) {
+          }
+          catch (ServerConnectivityException e) {
+            if (e instanceof ServerOperationException) {
+              throw e; // fixed 44656
+            }
+            cms.removeBucketServerLocation(server);
           }
-          cms.removeBucketServerLocation(server);
         }
       }
+      return pool.execute(op);
+    } finally {
+      op.releaseMessage();
     }
-    return pool.execute(op);
   }
   
   public static Object execute(ExecutablePool pool, String regionName,
@@ -113,7 +118,11 @@ public class PutOp {
         expectedOldValue, callbackArg,
         false/*donot send full obj; send delta*/,  prSingleHopEnabled);
     ((PutOpImpl)op).setMetaRegionPutOp(isMetaRegionPutOp);
-    return pool.execute(op);
+    try {
+      return pool.execute(op);
+    } finally {
+      op.releaseMessage();
+    }
   }
 
   
@@ -153,7 +162,7 @@ public class PutOp {
     // no instances allowed
   }
   
-  private static class PutOpImpl extends AbstractOp {
+  static class PutOpImpl extends AbstractOp {
 
     private Object key;
 
@@ -308,6 +317,14 @@ public class PutOp {
       }
     }
 
+    @Override
+    void beforeAsyncDispatch() {
+      this.event.setEventId(new EventID(this.region.getSystem()));
+      // the event id is the last part but for the callback arg
+      int eventIdPart = getMessage().getNumberOfParts() - (this.callbackArg != null ? 2 : 1);
+      getMessage().getPart(eventIdPart).setPartState(this.event.getEventId().calcBytes(), false);
+    }
+
     @Override
     protected Object processResponse(Message msg) throws Exception {
       throw new UnsupportedOperationException("processResponse should not be invoked in PutOp.  Use processResponse(Message, Connection)");
@@ -17,6 +17,7 @@
 package com.gemstone.gemfire.cache.client.internal;
 
 import java.util.Arrays;
+import java.util.Collection;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
@@ -57,13 +58,55 @@ public class QueryOp {
     } else {
       op = new QueryOpImpl(queryPredicate);      
     }
-    return (SelectResults)pool.execute(op);
+    try {
+      return (SelectResults)pool.execute(op);
+    } finally {
+      op.releaseMessage();
+    }
   }
                                                                
   private QueryOp() {
     // no instances allowed
   }
 
+  /**
+   * Adds the results carried by a chunk of a query response to the given
+   * collection, creating structs from the field values they are sent as.
+   * @param objectType the element type of the query result
+   * @param queryResult the results part of the chunk
+   * @since 9.0
+   */
+  static void addChunkResults(Collection results, ObjectType objectType,
+                              Object queryResult)
+  {
+    Object[] resultArray;
+    // for select * queries, the serialized object byte arrays are
+    // returned as part of ObjectPartList
+    boolean isObjectPartList = false;
+    if (queryResult instanceof ObjectPartList) {
+      isObjectPartList = true;
+      resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
+    } else{ 
+      // Add the results to the SelectResults
+      resultArray = (Object[]) queryResult;
+    }
+    if (objectType.isStructType()) {
+      for (int i = 0; i < resultArray.length; i++) {
+        if (isObjectPartList) {
+          results
+              .add(new StructImpl((StructTypeImpl) objectType,
+                  ((ObjectPartList) resultArray[i]).getObjects()
+                      .toArray()));
+        } else {
+          results.add(new StructImpl((StructTypeImpl) objectType,
+              (Object[]) resultArray[i]));
+        }
+      }
+    } else {
+      results.addAll(Arrays.asList(resultArray));
+    }
+  }
+
   /**
    * Note: this class is extended by CreateCQWithIROpImpl.
    */
@@ -140,34 +183,8 @@ public class QueryOp {
                 resultRef[0] = QueryUtils.getEmptySelectResults(collectionType,
                                                                 null);
               }
-              SelectResults selectResults = resultRef[0];
-              ObjectType objectType = collectionType.getElementType();
-              Object[] resultArray;
-             // for select * queries, the serialized object byte arrays are
-             // returned as part of ObjectPartList
-              boolean isObjectPartList = false;
-              if (queryResult instanceof ObjectPartList) {
-                isObjectPartList = true;
-                resultArray = ((ObjectPartList) queryResult).getObjects().toArray();
-              } else{ 
-                // Add the results to the SelectResults
-                resultArray = (Object[]) queryResult;
-              }
-              if (objectType.isStructType()) {
-                for (int i = 0; i < resultArray.length; i++) {
-                  if (isObjectPartList) {
-                    selectResults
-                        .add(new StructImpl((StructTypeImpl) objectType,
-                            ((ObjectPartList) resultArray[i]).getObjects()
-                                .toArray()));
-                  } else {
-                    selectResults.add(new StructImpl((StructTypeImpl) objectType,
-                        (Object[]) resultArray[i]));
-                  }
-                }
-              } else {
-                selectResults.addAll(Arrays.asList(resultArray));
-              }
+              addChunkResults(resultRef[0], collectionType.getElementType(),
+                  queryResult);
             }
           }
         };
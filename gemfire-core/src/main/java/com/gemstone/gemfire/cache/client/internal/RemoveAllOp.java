@@ -77,7 +77,11 @@ public class RemoveAllOp {
     if(isRetry) {
       op.getMessage().setIsRetry();
     }
-    return (VersionedObjectList)pool.execute(op);
+    try {
+      return (VersionedObjectList)pool.execute(op);
+    } finally {
+      op.releaseMessage();
+    }
   }
   
   /**
@@ -104,8 +108,12 @@ public class RemoveAllOp {
     if (serverToFilterMap == null || serverToFilterMap.isEmpty()) {
       AbstractOp op = new RemoveAllOpImpl(region, keys,
           eventId, ((PoolImpl)pool).getPRSingleHopEnabled(), callbackArg);
-      op.initMessagePart();
-      return (VersionedObjectList)pool.execute(op);
+      try {
+        op.initMessagePart();
+        return (VersionedObjectList)pool.execute(op);
+      } finally {
+        op.releaseMessage();
+      }
     }
 
     List callableTasks = constructAndGetRemoveAllTasks(region,
@@ -18,6 +18,7 @@ package com.gemstone.gemfire.cache.client.internal;
 
 import java.util.List;
 
+import com.gemstone.gemfire.cache.query.QueryCursor;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.distributed.internal.ServerLocation;
 
@@ -65,5 +66,17 @@ public class ServerProxy {
   {
     return QueryOp.execute(this.pool, queryPredicate, queryParams);
   }
+
+  /**
+   * Does a query on a server and streams its results a page at a time
+   * @param queryPredicate A query language boolean query predicate
+   * @param pageSize the number of results the server sends in a message
+   * @return  A cursor over the values that match the <code>queryPredicate</code>.
+   * @since 9.0
+   */
+  public QueryCursor queryStreaming(String queryPredicate, Object[] queryParams, int pageSize)
+  {
+    return StreamingQueryOp.execute(this.pool, queryPredicate, queryParams, pageSize);
+  }
   
 }
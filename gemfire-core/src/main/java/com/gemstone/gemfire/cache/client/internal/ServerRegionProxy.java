@@ -22,6 +22,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.logging.log4j.Logger;
 
@@ -46,6 +47,7 @@ import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.TXCommitMessage;
 import com.gemstone.gemfire.internal.cache.TXManagerImpl;
 import com.gemstone.gemfire.internal.cache.TXStateProxy;
+import com.gemstone.gemfire.internal.cache.Token;
 import com.gemstone.gemfire.internal.cache.execute.ServerRegionFunctionExecutor;
 import com.gemstone.gemfire.internal.cache.tier.InterestType;
 import com.gemstone.gemfire.internal.cache.tier.sockets.VersionedObjectList;
@@ -688,6 +690,92 @@ public class ServerRegionProxy extends ServerProxy implements ServerRegionDataAc
     }
     return result;
   }
+
+  /**
+   * Does a get on the server without waiting for the reply.
+   * The local cache of the region is neither read nor updated.
+   * In a transaction the get is done before this method returns.
+   * @param key the entry key to do the get on
+   * @param callbackArg an optional callback arg to pass to any cache callbacks
+   * @return a future that completes with the value found by the get,
+   *         or null if there was none
+   * @since 9.0
+   */
+  public CompletableFuture<Object> getAsync(Object key, Object callbackArg) {
+    CompletableFuture<Object> future;
+    if (TXManagerImpl.getCurrentTXState() != null) {
+      future = new CompletableFuture<Object>();
+      try {
+        future.complete(get(key, callbackArg, null));
+      } catch (RuntimeException ex) {
+        future.completeExceptionally(ex);
+      }
+    } else {
+      future = ((PoolImpl)this.pool).executeAsync(new GetOp.GetOpImpl(this.region, key,
+          callbackArg, false, null));
+    }
+    return future.thenApply(value -> Token.isInvalidOrRemoved(value) ? null : value);
+  }
+
+  /**
+   * Does a put on the server without waiting for the reply.
+   * The local cache of the region is not updated.
+   * The async puts of a thread are done in the order they were made, but
+   * not in order with its other operations; wait for the future first
+   * to order them.
+   * In a transaction the put is done before this method returns.
+   * @param key the entry key to do the put on
+   * @param value the entry value to put
+   * @param callbackArg an optional callback arg to pass to any cache callbacks
+   * @return a future that completes when the server has done the put
+   * @since 9.0
+   */
+  public CompletableFuture<Object> putAsync(Object key, Object value, Object callbackArg) {
+    // outside a transaction the event id is replaced when the put is
+    // dispatched, see PutOpImpl.beforeAsyncDispatch
+    EntryEventImpl event = new EntryEventImpl(new EventID(this.region.getSystem()));
+    if (TXManagerImpl.getCurrentTXState() != null) {
+      CompletableFuture<Object> future = new CompletableFuture<Object>();
+      try {
+        future.complete(put(key, value, null, event, Operation.UPDATE, false,
+            null, callbackArg, false));
+      } catch (RuntimeException ex) {
+        future.completeExceptionally(ex);
+      }
+      return future;
+    }
+    return ((PoolImpl)this.pool).executeAsync(new PutOp.PutOpImpl(this.region, key, value,
+        null, event, Operation.UPDATE, false, null, callbackArg, true, false));
+  }
+
+  /**
+   * Does a get of each of the keys on the server without waiting for
+   * the replies. The gets are done independently of each other so each
+   * key's value is as current as when its own get was done.
+   * @param keys the entry keys to get
+   * @param callbackArg an optional callback arg to pass to any cache callbacks
+   * @return a future that completes with a map of each key to the value
+   *         found for it, or to null if there was none
+   * @since 9.0
+   */
+  public CompletableFuture<Map<Object, Object>> getAllAsync(Collection<?> keys,
+      Object callbackArg) {
+    final Map<Object, CompletableFuture<Object>> futures =
+        new HashMap<Object, CompletableFuture<Object>>();
+    for (Object key : keys) {
+      if (!futures.containsKey(key)) {
+        futures.put(key, getAsync(key, callbackArg));
+      }
+    }
+    return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[futures.size()]))
+        .thenApply(v -> {
+          Map<Object, Object> result = new HashMap<Object, Object>();
+          for (Map.Entry<Object, CompletableFuture<Object>> e : futures.entrySet()) {
+            result.put(e.getKey(), e.getValue().join());
+          }
+          return result;
+        });
+  }
     
   /**
    * Release use of this pool
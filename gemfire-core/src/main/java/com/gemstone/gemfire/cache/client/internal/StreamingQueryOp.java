@@ -0,0 +1,407 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.SerializationException;
+import com.gemstone.gemfire.cache.client.ServerOperationException;
+import com.gemstone.gemfire.cache.query.QueryCursor;
+import com.gemstone.gemfire.cache.query.internal.types.CollectionTypeImpl;
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+import com.gemstone.gemfire.cache.query.types.CollectionType;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ChunkedMessage;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Part;
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Does a region query on a server and streams its results back a page at a
+ * time. The server sends a chunk of results as soon as it has them, and the
+ * chunks are read by a reader thread into a small queue of pages that the
+ * returned cursor takes them from. Once the queue is full the reader stops
+ * reading the connection, so the server is held back by the socket until the
+ * caller has consumed a page.
+ * <p>
+ * The connection is used by the query until its last chunk has been read.
+ * If the cursor is closed before that, or the caller does not take a page
+ * within {@link #PAGE_TIMEOUT} milliseconds, the query is abandoned and its
+ * connection is destroyed rather than reading the rest of the results. A
+ * query that fails after some of its results were returned is not retried
+ * on another server, as that would return them again.
+ * <p>
+ * The reader threads come from a pool of at most {@link #MAX_READERS}
+ * threads shared by all the pools of the member.
+ * @since 9.0
+ */
+public class StreamingQueryOp {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * The number of pages read ahead of the caller.
+   */
+  static final int PREFETCH_PAGES = Integer.getInteger("gemfire.PoolImpl.STREAMING_QUERY_PREFETCH_PAGES", 2);
+
+  /**
+   * The number of milliseconds the reader waits for the caller to take a
+   * page before it abandons the query.
+   */
+  static final long PAGE_TIMEOUT = Long.getLong("gemfire.PoolImpl.STREAMING_QUERY_PAGE_TIMEOUT", 60000);
+
+  /**
+   * The maximum number of streaming queries that are read at the same time.
+   */
+  static final int MAX_READERS = Integer.getInteger("gemfire.PoolImpl.STREAMING_QUERY_MAX_READERS", 64);
+
+  private static final ThreadPoolExecutor readers;
+  static {
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup(
+        "StreamingQueryOp Readers", logger);
+    ThreadFactory factory = new ThreadFactory() {
+        private final AtomicInteger threadNum = new AtomicInteger();
+        public Thread newThread(Runnable r) {
+          Thread result = new Thread(group, r,
+              "StreamingQueryOp Reader " + threadNum.incrementAndGet());
+          result.setDaemon(true);
+          return result;
+        }
+      };
+    readers = new ThreadPoolExecutor(0, Math.max(MAX_READERS, 1), 60,
+        TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), factory);
+  }
+
+  /**
+   * Does a region query on a server using a connection from the given pool
+   * and returns a cursor over its results.
+   * @param pool the pool to use to communicate with the server.
+   * @param queryPredicate A query language boolean query predicate
+   * @param pageSize the number of results the server sends in a chunk
+   * @return  A cursor over the values that match the
+   *            <code>queryPredicate</code>.
+   */
+  public static QueryCursor execute(final ExecutablePool pool, String queryPredicate,
+                                    Object[] queryParams, int pageSize)
+  {
+    final StreamingQueryCursor cursor = new StreamingQueryCursor();
+    final StreamingQueryOpImpl op = new StreamingQueryOpImpl(queryPredicate,
+        queryParams == null ? new Object[0] : queryParams, pageSize, cursor);
+    final UserAttributes userAttributes = UserAttributes.userAttributes.get();
+    try {
+      readers.execute(new Runnable() {
+          public void run() {
+            UserAttributes.userAttributes.set(userAttributes);
+            try {
+              pool.execute(op);
+              cursor.finish(StreamingQueryCursor.END);
+            } catch (Throwable t) {
+              cursor.finish(t);
+            } finally {
+              UserAttributes.userAttributes.set(null);
+            }
+          }
+        });
+    } catch (RejectedExecutionException e) {
+      throw new ServerOperationException("More than " + MAX_READERS
+          + " streaming queries are being read", e);
+    }
+    return cursor;
+  }
+
+  private StreamingQueryOp() {
+    // no instances allowed
+  }
+
+  /**
+   * The cursor over the pages read by a {@link StreamingQueryOpImpl}.
+   */
+  static class StreamingQueryCursor implements QueryCursor {
+    static final Object END = new Object();
+
+    /**
+     * The pages, followed by END or a Throwable once the query is done
+     */
+    private final BlockingQueue<Object> pages = new LinkedBlockingQueue<Object>();
+
+    /**
+     * The number of pages that can be added before the caller takes one
+     */
+    private final Semaphore room = new Semaphore(Math.max(PREFETCH_PAGES, 1));
+
+    private final long pageTimeout;
+
+    private volatile CollectionType collectionType;
+
+    /**
+     * Set when the cursor is closed, or abandoned by the reader
+     */
+    private volatile boolean closed;
+
+    private Iterator page = Collections.EMPTY_LIST.iterator();
+
+    private boolean finished;
+
+    StreamingQueryCursor() {
+      this(PAGE_TIMEOUT);
+    }
+
+    StreamingQueryCursor(long pageTimeout) {
+      this.pageTimeout = pageTimeout;
+    }
+
+    /**
+     * Called by the reader with a list of results. Waits for the caller to
+     * make room for the page.
+     * @return false if the cursor has been closed, or the caller did not
+     *         take a page in time, in which case the query is to be
+     *         abandoned
+     */
+    boolean addPage(List page) throws InterruptedException {
+      if (this.closed) {
+        return false;
+      }
+      if (!this.room.tryAcquire(this.pageTimeout, TimeUnit.MILLISECONDS)) {
+        this.closed = true;
+        this.pages.add(new ServerOperationException("The streaming query was abandoned because its results were not read for "
+            + this.pageTimeout + " milliseconds"));
+        return false;
+      }
+      if (this.closed) {
+        return false;
+      }
+      this.pages.add(page);
+      return true;
+    }
+
+    /**
+     * Called by the reader with the END marker or the Throwable the query
+     * failed with.
+     */
+    void finish(Object marker) {
+      if (!this.closed) {
+        this.pages.add(marker);
+      }
+    }
+
+    boolean isClosed() {
+      return this.closed;
+    }
+
+    void setCollectionType(CollectionType collectionType) {
+      if (this.collectionType == null) {
+        this.collectionType = collectionType;
+      }
+    }
+
+    public CollectionType getCollectionType() {
+      if (this.collectionType == null) {
+        hasNext();
+      }
+      return this.collectionType;
+    }
+
+    public boolean hasNext() {
+      while (!this.page.hasNext()) {
+        if (this.finished) {
+          return false;
+        }
+        Object next;
+        try {
+          next = this.pages.take();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new ServerOperationException("Interrupted while waiting for the results of a query", e);
+        }
+        if (next instanceof List) {
+          this.room.release();
+        }
+        if (next == END) {
+          this.finished = true;
+        } else if (next instanceof Throwable) {
+          this.finished = true;
+          if (next instanceof RuntimeException) {
+            throw (RuntimeException)next;
+          } else if (next instanceof Error) {
+            throw (Error)next;
+          }
+          throw new ServerOperationException((Throwable)next);
+        } else {
+          this.page = ((List)next).iterator();
+        }
+      }
+      return true;
+    }
+
+    public Object next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      return this.page.next();
+    }
+
+    public void close() {
+      if (this.closed && this.finished) {
+        return;
+      }
+      this.closed = true;
+      this.finished = true;
+      this.page = Collections.EMPTY_LIST.iterator();
+      this.pages.clear();
+      // wakes up a caller blocked in hasNext on another thread, and the
+      // reader if it is waiting for room
+      this.pages.add(END);
+      this.room.release(Math.max(PREFETCH_PAGES, 1));
+    }
+  }
+
+  /**
+   * Thrown by the chunk handler of a query that is abandoned
+   */
+  private static class AbandonedException extends Exception {
+    private static final long serialVersionUID = 1L;
+  }
+
+  static class StreamingQueryOpImpl extends QueryOp.QueryOpImpl {
+    private final StreamingQueryCursor cursor;
+
+    /**
+     * Set once a page has been handed to the cursor
+     */
+    private boolean delivered;
+
+    /**
+     * @throws com.gemstone.gemfire.SerializationException if serialization fails
+     */
+    public StreamingQueryOpImpl(String queryPredicate, Object[] queryParams,
+                                int pageSize, StreamingQueryCursor cursor) {
+      super(MessageType.STREAMING_QUERY, 3 + queryParams.length);
+      this.cursor = cursor;
+      getMessage().addStringPart(queryPredicate);
+      getMessage().addIntPart(pageSize);
+      getMessage().addIntPart(queryParams.length);
+      for (Object param : queryParams){
+        getMessage().addObjPart(param);
+      }
+    }
+
+    @Override
+    protected void attemptSend(Connection cnx) throws Exception {
+      if (this.cursor.isClosed()) {
+        throw new ServerOperationException("The " + getOpName()
+            + " was abandoned");
+      }
+      if (this.delivered) {
+        throw new ServerOperationException("The " + getOpName()
+            + " failed after some of its results were returned and can not be retried");
+      }
+      super.attemptSend(cnx);
+    }
+
+    @Override
+    protected Object processResponse(Message msg, Connection cnx) throws Exception {
+      try {
+        return processResponse(msg);
+      } catch (AbandonedException e) {
+        // the rest of the results may be large, so they are not read
+        cnx.destroy();
+        throw new ServerOperationException("The " + getOpName()
+            + " was abandoned");
+      }
+    }
+
+    @Override  
+    protected Object processResponse(Message msg) throws Exception {
+      final Exception[] exceptionRef = new Exception[1];
+      ChunkHandler ch = new ChunkHandler() {
+          public void handle(ChunkedMessage cm) throws Exception {
+            if (cursor.isClosed()) {
+              throw new AbandonedException();
+            }
+            if (exceptionRef[0] != null) {
+              // the rest of the response is dropped
+              return;
+            }
+            Part collectionTypePart = cm.getPart(0);
+            Object o = collectionTypePart.getObject();
+            if (o instanceof Throwable) {
+              String s = "While performing a remote " + getOpName();
+              exceptionRef[0] = new ServerOperationException(s, (Throwable)o);
+              return;
+            }
+            Part resultPart = cm.getPart(1);
+            Object queryResult = null;
+            try {
+              queryResult = resultPart.getObject();
+            } catch (Exception e) {
+              String s = "While deserializing " + getOpName() + " result";
+              exceptionRef[0] = new SerializationException(s, e);
+              return;
+            }
+            if (queryResult instanceof Throwable) {
+              String s = "While performing a remote " + getOpName();
+              exceptionRef[0] = new ServerOperationException(s, (Throwable)queryResult);
+              return;
+            }
+            List page;
+            if (queryResult instanceof Integer) {
+              cursor.setCollectionType(new CollectionTypeImpl(List.class,
+                  TypeUtils.OBJECT_TYPE));
+              page = Collections.singletonList(queryResult);
+            } else {
+              CollectionType collectionType = (CollectionType)o;
+              cursor.setCollectionType(collectionType);
+              page = new ArrayList();
+              QueryOp.addChunkResults(page, collectionType.getElementType(),
+                  queryResult);
+            }
+            if (!page.isEmpty()) {
+              delivered = true;
+              if (!cursor.addPage(page)) {
+                throw new AbandonedException();
+              }
+            }
+          }
+        };
+      processChunkedResponse((ChunkedMessage)msg, getOpName(), ch);
+      if (exceptionRef[0] != null) {
+        throw exceptionRef[0];
+      }
+      return null;
+    }
+    @Override  
+    protected String getOpName() {
+      return "streaming query";
+    }
+  }
+}
@@ -297,6 +297,88 @@ public interface Query {
     throws FunctionDomainException, TypeMismatchException, NameResolutionException,
            QueryInvocationTargetException;
 
+  /**
+   * Executes this query and returns a cursor over its results that fetches
+   * them a page at a time, so that a query with a large result can be read
+   * with memory that depends on the page size rather than on the result
+   * size.
+   * <p>
+   * Only the results of simple SELECT queries on a partitioned region, and
+   * of queries sent to a server that it runs on a partitioned region, are
+   * streamed. Their pages are fetched by querying a few buckets at a time,
+   * so the results come in bucket order. The number of buckets queried
+   * together is estimated from the results of the buckets queried before,
+   * and the results of a bucket are always fetched together, so a page can
+   * hold more results than the page size. Queries with ORDER BY, DISTINCT,
+   * GROUP BY, aggregates or COUNT need the whole result before the first
+   * one can be returned; those and all other queries are executed like with
+   * {@link #execute()} and the cursor iterates over the complete result.
+   * Buckets that are created after the cursor was opened are not queried.
+   *
+   * @param pageSize
+   *        The number of results to fetch at a time. It is a target for the
+   *        number of buckets queried together and the number of results a
+   *        server sends in one message.
+   *
+   * @return A cursor over the results of the query. If the query does not
+   *         resolve to a {@link SelectResults}, the cursor returns the one
+   *         object it resolves to.
+   *
+   * @throws IllegalArgumentException
+   *         If the page size is not positive.
+   * @throws FunctionDomainException
+   *         A function was applied to a parameter that is improper
+   *         for that function.
+   * @throws TypeMismatchException
+   *         If a bound parameter is not of the expected type.
+   * @throws NameResolutionException
+   *         If a name in the query cannot be resolved.
+   * @throws QueryInvocationTargetException
+   *         If the data referenced in from clause is not available for
+   *         querying.
+   *
+   * @see QueryCursor
+   * @since 9.0
+   */
+  public QueryCursor executeStreaming(int pageSize)
+    throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+           QueryInvocationTargetException;
+
+  /**
+   * Executes this query with the given parameters and returns a cursor over
+   * its results that fetches them a page at a time. See
+   * {@link #executeStreaming(int)} for the queries whose results are
+   * streamed.
+   *
+   * @param pageSize
+   *        The number of results to fetch at a time.
+   * @param params
+   *        Values that are bound to parameters (such as
+   *        <code>$1</code>) in this query.
+   *
+   * @return A cursor over the results of the query.
+   *
+   * @throws IllegalArgumentException
+   *         If the page size is not positive, or the number of bound
+   *         parameters does not match the number of placeholders.
+   * @throws FunctionDomainException
+   *         A function was applied to a parameter that is improper
+   *         for that function.
+   * @throws TypeMismatchException
+   *         If a bound parameter is not of the expected type.
+   * @throws NameResolutionException
+   *         If a name in the query cannot be resolved.
+   * @throws QueryInvocationTargetException
+   *         If the data referenced in from clause is not available for
+   *         querying.
+   *
+   * @see QueryCursor
+   * @since 9.0
+   */
+  public QueryCursor executeStreaming(int pageSize, Object[] params)
+    throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+           QueryInvocationTargetException;
+
   /**
    * Compiles this <code>Query</code> to achieve higher performance
    * execution.
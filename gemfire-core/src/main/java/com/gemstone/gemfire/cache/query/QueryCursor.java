@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.gemstone.gemfire.cache.query;
+
+import java.util.Iterator;
+
+import com.gemstone.gemfire.cache.query.types.CollectionType;
+
+/**
+ * Iterates over the results of a query that is executed using
+ * {@linkplain Query#executeStreaming(int)}. The results are fetched a page at
+ * a time as the cursor is advanced, so the memory used by the query depends
+ * on the size of a page rather than on the size of its whole result. The
+ * page size is a target, not a bound: the results of a bucket of a
+ * partitioned region are fetched together, so a page can be larger. A page
+ * is only fetched once the previous one has been consumed, which also slows
+ * down the members producing the results to the pace of the caller.
+ * <pre>
+ * Query query = queryService.newQuery("SELECT * FROM /orders o WHERE o.status = 'open'");
+ * QueryCursor cursor = query.executeStreaming(1000);
+ * try {
+ *   while (cursor.hasNext()) {
+ *     process(cursor.next());
+ *   }
+ * } finally {
+ *   cursor.close();
+ * }
+ * </pre>
+ * A cursor that is not read to its end must be closed; on a client it holds
+ * the connection its results are streamed over until then. Results can not
+ * be removed through a cursor.
+ * <p>
+ * When fetching the next page fails, the methods of a cursor throw a
+ * {@link QueryCursorException} with the cause of the failure, or, on a
+ * client, a {@link com.gemstone.gemfire.cache.client.ServerOperationException}
+ * like {@link Query#execute()} does. A cursor is not thread safe.
+ *
+ * @see Query#executeStreaming(int)
+ * @since 9.0
+ */
+public interface QueryCursor<E> extends Iterator<E> {
+
+  /**
+   * Returns the type of the collection the results would be collected into,
+   * including the type of its elements. As the type of a streamed result is
+   * known once its first page has been fetched, this may wait for that page.
+   */
+  public CollectionType getCollectionType();
+
+  /**
+   * Stops fetching the results of the query and releases the resources held
+   * by this cursor. The cursor has no more results after it is closed.
+   * Closing a cursor more than once has no effect.
+   */
+  public void close();
+}
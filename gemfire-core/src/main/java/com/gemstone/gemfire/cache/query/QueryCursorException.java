@@ -0,0 +1,40 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query;
+
+import com.gemstone.gemfire.cache.CacheRuntimeException;
+/**
+ * Thrown by a {@link QueryCursor} when the evaluation of the query fails
+ * while fetching the next page of its results. The cause is the
+ * {@link QueryException} the evaluation failed with.
+ *
+ * @since 9.0
+ */
+public class QueryCursorException extends CacheRuntimeException {
+
+  private static final long serialVersionUID = 3816047725384953267L;
+
+  /**
+   * Constructs an instance of <code>QueryCursorException</code> with the specified detail message
+   * and cause.
+   * @param msg the detail message
+   * @param cause the causal Throwable
+   */
+  public QueryCursorException(String msg, Throwable cause) {
+    super(msg, cause);
+  }
+}
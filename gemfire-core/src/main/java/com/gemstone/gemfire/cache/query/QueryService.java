@@ -447,6 +447,17 @@ public interface QueryService {
    *          For index on secId field:
    *          indexExpression: "pos.secId"
    *          regionPath:      "/portfolio p, p.positions.values pos"
+   *
+   *          Query3: "Select * from /portfolio p where p.status = 'active' and p.mktValue > 25.00"
+   *          For a composite index on the status and mktValue fields:
+   *          indexExpression: "p.status, p.mktValue"
+   *          regionPath:      "/portfolio p"
+   *          A composite index is used for equalities on a prefix of its
+   *          expressions, optionally followed by a range on the next one.
+   *          If the select list of such a query only has expressions of the
+   *          index, the results are read from the index alone, so
+   *          expressions can be added at the end of the index just to
+   *          cover the select list.
    * @return the newly created Index
    * @throws QueryInvalidException if the argument query language strings have
    *           invalid syntax
@@ -460,7 +471,7 @@ public interface QueryService {
    *           doesn't exist
    * @throws UnsupportedOperationException If Index is being created on a region
    *           which does not support indexes.
-   * 
+   *
    */
   public Index createIndex(String indexName, String indexedExpression,
       String regionPath) throws IndexInvalidException,
@@ -39,7 +39,9 @@ import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 import com.gemstone.gemfire.pdx.PdxInstance;
 import com.gemstone.gemfire.pdx.PdxSerializationException;
 import com.gemstone.gemfire.pdx.internal.FieldNotFoundInPdxVersion;
+import com.gemstone.gemfire.pdx.internal.PdxField;
 import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
+import com.gemstone.gemfire.pdx.internal.PdxType;
 import com.gemstone.gemfire.pdx.JSONFormatter;
 
 /**
@@ -54,6 +56,12 @@ public class AttributeDescriptor {
   private final String _name;
   /** cache for remembering the correct Member for a class and attribute */
   private static final ConcurrentMap _cache = new ConcurrentHashMap();
+  /**
+   * The pdx field this attribute resolved to for the last PdxType read.
+   * Entries of a region are usually all the same version of a class so
+   * this lets readPdx skip looking the field up by name.
+   */
+  private volatile ResolvedPdxField _lastPdxField;
   
   
   
@@ -311,10 +319,16 @@ public class AttributeDescriptor {
       QueryInvocationTargetException {
     if (target instanceof PdxInstanceImpl) {
       PdxInstanceImpl pdxInstance = (PdxInstanceImpl) target;
+      PdxType pdxType = pdxInstance.getPdxType();
+      ResolvedPdxField resolved = _lastPdxField;
+      if (resolved == null || resolved.type != pdxType) {
+        resolved = new ResolvedPdxField(pdxType, pdxType.getPdxField(_name));
+        _lastPdxField = resolved;
+      }
       // if the field is present in the pdxinstance
-      if (pdxInstance.hasField(_name)) { 
+      if (resolved.field != null) { 
         // return PdxString if field is a String otherwise invoke readField
-        return pdxInstance.getRawField(_name);
+        return pdxInstance.getRawField(pdxType, resolved.field);
       }
       else {
         // field not found in the pdx instance, look for the field in any of the
@@ -416,5 +430,18 @@ public class AttributeDescriptor {
   
 
   
-}
 
+  /**
+   * A PdxType and the field of it named by this attribute;
+   * field is null if the type does not have the field.
+   */
+  private static final class ResolvedPdxField {
+    final PdxType type;
+    final PdxField field;
+
+    ResolvedPdxField(PdxType type, PdxField field) {
+      this.type = type;
+      this.field = field;
+    }
+  }
+}
@@ -702,7 +702,7 @@ public class CompiledComparison extends AbstractCompiledValue implements
    * get the path to see if there's an index for, and also determine which
    * CompiledValue is the key while we're at it
    */
-  private PathAndKey getPathAndKey(ExecutionContext context)
+  PathAndKey getPathAndKey(ExecutionContext context)
       throws TypeMismatchException, AmbiguousNameException {
     // RuntimeIterator lIter = context.findRuntimeIterator(_left);
     // RuntimeIterator rIter = context.findRuntimeIterator(_right);
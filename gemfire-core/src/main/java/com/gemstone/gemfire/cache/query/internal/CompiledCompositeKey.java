@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.query.AmbiguousNameException;
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.index.CompositeIndexKey;
+import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+import com.gemstone.gemfire.pdx.internal.PdxString;
+
+/**
+ * The indexed expression of a composite index, created from an indexed
+ * expression that is a comma separated list like "p.status, p.ts". It
+ * evaluates to a {@link CompositeIndexKey} holding the values of the
+ * expressions in order, or to UNDEFINED if any of them is UNDEFINED.
+ * <p>
+ * A query uses a composite index for the conditions of an AND junction that
+ * are equalities on a prefix of its expressions, optionally followed by a
+ * range on the next one. The query side path of such a lookup is a
+ * CompiledCompositeKey of the expressions that prefix covers, which matches
+ * every composite index starting with them.
+ *
+ * @since 9.0
+ */
+public class CompiledCompositeKey extends AbstractCompiledValue {
+
+  static final String CANONICALIZED_PREFIX = "COMPOSITE(";
+
+  private final CompiledValue[] components;
+
+  public CompiledCompositeKey(CompiledValue[] components) {
+    this.components = components;
+  }
+
+  public CompiledValue[] getComponents() {
+    return this.components;
+  }
+
+  @Override
+  public List getChildren() {
+    return Arrays.asList(this.components);
+  }
+
+  public int getType() {
+    return COMPOSITE_KEY;
+  }
+
+  public Object evaluate(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Object[] values = new Object[this.components.length];
+    for (int i = 0; i < values.length; i++) {
+      Object value = this.components[i].evaluate(context);
+      if (value == QueryService.UNDEFINED) {
+        return QueryService.UNDEFINED;
+      }
+      values[i] = indexValueFor(value);
+    }
+    return new CompositeIndexKey(values);
+  }
+
+  /**
+   * Returns the form a value of one of the expressions takes in a composite
+   * key. Pdx strings are compared as Strings, as the keys of a query are
+   * Strings and the composite key can not be converted as a whole. Bytes and
+   * shorts are kept as they are, unlike in other index keys, so that a
+   * covering lookup can return them from the key; the comparator of composite
+   * keys compares numbers of different types.
+   */
+  static Object indexValueFor(Object value) throws TypeMismatchException {
+    if (value == null) {
+      return IndexManager.NULL;
+    }
+    if (value instanceof PdxString) {
+      return value.toString();
+    }
+    if (value instanceof Byte || value instanceof Short) {
+      return value;
+    }
+    return TypeUtils.indexKeyFor(value);
+  }
+
+  @Override
+  public Set computeDependencies(ExecutionContext context)
+      throws TypeMismatchException, AmbiguousNameException,
+      NameResolutionException {
+    Set set = new HashSet();
+    for (int i = 0; i < this.components.length; i++) {
+      set.addAll(this.components[i].computeDependencies(context));
+    }
+    return context.addDependencies(this, set);
+  }
+
+  @Override
+  public void generateCanonicalizedExpression(StringBuffer clauseBuffer,
+      ExecutionContext context) throws AmbiguousNameException,
+      TypeMismatchException, NameResolutionException {
+    clauseBuffer.insert(0, ')');
+    for (int i = this.components.length - 1; i > 0; i--) {
+      this.components[i].generateCanonicalizedExpression(clauseBuffer, context);
+      clauseBuffer.insert(0, ',');
+    }
+    this.components[0].generateCanonicalizedExpression(clauseBuffer, context);
+    clauseBuffer.insert(0, CANONICALIZED_PREFIX);
+  }
+
+  @Override
+  public CompiledValue getReceiver() {
+    return this.components[0];
+  }
+
+  /**
+   * Returns true if the canonicalized expression of a composite index starts
+   * with the expressions of the given canonicalized composite key.
+   */
+  public static boolean isPrefixOf(String keyExpr, String indexExpr) {
+    if (indexExpr.equals(keyExpr)) {
+      return true;
+    }
+    // both are lists of complete expressions, so a comma right after the
+    // shared part separates two expressions of the index
+    String prefix = keyExpr.substring(0, keyExpr.length() - 1);
+    return indexExpr.length() > prefix.length() && indexExpr.startsWith(prefix)
+        && indexExpr.charAt(prefix.length()) == ',';
+  }
+
+  /**
+   * Splits the canonicalized expression of a composite index into the
+   * canonicalized expressions it is made of.
+   *
+   * @return the expressions, or null if the index is not a composite index
+   */
+  public static String[] getCanonicalizedComponents(String indexExpr) {
+    if (!indexExpr.startsWith(CANONICALIZED_PREFIX)
+        || !indexExpr.endsWith(")")) {
+      return null;
+    }
+    List components = new ArrayList();
+    int depth = 0;
+    boolean quoted = false;
+    int start = CANONICALIZED_PREFIX.length();
+    int end = indexExpr.length() - 1;
+    for (int i = start; i < end; i++) {
+      char c = indexExpr.charAt(i);
+      if (c == '\'') {
+        quoted = !quoted;
+      }
+      else if (quoted) {
+        continue;
+      }
+      else if (c == '(' || c == '[' || c == '{') {
+        depth++;
+      }
+      else if (c == ')' || c == ']' || c == '}') {
+        depth--;
+      }
+      else if (c == ',' && depth == 0) {
+        components.add(indexExpr.substring(start, i));
+        start = i + 1;
+      }
+    }
+    components.add(indexExpr.substring(start, end));
+    return (String[])components.toArray(new String[components.size()]);
+  }
+}
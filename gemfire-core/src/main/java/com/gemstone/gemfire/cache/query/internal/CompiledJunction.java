@@ -452,9 +452,35 @@ public class CompiledJunction extends AbstractCompiledValue implements
         resultPlanInfo.evalAsFilter = false;
       }
     }
+    CompositeIndexEvaluator compositeEvaluator = getCompositeIndexEvaluator(context);
+    if (compositeEvaluator != null) {
+      resultPlanInfo.evalAsFilter = true;
+      resultPlanInfo.indexes.add(compositeEvaluator.getIndex());
+    }
     return resultPlanInfo;
   }
 
+  /**
+   * Returns the evaluator of the conditions of this AND junction that a
+   * composite index covers, or null if there is none. The index is looked up
+   * once per execution of the junction.
+   */
+  private CompositeIndexEvaluator getCompositeIndexEvaluator(
+      ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (_operator != LITERAL_and) {
+      return null;
+    }
+    Object evaluator = context.cacheGet(this);
+    if (evaluator == null) {
+      evaluator = CompositeIndexEvaluator.create(_operands, context);
+      context.cachePut(this, evaluator == null ? Boolean.FALSE : evaluator);
+    }
+    return evaluator instanceof CompositeIndexEvaluator ? (CompositeIndexEvaluator)evaluator
+        : null;
+  }
+
   /* Package methods */
   public int getOperator() {
     return _operator;
@@ -502,6 +528,7 @@ public class CompiledJunction extends AbstractCompiledValue implements
     Map iterToOperands = new HashMap();
     CompiledValue operand = null;
     boolean isJunctionNeeded = false;
+    CompositeIndexEvaluator compositeEvaluator = getCompositeIndexEvaluator(context);
 
     for (int i = 0; i < _operands.length; i++) {
       // Asif : If we are inside this function this itself indicates
@@ -521,6 +548,10 @@ public class CompiledJunction extends AbstractCompiledValue implements
       // either true or false for an AND junction but always false for an
       // OR Junction.
       operand = this._operands[i];
+      if (compositeEvaluator != null && compositeEvaluator.covers(operand)) {
+        // evaluated by the composite index lookup added below
+        continue;
+      }
       if (!operand.isDependentOnCurrentScope(context)) {
         indexCount++;
         // Asif Ensure that independent operands are always at the start
@@ -587,6 +618,17 @@ public class CompiledJunction extends AbstractCompiledValue implements
         }
       }
     }
+    if (compositeEvaluator != null) {
+      isJunctionNeeded = true;
+      List operandsList = (List)iterToOperands.get(compositeEvaluator
+          .getIndependentIterator());
+      if (operandsList == null) {
+        operandsList = new ArrayList();
+        iterToOperands.put(compositeEvaluator.getIndependentIterator(),
+            operandsList);
+      }
+      operandsList.add(compositeEvaluator);
+    }
     /*
      * Asif : If there exists a SingleGroupJunction & no other Filter operand ,
      * then all remaining eval operands ( even if they are CompiledJunction which
@@ -1163,6 +1205,12 @@ public class CompiledJunction extends AbstractCompiledValue implements
   
   @Override
   public boolean isOrderByApplicableAtIndexLevel(ExecutionContext context, String canonicalizedOrderByClause) throws FunctionDomainException, TypeMismatchException, NameResolutionException, QueryInvocationTargetException {
+    CompositeIndexEvaluator compositeEvaluator = getCompositeIndexEvaluator(context);
+    if (compositeEvaluator != null) {
+      // the composite index lookup is preferred over the other filters
+      return compositeEvaluator.isOrderByApplicableAtIndexLevel(context,
+          canonicalizedOrderByClause);
+    }
     if(this._operator == LITERAL_and) {
       //Set<IndexProtocol> usedIndex = new HashSet<IndexProtocol>();
       boolean foundRightIndex = false;
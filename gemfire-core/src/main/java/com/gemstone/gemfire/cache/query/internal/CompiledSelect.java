@@ -18,6 +18,7 @@ package com.gemstone.gemfire.cache.query.internal;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -40,6 +41,7 @@ import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.Struct;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.index.AbstractIndex;
+import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
 import com.gemstone.gemfire.cache.query.internal.index.PartitionedIndex;
 import com.gemstone.gemfire.cache.query.internal.types.ObjectTypeImpl;
 import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
@@ -59,6 +61,13 @@ import com.gemstone.gemfire.pdx.internal.PdxString;
  * @author asif
  */
 public class CompiledSelect extends AbstractCompiledValue {
+
+  /**
+   * With cost based index selection, the fraction of the region that the
+   * index lookup of a single condition has to be estimated to fetch for the
+   * region to be scanned instead.
+   */
+  private static final float FULL_SCAN_RATIO = Float.parseFloat(System.getProperty("gemfire.Query.FULL_SCAN_RATIO", "0.8"));
   
   protected List<CompiledSortCriterion> orderByAttrs; //order by attributes: list of CompiledValue
   private CompiledValue whereClause; // can be null if there isn't one
@@ -475,6 +484,10 @@ public class CompiledSelect extends AbstractCompiledValue {
           PlanInfo planInfo = this.whereClause.getPlanInfo(context);
           try {
             evalAsFilters = planInfo.evalAsFilter;
+            if (evalAsFilters && IndexManager.isCostBasedIndexSelection()
+                && isRegionScanCheaper(context, planInfo, numInd, limitValue)) {
+              evalAsFilters = false;
+            }
             // let context know if there is exactly one index lookup
             context.setOneIndexLookup(planInfo.indexes.size() == 1);
             if (evalAsFilters) {
@@ -682,6 +695,33 @@ public class CompiledSelect extends AbstractCompiledValue {
     return evaluateLimitValue(bindArguments);
   }
   
+  /**
+   * Returns true if the where clause is a single condition whose index lookup
+   * is estimated to fetch so much of the region that iterating over the region
+   * is cheaper. Queries with an order by or a limit, which the index may
+   * apply, and queries with hints always use the index.
+   */
+  private boolean isRegionScanCheaper(ExecutionContext context,
+      PlanInfo planInfo, int numInd, int limitValue)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    if (numInd != 1 || this.orderByAttrs != null || limitValue >= 0
+        || planInfo.indexes.size() != 1
+        || !(this.whereClause instanceof CompiledComparison || this.whereClause instanceof CompiledIn)
+        || (context instanceof QueryExecutionContext && ((QueryExecutionContext)context).hasHints())) {
+      return false;
+    }
+    int size = ((Filter)this.whereClause).getSizeEstimate(context);
+    int regionSize = ((Index)planInfo.indexes.get(0)).getRegion().size();
+    QueryObserver observer = QueryObserverHolder.getInstance();
+    if (size < FULL_SCAN_RATIO * regionSize) {
+      observer.afterIndexSelection(planInfo.indexes, size);
+      return false;
+    }
+    observer.afterIndexSelection(Collections.EMPTY_LIST, regionSize);
+    return true;
+  }
+
   // returns null if result is UNDEFINED
   private SelectResults doIterationEvaluate(ExecutionContext context, boolean evaluateWhereClause)
       throws TypeMismatchException, FunctionDomainException, NameResolutionException,
@@ -47,12 +47,15 @@ public interface CompiledValue {
   public final static int LIKE = -15;
   public final static int FIELD = -16;
   public final static int GROUP_BY_SELECT = -17;
+  public final static int COMPOSITE_KEY = -18;
+  public final static int COMPOSITEINDEXEVALUATOR = -19;
   public static  final int INDEX_RESULT_THRESHOLD_DEFAULT = 100;
   public static final String INDX_THRESHOLD_PROP_STR = "gemfire.Query.INDEX_THRESHOLD_SIZE";
   public static final String INDEX_INFO = "index_info";
   public static final int indexThresholdSize = Integer.getInteger(INDX_THRESHOLD_PROP_STR, INDEX_RESULT_THRESHOLD_DEFAULT).intValue();
   public static final String RESULT_TYPE = "result_type";
   public static final String PROJ_ATTRIB = "projection";
+  public static final String COVERED_PROJECTION = "covered_projection";
   public static final String ORDERBY_ATTRIB = "orderby";
   public static final IndexInfo[] NO_INDEXES_IDENTIFIER = new IndexInfo[0];
   public static final String RESULT_LIMIT = "limit";
@@ -0,0 +1,679 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.query.AmbiguousNameException;
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.Index;
+import com.gemstone.gemfire.cache.query.IndexType;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.Struct;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.index.AbstractIndex;
+import com.gemstone.gemfire.cache.query.internal.index.CompactRangeIndex;
+import com.gemstone.gemfire.cache.query.internal.index.CompositeIndexKey;
+import com.gemstone.gemfire.cache.query.internal.index.IndexData;
+import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
+import com.gemstone.gemfire.cache.query.internal.index.IndexProtocol;
+import com.gemstone.gemfire.cache.query.internal.index.IndexUtils;
+import com.gemstone.gemfire.cache.query.internal.index.PartitionedIndex;
+import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
+import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
+import com.gemstone.gemfire.cache.query.types.ObjectType;
+import com.gemstone.gemfire.cache.query.types.StructType;
+
+/**
+ * Filter object of this type gets created by a CompiledJunction with the AND
+ * operator when a composite index covers some of its conditions: equalities
+ * on a prefix of the expressions of the index, optionally followed by a lower
+ * and an upper bound on the next expression. The conditions are evaluated
+ * together with a single range lookup of the index, like "status = 'open'
+ * AND ts > $1" on an index over "status, ts", instead of intersecting the
+ * results of two indexes or iterating the region.
+ * <p>
+ * The results of the lookup are sorted on the expression after the
+ * equalities, so the evaluator can also apply an order by on it. When the
+ * select list of the query only has expressions of the index, the results
+ * are projected from the index keys, so the index covers the query and the
+ * values of the entries are not read at all. Trailing expressions of a
+ * composite index can be added just to carry such projected values.
+ *
+ * @since 9.0
+ */
+class CompositeIndexEvaluator extends AbstractCompiledValue implements
+    Indexable {
+
+  /** The conditions of the junction this evaluator replaces */
+  private final CompiledValue[] conditions;
+
+  private final IndexInfo indexInfo;
+
+  private final RuntimeIterator independentIterator;
+
+  /** The keys of the equality conditions in the order of the index */
+  private final CompiledValue[] equalityKeys;
+
+  private final CompiledValue lowerBoundKey;
+
+  private final int lowerBoundOperator;
+
+  private final CompiledValue upperBoundKey;
+
+  private final int upperBoundOperator;
+
+  private CompositeIndexEvaluator(CompiledValue[] conditions,
+      IndexInfo indexInfo, RuntimeIterator independentIterator,
+      CompiledValue[] equalityKeys, Condition lowerBound, Condition upperBound) {
+    this.conditions = conditions;
+    this.indexInfo = indexInfo;
+    this.independentIterator = independentIterator;
+    this.equalityKeys = equalityKeys;
+    this.lowerBoundKey = lowerBound == null ? null : lowerBound.key;
+    this.lowerBoundOperator = lowerBound == null ? -1 : lowerBound.operator;
+    this.upperBoundKey = upperBound == null ? null : upperBound.key;
+    this.upperBoundOperator = upperBound == null ? -1 : upperBound.operator;
+  }
+
+  /**
+   * Finds the composite index that covers the most of the given conditions
+   * of an AND junction.
+   *
+   * @return the evaluator of the covered conditions, or null if no composite
+   *         index covers at least two of them, or one that has no index of
+   *         its own
+   */
+  static CompositeIndexEvaluator create(CompiledValue[] operands,
+      ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    if (!IndexUtils.indexesEnabled) {
+      return null;
+    }
+    // the candidate conditions of each independent iterator, by the
+    // canonicalized expression of their path
+    Map iterToConditions = new HashMap();
+    for (int i = 0; i < operands.length; i++) {
+      Condition condition = Condition.create(operands[i], context);
+      if (condition == null) {
+        continue;
+      }
+      Map conditions = (Map)iterToConditions.get(condition.independentIterator);
+      if (conditions == null) {
+        conditions = new HashMap();
+        iterToConditions.put(condition.independentIterator, conditions);
+      }
+      List list = (List)conditions.get(condition.pathExpr);
+      if (list == null) {
+        list = new ArrayList(2);
+        conditions.put(condition.pathExpr, list);
+      }
+      list.add(condition);
+    }
+    List bestConditions = null;
+    int bestSize = 0;
+    RuntimeIterator bestIterator = null;
+    for (Iterator itr = iterToConditions.entrySet().iterator(); itr.hasNext();) {
+      Map.Entry entry = (Map.Entry)itr.next();
+      RuntimeIterator rIter = (RuntimeIterator)entry.getKey();
+      String regionPath = context.getRegionPathForIndependentRuntimeIterator(rIter);
+      if (regionPath == null) {
+        continue;
+      }
+      Region region = context.getCache().getRegion(regionPath);
+      IndexManager indexManager = IndexUtils.getIndexManager(region, false);
+      if (indexManager == null) {
+        continue;
+      }
+      for (Iterator indexes = indexManager.getIndexes(IndexType.FUNCTIONAL)
+          .iterator(); indexes.hasNext();) {
+        Object index = indexes.next();
+        if (context instanceof QueryExecutionContext
+            && ((QueryExecutionContext)context).hasHints()
+            && !((QueryExecutionContext)context).isHinted(((Index)index).getName())) {
+          continue;
+        }
+        if (index instanceof PartitionedIndex) {
+          index = ((PartitionedIndex)index).getBucketIndex();
+          if (index == null) {
+            continue;
+          }
+        }
+        String[] components = CompiledCompositeKey
+            .getCanonicalizedComponents(((AbstractIndex)index)
+                .getCanonicalizedIndexedExpression());
+        if (components == null) {
+          continue;
+        }
+        List covered = getCoveredConditions(components,
+            (Map)entry.getValue(), context);
+        int size = covered == null ? 0 : size(covered);
+        if (size > bestSize) {
+          bestConditions = covered;
+          bestSize = size;
+          bestIterator = rIter;
+        }
+      }
+    }
+    if (bestConditions == null) {
+      return null;
+    }
+    return create(bestConditions, bestIterator, context);
+  }
+
+  /**
+   * Returns the conditions an index over the given expressions would
+   * evaluate, the equalities followed by the lower and the upper bound, each
+   * of them null if missing.
+   */
+  private static List getCoveredConditions(String[] components,
+      Map conditions, ExecutionContext context) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    List covered = new ArrayList(components.length + 1);
+    int i = 0;
+    for (; i < components.length; i++) {
+      Condition equality = find((List)conditions.get(components[i]),
+          OQLLexerTokenTypes.TOK_EQ, OQLLexerTokenTypes.TOK_EQ);
+      if (equality == null) {
+        break;
+      }
+      covered.add(equality);
+    }
+    Condition lowerBound = null;
+    Condition upperBound = null;
+    if (i < components.length) {
+      List list = (List)conditions.get(components[i]);
+      lowerBound = find(list, OQLLexerTokenTypes.TOK_GT, OQLLexerTokenTypes.TOK_GE);
+      upperBound = find(list, OQLLexerTokenTypes.TOK_LT, OQLLexerTokenTypes.TOK_LE);
+    }
+    covered.add(lowerBound);
+    covered.add(upperBound);
+    int size = size(covered);
+    if (size == 0) {
+      return null;
+    }
+    if (size == 1) {
+      // a single condition is only worth it if it has no index of its own
+      Condition condition = i == 1 ? (Condition)covered.get(0)
+          : (lowerBound != null ? lowerBound : upperBound);
+      if (condition.operand.getPlanInfo(context).evalAsFilter) {
+        return null;
+      }
+    }
+    return covered;
+  }
+
+  /**
+   * Returns the number of conditions in a list returned by
+   * {@link #getCoveredConditions}.
+   */
+  private static int size(List covered) {
+    int size = covered.size() - 2;
+    for (int i = size; i < covered.size(); i++) {
+      if (covered.get(i) != null) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  private static Condition find(List conditions, int operator1, int operator2) {
+    if (conditions != null) {
+      for (Iterator itr = conditions.iterator(); itr.hasNext();) {
+        Condition condition = (Condition)itr.next();
+        if (condition.operator == operator1 || condition.operator == operator2) {
+          return condition;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static CompositeIndexEvaluator create(List covered,
+      RuntimeIterator rIter, ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException,
+      NameResolutionException {
+    int numEqualities = covered.size() - 2;
+    Condition lowerBound = (Condition)covered.get(numEqualities);
+    Condition upperBound = (Condition)covered.get(numEqualities + 1);
+    boolean hasRange = lowerBound != null || upperBound != null;
+    CompiledValue[] paths = new CompiledValue[numEqualities + (hasRange ? 1 : 0)];
+    CompiledValue[] equalityKeys = new CompiledValue[numEqualities];
+    List conditions = new ArrayList(covered.size());
+    for (int i = 0; i < numEqualities; i++) {
+      Condition equality = (Condition)covered.get(i);
+      paths[i] = equality.path;
+      equalityKeys[i] = equality.key;
+      conditions.add(equality.operand);
+    }
+    if (lowerBound != null) {
+      paths[numEqualities] = lowerBound.path;
+      conditions.add(lowerBound.operand);
+    }
+    if (upperBound != null) {
+      paths[numEqualities] = upperBound.path;
+      conditions.add(upperBound.operand);
+    }
+    // the path matches every composite index that starts with its expressions
+    CompiledCompositeKey path = new CompiledCompositeKey(paths);
+    path.computeDependencies(context);
+    IndexData indexData = QueryUtils.getAvailableIndexIfAny(path, context,
+        OQLLexerTokenTypes.TOK_GT);
+    if (indexData == null) {
+      return null;
+    }
+    IndexProtocol index = indexData.getIndex();
+    if (!index.isValid()) {
+      return null;
+    }
+    CompiledValue[] replaced = (CompiledValue[])conditions
+        .toArray(new CompiledValue[conditions.size()]);
+    // the index verifies the entries that are being updated during the
+    // lookup against these conditions
+    CompiledValue condition = replaced.length == 1 ? replaced[0]
+        : new CompiledJunction(replaced, LITERAL_and);
+    IndexInfo indexInfo = new IndexInfo(condition, path, index,
+        indexData.getMatchLevel(), indexData.getMapping(),
+        OQLLexerTokenTypes.TOK_EQ);
+    CompositeIndexEvaluator evaluator = new CompositeIndexEvaluator(replaced,
+        indexInfo, rIter, equalityKeys, lowerBound, upperBound);
+    evaluator.computeDependencies(context);
+    return evaluator;
+  }
+
+  /**
+   * Returns true if the given operand of the junction is evaluated by this
+   * evaluator.
+   */
+  boolean covers(CompiledValue operand) {
+    for (int i = 0; i < this.conditions.length; i++) {
+      if (this.conditions[i] == operand) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  RuntimeIterator getIndependentIterator() {
+    return this.independentIterator;
+  }
+
+  IndexProtocol getIndex() {
+    return this.indexInfo._index;
+  }
+
+  @Override
+  public PlanInfo getPlanInfo(ExecutionContext context) {
+    PlanInfo planInfo = new PlanInfo();
+    planInfo.evalAsFilter = true;
+    // the index evaluates several conditions of the junction at once
+    planInfo.isPreferred = true;
+    planInfo.indexes.add(this.indexInfo._index);
+    return planInfo;
+  }
+
+  public IndexInfo[] getIndexInfo(ExecutionContext context) {
+    return new IndexInfo[] { this.indexInfo };
+  }
+
+  public boolean isRangeEvaluatable() {
+    return false;
+  }
+
+  @Override
+  public Set computeDependencies(ExecutionContext context)
+      throws TypeMismatchException, AmbiguousNameException,
+      NameResolutionException {
+    return context.addDependencies(this, this.indexInfo._key()
+        .computeDependencies(context));
+  }
+
+  public Object evaluate(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    return this.indexInfo._key().evaluate(context);
+  }
+
+  @Override
+  public SelectResults filterEvaluate(ExecutionContext context,
+      SelectResults iterationLimit) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public SelectResults filterEvaluate(ExecutionContext context,
+      SelectResults iterationLimit, boolean completeExpansionNeeded,
+      CompiledValue iterOperands, RuntimeIterator[] indpndntItrs,
+      boolean isIntersection, boolean conditioningNeeded, boolean evalProj)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    ObjectType resultType = this.indexInfo._index.getResultSetType();
+    int[] coveredProjection = evalProj && iterOperands == null
+        ? getCoveredProjection(context) : null;
+    if (coveredProjection != null) {
+      // the lookup answers the projection from the index keys
+      resultType = (ObjectType)context.cacheGet(RESULT_TYPE);
+      context.cachePut(RESULT_TYPE, Boolean.TRUE);
+    }
+    int indexFieldsSize = -1;
+    SelectResults set = null;
+    Boolean orderByClause = (Boolean)context.cacheGet(CompiledValue.CAN_APPLY_ORDER_BY_AT_INDEX);
+    boolean useLinkedDataStructure = false;
+    boolean nullValuesAtStart = true;
+    if (orderByClause != null && orderByClause.booleanValue()) {
+      List orderByAttrs = (List)context.cacheGet(CompiledValue.ORDERBY_ATTRIB);
+      useLinkedDataStructure = orderByAttrs.size() == 1;
+      nullValuesAtStart = !((CompiledSortCriterion)orderByAttrs.get(0)).getCriterion();
+    }
+    if (resultType instanceof StructType) {
+      if (useLinkedDataStructure) {
+        set = context.isDistinct() ? new LinkedStructSet((StructTypeImpl)resultType)
+            : new SortedResultsBag<Struct>((StructTypeImpl)resultType, nullValuesAtStart);
+      }
+      else {
+        set = QueryUtils.createStructCollection(context, (StructTypeImpl)resultType);
+      }
+      indexFieldsSize = ((StructTypeImpl)resultType).getFieldNames().length;
+    }
+    else {
+      if (useLinkedDataStructure) {
+        set = context.isDistinct() ? new LinkedResultSet(resultType)
+            : new SortedResultsBag(resultType, nullValuesAtStart);
+      }
+      else {
+        set = QueryUtils.createResultCollection(context, resultType);
+      }
+      indexFieldsSize = 1;
+    }
+    // Limit can not be applied at index level as the other conditions of the
+    // junction are applied after the lookup
+    context.cachePut(CompiledValue.CAN_APPLY_LIMIT_AT_INDEX, Boolean.FALSE);
+    CompositeIndexKey lowerKey = null;
+    CompositeIndexKey upperKey = null;
+    Object[] prefix = evaluateKeys(context);
+    if (prefix != null) {
+      lowerKey = evaluateBound(context, prefix, this.lowerBoundKey,
+          this.lowerBoundOperator == OQLLexerTokenTypes.TOK_GT, true);
+      upperKey = evaluateBound(context, prefix, this.upperBoundKey,
+          this.upperBoundOperator == OQLLexerTokenTypes.TOK_LE, false);
+    }
+    // a null or UNDEFINED key in a range, or an UNDEFINED key in an
+    // equality, matches nothing
+    if (lowerKey != null && upperKey != null) {
+      QueryObserver observer = QueryObserverHolder.getInstance();
+      try {
+        observer.beforeIndexLookup(this.indexInfo._index,
+            OQLLexerTokenTypes.TOK_GE, lowerKey, OQLLexerTokenTypes.TOK_LE,
+            upperKey, null);
+        context.cachePut(CompiledValue.INDEX_INFO, this.indexInfo);
+        context.cachePut(CompiledValue.COVERED_PROJECTION, coveredProjection);
+        this.indexInfo._index.query(lowerKey, OQLLexerTokenTypes.TOK_GE,
+            upperKey, OQLLexerTokenTypes.TOK_LE, set, null, context);
+      }
+      finally {
+        context.cachePut(CompiledValue.COVERED_PROJECTION, null);
+        observer.afterIndexLookup(set);
+      }
+    }
+    if (coveredProjection != null) {
+      return set;
+    }
+    return QueryUtils.getconditionedIndexResults(set, this.indexInfo, context,
+        indexFieldsSize, completeExpansionNeeded, iterOperands, indpndntItrs);
+  }
+
+  /**
+   * Returns the position in the keys of the index of the value of each
+   * projection attribute of the query, if the select list is made of
+   * expressions of the index only. A compact range index can then build the
+   * results from its keys without reading the values of the entries.
+   *
+   * @return the positions, or null if the projection is not covered by the
+   *         index or is not evaluated by the lookup
+   */
+  private int[] getCoveredProjection(ExecutionContext context)
+      throws AmbiguousNameException, TypeMismatchException,
+      NameResolutionException {
+    if (context.isCqQueryContext()
+        || !(context.cacheGet(RESULT_TYPE) instanceof ObjectType)
+        || context.getCurrentIterators().size() != 1) {
+      return null;
+    }
+    List projAttrib = (List)context.cacheGet(PROJ_ATTRIB);
+    if (projAttrib == null) {
+      return null;
+    }
+    Object index = this.indexInfo._index;
+    if (index instanceof PartitionedIndex) {
+      index = ((PartitionedIndex)index).getBucketIndex();
+    }
+    if (!(index instanceof CompactRangeIndex)) {
+      return null;
+    }
+    String[] components = CompiledCompositeKey
+        .getCanonicalizedComponents(this.indexInfo._index
+            .getCanonicalizedIndexedExpression());
+    int[] positions = new int[projAttrib.size()];
+    for (int i = 0; i < positions.length; i++) {
+      Object[] projDef = (Object[])projAttrib.get(i);
+      StringBuffer sb = new StringBuffer();
+      ((CompiledValue)projDef[1]).generateCanonicalizedExpression(sb, context);
+      String projExpr = sb.toString();
+      positions[i] = -1;
+      for (int j = 0; j < components.length; j++) {
+        if (components[j].equals(projExpr)) {
+          positions[i] = j;
+          break;
+        }
+      }
+      if (positions[i] == -1) {
+        return null;
+      }
+    }
+    return positions;
+  }
+
+  /**
+   * Returns the values of the equality keys, or null if one of them is
+   * UNDEFINED.
+   */
+  private Object[] evaluateKeys(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Object[] values = new Object[this.equalityKeys.length];
+    for (int i = 0; i < values.length; i++) {
+      Object value = this.equalityKeys[i].evaluate(context);
+      if (value == QueryService.UNDEFINED) {
+        return null;
+      }
+      values[i] = CompiledCompositeKey.indexValueFor(value);
+    }
+    return values;
+  }
+
+  /**
+   * Returns the composite key bounding the lookup from below or above. A
+   * bound never equals a key of the index, so whether the keys starting with
+   * the values of a bound are in the range depends only on which side of
+   * them the bound sorts.
+   *
+   * @param after
+   *          true if the bound is after the keys starting with its values
+   * @return the bound, or null if the key of the range is null or UNDEFINED
+   */
+  private CompositeIndexKey evaluateBound(ExecutionContext context,
+      Object[] prefix, CompiledValue key, boolean after, boolean lower)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    Object[] values = prefix;
+    if (key == null) {
+      // no bound on this side, the range includes all the keys of the prefix
+      after = !lower;
+    }
+    else {
+      Object value = key.evaluate(context);
+      if (value == null || value == QueryService.UNDEFINED) {
+        return null;
+      }
+      values = new Object[prefix.length + 1];
+      System.arraycopy(prefix, 0, values, 0, prefix.length);
+      values[prefix.length] = CompiledCompositeKey.indexValueFor(value);
+    }
+    return after ? CompositeIndexKey.highBound(values) : CompositeIndexKey
+        .lowBound(values);
+  }
+
+  @Override
+  public SelectResults auxFilterEvaluate(ExecutionContext context,
+      SelectResults intermediateResults) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * An order by on one of the expressions of the equalities or on the one
+   * after them is applied by the lookup, as the results are sorted on it.
+   */
+  @Override
+  public boolean isOrderByApplicableAtIndexLevel(ExecutionContext context,
+      String canonicalizedOrderByClause) {
+    String[] components = CompiledCompositeKey
+        .getCanonicalizedComponents(this.indexInfo._index
+            .getCanonicalizedIndexedExpression());
+    for (int i = 0; i <= this.equalityKeys.length && i < components.length; i++) {
+      if (components[i].equals(canonicalizedOrderByClause)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isConditioningNeededForIndex(RuntimeIterator independentIter,
+      ExecutionContext context, boolean completeExpnsNeeded) {
+    return true;
+  }
+
+  @Override
+  public boolean isProjectionEvaluationAPossibility(ExecutionContext context) {
+    return true;
+  }
+
+  @Override
+  public boolean isLimitApplicableAtIndexLevel(ExecutionContext context) {
+    return false;
+  }
+
+  public int getType() {
+    return COMPOSITEINDEXEVALUATOR;
+  }
+
+  /**
+   * The conditions of the lookup are expected to match fewer entries than
+   * any of them alone.
+   */
+  @Override
+  public int getSizeEstimate(ExecutionContext context) {
+    return 1;
+  }
+
+  @Override
+  public int getOperator() {
+    return LITERAL_and;
+  }
+
+  @Override
+  public boolean isBetterFilter(Filter comparedTo, ExecutionContext context,
+      int thisSize) {
+    return true;
+  }
+
+  /**
+   * A comparison of an expression of the current scope with a key that a
+   * composite index can evaluate.
+   */
+  private static class Condition {
+    final CompiledComparison operand;
+    final CompiledValue path;
+    final String pathExpr;
+    final CompiledValue key;
+    final int operator;
+    final RuntimeIterator independentIterator;
+
+    private Condition(CompiledComparison operand, CompiledValue path,
+        String pathExpr, CompiledValue key, int operator,
+        RuntimeIterator independentIterator) {
+      this.operand = operand;
+      this.path = path;
+      this.pathExpr = pathExpr;
+      this.key = key;
+      this.operator = operator;
+      this.independentIterator = independentIterator;
+    }
+
+    /**
+     * Returns the condition for the given operand, or null if it is not an
+     * equality or a range condition on a single iterator of the current scope.
+     */
+    static Condition create(CompiledValue operand, ExecutionContext context)
+        throws AmbiguousNameException, TypeMismatchException,
+        NameResolutionException {
+      if (operand.getType() != COMPARISON) {
+        return null;
+      }
+      CompiledComparison comparison = (CompiledComparison)operand;
+      CompiledComparison.PathAndKey pathAndKey = comparison.getPathAndKey(context);
+      if (pathAndKey == null) {
+        return null;
+      }
+      int operator = comparison.reflectOnOperator(pathAndKey._key);
+      switch (operator) {
+        case OQLLexerTokenTypes.TOK_EQ:
+        case OQLLexerTokenTypes.TOK_LT:
+        case OQLLexerTokenTypes.TOK_LE:
+        case OQLLexerTokenTypes.TOK_GT:
+        case OQLLexerTokenTypes.TOK_GE:
+          break;
+        default:
+          return null;
+      }
+      Set set = QueryUtils.getCurrentScopeUltimateRuntimeIteratorsIfAny(
+          comparison, context);
+      if (set.size() != 1) {
+        return null;
+      }
+      StringBuffer sb = new StringBuffer();
+      pathAndKey._path.generateCanonicalizedExpression(sb, context);
+      return new Condition(comparison, pathAndKey._path, sb.toString(),
+          pathAndKey._key, operator, (RuntimeIterator)set.iterator().next());
+    }
+  }
+}
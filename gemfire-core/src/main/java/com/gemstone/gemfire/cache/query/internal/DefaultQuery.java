@@ -41,6 +41,7 @@ import com.gemstone.gemfire.cache.partition.PartitionRegionHelper;
 import com.gemstone.gemfire.cache.query.FunctionDomainException;
 import com.gemstone.gemfire.cache.query.NameResolutionException;
 import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryCursor;
 import com.gemstone.gemfire.cache.query.QueryException;
 import com.gemstone.gemfire.cache.query.QueryInvalidException;
 import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
@@ -50,6 +51,7 @@ import com.gemstone.gemfire.cache.query.RegionNotFoundException;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.cq.InternalCqQuery;
+import com.gemstone.gemfire.cache.query.types.CollectionType;
 import com.gemstone.gemfire.internal.NanoTimer;
 import com.gemstone.gemfire.internal.cache.BucketRegion;
 import com.gemstone.gemfire.internal.cache.CachePerfStats;
@@ -57,6 +59,7 @@ import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.cache.LocalDataSet;
 import com.gemstone.gemfire.internal.cache.PRQueryProcessor;
 import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+import com.gemstone.gemfire.internal.cache.PartitionedRegionQueryCursor;
 import com.gemstone.gemfire.internal.cache.TXManagerImpl;
 import com.gemstone.gemfire.internal.cache.TXStateProxy;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
@@ -428,6 +431,103 @@ public class DefaultQuery implements Query {
 
   }
 
+  public QueryCursor executeStreaming(int pageSize)
+  throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+          QueryInvocationTargetException {
+    return executeStreaming(pageSize, EMPTY_ARRAY);
+  }
+
+  /**
+   * Streams the results of simple SELECT queries on a partitioned region,
+   * and of queries sent to a server, a page at a time. Any other query is
+   * executed as a whole and the cursor iterates over its result. The time
+   * spent fetching the results of a streamed query is added to the
+   * statistics of the query once its cursor is exhausted or closed.
+   * @since 9.0
+   */
+  public QueryCursor executeStreaming(int pageSize, Object[] parameters)
+  throws FunctionDomainException, TypeMismatchException, NameResolutionException,
+          QueryInvocationTargetException {
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("The page size of a streaming query must be positive: " + pageSize);
+    }
+    if (parameters == null) {
+      throw new IllegalArgumentException(LocalizedStrings.DefaultQuery_PARAMETERS_CANNOT_BE_NULL.toLocalizedString());
+    }
+    long startTime = CachePerfStats.getStatTime();
+    if (this.serverProxy != null) {
+      return new StatisticsCursor(executeStreamingOnServer(pageSize, parameters), startTime);
+    }
+    QueryExecutor qe = checkQueryOnPR(parameters);
+    if (qe instanceof PartitionedRegion && PartitionedRegionQueryCursor.isStreamable(this)) {
+      return new StatisticsCursor(new PartitionedRegionQueryCursor(
+          (PartitionedRegion)qe, this, parameters, pageSize), startTime);
+    }
+    return new ResultsCursor(execute(parameters));
+  }
+
+  /**
+   * Accumulates the time spent in the methods of a streaming cursor, which
+   * is where its results are fetched, and records it as one execution of
+   * this query once the cursor is exhausted or closed.
+   */
+  private class StatisticsCursor implements QueryCursor {
+    private final QueryCursor cursor;
+
+    private long executionTime;
+
+    private boolean recorded;
+
+    StatisticsCursor(QueryCursor cursor, long startTime) {
+      this.cursor = cursor;
+      this.executionTime = CachePerfStats.getStatTime() - startTime;
+    }
+
+    public CollectionType getCollectionType() {
+      long start = CachePerfStats.getStatTime();
+      try {
+        return this.cursor.getCollectionType();
+      } finally {
+        this.executionTime += CachePerfStats.getStatTime() - start;
+      }
+    }
+
+    public boolean hasNext() {
+      long start = CachePerfStats.getStatTime();
+      boolean hasNext;
+      try {
+        hasNext = this.cursor.hasNext();
+      } finally {
+        this.executionTime += CachePerfStats.getStatTime() - start;
+      }
+      if (!hasNext) {
+        recordExecution();
+      }
+      return hasNext;
+    }
+
+    public Object next() {
+      long start = CachePerfStats.getStatTime();
+      try {
+        return this.cursor.next();
+      } finally {
+        this.executionTime += CachePerfStats.getStatTime() - start;
+      }
+    }
+
+    public void close() {
+      this.cursor.close();
+      recordExecution();
+    }
+
+    private void recordExecution() {
+      if (!this.recorded) {
+        this.recorded = true;
+        updateStatistics(this.executionTime);
+      }
+    }
+  }
+
   //For Order by queries ,since they are already ordered by the comparator 
   //&& it takes care of conversion, we do not have to wrap it in a wrapper
   public boolean needsPDXDeserializationWrapper(boolean isQueryOnPR) {
@@ -471,6 +571,20 @@ public class DefaultQuery implements Query {
     return result;
   }
 
+  private QueryCursor executeStreamingOnServer(int pageSize, Object[] parameters) {
+    try {
+      if (proxyCache != null) {
+        if (this.proxyCache.isClosed()) {
+          throw new CacheClosedException("Cache is closed for this user.");
+        }
+        UserAttributes.userAttributes.set(this.proxyCache.getUserAttributes());
+      }
+      return this.serverProxy.queryStreaming(this.queryString, parameters, pageSize);
+    } finally {
+      UserAttributes.userAttributes.set(null);
+    }
+  }
+
   /** Execute a PR Query on the specified bucket. Assumes query already meets restrictions
     * for PR Query, and the first iterator in the FROM clause can be replaced with the
     * BucketRegion.
@@ -22,9 +22,11 @@ package com.gemstone.gemfire.cache.query.internal;
 import java.util.ArrayList;
 import java.util.List;
 import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.Index;
 import com.gemstone.gemfire.cache.query.NameResolutionException;
 import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
 
 /**
  * This structure contains the filter evaluable and iter evaluable
@@ -40,6 +42,12 @@ import com.gemstone.gemfire.cache.query.TypeMismatchException;
  *  
  */
 public class GroupJunction extends AbstractGroupOrRangeJunction {
+  /**
+   * The cost of evaluating a condition on an entry relative to the cost of
+   * fetching an entry from an index, used by the cost based index selection.
+   */
+  private static final int CONDITION_COST = Integer.getInteger("gemfire.Query.CONDITION_COST", 4).intValue();
+
   private List unevaluatedFilterOperands = null; 
 
   GroupJunction(int operator, RuntimeIterator[] indpndntItr,
@@ -97,6 +105,9 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
           }
         }
       }
+      else if (isCostBasedIndexSelectionApplicable(context)) {
+        indexCount = organizeFilterOperandsByCost(context, evalOperands);
+      }
       else {
         //Hint was not provided so continue with our single index solution
         /*
@@ -184,6 +195,89 @@ public class GroupJunction extends AbstractGroupOrRangeJunction {
     return createOrganizedOperandsObject(indexCount,evalOperands);    
   }
   
+  /**
+   * Returns true if the filter operands of this AND junction should be
+   * organized by {@link #organizeFilterOperandsByCost}. Queries with hints
+   * and queries with a condition preferred for their order by keep using the
+   * rule based selection.
+   */
+  private boolean isCostBasedIndexSelectionApplicable(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    if (!IndexManager.isCostBasedIndexSelection()
+        || (context instanceof QueryExecutionContext && ((QueryExecutionContext)context).hasHints())) {
+      return false;
+    }
+    for (int i = 0; i < _operands.length; i++) {
+      if (_operands[i].getPlanInfo(context).isPreferred) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Orders the filter operands by their estimated result size and decides how
+   * many of them to evaluate using their indexes. The smallest one is always
+   * used. Each next one is intersected with it only if fetching its index
+   * results is estimated to be cheaper than evaluating its condition on the
+   * entries left so far. The other operands are evaluated by iteration.
+   * 
+   * @param evalOperands
+   *          receives the filter operands to use, best first, followed by the
+   *          operands to iterate on
+   * @return the number of filter operands to use
+   */
+  private int organizeFilterOperandsByCost(ExecutionContext context,
+      List evalOperands) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    List filters = new ArrayList(_operands.length);
+    List<Integer> sizes = new ArrayList<Integer>(_operands.length);
+    List iterOperands = new ArrayList(_operands.length);
+    for (int i = 0; i < _operands.length; i++) {
+      if (!_operands[i].getPlanInfo(context).evalAsFilter) {
+        iterOperands.add(_operands[i]);
+        continue;
+      }
+      int size = ((Filter)_operands[i]).getSizeEstimate(context);
+      int j = 0;
+      while (j < sizes.size() && sizes.get(j) <= size) {
+        j++;
+      }
+      filters.add(j, _operands[i]);
+      sizes.add(j, size);
+    }
+
+    List indexes = new ArrayList(filters.size());
+    indexes.addAll(((CompiledValue)filters.get(0)).getPlanInfo(context).indexes);
+    int indexCount = 1;
+    int regionSize = getRegionSize(indexes);
+    double remaining = sizes.get(0);
+    for (int i = 1; i < filters.size(); i++) {
+      int size = sizes.get(i);
+      if (regionSize <= 0 || size == Integer.MAX_VALUE
+          || 2.0 * size >= CONDITION_COST * remaining) {
+        break;
+      }
+      indexes.addAll(((CompiledValue)filters.get(i)).getPlanInfo(context).indexes);
+      // assume the conditions are independent of each other
+      remaining = remaining * size / regionSize;
+      indexCount++;
+    }
+    evalOperands.addAll(filters);
+    evalOperands.addAll(iterOperands);
+    QueryObserverHolder.getInstance().afterIndexSelection(indexes, sizes.get(0));
+    return indexCount;
+  }
+
+  private static int getRegionSize(List indexes) {
+    if (indexes.isEmpty()) {
+      return 0;
+    }
+    return ((Index)indexes.get(0)).getRegion().size();
+  }
+
   public int getSizeEstimate(ExecutionContext context)throws FunctionDomainException, TypeMismatchException, NameResolutionException, QueryInvocationTargetException  {
 	return 1;
   }
@@ -185,6 +185,29 @@ public class QueryMonitor implements Runnable {
       throw new QueryExecutionCanceledException();
     }
   }
+
+  /**
+   * Returns the query execution status of the current thread, which is set
+   * to true when the query the thread is monitored for gets canceled.
+   * @since 9.0
+   */
+  public static AtomicBoolean getQueryExecutionStatus() {
+    return queryExecutionStatus.get();
+  }
+
+  /**
+   * Makes the current thread share the given query execution status, so that
+   * a thread helping a monitored thread to execute its query is canceled
+   * along with it. A null status gives the thread back its own status.
+   * @since 9.0
+   */
+  public static void setQueryExecutionStatus(AtomicBoolean status) {
+    if (status == null) {
+      queryExecutionStatus.remove();
+    } else {
+      queryExecutionStatus.set(status);
+    }
+  }
  
   /**
    * Stops query monitoring.
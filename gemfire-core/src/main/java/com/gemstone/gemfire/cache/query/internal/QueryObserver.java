@@ -335,4 +335,18 @@ public interface QueryObserver {
    */
   void orderByColumnsEqual();
 
+  /**
+   * Invoked after the cost based index selection has chosen how to evaluate
+   * the conditions of a where clause or of an AND junction.
+   * 
+   * @param indexes
+   *          the indexes whose results will be intersected, best first, or an
+   *          empty list if the region will be scanned instead
+   * @param estimatedSize
+   *          the estimated number of entries fetched by the first index
+   *          lookup or by the scan
+   * @since 9.0
+   */
+  void afterIndexSelection(List indexes, int estimatedSize);
+
 }
@@ -338,4 +338,7 @@ public class QueryObserverAdapter implements QueryObserver {
   public void orderByColumnsEqual() {
     
   }
+
+  public void afterIndexSelection(List indexes, int estimatedSize) {
+  }
 }
@@ -36,6 +36,7 @@ import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.Struct;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+import com.gemstone.gemfire.cache.query.internal.index.IndexManager;
 import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
 import com.gemstone.gemfire.cache.query.internal.types.StructTypeImpl;
 import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
@@ -564,7 +565,20 @@ public class RangeJunction extends AbstractGroupOrRangeJunction {
   }
 
   public int getSizeEstimate(ExecutionContext context)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException
   {
+    if (IndexManager.isCostBasedIndexSelection()) {
+      // the range can not match more than its most selective condition
+      int size = Integer.MAX_VALUE;
+      for (int i = 0; i < _operands.length; i++) {
+        if (_operands[i] instanceof Filter
+            && _operands[i].getPlanInfo(context).evalAsFilter) {
+          size = Math.min(size, ((Filter)_operands[i]).getSizeEstimate(context));
+        }
+      }
+      return size;
+    }
     //TODO:Asif:Try to estimate better
      return RANGE_SIZE_ESTIMATE;
   }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+
+import com.gemstone.gemfire.cache.query.QueryCursor;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.internal.types.CollectionTypeImpl;
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+import com.gemstone.gemfire.cache.query.types.CollectionType;
+
+/**
+ * A {@link QueryCursor} over the complete result of a query, returned for the
+ * queries whose results can not be streamed.
+ *
+ * @since 9.0
+ */
+public class ResultsCursor implements QueryCursor {
+
+  private final CollectionType collectionType;
+
+  private Iterator iterator;
+
+  /**
+   * @param result the result of the query, a {@link SelectResults} or the
+   *          one object the query resolved to
+   */
+  public ResultsCursor(Object result) {
+    if (result instanceof SelectResults) {
+      this.collectionType = ((SelectResults)result).getCollectionType();
+      this.iterator = ((SelectResults)result).iterator();
+    }
+    else {
+      this.collectionType = new CollectionTypeImpl(Collection.class,
+          result == null ? TypeUtils.OBJECT_TYPE : TypeUtils.getObjectType(result.getClass()));
+      this.iterator = Collections.singletonList(result).iterator();
+    }
+  }
+
+  public CollectionType getCollectionType() {
+    return this.collectionType;
+  }
+
+  public boolean hasNext() {
+    return this.iterator.hasNext();
+  }
+
+  public Object next() {
+    return this.iterator.next();
+  }
+
+  public void close() {
+    this.iterator = Collections.EMPTY_LIST.iterator();
+  }
+}
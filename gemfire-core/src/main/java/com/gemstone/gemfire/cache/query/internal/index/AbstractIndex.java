@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -43,6 +44,7 @@ import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.Struct;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.Bag;
+import com.gemstone.gemfire.cache.query.internal.CompiledCompositeKey;
 import com.gemstone.gemfire.cache.query.internal.CompiledID;
 import com.gemstone.gemfire.cache.query.internal.CompiledIndexOperation;
 import com.gemstone.gemfire.cache.query.internal.CompiledIteratorDef;
@@ -140,6 +142,12 @@ public abstract class AbstractIndex implements IndexProtocol
   //Flag to indicate if the index is populated with data
   protected volatile boolean isPopulated = false;
 
+  /**
+   * The key distribution used by the cost based index selection. Only built
+   * for sorted indexes, and only once a query asks for a range estimate.
+   */
+  private volatile IndexHistogram histogram;
+
   AbstractIndex(String indexName, Region region, String fromClause,
       String indexedExpression, String projectionAttributes,
       String origFromClause, String origIndxExpr, String[] defintions, IndexStatistics stats) {
@@ -534,6 +542,11 @@ public abstract class AbstractIndex implements IndexProtocol
       throws AmbiguousNameException, TypeMismatchException,
       NameResolutionException
   {
+    if (indexExpr instanceof CompiledCompositeKey) {
+      // a lookup on a prefix of the expressions of a composite index
+      return CompiledCompositeKey.isPrefixOf(conditionExprStr,
+          this.indexedExpression);
+    }
     return this.indexedExpression.equals(conditionExprStr);
   }
 
@@ -670,6 +683,23 @@ public abstract class AbstractIndex implements IndexProtocol
     }
   }
 
+  /**
+   * Adds the values of the projection attributes of a result to the results,
+   * as {@link #applyProjection} does with the values it evaluates. Used when
+   * the values are taken from the index keys instead of the entry.
+   */
+  void addProjectedValues(Collection result, Object[] values) {
+    boolean isStruct = result instanceof SelectResults
+        && ((SelectResults)result).getCollectionType().getElementType() != null
+        && ((SelectResults)result).getCollectionType().getElementType().isStructType();
+    if (isStruct) {
+      this.addToStructsWithUnionOrIntersection(result, null, false, values);
+    }
+    else {
+      this.addToResultsWithUnionOrIntersection(result, null, false, values[0]);
+    }
+  }
+
   // For local queries with distinct, deserialize all PdxInstances
   // as we do not have a way to compare Pdx and non Pdx objects in case
   // the cache has a mix of pdx and non pdx objects.
@@ -979,6 +1009,10 @@ public abstract class AbstractIndex implements IndexProtocol
     public void incNumBucketIndexes(int delta) 
     {
     }
+
+    public void incHistogramBuilds()
+    {
+    }
   }
 
   /**
@@ -1710,6 +1744,9 @@ public abstract class AbstractIndex implements IndexProtocol
     else if (path instanceof CompiledIndexOperation) {
       return getReceiverNameFromPath(((CompiledIndexOperation)path).getReceiver());
     }
+    else if (path instanceof CompiledCompositeKey) {
+      return getReceiverNameFromPath(path.getReceiver());
+    }
     return "";
   }
 
@@ -2400,6 +2437,45 @@ public abstract class AbstractIndex implements IndexProtocol
   public void setPopulated(boolean isPopulated) {
     this.isPopulated = isPopulated;
   }
+
+  /**
+   * Returns the histogram of the keys of this index, building it first if it
+   * does not exist yet or if the index has changed too much since it was
+   * built.
+   * 
+   * @param valueToEntriesMap
+   *          the sorted index key to region entries map of this index
+   * @param numKeys
+   *          the current number of keys in the map
+   * @return the histogram, or null if cost based index selection is disabled
+   * @since 9.0
+   */
+  IndexHistogram getHistogram(NavigableMap valueToEntriesMap, int numKeys) {
+    if (!IndexManager.isCostBasedIndexSelection()) {
+      return null;
+    }
+    IndexHistogram h = this.histogram;
+    if (h == null || h.isStale(numKeys)) {
+      // concurrent queries may both rebuild a stale histogram, which is
+      // cheaper than making them wait for each other
+      h = IndexHistogram.build(valueToEntriesMap, this.region.size());
+      this.histogram = h;
+      this.internalIndexStats.incHistogramBuilds();
+    }
+    return h;
+  }
+
+  /**
+   * Counts an update of this index towards rebuilding its histogram.
+   * 
+   * @since 9.0
+   */
+  void histogramUpdated() {
+    IndexHistogram h = this.histogram;
+    if (h != null) {
+      h.updated();
+    }
+  }
   
   
 }
@@ -39,6 +39,7 @@ import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.CompiledBindArgument;
+import com.gemstone.gemfire.cache.query.internal.CompiledCompositeKey;
 import com.gemstone.gemfire.cache.query.internal.CompiledIteratorDef;
 import com.gemstone.gemfire.cache.query.internal.CompiledLiteral;
 import com.gemstone.gemfire.cache.query.internal.CompiledPath;
@@ -69,6 +70,7 @@ import com.gemstone.gemfire.internal.cache.RegionEntryContext;
 import com.gemstone.gemfire.internal.cache.VMThinRegionEntryHeap;
 import com.gemstone.gemfire.internal.cache.persistence.query.CloseableIterator;
 import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceEnum;
 import com.gemstone.gemfire.pdx.internal.PdxString;
 
 //@todo Extend to support the keys or entries of a region.
@@ -139,6 +141,7 @@ public class CompactRangeIndex extends AbstractIndex {
   void addMapping(RegionEntry entry) throws IMQException {
     this.evaluator.evaluate(entry, true);
     this.internalIndexStats.incNumUpdates();
+    histogramUpdated();
   }
 
   /**
@@ -164,6 +167,7 @@ public class CompactRangeIndex extends AbstractIndex {
       }
       this.evaluator.evaluate(entry, false);
       this.internalIndexStats.incNumUpdates();
+      histogramUpdated();
     }
   }
   
@@ -326,6 +330,10 @@ public class CompactRangeIndex extends AbstractIndex {
         break;
       case OQLLexerTokenTypes.TOK_LE:
       case OQLLexerTokenTypes.TOK_LT:
+        size = matchLevel <= 0 ? getHistogramEstimate(key, operator) : -1;
+        if (size >= 0) {
+          break;
+        }
         if (matchLevel <= 0 && (key instanceof Number)) {
 
           int totalSize = indexStore.size();
@@ -390,6 +398,10 @@ public class CompactRangeIndex extends AbstractIndex {
 
       case OQLLexerTokenTypes.TOK_GE:
       case OQLLexerTokenTypes.TOK_GT:
+        size = matchLevel <= 0 ? getHistogramEstimate(key, operator) : -1;
+        if (size >= 0) {
+          break;
+        }
         if (matchLevel <= 0 && (key instanceof Number)) {
           int totalSize = indexStore.size();
           if (CompactRangeIndex.testHook != null) {
@@ -453,6 +465,27 @@ public class CompactRangeIndex extends AbstractIndex {
     return size;
   }
 
+  /**
+   * Estimates the size of a range lookup from the histogram of the index keys.
+   * 
+   * @return the estimate, or -1 if there is no histogram to estimate from
+   */
+  private int getHistogramEstimate(Object key, int operator)
+      throws TypeMismatchException {
+    if (!(this.indexStore instanceof MemoryIndexStore)) {
+      return -1;
+    }
+    MemoryIndexStore store = (MemoryIndexStore) this.indexStore;
+    IndexHistogram histogram = getHistogram(store.valueToEntriesMap,
+        store.size());
+    if (histogram == null) {
+      return -1;
+    }
+    key = TypeUtils.indexKeyFor(key);
+    key = getPdxStringForIndexedPdxKeys(key);
+    return histogram.estimate(key, operator, store.size());
+  }
+
   /** Method called while appropriate lock held on index */
   private void lockedQueryPrivate(Object key, int operator, Collection results,
       CompiledValue iterOps, RuntimeIterator runtimeItr,
@@ -545,8 +578,14 @@ public class CompactRangeIndex extends AbstractIndex {
             lowerBoundInclusive, upperBoundKey, upperBoundInclusive,
             keysToRemove);
       }
-      addToResultsFromEntries(lowerBoundKey, upperBoundKey, lowerBoundOperator, upperBoundOperator, iterator, results, null, null, context, null,
-          null, true, multiColOrderBy ? -1 : limit);
+      int[] coveredProjection = (int[]) context
+          .cacheGet(CompiledValue.COVERED_PROJECTION);
+      if (coveredProjection != null) {
+        addToResultsFromIndexKeys(iterator, results, context, coveredProjection);
+      } else {
+        addToResultsFromEntries(lowerBoundKey, upperBoundKey, lowerBoundOperator, upperBoundOperator, iterator, results, null, null, context, null,
+            null, true, multiColOrderBy ? -1 : limit);
+      }
     } finally {
       if (iterator != null) {
         iterator.close();
@@ -924,6 +963,85 @@ public class CompactRangeIndex extends AbstractIndex {
     }
   }
   
+  /**
+   * Adds the projections of the entries of a composite index lookup to the
+   * results. The projected values are taken from the index keys, so the
+   * values of the entries are neither read nor deserialized. Entries that
+   * are being updated, and entries whose keys do not hold the projected
+   * values as the entries do, are verified and projected from their values.
+   * 
+   * @param coveredProjection
+   *          the position in the index keys of the value of each projection
+   *          attribute
+   */
+  private void addToResultsFromIndexKeys(
+      CloseableIterator<IndexStoreEntry> entriesIter, Collection result,
+      ExecutionContext context, int[] coveredProjection)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    RuntimeIterator runtimeItr = null;
+    while (entriesIter.hasNext()) {
+      IndexStoreEntry indexEntry = null;
+      try {
+        indexEntry = entriesIter.next();
+      } catch (NoSuchElementException ex) {
+        continue;
+      }
+      // skip invalid and destroyed entries as addToResultsFromEntries does,
+      // without reading their values
+      if (indexEntry.isValueNull()) {
+        continue;
+      }
+      boolean updateInProgress = indexEntry.isUpdateInProgress();
+      Object[] values = updateInProgress ? null : getCoveredValues(
+          indexEntry.getDeserializedKey(), coveredProjection);
+      if (values != null) {
+        addProjectedValues(result, values);
+        continue;
+      }
+      Object value = indexEntry.getDeserializedValue();
+      if (value == null) {
+        continue;
+      }
+      IndexInfo indexInfo = (IndexInfo) context
+          .cacheGet(CompiledValue.INDEX_INFO);
+      if (runtimeItr == null) {
+        runtimeItr = getRuntimeIteratorForThisIndex(context, indexInfo);
+        if (runtimeItr == null) {
+          // could not match index with iterator
+          throw new QueryInvocationTargetException(
+              "Query alias's must be used consistently");
+        }
+      }
+      runtimeItr.setCurrent(value);
+      if (!updateInProgress || evaluateEntry(indexInfo, context, null)) {
+        applyProjection((List) context.cacheGet(CompiledValue.PROJ_ATTRIB),
+            context, result, value, null, false);
+      }
+    }
+  }
+
+  /**
+   * Returns the values at the given positions of a composite index key, or
+   * null if one of them is not the value of the entry, like an enum kept in
+   * its pdx form.
+   */
+  private static Object[] getCoveredValues(Object key, int[] positions) {
+    if (!(key instanceof CompositeIndexKey)) {
+      return null;
+    }
+    Object[] keyValues = ((CompositeIndexKey) key).getValues();
+    Object[] values = new Object[positions.length];
+    for (int i = 0; i < positions.length; i++) {
+      Object value = keyValues[positions[i]];
+      if (value instanceof PdxInstanceEnum) {
+        return null;
+      }
+      values[i] = value == IndexManager.NULL ? null : value;
+    }
+    return values;
+  }
+
   public List expandValue(ExecutionContext context, Object lowerBoundKey, Object upperBoundKey, int lowerBoundOperator, int upperBoundOperator, Object value) {
     try {
       List expandedResults = new ArrayList();
@@ -960,6 +1078,11 @@ public class CompactRangeIndex extends AbstractIndex {
       TypeMismatchException, NameResolutionException,
       QueryInvocationTargetException {
     CompiledValue path = ((IndexInfo) indexInfo)._path();
+    if (path instanceof CompiledCompositeKey) {
+      // the key of a composite index lookup is the conditions it evaluates
+      return Boolean.TRUE.equals(((IndexInfo) indexInfo)._key().evaluate(
+          context));
+    }
     Object left = path.evaluate(context);
     CompiledValue key = ((IndexInfo) indexInfo)._key();
     Object right = null;
@@ -1099,6 +1222,10 @@ public class CompactRangeIndex extends AbstractIndex {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incHistogramBuilds() {
+      this.vsdStats.incHistogramBuilds();
+    }
+
     /**
      * Returns the total amount of time (in nanoseconds) spent updating this
      * index.
@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import com.gemstone.gemfire.cache.query.internal.types.TypeUtils;
+
+/**
+ * The key of a composite index, the values of its indexed expressions in the
+ * order they were given when the index was created. Keys are ordered by their
+ * first value, then by their second and so on, so all the keys that share
+ * values for a prefix of the expressions are next to each other in the index
+ * and are sorted by the value that follows the prefix.
+ * <p>
+ * A key for a prefix of the expressions can be used as a bound of an index
+ * range lookup. A low bound sorts before and a high bound after every key
+ * that starts with its values.
+ *
+ * @since 9.0
+ */
+public class CompositeIndexKey implements Comparable {
+
+  private static final Comparator comparator = TypeUtils.getExtendedNumericComparator();
+
+  private final Object[] values;
+
+  /** 0 for a key in the index, -1 for a low bound and 1 for a high bound */
+  private final int bound;
+
+  public CompositeIndexKey(Object[] values) {
+    this(values, 0);
+  }
+
+  private CompositeIndexKey(Object[] values, int bound) {
+    this.values = values;
+    this.bound = bound;
+  }
+
+  /**
+   * Returns a key that sorts before every key starting with the given values.
+   */
+  public static CompositeIndexKey lowBound(Object[] values) {
+    return new CompositeIndexKey(values, -1);
+  }
+
+  /**
+   * Returns a key that sorts after every key starting with the given values.
+   */
+  public static CompositeIndexKey highBound(Object[] values) {
+    return new CompositeIndexKey(values, 1);
+  }
+
+  public Object[] getValues() {
+    return this.values;
+  }
+
+  public int compareTo(Object o) {
+    if (!(o instanceof CompositeIndexKey)) {
+      // UNDEFINED and null keys sort before everything else
+      return 1;
+    }
+    CompositeIndexKey other = (CompositeIndexKey)o;
+    int length = Math.min(this.values.length, other.values.length);
+    for (int i = 0; i < length; i++) {
+      int result = comparator.compare(this.values[i], other.values[i]);
+      if (result != 0) {
+        return result;
+      }
+    }
+    if (this.values.length == other.values.length) {
+      return this.bound < other.bound ? -1 : (this.bound == other.bound ? 0 : 1);
+    }
+    else if (this.values.length < other.values.length) {
+      return this.bound > 0 ? 1 : -1;
+    }
+    else {
+      return other.bound > 0 ? -1 : 1;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (!(o instanceof CompositeIndexKey)) {
+      return false;
+    }
+    CompositeIndexKey other = (CompositeIndexKey)o;
+    return this.bound == other.bound && Arrays.equals(this.values, other.values);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(this.values) + this.bound;
+  }
+
+  @Override
+  public String toString() {
+    String str = Arrays.toString(this.values);
+    return this.bound == 0 ? str : str + (this.bound < 0 ? "-" : "+");
+  }
+}
@@ -33,9 +33,11 @@ import com.gemstone.gemfire.cache.query.AmbiguousNameException;
 import com.gemstone.gemfire.cache.query.IndexInvalidException;
 import com.gemstone.gemfire.cache.query.IndexType;
 import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryInvalidException;
 import com.gemstone.gemfire.cache.query.TypeMismatchException;
 import com.gemstone.gemfire.cache.query.internal.CompiledBindArgument;
 import com.gemstone.gemfire.cache.query.internal.CompiledComparison;
+import com.gemstone.gemfire.cache.query.internal.CompiledCompositeKey;
 import com.gemstone.gemfire.cache.query.internal.CompiledFunction;
 import com.gemstone.gemfire.cache.query.internal.CompiledID;
 import com.gemstone.gemfire.cache.query.internal.CompiledIndexOperation;
@@ -442,6 +444,10 @@ class FunctionalIndexCreationHelper extends IndexCreationHelper {
    */
   private void prepareIndexExpression(String indexedExpression)
       throws IndexInvalidException {
+    if (indexedExpression.indexOf(',') != -1
+        && prepareCompositeIndexExpression(indexedExpression)) {
+      return;
+    }
     CompiledValue expr = this.compiler.compileQuery(indexedExpression);
     //List indexedExprs = this.compiler.compileProjectionAttributes(indexedExpression);
     if (expr == null  ) {
@@ -517,6 +523,66 @@ class FunctionalIndexCreationHelper extends IndexCreationHelper {
     indexedExpr = expr;
   }
 
+  /**
+   * Prepares the indexed expression of a composite index, a comma separated
+   * list of expressions like "p.status, p.ts". Each expression is validated
+   * and modified like the indexed expression of any other index.
+   * 
+   * @return false if the indexed expression is not a list of expressions
+   */
+  private boolean prepareCompositeIndexExpression(String indexedExpression)
+      throws IndexInvalidException {
+    List attributes;
+    try {
+      attributes = this.compiler.compileProjectionAttributes(indexedExpression);
+    }
+    catch (QueryInvalidException e) {
+      return false;
+    }
+    if (attributes == null || attributes.size() < 2) {
+      return false;
+    }
+    CompiledValue[] components = new CompiledValue[attributes.size()];
+    CompiledValue[] modifiedComponents = new CompiledValue[attributes.size()];
+    try {
+      for (int i = 0; i < components.length; i++) {
+        CompiledValue cv = (CompiledValue)((Object[])attributes.get(i))[1];
+        if (cv instanceof CompiledUndefined || cv instanceof CompiledLiteral
+            || cv instanceof CompiledComparison
+            || cv instanceof CompiledBindArgument
+            || cv instanceof CompiledNegation
+            || (cv instanceof MapIndexable && ((MapIndexable)cv)
+                .getIndexingKeys().size() != 1)
+            || (cv instanceof MapIndexable && ((MapIndexable)cv)
+                .getIndexingKeys().get(0) == CompiledValue.MAP_INDEX_ALL_KEYS)) {
+          throw new IndexInvalidException(LocalizedStrings.FunctionalIndexCreationHelper_INVALID_INDEXED_EXPRESSION_0.toLocalizedString(indexedExpression));
+        }
+        components[i] = cv;
+        modifiedComponents[i] = cv;
+        StringBuffer sb = new StringBuffer();
+        cv.generateCanonicalizedExpression(sb, context);
+        if (!this.isFirstIteratorRegionEntry
+            && sb.indexOf(this.canonicalizedIteratorNames[0]) >= 0) {
+          modifiedComponents[i] = getModifiedDependentCompiledValue(context,
+              -1, cv, true);
+        }
+      }
+      CompiledValue expr = new CompiledCompositeKey(components);
+      StringBuffer sb = new StringBuffer();
+      expr.generateCanonicalizedExpression(sb, context);
+      this.indexedExpression = sb.toString();
+      this.modifiedIndexExpr = new CompiledCompositeKey(modifiedComponents);
+      this.indexedExpr = expr;
+    }
+    catch (IndexInvalidException e) {
+      throw e;
+    }
+    catch (Exception e) {
+      throw new IndexInvalidException(LocalizedStrings.FunctionalIndexCreationHelper_INVALID_INDEXED_EXPRESSION_0.toLocalizedString(indexedExpression), e);
+    }
+    return true;
+  }
+
   private void prepareProjectionAttributes(String projectionAttributes)
       throws IndexInvalidException {
     if (projectionAttributes != null && !projectionAttributes.equals("*")) { throw new IndexInvalidException(LocalizedStrings.FunctionalIndexCreationHelper_INVALID_PROJECTION_ATTRIBUTES_0.toLocalizedString(projectionAttributes)); }
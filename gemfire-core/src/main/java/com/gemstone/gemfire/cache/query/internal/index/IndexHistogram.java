@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.query.internal.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.gemstone.gemfire.cache.query.internal.parse.OQLLexerTokenTypes;
+
+/**
+ * An equi-depth histogram of the keys of a sorted index. Each bucket holds
+ * roughly the same number of index values, so range size estimates stay
+ * accurate for skewed data and for keys that are not numbers, unlike the
+ * linear interpolation between the first and last key that the indexes
+ * otherwise use.
+ * <p>
+ * A histogram is a snapshot. The owning index counts its updates with
+ * {@link #updated()} and builds a new one once {@link #isStale(int)}.
+ *
+ * @since 9.0
+ */
+class IndexHistogram {
+
+  /**
+   * The number of buckets the keys are split into.
+   */
+  static final int NUM_BUCKETS = Integer.getInteger("gemfire.index.HISTOGRAM_BUCKETS", 64);
+
+  /**
+   * The fraction of the index that has to be updated before the histogram is
+   * rebuilt.
+   */
+  static final float REBUILD_RATIO = Float.parseFloat(System.getProperty("gemfire.index.HISTOGRAM_REBUILD_RATIO", "0.1"));
+
+  /** The first key of each bucket followed by the last key of the index */
+  private final Object[] bounds;
+  /** The number of values with a key less than the bound at the same position */
+  private final int[] valuesBelow;
+  private final int numValues;
+  private final int numKeys;
+  private final Comparator comparator;
+  private final AtomicInteger updates = new AtomicInteger();
+
+  private IndexHistogram(Object[] bounds, int[] valuesBelow, int numValues,
+      int numKeys, Comparator comparator) {
+    this.bounds = bounds;
+    this.valuesBelow = valuesBelow;
+    this.numValues = numValues;
+    this.numKeys = numKeys;
+    this.comparator = comparator;
+  }
+
+  /**
+   * Builds a histogram of the given index map with a single pass over its keys.
+   *
+   * @param valueToEntriesMap
+   *          the index key to region entries map of a range index
+   * @param numValues
+   *          the approximate number of values in the map, used to size the
+   *          buckets
+   */
+  static IndexHistogram build(NavigableMap valueToEntriesMap, int numValues) {
+    int depth = Math.max(1, numValues / Math.max(1, NUM_BUCKETS));
+    List bounds = new ArrayList(NUM_BUCKETS + 1);
+    List<Integer> valuesBelow = new ArrayList<Integer>(NUM_BUCKETS + 1);
+    int total = 0;
+    int keys = 0;
+    int nextBound = 0;
+    Object lastKey = null;
+    int lastKeyValues = 0;
+    for (Iterator itr = valueToEntriesMap.entrySet().iterator(); itr.hasNext();) {
+      Map.Entry entry = (Map.Entry)itr.next();
+      int count = count(entry.getValue());
+      if (count == 0) {
+        continue;
+      }
+      if (total >= nextBound) {
+        bounds.add(entry.getKey());
+        valuesBelow.add(total);
+        nextBound = total + depth;
+      }
+      lastKey = entry.getKey();
+      lastKeyValues = count;
+      total += count;
+      keys++;
+    }
+    if (lastKey != null && bounds.get(bounds.size() - 1) != lastKey) {
+      bounds.add(lastKey);
+      valuesBelow.add(total - lastKeyValues);
+    }
+    int[] below = new int[valuesBelow.size()];
+    for (int i = 0; i < below.length; i++) {
+      below[i] = valuesBelow.get(i);
+    }
+    return new IndexHistogram(bounds.toArray(), below, total, keys,
+        valueToEntriesMap.comparator());
+  }
+
+  private static int count(Object entries) {
+    if (entries instanceof AbstractIndex.RegionEntryToValuesMap) {
+      return ((AbstractIndex.RegionEntryToValuesMap)entries).getNumValues();
+    }
+    else if (entries instanceof Collection) {
+      return ((Collection)entries).size();
+    }
+    return entries == null ? 0 : 1;
+  }
+
+  /**
+   * Records an update of the owning index.
+   */
+  void updated() {
+    this.updates.incrementAndGet();
+  }
+
+  /**
+   * Returns true if the owning index has changed enough since this histogram
+   * was built for its estimates to be unreliable.
+   *
+   * @param numKeys
+   *          the current number of distinct keys in the index
+   */
+  boolean isStale(int numKeys) {
+    int threshold = Math.max(NUM_BUCKETS, (int)(this.numValues * REBUILD_RATIO));
+    return this.updates.get() > threshold
+        || Math.abs(numKeys - this.numKeys) > Math.max(NUM_BUCKETS, (int)(this.numKeys * REBUILD_RATIO));
+  }
+
+  int getNumValues() {
+    return this.numValues;
+  }
+
+  /**
+   * Returns the number of distinct keys in the index.
+   */
+  int getNumKeys() {
+    return this.numKeys;
+  }
+
+  /**
+   * Estimates the number of index values matched by a range condition.
+   *
+   * @param key
+   *          the index key to compare against, in the form it is stored in
+   *          the index
+   * @param operator
+   *          one of TOK_LT, TOK_LE, TOK_GT or TOK_GE
+   * @param numKeys
+   *          the current number of distinct keys in the index, the estimate
+   *          is scaled by how much it has changed since the histogram was built
+   * @return the estimate, or -1 if the key can not be compared with the keys
+   *         of the index
+   */
+  int estimate(Object key, int operator, int numKeys) {
+    if (this.numKeys == 0) {
+      return 0;
+    }
+    double below;
+    try {
+      below = valuesBelow(key);
+    }
+    catch (ClassCastException e) {
+      return -1;
+    }
+    double matched;
+    switch (operator) {
+      case OQLLexerTokenTypes.TOK_LT:
+      case OQLLexerTokenTypes.TOK_LE:
+        matched = below;
+        break;
+      case OQLLexerTokenTypes.TOK_GT:
+      case OQLLexerTokenTypes.TOK_GE:
+        matched = this.numValues - below;
+        break;
+      default:
+        return -1;
+    }
+    return (int)Math.max(0, Math.round(matched * numKeys / this.numKeys));
+  }
+
+  /**
+   * Estimates the number of values with a key less than the given key.
+   */
+  private double valuesBelow(Object key) {
+    int last = this.bounds.length - 1;
+    if (this.comparator.compare(key, this.bounds[0]) <= 0) {
+      return 0;
+    }
+    if (this.comparator.compare(key, this.bounds[last]) > 0) {
+      return this.numValues;
+    }
+    // find the bucket whose first key is the greatest one less than the key
+    int low = 0;
+    int high = last;
+    while (high - low > 1) {
+      int mid = (low + high) >>> 1;
+      if (this.comparator.compare(this.bounds[mid], key) < 0) {
+        low = mid;
+      }
+      else {
+        high = mid;
+      }
+    }
+    double fraction = 0.5;
+    Object lowKey = this.bounds[low];
+    Object highKey = this.bounds[high];
+    if (this.comparator.compare(key, highKey) == 0) {
+      fraction = 1;
+    }
+    else if (key instanceof Number && lowKey instanceof Number
+        && highKey instanceof Number) {
+      double lowVal = ((Number)lowKey).doubleValue();
+      double range = ((Number)highKey).doubleValue() - lowVal;
+      if (range > 0) {
+        fraction = (((Number)key).doubleValue() - lowVal) / range;
+      }
+    }
+    return this.valuesBelow[low]
+        + fraction * (this.valuesBelow[high] - this.valuesBelow[low]);
+  }
+}
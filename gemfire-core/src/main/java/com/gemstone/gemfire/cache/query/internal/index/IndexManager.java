@@ -138,6 +138,18 @@ public class IndexManager  {
 
   /** For test purpose only */
   public static boolean TEST_RANGEINDEX_ONLY = false;
+
+  /**
+   * System property to choose the indexes of an AND junction, whether to
+   * intersect them and whether to scan the region instead from estimated
+   * result sizes, using histograms of the index keys for range conditions.
+   * @since 9.0
+   */
+  public static final boolean COST_BASED_INDEX_SELECTION =
+    Boolean.getBoolean("gemfire.index.COST_BASED_SELECTION");
+
+  /** For test purpose only */
+  public static boolean COST_BASED_INDEX_SELECTION_FOR_TEST = false;
   public static final String INDEX_ELEMARRAY_THRESHOLD_PROP = "index_elemarray_threshold";
   public static final String INDEX_ELEMARRAY_SIZE_PROP = "index_elemarray_size";
   public static final int INDEX_ELEMARRAY_THRESHOLD = Integer.parseInt(System.getProperty(INDEX_ELEMARRAY_THRESHOLD_PROP,"100"));
@@ -1353,6 +1365,10 @@ public class IndexManager  {
   public static boolean isObjectModificationInplace() {
     return (INPLACE_OBJECT_MODIFICATION || INPLACE_OBJECT_MODIFICATION_FOR_TEST);
   }
+
+  public static boolean isCostBasedIndexSelection() {
+    return (COST_BASED_INDEX_SELECTION || COST_BASED_INDEX_SELECTION_FOR_TEST);
+  }
   /**
    * Asif : This function is used exclusively by Index Manager. It gets the
    * unique Iterator name for a Iterator definition, if it already exists, else
@@ -42,6 +42,7 @@ public class IndexStats {
   private static final int readLockCountId;
   private static final int numMapIndexKeysId;
   private static final int numBucketIndexesId;
+  private static final int histogramBuildsId;
 
   /** The Statistics object that we delegate most behavior to */
   private final Statistics stats;
@@ -72,6 +73,7 @@ public class IndexStats {
         f.createIntGauge("readLockCount", "Current number of read locks taken.", "uses"),
         f.createLongGauge("numMapIndexKeys", "Number of keys in this Map index", "keys"),
         f.createIntGauge("numBucketIndexes", "Number of bucket indexes in the partitioned region", "indexes"),
+        f.createLongCounter("histogramBuilds", "Number of times the key histogram used for cost based index selection has been built", "operations"),
       }
     );
 
@@ -87,6 +89,7 @@ public class IndexStats {
     readLockCountId = type.nameToId("readLockCount");
     numMapIndexKeysId = type.nameToId("numMapIndexKeys");
     numBucketIndexesId = type.nameToId("numBucketIndexes");
+    histogramBuildsId = type.nameToId("histogramBuilds");
   }
   
   ////////////////////////  Constructors  ////////////////////////
@@ -137,6 +140,10 @@ public class IndexStats {
      return stats.getInt(numBucketIndexesId);
    }
 
+   public long getHistogramBuilds() {
+     return stats.getLong(histogramBuildsId);
+   }
+
   //////////////////////  Updating Stats  //////////////////////
   
    public void incNumUpdates() {
@@ -188,6 +195,10 @@ public class IndexStats {
    public void incNumBucketIndexes(int delta) {
      this.stats.incInt(numBucketIndexesId, delta);
    }   
+
+   public void incHistogramBuilds() {
+     this.stats.incLong(histogramBuildsId, 1);
+   }
   ////// Special Instance Methods /////
 
   /**
@@ -137,6 +137,15 @@ public interface IndexStore {
      * @see RegionEntry#isUpdateInProgress() isUpdateInProgress
      */
     boolean isUpdateInProgress();
+
+    /**
+     * Returns true if the deserialized value is null because the RegionEntry
+     * of an index on values is invalid or has been destroyed. The value is
+     * neither read nor deserialized.
+     * 
+     * @see RegionEntry#isInvalidOrRemoved() isInvalidOrRemoved
+     */
+    boolean isValueNull();
   }
 
   public boolean isIndexOnRegionKeys();
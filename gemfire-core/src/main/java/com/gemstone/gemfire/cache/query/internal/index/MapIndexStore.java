@@ -313,6 +313,10 @@ public class MapIndexStore implements IndexStore {
     public boolean isUpdateInProgress() {
       return false;
     }
+
+    public boolean isValueNull() {
+      return indexOnValues && !region.containsValueForKey(getDeserializedRegionKey());
+    }
   }
   
   //wrapper class for when the index is being queried with a map query
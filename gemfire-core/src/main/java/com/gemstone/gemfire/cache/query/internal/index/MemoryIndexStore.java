@@ -728,6 +728,7 @@ public class MemoryIndexStore implements IndexStore {
     private RegionEntry regionEntry;
     private boolean updateInProgress;
     private Object value;
+    private boolean valueRead;
     private long iteratorStartTime;
 
     private MemoryIndexStoreEntry(long iteratorStartTime) {
@@ -739,7 +740,8 @@ public class MemoryIndexStore implements IndexStore {
       this.deserializedIndexKey = deserializedIndexKey;
       this.regionEntry = regionEntry;
       this.updateInProgress = regionEntry.isUpdateInProgress();
-      this.value = getTargetObject(regionEntry);
+      this.value = null;
+      this.valueRead = false;
     }
 
     @Override
@@ -749,7 +751,13 @@ public class MemoryIndexStore implements IndexStore {
 
     @Override
     public Object getDeserializedValue() {
-      return value;
+      // read on demand, so lookups answered from the index keys do not read
+      // or deserialize the value
+      if (!this.valueRead) {
+        this.value = getTargetObject(this.regionEntry);
+        this.valueRead = true;
+      }
+      return this.value;
     }
 
     @Override
@@ -769,6 +777,11 @@ public class MemoryIndexStore implements IndexStore {
           // needs to be re-evaluated in this case.
           ||  IndexManager.needsRecalculation(iteratorStartTime, regionEntry.getLastModified());
     }
+
+    @Override
+    public boolean isValueNull() {
+      return indexOnValues && regionEntry.isInvalidOrRemoved();
+    }
   }
 }
 
@@ -497,6 +497,9 @@ public class PartitionedIndex extends AbstractIndex
     public void incReadLockCount(int delta) {
       this.vsdStats.incReadLockCount(delta);
     }
+    public void incHistogramBuilds() {
+      this.vsdStats.incHistogramBuilds();
+    }
     public void incNumBucketIndexes(int delta) {
       this.vsdStats.incNumBucketIndexes(delta);
     }   
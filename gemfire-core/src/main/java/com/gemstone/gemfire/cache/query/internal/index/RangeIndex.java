@@ -190,6 +190,7 @@ public class RangeIndex extends AbstractIndex  {
     }
 
     this.internalIndexStats.incNumUpdates();
+    histogramUpdated();
   }
 
   public void addSavedMappings(RegionEntry entry) throws IMQException {
@@ -503,6 +504,7 @@ public class RangeIndex extends AbstractIndex  {
       }
     }
     this.internalIndexStats.incNumUpdates();
+    histogramUpdated();
   }
   
   /**
@@ -577,6 +579,7 @@ public class RangeIndex extends AbstractIndex  {
       this.entryToValuesMap.remove(entry);
     }
     this.internalIndexStats.incNumUpdates();
+    histogramUpdated();
   }
 
   //Asif TODO: Provide explanation of the method. Test this method
@@ -706,6 +709,10 @@ public class RangeIndex extends AbstractIndex  {
           break;
         case OQLLexerTokenTypes.TOK_LE:
         case OQLLexerTokenTypes.TOK_LT:
+          size = matchLevel <= 0 ? getHistogramEstimate(key, operator) : -1;
+          if (size >= 0) {
+            break;
+          }
           if (matchLevel <= 0 && key instanceof Number) {
             int totalSize = valueToEntriesMapSize;// this.valueToEntriesMap.size();
             if (RangeIndex.testHook != null) {
@@ -746,6 +753,10 @@ public class RangeIndex extends AbstractIndex  {
 
         case OQLLexerTokenTypes.TOK_GE:
         case OQLLexerTokenTypes.TOK_GT:
+          size = matchLevel <= 0 ? getHistogramEstimate(key, operator) : -1;
+          if (size >= 0) {
+            break;
+          }
           if (matchLevel <= 0 && key instanceof Number) {
             int totalSize = valueToEntriesMapSize;// this.valueToEntriesMap.size();
             if (testHook != null) {
@@ -795,6 +806,26 @@ public class RangeIndex extends AbstractIndex  {
     return size;
   }
 
+  /**
+   * Estimates the size of a range lookup from the histogram of the index keys.
+   * 
+   * @return the estimate, or -1 if there is no histogram to estimate from
+   */
+  private int getHistogramEstimate(Object key, int operator)
+      throws TypeMismatchException {
+    if (key == null || key == QueryService.UNDEFINED) {
+      return -1;
+    }
+    IndexHistogram histogram = getHistogram(this.valueToEntriesMap,
+        this.valueToEntriesMapSize);
+    if (histogram == null) {
+      return -1;
+    }
+    key = TypeUtils.indexKeyFor(key);
+    key = getPdxStringForIndexedPdxKeys(key);
+    return histogram.estimate(key, operator, this.valueToEntriesMapSize);
+  }
+
   private void evaluate(Object key, int operator, Collection results,
       Set keysToRemove, int limit, ExecutionContext context)
       throws TypeMismatchException {
@@ -1604,6 +1635,10 @@ public String dump() {
       this.vsdStats.incReadLockCount(delta);
     }
 
+    public void incHistogramBuilds() {
+      this.vsdStats.incHistogramBuilds();
+    }
+
     public long getUseTime() {
       return this.vsdStats.getUseTime();
     }
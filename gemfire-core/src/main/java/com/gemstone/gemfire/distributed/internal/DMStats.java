@@ -535,4 +535,16 @@ public interface DMStats {
 
   public void endPdxInstanceDeserialization(long start);
   public void incPdxInstanceCreations();
+
+  /**
+   * Records that a pooled serialization buffer of the given size was allocated.
+   * @since 9.0
+   */
+  public void incSerializationBufferAllocations(int bytes);
+
+  /**
+   * Records that a pooled serialization buffer of the given size was reused.
+   * @since 9.0
+   */
+  public void incSerializationBufferReuses(int bytes);
 }
@@ -138,6 +138,10 @@ public class DistributionStats implements DMStats {
   private final static int pdxInstanceDeserializationsId;
   private final static int pdxInstanceDeserializationTimeId;
   private final static int pdxInstanceCreationsId;
+  private final static int serializationBufferAllocationsId;
+  private final static int serializationBufferAllocatedBytesId;
+  private final static int serializationBufferReusesId;
+  private final static int serializationBufferReusedBytesId;
 
   private final static int msgSerializationTimeId;
   private final static int msgDeserializationTimeId;
@@ -413,6 +417,10 @@ public class DistributionStats implements DMStats {
         f.createIntCounter("pdxInstanceDeserializations", "Total number of times getObject has been called on a PdxInstance.", "ops"),
         f.createLongCounter("pdxInstanceDeserializationTime", "Total amount of time, in nanoseconds, spent deserializing PdxInstances by calling getObject.", "nanoseconds"),
         f.createIntCounter("pdxInstanceCreations", "Total number of times a deserialization created a PdxInstance.", "ops"),
+        f.createLongCounter("serializationBufferAllocations", "Total number of buffers allocated by pooled serialization streams.", "ops"),
+        f.createLongCounter("serializationBufferAllocatedBytes", "Total number of bytes in the buffers allocated by pooled serialization streams.", "bytes"),
+        f.createLongCounter("serializationBufferReuses", "Total number of times a pooled serialization stream reused a buffer instead of allocating one.", "ops"),
+        f.createLongCounter("serializationBufferReusedBytes", "Total number of bytes in the buffers reused by pooled serialization streams.", "bytes"),
 
         f.createLongCounter("batchSendTime", "Total amount of time, in nanoseconds, spent queueing and flushing message batches", "nanoseconds"),
         f.createLongCounter("batchWaitTime", "Reserved for future use", "nanoseconds"),
@@ -578,6 +586,10 @@ public class DistributionStats implements DMStats {
     pdxInstanceDeserializationsId = type.nameToId("pdxInstanceDeserializations");
     pdxInstanceDeserializationTimeId = type.nameToId("pdxInstanceDeserializationTime");
     pdxInstanceCreationsId = type.nameToId("pdxInstanceCreations");
+    serializationBufferAllocationsId = type.nameToId("serializationBufferAllocations");
+    serializationBufferAllocatedBytesId = type.nameToId("serializationBufferAllocatedBytes");
+    serializationBufferReusesId = type.nameToId("serializationBufferReuses");
+    serializationBufferReusedBytesId = type.nameToId("serializationBufferReusedBytes");
 
     msgSerializationTimeId = type.nameToId("msgSerializationTime");
     msgDeserializationTimeId = type.nameToId("msgDeserializationTime");
@@ -1132,6 +1144,14 @@ public class DistributionStats implements DMStats {
   public void incPdxInstanceCreations() {
     stats.incInt(pdxInstanceCreationsId, 1);
   }
+  public void incSerializationBufferAllocations(int bytes) {
+    stats.incLong(serializationBufferAllocationsId, 1);
+    stats.incLong(serializationBufferAllocatedBytesId, bytes);
+  }
+  public void incSerializationBufferReuses(int bytes) {
+    stats.incLong(serializationBufferReusesId, 1);
+    stats.incLong(serializationBufferReusedBytesId, bytes);
+  }
   public long startDeserialization() {
     return getStatTime();
   }
@@ -569,6 +569,10 @@ public class LonerDistributionManager implements DM {
     @Override
     public void incPdxInstanceCreations() {}
     @Override
+    public void incSerializationBufferAllocations(int bytes) {}
+    @Override
+    public void incSerializationBufferReuses(int bytes) {}
+    @Override
     public void incThreadOwnedReceivers(long value, int dominoCount) {
     }
   }
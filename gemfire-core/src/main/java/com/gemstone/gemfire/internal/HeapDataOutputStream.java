@@ -24,6 +24,7 @@ import java.io.UTFDataFormatException;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
 
@@ -77,6 +78,15 @@ public class HeapDataOutputStream extends OutputStream implements
   private int memoPosition;
   private Version version;
   private boolean doNotCopy;
+  /**
+   * True if this stream gets its buffers from a {@link SerializationBufferPool}.
+   */
+  private final boolean pooled;
+  /**
+   * The buffers this stream got from the pool.
+   * They are given back by {@link #release()}.
+   */
+  private ArrayList<ByteBuffer> pooledBuffers;
 
   private static final int INITIAL_CAPACITY = 1024;
   
@@ -98,6 +108,7 @@ public class HeapDataOutputStream extends OutputStream implements
     this.MIN_CHUNK_SIZE = INITIAL_CAPACITY;
     this.buffer = ByteBuffer.allocate(maxStrBytes);
     this.doNotCopy = false;
+    this.pooled = false;
     writeUTFNoLength(s);
   }
 
@@ -109,12 +120,25 @@ public class HeapDataOutputStream extends OutputStream implements
    * be copied to this hdos but instead referenced.
    */
   public HeapDataOutputStream(int allocSize, Version version, boolean doNotCopy) {
+    this(allocSize, version, doNotCopy, false);
+  }
+
+  /**
+   * @param doNotCopy if true then byte arrays/buffers/sources will not
+   * be copied to this hdos but instead referenced.
+   * @param pooled if true then the buffers of this hdos come from the
+   * calling thread's {@link SerializationBufferPool} and {@link #release()}
+   * must be called once its contents are no longer needed. Ignored if
+   * pooling is disabled.
+   */
+  public HeapDataOutputStream(int allocSize, Version version, boolean doNotCopy, boolean pooled) {
     if (allocSize < 32) {
       this.MIN_CHUNK_SIZE = 32;
     } else {
       this.MIN_CHUNK_SIZE = allocSize;
     }
-    this.buffer = ByteBuffer.allocate(allocSize);
+    this.pooled = pooled && SerializationBufferPool.isEnabled();
+    this.buffer = allocateBuffer(allocSize);
     this.version = version;
     this.doNotCopy = doNotCopy;
   }
@@ -136,6 +160,7 @@ public class HeapDataOutputStream extends OutputStream implements
     this.buffer = initialBuffer;
     this.version = version;
     this.doNotCopy = doNotCopy;
+    this.pooled = false;
   }
 
   /**
@@ -156,6 +181,7 @@ public class HeapDataOutputStream extends OutputStream implements
     }
     this.buffer = ByteBuffer.wrap(bytes);
     this.doNotCopy = false;
+    this.pooled = false;
   }
 
   /**
@@ -222,7 +248,49 @@ public class HeapDataOutputStream extends OutputStream implements
     if (amount < MIN_CHUNK_SIZE) {
       amount = MIN_CHUNK_SIZE;
     }
-    this.buffer = ByteBuffer.allocate(amount);
+    this.buffer = allocateBuffer(amount);
+  }
+
+  private ByteBuffer allocateBuffer(int size) {
+    if (!this.pooled) {
+      return ByteBuffer.allocate(size);
+    }
+    ByteBuffer result = SerializationBufferPool.getPool().acquire(size);
+    if (SerializationBufferPool.isPoolable(result.capacity())) {
+      if (this.pooledBuffers == null) {
+        this.pooledBuffers = new ArrayList<ByteBuffer>(4);
+      }
+      this.pooledBuffers.add(result);
+    }
+    return result;
+  }
+
+  /**
+   * Returns true if this stream gets its buffers from a pool.
+   */
+  public final boolean isPooled() {
+    return this.pooled;
+  }
+
+  /**
+   * Gives the buffers of a pooled stream back to the calling thread's pool.
+   * Neither this stream nor any ByteBuffer obtained from it may be used
+   * after this call. Does nothing if this stream is not pooled.
+   */
+  public void release() {
+    if (!this.pooled) {
+      return;
+    }
+    if (this.pooledBuffers != null) {
+      SerializationBufferPool pool = SerializationBufferPool.getPool();
+      for (ByteBuffer bb: this.pooledBuffers) {
+        pool.release(bb);
+      }
+      this.pooledBuffers = null;
+    }
+    this.chunks = null;
+    this.buffer = null;
+    this.size = 0;
   }
 
   private final void checkIfWritable() {
@@ -306,7 +374,7 @@ public class HeapDataOutputStream extends OutputStream implements
     this.chunks.add(bufToAdd);
     int newPos = oldBuffer.limit();
     if ((oldBuffer.capacity() - newPos) <= 0) {
-      this.buffer = ByteBuffer.allocate(MIN_CHUNK_SIZE);
+      this.buffer = allocateBuffer(MIN_CHUNK_SIZE);
     } else {
       oldBuffer.limit(oldBuffer.capacity());
       oldBuffer.position(newPos);
@@ -431,7 +499,8 @@ public class HeapDataOutputStream extends OutputStream implements
    */
   public final byte[] toByteArray() {
     ByteBuffer bb = toByteBuffer();
-    if (bb.hasArray() && bb.arrayOffset() == 0
+    // never hand out the array of a pooled buffer since it will be reused
+    if (!this.pooled && bb.hasArray() && bb.arrayOffset() == 0
         && bb.limit() == bb.capacity()) {
       return bb.array();
     } else {
@@ -460,7 +529,7 @@ public class HeapDataOutputStream extends OutputStream implements
   //Asif
   public void sendTo(BytesAndBitsForCompactor wrapper, byte userBits) {
     ByteBuffer bb = toByteBuffer();
-    if (bb.hasArray() && bb.arrayOffset() == 0) {
+    if (!this.pooled && bb.hasArray() && bb.arrayOffset() == 0) {
       wrapper.setData(bb.array(), userBits, bb.limit(), true /* is Reusable */);
     }
     else {
@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal;
+
+import java.nio.ByteBuffer;
+
+import com.gemstone.gemfire.distributed.internal.DMStats;
+import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
+
+/**
+ * Per thread pools of the ByteBuffers that a pooled
+ * {@link HeapDataOutputStream} writes into.
+ * Buffers are handed out in power of two size classes starting at
+ * {@link #MIN_BUFFER_SIZE}. Each thread keeps at most {@link #POOL_SIZE}
+ * free buffers of each class. Requests bigger than {@link #MAX_BUFFER_SIZE}
+ * are never pooled.
+ * <p>
+ * Pooling is disabled unless gemfire.HDOS_POOL_SIZE is set. While it is
+ * disabled a stream created as pooled is a plain {@link HeapDataOutputStream}.
+ * Pooled streams report what they allocate and reuse to {@link DMStats}.
+ *
+ * @since 9.0
+ */
+public class SerializationBufferPool {
+  /**
+   * The number of free buffers of each size class each thread keeps.
+   */
+  public static final int POOL_SIZE = Integer.getInteger("gemfire.HDOS_POOL_SIZE", 0);
+  /**
+   * The number of free buffers of each size class the pools created from
+   * now on keep. Only changed by tests.
+   */
+  static volatile int poolSize = POOL_SIZE;
+  /**
+   * If true the pooled buffers are direct instead of heap buffers.
+   * Only use this when the pooled streams are written to a socket channel.
+   */
+  public static final boolean USE_DIRECT_BUFFERS = Boolean.getBoolean("gemfire.HDOS_POOL_DIRECT_BUFFERS");
+
+  public static final int MIN_BUFFER_SIZE = 1024;
+  static final int MAX_BUFFER_SIZE = roundUp(Integer.getInteger("gemfire.HDOS_POOL_MAX_BUFFER_SIZE", 64*1024));
+  private static final int SIZE_CLASSES = sizeClass(MAX_BUFFER_SIZE) + 1;
+
+  private static final ThreadLocal<SerializationBufferPool> pools = new ThreadLocal<SerializationBufferPool>() {
+    @Override
+    protected SerializationBufferPool initialValue() {
+      return new SerializationBufferPool(poolSize);
+    }
+  };
+
+  /**
+   * The free buffers of each size class used as a stack.
+   */
+  private final ByteBuffer[][] buffers;
+  private final int[] counts;
+
+  SerializationBufferPool(int poolSize) {
+    this.buffers = new ByteBuffer[SIZE_CLASSES][poolSize];
+    this.counts = new int[SIZE_CLASSES];
+  }
+
+  /**
+   * Returns true if pooled streams should use the pools. If not they are
+   * plain streams that neither round up their buffers nor copy them out.
+   */
+  static boolean isEnabled() {
+    return poolSize > 0;
+  }
+
+  /**
+   * Returns the calling thread's pool.
+   */
+  static SerializationBufferPool getPool() {
+    return pools.get();
+  }
+
+  /**
+   * Returns true if a buffer of the given capacity could have come from a pool.
+   */
+  static boolean isPoolable(int capacity) {
+    return capacity <= MAX_BUFFER_SIZE && capacity == roundUp(capacity);
+  }
+
+  /**
+   * Returns a cleared buffer whose capacity is at least size.
+   * If the capacity of the result is poolable then it should be
+   * given back with {@link #release(ByteBuffer)} once it is no longer used.
+   */
+  ByteBuffer acquire(int size) {
+    DMStats stats = InternalDistributedSystem.getDMStats();
+    if (size > MAX_BUFFER_SIZE) {
+      if (stats != null) {
+        stats.incSerializationBufferAllocations(size);
+      }
+      return ByteBuffer.allocate(size);
+    }
+    int capacity = roundUp(size);
+    int idx = sizeClass(capacity);
+    int count = this.counts[idx];
+    if (count > 0) {
+      count--;
+      ByteBuffer result = this.buffers[idx][count];
+      this.buffers[idx][count] = null;
+      this.counts[idx] = count;
+      result.clear();
+      if (stats != null) {
+        stats.incSerializationBufferReuses(capacity);
+      }
+      return result;
+    }
+    if (stats != null) {
+      stats.incSerializationBufferAllocations(capacity);
+    }
+    if (USE_DIRECT_BUFFERS) {
+      return ByteBuffer.allocateDirect(capacity);
+    } else {
+      return ByteBuffer.allocate(capacity);
+    }
+  }
+
+  /**
+   * Gives back a buffer obtained from {@link #acquire(int)}.
+   * The buffer is dropped if this pool already has enough of its size.
+   */
+  void release(ByteBuffer bb) {
+    int capacity = bb.capacity();
+    if (!isPoolable(capacity)) {
+      return;
+    }
+    int idx = sizeClass(capacity);
+    int count = this.counts[idx];
+    if (count < this.buffers[idx].length) {
+      this.buffers[idx][count] = bb;
+      this.counts[idx] = count + 1;
+    }
+  }
+
+  /**
+   * Returns the number of free buffers this pool has of the given capacity.
+   */
+  int getFreeCount(int capacity) {
+    return this.counts[sizeClass(roundUp(capacity))];
+  }
+
+  private static int roundUp(int size) {
+    if (size <= MIN_BUFFER_SIZE) {
+      return MIN_BUFFER_SIZE;
+    }
+    return Integer.highestOneBit(size - 1) << 1;
+  }
+
+  private static int sizeClass(int capacity) {
+    return Integer.numberOfTrailingZeros(capacity) - Integer.numberOfTrailingZeros(MIN_BUFFER_SIZE);
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.concurrent.TimeUnit;
+
+import com.gemstone.gemfire.internal.cache.DiskStoreImpl.OplogCompactor;
+
+/**
+ * Limits the rate at which a disk store's compactor copies live entries
+ * forward. The compactor copies entries in slices of at most
+ * <code>sliceBytes</code>. After each slice it releases the oplog and
+ * compactor locks and calls {@link #pause}, which sleeps for however long it
+ * takes to keep the copy rate at or below <code>bytesPerSecond</code>.
+ * Since all the compactor state lives in the oplog's live entry lists, the
+ * next slice resumes where the previous one stopped.
+ * <p>
+ * Used when the <code>gemfire.disk.compactionMaxMBPerSec</code> system
+ * property is set. Only the compactor thread uses a throttle, so it is not
+ * thread safe.
+ *
+ * @since 9.0
+ */
+class CompactionThrottle {
+  /** The longest we sleep before checking whether the compactor was stopped. */
+  private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+  private final long bytesPerSecond;
+  private final long sliceBytes;
+
+  private long sliceStart = System.nanoTime();
+  private long sliceCopied;
+
+  CompactionThrottle(long bytesPerSecond, long sliceBytes) {
+    this.bytesPerSecond = bytesPerSecond;
+    this.sliceBytes = sliceBytes;
+  }
+
+  /**
+   * Records that the compactor copied the given number of bytes forward.
+   *
+   * @return true if the current slice is complete and the compactor should
+   *         release its locks and call {@link #pause}
+   */
+  boolean copied(long bytes) {
+    this.sliceCopied += bytes;
+    return this.sliceCopied >= this.sliceBytes;
+  }
+
+  /**
+   * Sleeps until the bytes copied by the current slice are within the
+   * budget and then starts the next slice. Must not be called while holding
+   * any oplog locks.
+   */
+  void pause(OplogCompactor compactor, DiskStoreStats stats) {
+    final long start = stats.startCompactionThrottleWait();
+    try {
+      final long budgetNanos = TimeUnit.SECONDS.toNanos(this.sliceCopied) / this.bytesPerSecond;
+      final long deadline = this.sliceStart + budgetNanos;
+      long remaining;
+      while ((remaining = deadline - System.nanoTime()) > 0 && compactor.keepCompactorRunning()) {
+        try {
+          TimeUnit.NANOSECONDS.sleep(Math.min(remaining, MAX_SLEEP_NANOS));
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    } finally {
+      stats.endCompactionThrottleWait(start);
+      this.sliceStart = System.nanoTime();
+      this.sliceCopied = 0;
+    }
+  }
+}
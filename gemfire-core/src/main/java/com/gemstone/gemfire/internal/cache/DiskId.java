@@ -39,9 +39,8 @@ import com.gemstone.gemfire.internal.i18n.LocalizedStrings;
 public abstract class DiskId
 {
 
-  // @todo this field could be an int for an overflow only region
   /**
-   * id consists of
+   * Returns the id of this disk id which consists of
    * most significant
    * 1 byte = users bits
    * 2-8 bytes = oplog id
@@ -49,8 +48,17 @@ public abstract class DiskId
    * 
    * The highest bit in the oplog id part is set to 1 if the oplog id
    * is negative.
+   * Overflow only disk ids with an int oplog offset store the id in an int
+   * (see {@link #MAX_OVERFLOW_OPLOG_ID}) and convert it to this format.
+   * Callers must be synchronized on this disk id.
    */
-  private long id;
+  abstract long getId();
+
+  /**
+   * Sets the id of this disk id. See {@link #getId} for its format.
+   * Callers must be synchronized on this disk id.
+   */
+  abstract void setId(long id);
 
   /**
    * Length of the bytes on disk.
@@ -83,15 +91,23 @@ public abstract class DiskId
   public static final long MAX_OPLOG_ID =      0x007FFFFFFFFFFFFFL;
   public static final long OPLOG_ID_SIGN_BIT = 0x0080000000000000L;
   public static final long USER_BITS_SHIFT = 24 + 32;
+  /**
+   * The largest oplog id an overflow only disk id with an int oplog offset
+   * can hold. Those disk ids pack the user bits and the oplog id into an int
+   * which saves eight bytes for every entry of an overflow only region.
+   * @since 9.0
+   */
+  public static final int MAX_OVERFLOW_OPLOG_ID = 0x007FFFFF;
   /**
    * @return Returns the oplog id.
    */
   synchronized long getOplogId() {
     //mask the first byte to get the oplogId
-    long oplogId = this.id & MAX_OPLOG_ID; 
+    final long id = getId();
+    long oplogId = id & MAX_OPLOG_ID; 
     
     //Check to see if the oplog id should be negative
-    if ((this.id & OPLOG_ID_SIGN_BIT ) != 0) 
+    if ((id & OPLOG_ID_SIGN_BIT ) != 0) 
     {
       oplogId = -1L * oplogId;
     }
@@ -121,7 +137,7 @@ public abstract class DiskId
    */
   synchronized long setOplogId(long oplogId) {
     long result = getOplogId();
-    long oldUserBits = this.id & USER_BITS_MASK;//only get the most significant byte containing
+    long oldUserBits = getId() & USER_BITS_MASK;//only get the most significant byte containing
                             // sign bit + toggle flag + user bits
     long opId = oplogId;
     if (oplogId < 0) {
@@ -129,7 +145,7 @@ public abstract class DiskId
       opId |= OPLOG_ID_SIGN_BIT; //Set the highest bit of the oplog id to be 
                              //1 to indicate a negative number
     }
-    this.id = opId | oldUserBits;
+    setId(opId | oldUserBits);
 
     //Assert.assertTrue(oplogId == getOplogId());
     return result;
@@ -169,7 +185,7 @@ public abstract class DiskId
    * @return Returns the userBits.
    */
   synchronized byte getUserBits() {
-    return (byte)(this.id >> USER_BITS_SHIFT); //shift to right to get the user bits
+    return (byte)(getId() >> USER_BITS_SHIFT); //shift to right to get the user bits
   }
 
   /**
@@ -179,8 +195,10 @@ public abstract class DiskId
   synchronized void setUserBits(byte userBits) {
     long userLong = ((long) userBits) << USER_BITS_SHIFT;// set it as most signifcant byte.
 
-    this.id &= OPLOG_ID_MASK; // mask the most significant byte in id.
-    this.id |= userLong; // set the most significant byte in id.
+    long id = getId();
+    id &= OPLOG_ID_MASK; // mask the most significant byte in id.
+    id |= userLong; // set the most significant byte in id.
+    setId(id);
 
     //Assert.assertTrue(userBit == getUserBits());
   }
@@ -427,6 +445,37 @@ public abstract class DiskId
   protected static class OverflowOnlyWithIntOffsetNoLL extends
       IntOplogOffsetDiskId
   {
+    /**
+     * The most significant byte holds the user bits and the other three
+     * bytes hold the oplog id as a signed 24 bit number.
+     * Overflow oplog ids never exceed {@link DiskId#MAX_OVERFLOW_OPLOG_ID}.
+     */
+    private int id;
+
+    @Override
+    long getId() {
+      final int intId = this.id;
+      final long userBits = ((long)(intId >>> 24)) << USER_BITS_SHIFT;
+      final long oplogId = (intId << 8) >> 8; // sign extend the low 3 bytes
+      if (oplogId < 0) {
+        return userBits | OPLOG_ID_SIGN_BIT | -oplogId;
+      } else {
+        return userBits | oplogId;
+      }
+    }
+
+    @Override
+    void setId(long id) {
+      long oplogId = id & MAX_OPLOG_ID;
+      if ((id & OPLOG_ID_SIGN_BIT) != 0) {
+        oplogId = -oplogId;
+      }
+      if (oplogId > MAX_OVERFLOW_OPLOG_ID || oplogId < -MAX_OVERFLOW_OPLOG_ID) {
+        throw new IllegalStateException("Expected overflow oplog id " + oplogId + " to be <= " + MAX_OVERFLOW_OPLOG_ID);
+      }
+      this.id = (int)((id & USER_BITS_MASK) >>> 32) | ((int)oplogId & 0x00FFFFFF);
+    }
+
     OverflowOnlyWithIntOffsetNoLL() {
       markForWriting();
     }
@@ -495,6 +544,21 @@ public abstract class DiskId
   protected static class OverflowOnlyWithLongOffsetNoLL extends
       LongOplogOffsetDiskId
   {
+    /**
+     * See {@link DiskId#getId} for the format.
+     */
+    private long id;
+
+    @Override
+    long getId() {
+      return this.id;
+    }
+
+    @Override
+    void setId(long id) {
+      this.id = id;
+    }
+
     OverflowOnlyWithLongOffsetNoLL() {
       markForWriting();
     }
@@ -563,6 +627,21 @@ public abstract class DiskId
   protected static class PersistenceWithIntOffsetNoLL extends
       IntOplogOffsetDiskId
   {
+    /**
+     * See {@link DiskId#getId} for the format.
+     */
+    private long id;
+
+    @Override
+    long getId() {
+      return this.id;
+    }
+
+    @Override
+    void setId(long id) {
+      this.id = id;
+    }
+
     /** unique entry identifier * */
     private long keyId;
 
@@ -646,6 +725,21 @@ public abstract class DiskId
   protected static class PersistenceWithLongOffsetNoLL extends
       LongOplogOffsetDiskId
   {
+    /**
+     * See {@link DiskId#getId} for the format.
+     */
+    private long id;
+
+    @Override
+    long getId() {
+      return this.id;
+    }
+
+    @Override
+    void setId(long id) {
+      this.id = id;
+    }
+
     /** unique entry identifier * */
     private long keyId;
 
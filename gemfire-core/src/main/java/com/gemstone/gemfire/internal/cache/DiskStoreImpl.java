@@ -74,10 +74,12 @@ import com.gemstone.gemfire.cache.DiskStore;
 import com.gemstone.gemfire.cache.DiskStoreFactory;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.persistence.PersistentID;
+import com.gemstone.gemfire.compression.Compressor;
 import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.distributed.internal.membership.InternalDistributedMember;
 import com.gemstone.gemfire.internal.ByteArrayDataInput;
+import com.gemstone.gemfire.internal.ClassPathLoader;
 import com.gemstone.gemfire.internal.FileUtil;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.DiskEntry.Helper.ValueWrapper;
@@ -184,6 +186,76 @@ public class DiskStoreImpl implements DiskStore {
   boolean FORCE_KRF_RECOVERY = getBoolean(
       "gemfire.disk.FORCE_KRF_RECOVERY", false);
   
+  /**
+   * If true, synchronous writes to persistent oplogs are forced to disk by a
+   * single committer thread that batches the writes of all concurrent writers
+   * into one force. See {@link OplogGroupCommitter}.
+   */
+  public static final String GROUP_COMMIT_PROPERTY_NAME = "gemfire.disk.groupCommit";
+  boolean GROUP_COMMIT = getBoolean(GROUP_COMMIT_PROPERTY_NAME, false);
+  /**
+   * The number of microseconds the group committer waits for more writers
+   * before forcing a batch. Defaults to 0.
+   */
+  final long GROUP_COMMIT_LINGER_MICROS = Long.getLong(
+      "gemfire.disk.groupCommitLingerMicros", 0).longValue();
+
+  /**
+   * If true, values are read from crf files that are no longer being appended
+   * to through a read only memory mapping instead of a seek and read while
+   * holding the oplog lock. See {@link OplogFileMapping}.
+   */
+  public static final String MMAP_READS_PROPERTY_NAME = "gemfire.disk.mmapReads";
+  boolean MMAP_READS = getBoolean(MMAP_READS_PROPERTY_NAME, false)
+      && OplogFileMapping.isSupported();
+
+  /**
+   * The number of threads used to read drf and krf files ahead of recovery.
+   * See {@link OplogRecoveryPrefetcher}. Set to 0 to read each file on the
+   * recovery thread. Defaults to two per disk directory, bounded by the
+   * number of processors.
+   */
+  public static final String RECOVERY_THREADS_PROPERTY_NAME = "gemfire.disk.recoveryThreads";
+  final int RECOVERY_THREADS = Integer.getInteger(RECOVERY_THREADS_PROPERTY_NAME, -1).intValue();
+  /**
+   * The maximum number of megabytes of prefetched drf and krf data held
+   * in memory during recovery. Defaults to 256.
+   */
+  final long RECOVERY_PREFETCH_MAX_BYTES = Long.getLong(
+      "gemfire.disk.recoveryPrefetchMB", 256).longValue() * 1024 * 1024;
+
+  /**
+   * If greater than 0, the compactor copies entries forward in slices and
+   * pauses between slices to keep its copy rate at or below this many
+   * megabytes per second. Oplogs are then compacted in order of their garbage
+   * ratio. See {@link CompactionThrottle}. Defaults to 0, which means
+   * unthrottled.
+   */
+  public static final String COMPACTION_MAX_MB_PER_SEC_PROPERTY_NAME = "gemfire.disk.compactionMaxMBPerSec";
+  final int COMPACTION_MAX_MB_PER_SEC = Integer.getInteger(COMPACTION_MAX_MB_PER_SEC_PROPERTY_NAME, 0).intValue();
+  /**
+   * The number of kilobytes a throttled compactor copies between pauses.
+   * Defaults to 1024.
+   */
+  final int COMPACTION_SLICE_KB = Integer.getInteger("gemfire.disk.compactionSliceKB", 1024).intValue();
+
+  /**
+   * If true, new crf files end every entry record with a CRC32 of the record
+   * so that recovery can tell a torn write from a complete record without a
+   * separate validation pass. Defaults to false.
+   */
+  public static final String RECORD_CHECKSUMS_PROPERTY_NAME = "gemfire.disk.recordChecksums";
+  final boolean RECORD_CHECKSUMS = getBoolean(RECORD_CHECKSUMS_PROPERTY_NAME, false);
+  /**
+   * The class name of a {@link Compressor}, for example
+   * <code>com.gemstone.gemfire.compression.SnappyCompressor</code>, that
+   * compresses the values written to new crf files. Each crf records the
+   * compressor it was written with so oplogs in either format can be
+   * recovered whether or not this property is set. Defaults to none.
+   */
+  public static final String VALUE_COMPRESSOR_PROPERTY_NAME = "gemfire.disk.valueCompressor";
+  final String VALUE_COMPRESSOR = System.getProperty(VALUE_COMPRESSOR_PROPERTY_NAME);
+
   public static boolean getBoolean(String sysProp, boolean def) {
     return Boolean.valueOf(System.getProperty(sysProp, Boolean.valueOf(def)
         .toString()));
@@ -460,6 +532,12 @@ public class DiskStoreImpl implements DiskStore {
     if (!isValidating() && !isOfflineCompacting()) {
       startAsyncFlusher();
     }
+    if (GROUP_COMMIT && !isOffline()) {
+      this.groupCommitter = new OplogGroupCommitter(this, GROUP_COMMIT_LINGER_MICROS);
+      this.groupCommitter.start();
+    } else {
+      this.groupCommitter = null;
+    }
 
     File[] dirs = getDiskDirs();
     int[] dirSizes = getDiskDirSizes();
@@ -1491,6 +1569,20 @@ public class DiskStoreImpl implements DiskStore {
   }
 
   private Thread flusherThread;
+  /**
+   * Batches the forces of synchronous oplog writes; null unless
+   * {@link #GROUP_COMMIT} is enabled.
+   */
+  private final OplogGroupCommitter groupCommitter;
+
+  /**
+   * Returns the group committer for this disk store or null if synchronous
+   * writes are not group committed.
+   */
+  OplogGroupCommitter getGroupCommitter() {
+    return this.groupCommitter;
+  }
+
   /**
    * How many threads are waiting to do a put on asyncQueue?
    */
@@ -2341,6 +2433,15 @@ public class DiskStoreImpl implements DiskStore {
             rte = e;
           }
         }
+        if (this.groupCommitter != null) {
+          try {
+            this.groupCommitter.stop();
+          } catch (RuntimeException e) {
+            if (rte != null) {
+              rte = e;
+            }
+          }
+        }
       }
 
       // Wakeup any threads waiting for the asnyc disk store recovery.
@@ -2736,7 +2837,22 @@ public class DiskStoreImpl implements DiskStore {
    *         returns null
    */
   CompactableOplog[] getOplogToBeCompacted() {
-    return getOplogsToBeCompacted(false);
+    CompactableOplog[] result = getOplogsToBeCompacted(false);
+    getStats().setCompactionBacklogBytes(result == null ? 0
+        : persistentOplogs.getCompactionBacklogBytes() + overflowOplogs.getCompactionBacklogBytes());
+    return result;
+  }
+
+  boolean isCompactionThrottled() {
+    return COMPACTION_MAX_MB_PER_SEC > 0;
+  }
+
+  /**
+   * Called by the compactor after it has copied an entry forward.
+   */
+  void compactionCopied(long bytes) {
+    long backlog = getStats().getCompactionBacklogBytes();
+    getStats().setCompactionBacklogBytes(Math.max(0, backlog - bytes));
   }
 
   /**
@@ -2902,9 +3018,25 @@ public class DiskStoreImpl implements DiskStore {
 
     private final boolean compactionCompletionRequired;
 
+    /**
+     * Limits the rate this compactor copies entries forward at. Null if it is
+     * not throttled.
+     */
+    private final CompactionThrottle throttle;
+
     OplogCompactor() {
       this.compactionCompletionRequired = Boolean
           .getBoolean(COMPLETE_COMPACTION_BEFORE_TERMINATION_PROPERTY_NAME);
+      if (isCompactionThrottled()) {
+        this.throttle = new CompactionThrottle(COMPACTION_MAX_MB_PER_SEC * 1024L * 1024L,
+            Math.max(1, COMPACTION_SLICE_KB) * 1024L);
+      } else {
+        this.throttle = null;
+      }
+    }
+
+    CompactionThrottle getThrottle() {
+      return this.throttle;
     }
 
     /** Creates a new thread and starts the thread* */
@@ -4090,6 +4222,10 @@ public class DiskStoreImpl implements DiskStore {
     }
     System.out.println("Total number of region entries in this disk store is: "
         + getLiveEntryCount());
+    if (getChecksummedRecordCount() > 0) {
+      System.out.println("Verified the checksums of " + getChecksummedRecordCount()
+          + " records.");
+    }
   }
 
   private int liveEntryCount;
@@ -4112,6 +4248,16 @@ public class DiskStoreImpl implements DiskStore {
     return this.deadRecordCount;
   }
 
+  private int checksummedRecordCount;
+
+  void incChecksummedRecordCount(int count) {
+    this.checksummedRecordCount += count;
+  }
+
+  public int getChecksummedRecordCount() {
+    return this.checksummedRecordCount;
+  }
+
   private void offlineCompact() {
     assert isOfflineCompacting();
     this.RECOVER_VALUES = false;
@@ -4340,6 +4486,62 @@ public class DiskStoreImpl implements DiskStore {
     return 0;
   }
   
+  /**
+   * Returns the number of threads to prefetch oplog files with during
+   * recovery.
+   */
+  int getRecoveryThreads() {
+    if (RECOVERY_THREADS >= 0) {
+      return RECOVERY_THREADS;
+    }
+    return Math.min(Runtime.getRuntime().availableProcessors(), 2 * this.directories.length);
+  }
+
+  /**
+   * Returns the compressor that new crf files compress their values with or
+   * null if values are written as is.
+   */
+  Compressor getValueCompressor() {
+    if (VALUE_COMPRESSOR == null || VALUE_COMPRESSOR.length() == 0) {
+      return null;
+    }
+    return getValueCompressor(VALUE_COMPRESSOR);
+  }
+
+  private final ConcurrentMap<String, Compressor> valueCompressors = new ConcurrentHashMap<String, Compressor>();
+
+  /**
+   * Returns the instance of the given compressor class shared by all the
+   * oplogs of this disk store.
+   * 
+   * @throws IllegalArgumentException
+   *           if the compressor can not be created
+   */
+  Compressor getValueCompressor(String compressorClassName) {
+    Compressor result = this.valueCompressors.get(compressorClassName);
+    if (result == null) {
+      try {
+        @SuppressWarnings("unchecked")
+        Class<Compressor> compressorClass = (Class<Compressor>) ClassPathLoader.getLatest().forName(compressorClassName);
+        result = compressorClass.newInstance();
+      } catch (ClassNotFoundException e) {
+        throw new IllegalArgumentException(LocalizedStrings.DiskInitFile_UNKNOWN_COMPRESSOR_0_FOUND
+            .toLocalizedString(compressorClassName), e);
+      } catch (InstantiationException e) {
+        throw new IllegalArgumentException(LocalizedStrings.DiskInitFile_UNKNOWN_COMPRESSOR_0_FOUND
+            .toLocalizedString(compressorClassName), e);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException(LocalizedStrings.DiskInitFile_UNKNOWN_COMPRESSOR_0_FOUND
+            .toLocalizedString(compressorClassName), e);
+      }
+      Compressor old = this.valueCompressors.putIfAbsent(compressorClassName, result);
+      if (old != null) {
+        result = old;
+      }
+    }
+    return result;
+  }
+
   public DirectoryHolder[] getDirectoryHolders(){
     return this.directories;
   }
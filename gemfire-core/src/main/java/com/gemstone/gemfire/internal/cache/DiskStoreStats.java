@@ -76,11 +76,37 @@ public class DiskStoreStats {
 
   private static final int oplogReadsId;
   private static final int oplogSeeksId;
+  private static final int oplogMappedReadsId;
 
   private static final int uncreatedRecoveredRegionsId;
   private static final int backupsInProgress;
   private static final int backupsCompleted;
 
+  private static final int groupCommitsId;
+  private static final int groupCommitTimeId;
+  private static final int groupCommitWritesId;
+  private static final int groupCommitWaitsId;
+  private static final int groupCommitWaitTimeId;
+
+  private static final int recoveryDrfTimeId;
+  private static final int recoveryCrfTimeId;
+  private static final int recoveryRegionInitTimeId;
+  private static final int recoveryPrefetchesId;
+  private static final int recoveryPrefetchTimeId;
+  private static final int recoveryPrefetchBytesId;
+  private static final int recoveryPrefetchWaitTimeId;
+
+  private static final int compactionBytesReclaimedId;
+  private static final int compactionThrottleWaitsId;
+  private static final int compactionThrottleWaitTimeId;
+  private static final int compactionBacklogBytesId;
+
+  private static final int valueCompressTimeId;
+  private static final int valueDecompressTimeId;
+  private static final int valueBytesBeforeCompressionId;
+  private static final int valueBytesAfterCompressionId;
+  private static final int recordChecksumFailuresId;
+
   static {
     String statName = "DiskStoreStatistics";
     String statDescription =
@@ -170,9 +196,31 @@ public class DiskStoreStats {
          f.createIntGauge("inactiveOplogs", "Current number of oplogs that are no longer being written but are not ready ready to compact", "oplogs"),
          f.createLongCounter("oplogReads", "Total number of oplog reads", "reads"),
          f.createLongCounter("oplogSeeks", "Total number of oplog seeks", "seeks"),
+         f.createLongCounter("oplogMappedReads", "Total number of oplog reads served from a memory mapped oplog without a seek", "reads"),
          f.createIntGauge("uncreatedRecoveredRegions", "The current number of regions that have been recovered but have not yet been created.", "regions"),
          f.createIntGauge("backupsInProgress", backupsInProgressDesc, "backups"),
          f.createIntCounter("backupsCompleted", backupsCompletedDesc, "backups"),
+         f.createLongCounter("groupCommits", "Total number of group commits. Each group commit forces the oplogs written by all of its writers to disk.", "commits"),
+         f.createLongCounter("groupCommitTime", "Total amount of time, in nanoseconds, spent flushing and forcing oplogs for group commits", "nanoseconds"),
+         f.createLongCounter("groupCommitWrites", "Total number of synchronous writes made durable by group commits. Divide by groupCommits for the average batch size.", "writes"),
+         f.createLongCounter("groupCommitWaits", "Total number of times a synchronous writer waited for a group commit", "waits"),
+         f.createLongCounter("groupCommitWaitTime", "Total amount of time, in nanoseconds, synchronous writers spent waiting for a group commit", "nanoseconds"),
+         f.createLongCounter("recoveryDrfTime", "Total amount of time, in nanoseconds, recovery spent reading drf files to find destroyed entries", "nanoseconds"),
+         f.createLongCounter("recoveryCrfTime", "Total amount of time, in nanoseconds, recovery spent reading krf and crf files to find live entries", "nanoseconds"),
+         f.createLongCounter("recoveryRegionInitTime", "Total amount of time, in nanoseconds, recovery spent initializing oplogs and regions after reading the oplogs", "nanoseconds"),
+         f.createLongCounter("recoveryPrefetches", "Total number of drf and krf files read ahead of recovery by the recovery prefetch threads", "files"),
+         f.createLongCounter("recoveryPrefetchTime", "Total amount of time, in nanoseconds, the recovery prefetch threads spent reading files", "nanoseconds"),
+         f.createLongCounter("recoveryPrefetchBytes", "Total number of bytes read ahead of recovery by the recovery prefetch threads", "bytes"),
+         f.createLongCounter("recoveryPrefetchWaitTime", "Total amount of time, in nanoseconds, recovery spent waiting for a prefetch that was still in progress", "nanoseconds"),
+         f.createLongCounter("compactionBytesReclaimed", "Total number of oplog bytes freed by compaction, not counting the live entries it copied forward", "bytes"),
+         f.createLongCounter("compactionThrottleWaits", "Total number of times the compactor paused between slices to stay within its I/O budget", "waits"),
+         f.createLongCounter("compactionThrottleWaitTime", "Total amount of time, in nanoseconds, the compactor spent paused to stay within its I/O budget", "nanoseconds"),
+         f.createLongGauge("compactionBacklogBytes", "Estimated number of live entry bytes that compaction still has to copy forward from the oplogs that are ready to compact", "bytes"),
+         f.createLongCounter("valueCompressTime", "Total amount of time, in nanoseconds, spent compressing values written to oplogs", "nanoseconds"),
+         f.createLongCounter("valueDecompressTime", "Total amount of time, in nanoseconds, spent decompressing values read from oplogs", "nanoseconds"),
+         f.createLongCounter("valueBytesBeforeCompression", "Total number of value bytes given to the oplog value compressor", "bytes"),
+         f.createLongCounter("valueBytesAfterCompression", "Total number of compressed value bytes written to oplogs", "bytes"),
+         f.createLongCounter("recordChecksumFailures", "Total number of oplog records whose checksum did not match when they were recovered", "records"),
        });
 
     // Initialize id fields
@@ -214,6 +262,7 @@ public class DiskStoreStats {
     compactUpdateTimeId = type.nameToId("compactUpdateTime");
     oplogReadsId = type.nameToId("oplogReads");
     oplogSeeksId = type.nameToId("oplogSeeks");
+    oplogMappedReadsId = type.nameToId("oplogMappedReads");
 
     openOplogsId = type.nameToId("openOplogs");
     inactiveOplogsId = type.nameToId("inactiveOplogs");
@@ -221,6 +270,27 @@ public class DiskStoreStats {
     uncreatedRecoveredRegionsId = type.nameToId("uncreatedRecoveredRegions");
     backupsInProgress = type.nameToId("backupsInProgress");
     backupsCompleted= type.nameToId("backupsCompleted");
+    groupCommitsId = type.nameToId("groupCommits");
+    groupCommitTimeId = type.nameToId("groupCommitTime");
+    groupCommitWritesId = type.nameToId("groupCommitWrites");
+    groupCommitWaitsId = type.nameToId("groupCommitWaits");
+    groupCommitWaitTimeId = type.nameToId("groupCommitWaitTime");
+    recoveryDrfTimeId = type.nameToId("recoveryDrfTime");
+    recoveryCrfTimeId = type.nameToId("recoveryCrfTime");
+    recoveryRegionInitTimeId = type.nameToId("recoveryRegionInitTime");
+    recoveryPrefetchesId = type.nameToId("recoveryPrefetches");
+    recoveryPrefetchTimeId = type.nameToId("recoveryPrefetchTime");
+    recoveryPrefetchBytesId = type.nameToId("recoveryPrefetchBytes");
+    recoveryPrefetchWaitTimeId = type.nameToId("recoveryPrefetchWaitTime");
+    compactionBytesReclaimedId = type.nameToId("compactionBytesReclaimed");
+    compactionThrottleWaitsId = type.nameToId("compactionThrottleWaits");
+    compactionThrottleWaitTimeId = type.nameToId("compactionThrottleWaitTime");
+    compactionBacklogBytesId = type.nameToId("compactionBacklogBytes");
+    valueCompressTimeId = type.nameToId("valueCompressTime");
+    valueDecompressTimeId = type.nameToId("valueDecompressTime");
+    valueBytesBeforeCompressionId = type.nameToId("valueBytesBeforeCompression");
+    valueBytesAfterCompressionId = type.nameToId("valueBytesAfterCompression");
+    recordChecksumFailuresId = type.nameToId("recordChecksumFailures");
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -487,6 +557,12 @@ public class DiskStoreStats {
   public void incOplogSeeks() {
     this.stats.incLong(oplogSeeksId, 1);
   }
+  public void incOplogMappedReads() {
+    this.stats.incLong(oplogMappedReadsId, 1);
+  }
+  public long getOplogMappedReads() {
+    return this.stats.getLong(oplogMappedReadsId);
+  }
   public void incInactiveOplogs(int delta) {
     this.stats.incInt(inactiveOplogsId, delta);
   }
@@ -522,6 +598,114 @@ public class DiskStoreStats {
     this.stats.incInt(backupsCompleted, 1);
   }
   
+  public long startGroupCommit() {
+    return DistributionStats.getStatTime();
+  }
+  public void endGroupCommit(long start, long writes) {
+    this.stats.incLong(groupCommitsId, 1);
+    this.stats.incLong(groupCommitWritesId, writes);
+    this.stats.incLong(groupCommitTimeId, getStatTime()-start);
+  }
+  public long getGroupCommits() {
+    return this.stats.getLong(groupCommitsId);
+  }
+  public long getGroupCommitWrites() {
+    return this.stats.getLong(groupCommitWritesId);
+  }
+  public long startGroupCommitWait() {
+    return DistributionStats.getStatTime();
+  }
+  public void endGroupCommitWait(long start) {
+    this.stats.incLong(groupCommitWaitsId, 1);
+    this.stats.incLong(groupCommitWaitTimeId, getStatTime()-start);
+  }
+
+  public long startRecoveryPhase() {
+    return DistributionStats.getStatTime();
+  }
+  public void endRecoveryDrf(long start) {
+    this.stats.incLong(recoveryDrfTimeId, getStatTime()-start);
+  }
+  public void endRecoveryCrf(long start) {
+    this.stats.incLong(recoveryCrfTimeId, getStatTime()-start);
+  }
+  public void endRecoveryRegionInit(long start) {
+    this.stats.incLong(recoveryRegionInitTimeId, getStatTime()-start);
+  }
+  public long startRecoveryPrefetch() {
+    return DistributionStats.getStatTime();
+  }
+  public void endRecoveryPrefetch(long start, long bytesRead) {
+    this.stats.incLong(recoveryPrefetchesId, 1);
+    this.stats.incLong(recoveryPrefetchTimeId, getStatTime()-start);
+    this.stats.incLong(recoveryPrefetchBytesId, bytesRead);
+  }
+  public long getRecoveryPrefetches() {
+    return this.stats.getLong(recoveryPrefetchesId);
+  }
+  public long getRecoveryPrefetchBytes() {
+    return this.stats.getLong(recoveryPrefetchBytesId);
+  }
+  public long startRecoveryPrefetchWait() {
+    return DistributionStats.getStatTime();
+  }
+  public void endRecoveryPrefetchWait(long start) {
+    this.stats.incLong(recoveryPrefetchWaitTimeId, getStatTime()-start);
+  }
+
+  public void incCompactionBytesReclaimed(long bytes) {
+    this.stats.incLong(compactionBytesReclaimedId, bytes);
+  }
+  public long getCompactionBytesReclaimed() {
+    return this.stats.getLong(compactionBytesReclaimedId);
+  }
+  public long startCompactionThrottleWait() {
+    return DistributionStats.getStatTime();
+  }
+  public void endCompactionThrottleWait(long start) {
+    this.stats.incLong(compactionThrottleWaitsId, 1);
+    this.stats.incLong(compactionThrottleWaitTimeId, getStatTime()-start);
+  }
+  public long getCompactionThrottleWaits() {
+    return this.stats.getLong(compactionThrottleWaitsId);
+  }
+  public void setCompactionBacklogBytes(long bytes) {
+    this.stats.setLong(compactionBacklogBytesId, bytes);
+  }
+  public void incCompactionBacklogBytes(long delta) {
+    this.stats.incLong(compactionBacklogBytesId, delta);
+  }
+  public long getCompactionBacklogBytes() {
+    return this.stats.getLong(compactionBacklogBytesId);
+  }
+
+  public long startValueCompression() {
+    return DistributionStats.getStatTime();
+  }
+  public void endValueCompression(long start, long bytesBefore, long bytesAfter) {
+    this.stats.incLong(valueCompressTimeId, getStatTime()-start);
+    this.stats.incLong(valueBytesBeforeCompressionId, bytesBefore);
+    this.stats.incLong(valueBytesAfterCompressionId, bytesAfter);
+  }
+  public long getValueBytesBeforeCompression() {
+    return this.stats.getLong(valueBytesBeforeCompressionId);
+  }
+  public long getValueBytesAfterCompression() {
+    return this.stats.getLong(valueBytesAfterCompressionId);
+  }
+  public long startValueDecompression() {
+    return DistributionStats.getStatTime();
+  }
+  public void endValueDecompression(long start) {
+    this.stats.incLong(valueDecompressTimeId, getStatTime()-start);
+  }
+  public void incRecordChecksumFailures() {
+    this.stats.incLong(recordChecksumFailuresId, 1);
+  }
+  public long getRecordChecksumFailures() {
+    return this.stats.getLong(recordChecksumFailuresId);
+  }
+  
   public Statistics getStats(){
     return stats;
   }
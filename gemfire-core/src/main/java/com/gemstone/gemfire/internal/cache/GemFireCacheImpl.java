@@ -5050,6 +5050,16 @@ public class GemFireCacheImpl implements InternalCache, ClientCache, HasCachePer
         c.setRegionAttributes(pra.toString(), ra);
         break;
       }
+      case NEAR_CACHE: {
+        AttributesFactory af = new AttributesFactory();
+        af.setDataPolicy(DataPolicy.NORMAL);
+        af.setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes());
+        UserSpecifiedRegionAttributes ra = (UserSpecifiedRegionAttributes) af.create();
+        ra.requiresPoolName = true;
+        ra.registersInvalidationInterest = true;
+        c.setRegionAttributes(pra.toString(), ra);
+        break;
+      }
       default:
         throw new IllegalStateException("unhandled enum " + pra);
       }
@@ -682,6 +682,13 @@ public class LocalRegion extends AbstractRegion
     this.srp = (this.getPoolName() != null)
       ? new ServerRegionProxy(this)
       : null;
+    this.registersInvalidationInterest = attrs instanceof UserSpecifiedRegionAttributes
+        && ((UserSpecifiedRegionAttributes)attrs).registersInvalidationInterest;
+    if (this.registersInvalidationInterest
+        && (this.srp == null || !this.srp.getPool().getSubscriptionEnabled())) {
+      throw new SubscriptionNotEnabledException(
+          "A near cache region requires a pool whose subscriptions are enabled.");
+    }
     this.imageState =
       new UnsharedImageState(this.srp != null,
                              getDataPolicy().withReplication() || getDataPolicy().isPreloaded(),
@@ -852,6 +859,13 @@ public class LocalRegion extends AbstractRegion
    */
   protected final ServerRegionProxy srp;
 
+  /**
+   * True if this client region registers interest in all keys, receiving
+   * updates as invalidates, once it is created.
+   * @since 9.0
+   */
+  private final boolean registersInvalidationInterest;
+
   private final InternalDataView sharedDataView;
 
   public final ServerRegionProxy getServerProxy() {
@@ -7018,6 +7032,26 @@ public class LocalRegion extends AbstractRegion
       }
     }
 
+    if (this.registersInvalidationInterest) {
+      // the local entries of a near cache are only invalidated by the server
+      try {
+        registerInterest("ALL_KEYS", InterestResultPolicy.NONE, false, false);
+      } catch (RuntimeException e) {
+        // the region is already in the cache, so take it out again rather
+        // than leave behind a near cache that is never invalidated
+        releaseAfterRegionCreateEventLatch();
+        initializingRegion.set(null);
+        try {
+          localDestroyRegion();
+        } catch (RuntimeException ignore) {
+          if (logger.isDebugEnabled()) {
+            logger.debug("Failed to destroy region {} after its interest registration failed", getFullPath(), ignore);
+          }
+        }
+        throw e;
+      }
+    }
+
     if (hasListener()) {
       RegionEventImpl event = new RegionEventImpl(this,
           Operation.REGION_CREATE, null, false, getMyId());
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+/**
+ * An {@link OffHeapRegionEntry} that can also store its String key off heap.
+ * The key is kept off heap by
+ * {@link com.gemstone.gemfire.internal.offheap.OffHeapKeyHelper} while the
+ * entry stores an off heap value.
+ * 
+ * @since 9.0
+ */
+public interface OffHeapKeyRegionEntry extends OffHeapRegionEntry {
+  /**
+   * @return the address of the off heap key, or one of the
+   * OffHeapKeyHelper key states if the key is on the heap
+   */
+  public long getKeyAddress();
+  public boolean setKeyAddress(long expectedAddr, long newAddr);
+  /**
+   * @return the key if it is on the heap; otherwise null
+   */
+  public String getHeapKey();
+  public boolean setHeapKey(String expectedKey, String newKey);
+}
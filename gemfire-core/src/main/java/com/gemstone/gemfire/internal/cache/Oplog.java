@@ -24,6 +24,7 @@ import it.unimi.dsi.fastutil.objects.ObjectIterator;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.DataInput;
 import java.io.DataInputStream;
 import java.io.DataOutput;
@@ -34,6 +35,7 @@ import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InterruptedIOException;
 import java.io.SyncFailedException;
 import java.nio.ByteBuffer;
@@ -56,6 +58,9 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Checksum;
 
 import org.apache.logging.log4j.Logger;
 
@@ -71,6 +76,7 @@ import com.gemstone.gemfire.cache.EntryNotFoundException;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.TimeoutException;
 import com.gemstone.gemfire.cache.UnsupportedVersionException;
+import com.gemstone.gemfire.compression.Compressor;
 import com.gemstone.gemfire.distributed.OplogCancelledException;
 import com.gemstone.gemfire.distributed.internal.DM;
 import com.gemstone.gemfire.internal.Assert;
@@ -176,6 +182,24 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   protected Version dataVersion;
 
+  /**
+   * The {@link #OPLOG_RECORD_FORMAT} flags of the crf. Zero if the crf uses
+   * the original record format.
+   */
+  private byte recordFormat;
+
+  /**
+   * Compresses the values in the crf if it was written with
+   * {@link #RECORD_FORMAT_COMPRESSED_VALUES}; otherwise null.
+   */
+  private Compressor valueCompressor;
+
+  /**
+   * The checksum of the crf record being recovered. Only set while
+   * {@link #readCrf} is running.
+   */
+  private Checksum recoveryChecksum;
+
   /** Directory in which the file is present* */
   private DirectoryHolder dirHolder;
 
@@ -194,6 +218,14 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   private static final boolean SYNC_WRITES = Boolean.getBoolean("gemfire.syncWrites");
 
+  /**
+   * Returns the mode to open crf and drf files for writing with. A group
+   * committing disk store forces its own writes so it never needs rwd.
+   */
+  private String getWriteMode() {
+    return SYNC_WRITES && getParent().getGroupCommitter() == null ? "rwd" : "rw";
+  }
+
   /**
    * The HighWaterMark of recentValues.
    */
@@ -527,6 +559,29 @@ public final class Oplog implements CompactableOplog, Flushable {
    */
   static final byte OPLOG_MAGIC_SEQ_ID = 92;
 
+  /**
+   * Written after the disk store id record of a CRF and KRF whose records do
+   * not use the original format. Byte Format 1: format flags; if the flags
+   * include {@link #RECORD_FORMAT_COMPRESSED_VALUES}, the class name of the
+   * compressor as a UTF string; EndOfRecord. Older versions do not know this
+   * opcode and refuse to recover an oplog that has it.
+   * 
+   * @since 9.0
+   */
+  private static final byte OPLOG_RECORD_FORMAT = 93;
+
+  /**
+   * Every entry record in the crf has a CRC32 of the record, from its opcode
+   * to the end of its key, just before its EndOfRecord.
+   */
+  static final byte RECORD_FORMAT_CHECKSUMS = 0x01;
+
+  /**
+   * Every non-empty value in the crf was compressed by the compressor named
+   * in the format record.
+   */
+  static final byte RECORD_FORMAT_COMPRESSED_VALUES = 0x02;
+
   public static enum OPLOG_TYPE {
     CRF(new byte[] { 0x47, 0x46, 0x43, 0x52, 0x46, 0x31 }), // GFCRF1
     DRF(new byte[] { 0x47, 0x46, 0x44, 0x52, 0x46, 0x31 }), // GFDRF1
@@ -767,6 +822,127 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.dirHolder.incrementTotalOplogSize(getOpStateSize());
   }
 
+  /**
+   * Decides the record format of a new crf from the disk store's settings and
+   * writes an {@link #OPLOG_RECORD_FORMAT} record for it unless it is the
+   * original format.
+   */
+  private void writeRecordFormatRecord(OplogFile olf) throws IOException {
+    byte format = 0;
+    if (getParent().RECORD_CHECKSUMS) {
+      format |= RECORD_FORMAT_CHECKSUMS;
+    }
+    this.valueCompressor = getParent().getValueCompressor();
+    if (this.valueCompressor != null) {
+      format |= RECORD_FORMAT_COMPRESSED_VALUES;
+    }
+    this.recordFormat = format;
+    if (format == 0) {
+      return;
+    }
+    this.opState = new OpState();
+    this.opState.initialize(serializeRecordFormat());
+    writeOpLogBytes(olf, false, true);
+    olf.currSize += getOpStateSize();
+    this.dirHolder.incrementTotalOplogSize(getOpStateSize());
+  }
+
+  /**
+   * Returns the payload of the {@link #OPLOG_RECORD_FORMAT} record for this
+   * oplog's format.
+   */
+  private byte[] serializeRecordFormat() throws IOException {
+    HeapDataOutputStream out = new HeapDataOutputStream(Version.CURRENT);
+    out.writeByte(this.recordFormat);
+    if (this.valueCompressor != null) {
+      out.writeUTF(this.valueCompressor.getClass().getName());
+    }
+    return out.toByteArray();
+  }
+
+  private void readRecordFormatRecord(DataInput dis, File f) throws IOException {
+    byte format = dis.readByte();
+    String compressorClassName = null;
+    if ((format & RECORD_FORMAT_COMPRESSED_VALUES) != 0) {
+      compressorClassName = dis.readUTF();
+    }
+    if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
+      logger.trace(LogMarker.PERSIST_RECOVERY, "recordFormat={} compressor={}", format, compressorClassName);
+    }
+    readEndOfRecord(dis);
+    if ((format & ~(RECORD_FORMAT_CHECKSUMS | RECORD_FORMAT_COMPRESSED_VALUES)) != 0) {
+      throw new DiskAccessException("The oplog file \"" + f + "\" uses an unknown record format " + format + ".", getParent());
+    }
+    Compressor compressor = null;
+    if (compressorClassName != null) {
+      try {
+        compressor = getParent().getValueCompressor(compressorClassName);
+      } catch (IllegalArgumentException ex) {
+        throw new DiskAccessException("The values in oplog file \"" + f + "\" can not be read", ex, getParent());
+      }
+    }
+    this.recordFormat = format;
+    this.valueCompressor = compressor;
+  }
+
+  /**
+   * Returns true if the entry records in the crf end with a checksum.
+   */
+  private boolean hasRecordChecksums() {
+    return (this.recordFormat & RECORD_FORMAT_CHECKSUMS) != 0;
+  }
+
+  /**
+   * Returns the bytes of the given value, copying them out of the value if it
+   * is not backed by an array of exactly its length.
+   */
+  private static byte[] getValueBytes(ValueWrapper vw) throws IOException {
+    if (vw instanceof DiskEntry.Helper.ByteArrayValueWrapper) {
+      byte[] bytes = ((DiskEntry.Helper.ByteArrayValueWrapper) vw).bytes;
+      if (bytes != null && bytes.length == vw.getLength()) {
+        return bytes;
+      }
+    }
+    ByteBuffer bb = ByteBuffer.allocate(vw.getLength());
+    vw.sendTo(bb, new Flushable() {
+      public void flush() {
+        // the buffer has room for the whole value
+      }
+
+      public void flush(ByteBuffer bb, ByteBuffer chunkbb) {
+        throw new IllegalStateException("value larger than its length");
+      }
+    });
+    return bb.array();
+  }
+
+  /**
+   * Returns the value bytes to store for the given value bytes, compressed if
+   * this oplog compresses values.
+   */
+  private byte[] compressValue(byte[] bytes) {
+    final long start = this.stats.startValueCompression();
+    final byte[] result = this.valueCompressor.compress(bytes);
+    this.stats.endValueCompression(start, bytes.length, result.length);
+    return result;
+  }
+
+  /**
+   * Returns the value for the given bytes read from the crf, decompressing
+   * them if this oplog compresses values.
+   */
+  private byte[] decompressValue(byte[] bytes) {
+    if (this.valueCompressor == null || bytes.length == 0) {
+      return bytes;
+    }
+    final long start = this.stats.startValueDecompression();
+    try {
+      return this.valueCompressor.decompress(bytes);
+    } finally {
+      this.stats.endValueDecompression(start);
+    }
+  }
+
   private void writeGemfireVersionRecord(OplogFile olf) throws IOException {
     if (this.gfversion == null) {
       this.gfversion = Version.CURRENT;
@@ -1112,7 +1288,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
     this.crf.f = f;
     preblow(this.crf, getMaxCrfSize());
-    this.crf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.crf.raf = new UninterruptibleRandomAccessFile(f, getWriteMode());
     this.crf.RAFClosed = false;
     oplogSet.crfCreate(this.oplogId);
     this.crf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1122,6 +1298,7 @@ public final class Oplog implements CompactableOplog, Flushable {
 
     this.stats.incOpenOplogs();
     writeDiskStoreRecord(this.crf, OPLOG_TYPE.CRF);
+    writeRecordFormatRecord(this.crf);
     writeGemfireVersionRecord(this.crf);
     writeRVVRecord(this.crf, false);
 
@@ -1154,7 +1331,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       logger.debug("Creating operation log file {}", f);
     }
     preblow(this.drf, getMaxDrfSize());
-    this.drf.raf = new UninterruptibleRandomAccessFile(f, SYNC_WRITES ? "rwd" : "rw");
+    this.drf.raf = new UninterruptibleRandomAccessFile(f, getWriteMode());
     this.drf.RAFClosed = false;
     this.oplogSet.drfCreate(this.oplogId);
     this.drf.writeBuf = allocateWriteBuf(prevOlf);
@@ -1551,10 +1728,12 @@ public final class Oplog implements CompactableOplog, Flushable {
       try {
         int recordCount = 0;
         boolean foundDiskStoreRecord = false;
-        FileInputStream fis = null;
+        InputStream fis = null;
         try {
-          fis = new FileInputStream(drfFile);
-          dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024), drfFile.length());
+          byte[] prefetched = getOplogSet().takePrefetched(drfFile);
+          fis = openForRecovery(drfFile, prefetched);
+          long drfLength = prefetched != null ? prefetched.length : drfFile.length();
+          dis = new CountingDataInputStream(new BufferedInputStream(fis, 32 * 1024), drfLength);
           boolean endOfLog = false;
           while (!endOfLog) {
             if (dis.atEndOfFile()) {
@@ -1721,9 +1900,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       return false;
     }
 
-    FileInputStream fis;
+    final byte[] prefetched = getOplogSet().takePrefetched(f);
+    InputStream fis;
     try {
-      fis = new FileInputStream(f);
+      fis = openForRecovery(f, prefetched);
     } catch (FileNotFoundException ex) {
       return false;
     }
@@ -1754,7 +1934,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           // beginning or this is not a valid file at all. Try reading it as a
           // file in old format
           fis.close();
-          fis = new FileInputStream(f);
+          fis = openForRecovery(f, prefetched);
           dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
           readDiskStoreRecord(dis, f);
         } catch (IllegalStateException notOldFileErr) {
@@ -1762,11 +1942,12 @@ public final class Oplog implements CompactableOplog, Flushable {
           // is in new format which has a magic seq in the beginning or this is
           // not a valid file at all
           fis.close();
-          fis = new FileInputStream(f);
+          fis = openForRecovery(f, prefetched);
           dis = new DataInputStream(new BufferedInputStream(fis, 1024 * 1024));
           readDiskStoreRecord(dis, f);
         }
 
+        readKrfRecordFormat(dis, f);
         readGemfireVersionRecord(dis, f);
         readTotalCountRecord(dis, f);
         readRVVRecord(dis, f, false, latestOplog);
@@ -1899,6 +2080,45 @@ public final class Oplog implements CompactableOplog, Flushable {
     return true;
   }
 
+  /**
+   * Returns a stream over the given recovery file that reads from the bytes
+   * prefetched by the {@link OplogRecoveryPrefetcher} if there are any.
+   */
+  private static InputStream openForRecovery(File f, byte[] prefetched) throws FileNotFoundException {
+    if (prefetched != null) {
+      return new ByteArrayInputStream(prefetched);
+    }
+    return new FileInputStream(f);
+  }
+
+  /**
+   * Returns the drf file {@link #recoverDrf} will read or null if it will not
+   * read one.
+   */
+  File getDrfFileToRecover() {
+    if (this.drf.f == null || (this.haveRecoveredDrf && !getHasDeletes())) {
+      return null;
+    }
+    return this.drf.f;
+  }
+
+  /**
+   * Returns the krf file {@link #recoverCrf} will read instead of the crf or
+   * null if it will read the crf.
+   */
+  File getKrfFileToRecover(boolean recoverValuesSync) {
+    if (this.crf.f == null || this.drf.f == null || (this.haveRecoveredCrf && isDeleted()) || recoverValuesSync) {
+      return null;
+    }
+    if (getParent().isOffline() && !getParent().FORCE_KRF_RECOVERY) {
+      return null;
+    }
+    if (!getParent().getDiskInitFile().hasKrf(this.oplogId)) {
+      return null;
+    }
+    return new File(this.drf.f.getParentFile(), oplogSet.getPrefix() + getParent().getName() + "_" + this.oplogId + KRF_FILE_EXT);
+  }
+
   private void validateOpcode(DataInputStream dis, byte expect) throws IOException {
     byte opCode = dis.readByte();
     if (opCode != expect) {
@@ -1929,7 +2149,11 @@ public final class Oplog implements CompactableOplog, Flushable {
       FileInputStream fis = null;
       try {
         fis = new FileInputStream(this.crf.f);
-        dis = new CountingDataInputStream(new BufferedInputStream(fis, 1024 * 1024), this.crf.f.length());
+        // checksum what we read so entry records can be verified if the crf
+        // turns out to have record checksums
+        CheckedInputStream cis = new CheckedInputStream(new BufferedInputStream(fis, 1024 * 1024), new CRC32());
+        this.recoveryChecksum = cis.getChecksum();
+        dis = new CountingDataInputStream(cis, this.crf.f.length());
         boolean endOfLog = false;
         while (!endOfLog) {
           // long startPosition = byteCount;
@@ -1938,6 +2162,7 @@ public final class Oplog implements CompactableOplog, Flushable {
             break;
           }
           readLastRecord = false;
+          this.recoveryChecksum.reset();
           byte opCode = dis.readByte();
           if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
             logger.trace(LogMarker.PERSIST_RECOVERY, "Oplog opCode={}", opCode);
@@ -1997,6 +2222,10 @@ public final class Oplog implements CompactableOplog, Flushable {
           case OPLOG_MAGIC_SEQ_ID:
             readOplogMagicSeqRecord(dis, this.crf.f, OPLOG_TYPE.CRF);
             break;
+          case OPLOG_RECORD_FORMAT:
+            readRecordFormatRecord(dis, this.crf.f);
+            recordCount++;
+            break;
           case OPLOG_GEMFIRE_VERSION:
             readGemfireVersionRecord(dis, this.crf.f);
             recordCount++;
@@ -2016,6 +2245,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           // }
         } // while
       } finally {
+        this.recoveryChecksum = null;
         if (dis != null) {
           dis.close();
         }
@@ -2383,6 +2613,70 @@ public final class Oplog implements CompactableOplog, Flushable {
     return re;
   }
 
+  /**
+   * Reads the {@link #OPLOG_RECORD_FORMAT} record that follows the disk store
+   * id record of a krf if it has one.
+   */
+  private void readKrfRecordFormat(DataInputStream dis, File f) throws IOException {
+    dis.mark(1);
+    if (dis.readByte() == OPLOG_RECORD_FORMAT) {
+      readRecordFormatRecord(dis, f);
+    } else {
+      dis.reset();
+    }
+  }
+
+  /**
+   * Reads the checksum at the end of an entry record, if the crf has them, and
+   * compares it with the checksum of the bytes read since the start of the
+   * record. A mismatch on the last record of the crf is a torn write and is
+   * treated like any other partial last record; a mismatch anywhere else
+   * means the crf is corrupt.
+   */
+  private void readRecordChecksum(CountingDataInputStream dis) throws IOException {
+    if (!hasRecordChecksums()) {
+      return;
+    }
+    final int expected = (int) this.recoveryChecksum.getValue();
+    final int actual = dis.readInt();
+    if (actual != expected) {
+      this.stats.incRecordChecksumFailures();
+      final long recordEnd = dis.getCount();
+      if (isLastRecord(dis)) {
+        logger.warn(LocalizedMessage.create(LocalizedStrings.Oplog_PARTIAL_RECORD));
+        throw new EOFException("found torn last record");
+      }
+      throw new DiskAccessException("The checksum of the record ending at offset " + recordEnd + " of oplog file \"" + this.crf.f
+          + "\" does not match its contents.", getParent());
+    }
+    if (getParent().isValidating()) {
+      getParent().incChecksummedRecordCount(1);
+    }
+  }
+
+  /**
+   * Returns true if the record whose checksum was just read is the last one
+   * in the crf: all that follows it is its EndOfRecord and zeros, which is
+   * what unwritten bytes read as.
+   */
+  private static boolean isLastRecord(CountingDataInputStream dis) throws IOException {
+    try {
+      if (!dis.atEndOfFile()) {
+        byte b = dis.readByte();
+        if (b != END_OF_RECORD_ID && b != 0) {
+          return false;
+        }
+      }
+      while (!dis.atEndOfFile()) {
+        if (dis.readByte() != 0) {
+          return false;
+        }
+      }
+    } catch (EOFException ignore) {
+    }
+    return true;
+  }
+
   private void readEndOfRecord(DataInput di) throws IOException {
     int b = di.readByte();
     if (b != END_OF_RECORD_ID) {
@@ -2542,7 +2836,6 @@ public final class Oplog implements CompactableOplog, Flushable {
         byte[] valueBytes = new byte[len];
         dis.readFully(valueBytes);
         objValue = valueBytes;
-        validateValue(valueBytes, userBits, version, in);
       } else {
         forceSkipBytes(dis, len);
       }
@@ -2558,6 +2851,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           dis.readFully(keyBytes);
           skippedKeyBytes.put(oplogKeyId, keyBytes);
         }
+        readRecordChecksum(dis);
         readEndOfRecord(dis);
 
         if (drs != null && tag != null) {
@@ -2580,7 +2874,11 @@ public final class Oplog implements CompactableOplog, Flushable {
           keyBytes = new byte[len];
           dis.readFully(keyBytes);
         }
+        readRecordChecksum(dis);
         readEndOfRecord(dis);
+        if (objValue != null && valueLength > 0) {
+          objValue = recoveredValue(objValue, userBits, version, in);
+        }
 
         if (drs != null && tag != null) {
           // Update the RVV with the new entry
@@ -2740,12 +3038,15 @@ public final class Oplog implements CompactableOplog, Flushable {
         byte[] valueBytes = new byte[len];
         dis.readFully(valueBytes);
         objValue = valueBytes;
-        validateValue(valueBytes, userBits, version, in);
       } else {
         forceSkipBytes(dis, len);
       }
     }
+    readRecordChecksum(dis);
     readEndOfRecord(dis);
+    if (objValue != null && valueLength > 0) {
+      objValue = recoveredValue(objValue, userBits, version, in);
+    }
 
     if (drs != null && tag != null) {
       // Update the RVV with the new entry
@@ -2853,6 +3154,17 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Returns the value for the value bytes of a record read from the crf.
+   * Called once the whole record has been read so that a torn record is
+   * detected before its value is decompressed.
+   */
+  private byte[] recoveredValue(byte[] valueBytes, byte userBits, Version version, ByteArrayDataInput in) {
+    byte[] result = decompressValue(valueBytes);
+    validateValue(result, userBits, version, in);
+    return result;
+  }
+
   private void validateValue(byte[] valueBytes, byte userBits, Version version, ByteArrayDataInput in) {
     if (getParent().isValidating()) {
       if (EntryBits.isSerialized(userBits)) {
@@ -2964,7 +3276,6 @@ public final class Oplog implements CompactableOplog, Flushable {
         byte[] valueBytes = new byte[len];
         dis.readFully(valueBytes);
         objValue = valueBytes;
-        validateValue(valueBytes, userBits, version, in);
       } else {
         forceSkipBytes(dis, len);
       }
@@ -2981,6 +3292,7 @@ public final class Oplog implements CompactableOplog, Flushable {
         dis.readFully(keyBytes);
         skippedKeyBytes.put(oplogKeyId, keyBytes);
       }
+      readRecordChecksum(dis);
       readEndOfRecord(dis);
       if (logger.isTraceEnabled(LogMarker.PERSIST_RECOVERY)) {
         logger.trace(LogMarker.PERSIST_RECOVERY, "skipping readModEntryWK init oplogKeyId=<{}> drId={}", oplogKeyId, drId);
@@ -2994,7 +3306,11 @@ public final class Oplog implements CompactableOplog, Flushable {
         keyBytes = new byte[keyLen];
         dis.readFully(keyBytes);
       }
+      readRecordChecksum(dis);
       readEndOfRecord(dis);
+      if (objValue != null && valueLength > 0) {
+        objValue = recoveredValue(objValue, userBits, version, in);
+      }
       if (drs != null && tag != null) {
         // Update the RVV with the new entry
         // This must be done after reading the end of record to make sure
@@ -3329,7 +3645,9 @@ public final class Oplog implements CompactableOplog, Flushable {
 
   private void basicClose(boolean forceDelete) {
     flushAll();
+    forceForGroupCommit();
     synchronized (this.lock/* crf */) {
+      closeCrfMapping();
       unpreblow(this.crf, getMaxCrfSize());
       if (!this.crf.RAFClosed) {
         try {
@@ -3499,6 +3817,14 @@ public final class Oplog implements CompactableOplog, Flushable {
     return this.opState.getValueOffset();
   }
 
+  /**
+   * Returns the number of value bytes this.opState writes to the crf, which
+   * is less than the length of the value if it was compressed.
+   */
+  private int getOpStateValueLength() {
+    return this.opState.getValueLength();
+  }
+
   private byte calcUserBits(ValueWrapper vw) {
     return vw.getUserBits();
   }
@@ -3556,6 +3882,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           userBits = EntryBits.setWithVersions(userBits, true);
         }
         basicCreate(region.getDiskRegion(), entry, value, userBits, async);
+        waitForGroupCommit(async);
       } catch (IOException ex) {
         exceptionOccured = true;
         region.getCancelCriterion().checkCancelInProgress(ex);
@@ -3669,13 +3996,13 @@ public final class Oplog implements CompactableOplog, Flushable {
         id.setOplogId(getOplogId());
         // do the io while holding lock so that switch can set doneAppending
         // Write the data to the opLog for the synch mode
-        startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+        startPosForSynchOp = writeEntryOpLogBytes(this.crf, async);
         // if (this.crf.currSize != startPosForSynchOp) {
         // assert false;
         // }
         this.crf.currSize = temp;
         if (EntryBits.isNeedsValue(userBits)) {
-          id.setValueLength(value.getLength());
+          id.setValueLength(getOpStateValueLength());
         } else {
           id.setValueLength(0);
         }
@@ -3803,6 +4130,8 @@ public final class Oplog implements CompactableOplog, Flushable {
       drName = getParent().getName();
     }
     flushAll(); // needed in case of async
+    // the files are closed later without a force
+    forceForGroupCommit();
     lengthOfOperationCausingSwitch += 20; // for worstcase overhead of writing
                                           // first record
 
@@ -4052,6 +4381,13 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.krf.dos.writeLong(getParent().getDiskStoreID().getMostSignificantBits());
     this.krf.dos.writeByte(END_OF_RECORD_ID);
 
+    // write the record format of the crf if it is not the original one
+    if (this.recordFormat != 0) {
+      this.krf.dos.writeByte(OPLOG_RECORD_FORMAT);
+      this.krf.dos.write(serializeRecordFormat());
+      this.krf.dos.writeByte(END_OF_RECORD_ID);
+    }
+
     // write product versions
     assert this.gfversion != null;
     // write both gemfire and data versions if the two are different else write
@@ -4491,6 +4827,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           userBits = EntryBits.setWithVersions(userBits, true);
         }
         basicModify(region.getDiskRegion(), entry, value, userBits, async, false);
+        waitForGroupCommit(async);
       } catch (IOException ex) {
         exceptionOccured = true;
         region.getCancelCriterion().checkCancelInProgress(ex);
@@ -4670,7 +5007,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           long oldOplogId;
           // do the io while holding lock so that switch can set doneAppending
           // Write the data to the opLog for the synch mode
-          startPosForSynchOp = writeOpLogBytes(this.crf, async, true);
+          startPosForSynchOp = writeEntryOpLogBytes(this.crf, async);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4684,7 +5021,7 @@ public final class Oplog implements CompactableOplog, Flushable {
               dr.getId(), tag, getOplogId());
           }
           if (EntryBits.isNeedsValue(userBits)) {
-            id.setValueLength(value.getLength());
+            id.setValueLength(getOpStateValueLength());
           } else {
             id.setValueLength(0);
           }
@@ -4839,7 +5176,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           startPosForSynchOp = writeOpLogBytes(this.crf, true, true);
           this.crf.currSize = temp;
           startPosForSynchOp += getOpStateValueOffset();
-          getOplogSet().getChild().writeOneKeyEntryForKRF(keyBytes, userBits, valueBytes.length, drId, oplogKeyId,
+          getOplogSet().getChild().writeOneKeyEntryForKRF(keyBytes, userBits, getOpStateValueLength(), drId, oplogKeyId,
               startPosForSynchOp, tag);
 
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
@@ -4943,6 +5280,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       int len = did.getValueLength();
       try {
         basicRemove(dr, entry, async, isClear);
+        waitForGroupCommit(async);
       } catch (IOException ex) {
         exceptionOccured = true;
         getParent().getCancelCriterion().checkCancelInProgress(ex);
@@ -5117,7 +5455,7 @@ public final class Oplog implements CompactableOplog, Flushable {
           // before we flush the crf.
           // However we can't have removes by async if we are doing a sync write
           // because we might be killed right after we do this write.
-          startPosForSynchOp = writeOpLogBytes(this.drf, async, true);
+          startPosForSynchOp = writeEntryOpLogBytes(this.drf, async);
           setHasDeletes(true);
           if (logger.isTraceEnabled(LogMarker.PERSIST_WRITES)) {
             logger.debug("basicRemove: id=<{}> key=<{}> drId={} oplog#{}", abs(id.getKeyId()), entry.getKey(), dr.getId(),
@@ -5342,6 +5680,74 @@ public final class Oplog implements CompactableOplog, Flushable {
     return startPos;
   }
 
+  /**
+   * Write the current op state for an entry create, modify or remove. If this
+   * is a synchronous write and the disk store group commits then the record is
+   * left in the write buffer and the caller must call
+   * {@link #waitForGroupCommit(boolean)} once it has released the oplog lock.
+   */
+  private long writeEntryOpLogBytes(OplogFile olf, boolean async) throws IOException {
+    OplogGroupCommitter committer = getParent().getGroupCommitter();
+    if (async || committer == null) {
+      return writeOpLogBytes(olf, async, true);
+    }
+    long startPos = writeOpLogBytes(olf, async, false);
+    committer.scheduleCommit(this);
+    return startPos;
+  }
+
+  /**
+   * Blocks until synchronous entry writes done by this thread are on disk.
+   * Does nothing unless the disk store group commits.
+   */
+  private void waitForGroupCommit(boolean async) throws IOException, InterruptedException {
+    OplogGroupCommitter committer = getParent().getGroupCommitter();
+    if (!async && committer != null) {
+      committer.waitForCommit();
+    }
+  }
+
+  /**
+   * Called by the {@link OplogGroupCommitter} to flush the write buffers of
+   * this oplog and force them to disk. Only the flush is done while holding
+   * the oplog lock so writers can keep appending during the force.
+   */
+  void groupCommit() throws IOException {
+    flush(this.drf, false);
+    flush(this.crf, false);
+    force(this.drf);
+    force(this.crf);
+  }
+
+  /**
+   * Forces the crf and drf to disk if the disk store group commits. Called
+   * before the files are closed, as records waiting for a group commit are
+   * not forced by the committer once the files are closed.
+   */
+  private void forceForGroupCommit() {
+    if (getParent().getGroupCommitter() == null) {
+      return;
+    }
+    try {
+      force(this.drf);
+      force(this.crf);
+    } catch (IOException ex) {
+      getParent().getCancelCriterion().checkCancelInProgress(ex);
+      throw new DiskAccessException(LocalizedStrings.Oplog_FAILED_WRITING_KEY_TO_0.toLocalizedString(this.diskFile.getPath()), ex,
+          getParent());
+    }
+  }
+
+  private void force(OplogFile olf) throws IOException {
+    try {
+      if (!olf.RAFClosed) {
+        olf.channel.force(true);
+      }
+    } catch (ClosedChannelException ignore) {
+      // closed by an interrupted io op, see flush
+    }
+  }
+
   boolean isRAFOpen() {
     return !this.crf.RAFClosed; // volatile read
   }
@@ -5485,6 +5891,94 @@ public final class Oplog implements CompactableOplog, Flushable {
     }
   }
 
+  /**
+   * Read only mapping of the crf, created on the first read after this oplog
+   * is done appending if the disk store maps reads.
+   */
+  private volatile OplogFileMapping crfMapping;
+  /**
+   * Set if the crf can not be mapped so we stop trying.
+   */
+  private volatile boolean crfMappingFailed;
+
+  /**
+   * Returns the mapping of the crf or null if reads from this oplog must go
+   * through {@link #attemptGet}.
+   */
+  private OplogFileMapping getCrfMapping() {
+    OplogFileMapping result = this.crfMapping;
+    // the unsynchronized checks keep reads of the active oplog from taking
+    // the lock an extra time
+    if (result == null && getParent().MMAP_READS && this.doneAppending && !this.crfMappingFailed) {
+      synchronized (this.lock/* crf */) {
+        result = this.crfMapping;
+        // only map once the crf has been truncated to its final size
+        if (result == null && !this.crfMappingFailed && !this.closed && this.crf.f != null && this.crf.unpreblown) {
+          try {
+            result = OplogFileMapping.map(this.crf.f, this.crf.bytesFlushed);
+          } catch (IOException ex) {
+            // fall back to reading through the RAF
+            if (logger.isDebugEnabled()) {
+              logger.debug("Could not map {} for reading", this.crf.f, ex);
+            }
+            result = null;
+          }
+          if (result == null) {
+            this.crfMappingFailed = true;
+          } else {
+            if (logger.isDebugEnabled()) {
+              logger.debug("Mapped {} bytes of {} for reading", result.size(), this.crf.f);
+            }
+            this.crfMapping = result;
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Unmaps the crf so that its disk space is freed once it is deleted, and
+   * keeps it from being mapped again. Caller must hold the oplog lock.
+   */
+  private void closeCrfMapping() {
+    OplogFileMapping mapping = this.crfMapping;
+    this.crfMapping = null;
+    this.crfMappingFailed = true;
+    if (mapping != null) {
+      mapping.close();
+    }
+  }
+
+  /**
+   * Reads a value from the mapped crf without holding the oplog lock.
+   * 
+   * @return null if the value is not available from a mapping
+   */
+  private BytesAndBits mappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    OplogFileMapping mapping = getCrfMapping();
+    if (mapping == null || !mapping.retain()) {
+      return null;
+    }
+    byte[] valueBytes;
+    try {
+      valueBytes = mapping.read(offsetInOplog, valueLength);
+    } finally {
+      mapping.release();
+    }
+    if (valueBytes == null) {
+      return null;
+    }
+    this.stats.incOplogMappedReads();
+    BytesAndBits bb = new BytesAndBits(valueBytes, userBits);
+    // also set the product version for an older product
+    final Version version = getProductVersionIfOld();
+    if (version != null) {
+      bb.setVersion(version);
+    }
+    return bb;
+  }
+
   /**
    * Asif: Extracts the Value byte array & UserBit from the OpLog
    * 
@@ -5517,7 +6011,15 @@ public final class Oplog implements CompactableOplog, Flushable {
           dr.getCancelCriterion().checkCancelInProgress(null);
           boolean interrupted = Thread.interrupted();
           try {
-            bb = attemptGet(dr, offsetInOplog, bitOnly, valueLength, userBits);
+            bb = mappedGet(offsetInOplog, valueLength, userBits);
+            if (bb == null) {
+              bb = attemptGet(dr, offsetInOplog, bitOnly, valueLength, userBits);
+            }
+            if (bb != null && this.valueCompressor != null) {
+              BytesAndBits stored = bb;
+              bb = new BytesAndBits(decompressValue(stored.getBytes()), userBits);
+              bb.setVersion(stored.getVersion());
+            }
             break;
           } catch (InterruptedIOException e) { // bug 39756
             // ignore, we'll clear and retry.
@@ -5621,7 +6123,16 @@ public final class Oplog implements CompactableOplog, Flushable {
               this.crf.raf.readFully(valueBytes, 0, valueLength);
             }
             this.stats.incOplogReads();
-            wrapper.setData(valueBytes, userBits, valueLength, true);
+            if (this.valueCompressor != null) {
+              if (valueBytes.length != valueLength) {
+                valueBytes = Arrays.copyOf(valueBytes, valueLength);
+              }
+              valueBytes = decompressValue(valueBytes);
+              // the wrapper can not reuse the decompressed bytes for its next read
+              wrapper.setData(valueBytes, userBits, valueBytes.length, false);
+            } else {
+              wrapper.setData(valueBytes, userBits, valueLength, true);
+            }
           } finally {
             // if this oplog is no longer being appended to then don't waste
             // disk io
@@ -5717,6 +6228,9 @@ public final class Oplog implements CompactableOplog, Flushable {
   }
 
   public void deleteCRFFileOnly() {
+    synchronized (this.lock/* crf */) {
+      closeCrfMapping();
+    }
     deleteFile(this.crf);
     // replace .crf at the end with .krf
     if (this.crf.f != null) {
@@ -6046,6 +6560,84 @@ public final class Oplog implements CompactableOplog, Flushable {
     this.compacting = true;
   }
 
+  /**
+   * The number of value bytes compaction has copied forward from this oplog.
+   * Only accessed by the compactor thread.
+   */
+  private long compactionBytesCopied;
+
+  /**
+   * Called by the compactor after copying an entry forward. If the compactor
+   * is throttled and has finished a slice, releases the compactor locks while
+   * waiting for the throttle so that foreground operations, backups and
+   * region creation are not held up by compaction. The entries still to be
+   * compacted stay on this oplog's live lists so the next slice picks up
+   * where this one stopped.
+   * 
+   * @return true if the locks were released, in which case the caller must
+   *         not rely on anything it read under them before this call
+   */
+  private boolean throttleCompaction(OplogCompactor compactor, int copied) {
+    this.compactionBytesCopied += copied;
+    getParent().compactionCopied(copied);
+    CompactionThrottle throttle = compactor.getThrottle();
+    if (throttle != null && throttle.copied(copied)) {
+      unlockCompactor();
+      getParent().releaseCompactorReadLock();
+      try {
+        throttle.pause(compactor, getStats());
+      } finally {
+        getParent().acquireCompactorReadLock();
+        lockCompactor();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if the given region's entries can still be compacted after
+   * the compactor locks were released by {@link #throttleCompaction}. The
+   * region may have been closed, or closed and recreated, while they were
+   * released.
+   */
+  private boolean isCompactableRegion(DiskRegionInfo dri, DiskRegionView dr) {
+    return this.regionMap.get(dr.getId()) == dri && dri.getDiskRegion() == dr && !dr.isRegionClosed();
+  }
+
+  /**
+   * Records the space freed by compacting this oplog. The crf size must be
+   * read before compaction starts since the crf is deleted by the compactor
+   * once the last live entry has been copied forward.
+   */
+  private void recordCompactionReclaimed(long crfSize) {
+    long reclaimed = crfSize - this.compactionBytesCopied;
+    if (reclaimed > 0) {
+      getStats().incCompactionBytesReclaimed(reclaimed);
+    }
+  }
+
+  /**
+   * Returns the fraction of the records written to this oplog that are no
+   * longer live.
+   */
+  double getGarbageRatio() {
+    long total = this.totalCount.get();
+    if (total <= 0) {
+      return 1.0;
+    }
+    long live = Math.max(0, this.totalLiveCount.get());
+    return 1.0 - ((double) live / total);
+  }
+
+  /**
+   * Returns an estimate of the number of crf bytes compaction would need to
+   * copy forward from this oplog.
+   */
+  long estimateLiveBytes() {
+    return (long) (this.crf.currSize * (1.0 - getGarbageRatio()));
+  }
+
   private final Lock compactorLock = new ReentrantLock();
 
   private void lockCompactor() {
@@ -6075,7 +6667,9 @@ public final class Oplog implements CompactableOplog, Flushable {
       }
       lockCompactor();
       try {
+        final long crfSize = this.crf.currSize;
         if (hasNoLiveValues()) {
+          recordCompactionReclaimed(crfSize);
           handleNoLiveValues();
           return 0; // do this while holding compactorLock
         }
@@ -6092,11 +6686,13 @@ public final class Oplog implements CompactableOplog, Flushable {
                                  * getParent().getOwner().isDestroyed ||
                                  */!compactor.keepCompactorRunning();
         int totalCount = 0;
-        for (DiskRegionInfo dri : this.regionMap.values()) {
+        for (Iterator<DiskRegionInfo> it = this.regionMap.values().iterator(); it.hasNext();) {
+          final DiskRegionInfo dri = it.next();
           final DiskRegionView dr = dri.getDiskRegion();
           if (dr == null)
             continue;
           boolean didCompact = false;
+          int copied = 0;
           while ((de = dri.getNextLiveEntry()) != null) {
             if (/*
                  * getParent().getOwner().isDestroyed ||
@@ -6132,6 +6728,7 @@ public final class Oplog implements CompactableOplog, Flushable {
                     }
                     continue;
                   }
+                  copied = wrapper.getDataChunk() != null ? wrapper.getDataChunk().getDataSize() : wrapper.getValidLength();
                   // write it to the current oplog
                   getOplogSet().getChild().copyForwardModifyForCompact(dr, de, wrapper);
                   // the did's oplogId will now be set to the current active oplog
@@ -6153,11 +6750,27 @@ public final class Oplog implements CompactableOplog, Flushable {
               if (!wrapper.isReusable()) {
                 wrapper = new BytesAndBitsForCompactor();
               }
+              if (throttleCompaction(compactor, copied)) {
+                if (!compactor.keepCompactorRunning() || this.closed || isDeleted()) {
+                  compactFailed = true;
+                  break;
+                }
+                if (!isCompactableRegion(dri, dr)) {
+                  // the regions may have changed; start over with the live
+                  // entries that are left
+                  it = this.regionMap.values().iterator();
+                  break;
+                }
+              }
             }
           }
+          if (compactFailed) {
+            break;
+          }
         }
 
         if (!compactFailed) {
+          recordCompactionReclaimed(crfSize);
           // Need to still remove the oplog even if it had nothing to compact.
           handleNoLiveValues();
 
@@ -6523,6 +7136,12 @@ public final class Oplog implements CompactableOplog, Flushable {
     private byte[] versionsBytes;
     private short gfversion;
 
+    /**
+     * True if this is an entry record that ends with a checksum.
+     */
+    private boolean checksummed;
+    private final CRC32 checksum = new CRC32();
+
     // private int entryVersion;
     // private long regionVersion;
     // private int memberId; // canonicalId of memberID
@@ -6618,6 +7237,13 @@ public final class Oplog implements CompactableOplog, Flushable {
       this.size = OPLOG_MAGIC_SEQ_REC_SIZE;
     }
 
+    public void initialize(byte[] recordFormatBytes) {
+      this.opCode = OPLOG_RECORD_FORMAT;
+      this.value = new DiskEntry.Helper.ByteArrayValueWrapper(true, recordFormatBytes);
+      // Size is opCode + format + end of record
+      this.size = 1 + recordFormatBytes.length + 1;
+    }
+
     public void initialize(Map<Long, AbstractDiskRegion> drMap, boolean gcRVV) throws IOException {
       this.opCode = OPLOG_RVV;
       byte[] rvvBytes = serializeRVVs(drMap, gcRVV);
@@ -6644,8 +7270,10 @@ public final class Oplog implements CompactableOplog, Flushable {
       initVersionsBytes(tag);
 
       if (this.needsValue) {
+        this.value = encodeValue(this.value);
         this.size += 4 + this.value.getLength();
       }
+      initChecksummed();
       this.deltaIdBytesLength = 0;
       {
         long delta = calcDelta(oplogKeyId, this.opCode);
@@ -6727,8 +7355,14 @@ public final class Oplog implements CompactableOplog, Flushable {
         saveDrId(drId);
       }
       if (this.needsValue) {
+        this.value = encodeValue(this.value);
         this.size += 4 + this.value.getLength();
       }
+      if (this.opCode != OPLOG_DEL_ENTRY_1ID) {
+        initChecksummed();
+      } else {
+        this.checksummed = false;
+      }
       this.deltaIdBytesLength = 0;
       if (this.opCode != OPLOG_NEW_ENTRY_0ID) {
         // if (this.opCode == OPLOG_DEL_ENTRY_1ID) {
@@ -6758,6 +7392,70 @@ public final class Oplog implements CompactableOplog, Flushable {
       this.size++; // for END_OF_RECORD_ID
     }
 
+    /**
+     * Returns the value to write for the given value: compressed if the oplog
+     * compresses values and backed by a byte array if the oplog checksums its
+     * records.
+     */
+    private ValueWrapper encodeValue(ValueWrapper vw) throws IOException {
+      if (Oplog.this.recordFormat == 0 || vw.getLength() == 0) {
+        return vw;
+      }
+      byte[] bytes = getValueBytes(vw);
+      if (Oplog.this.valueCompressor != null) {
+        bytes = compressValue(bytes);
+      }
+      return new DiskEntry.Helper.CompactorValueWrapper(bytes, bytes.length);
+    }
+
+    private void initChecksummed() {
+      this.checksummed = hasRecordChecksums();
+      if (this.checksummed) {
+        this.size += 4;
+      }
+    }
+
+    /**
+     * Returns the CRC32 of the bytes {@link #write(OplogFile)} writes for
+     * this entry record before its checksum.
+     */
+    private int computeChecksum() {
+      final CRC32 crc = this.checksum;
+      crc.reset();
+      crc.update(this.opCode);
+      if (this.notToUseUserBits == false) {
+        crc.update(this.userBits);
+      }
+      crc.update(this.deltaIdBytes, 0, this.deltaIdBytesLength);
+      crc.update(this.drIdBytes, 0, this.drIdLength);
+      if (EntryBits.isWithVersions(this.userBits) && this.versionsBytes != null) {
+        crc.update(this.versionsBytes, 0, this.versionsBytes.length);
+      }
+      if (this.needsValue) {
+        int len = this.value.getLength();
+        updateInt(crc, len);
+        if (len > 0) {
+          crc.update(((DiskEntry.Helper.ByteArrayValueWrapper) this.value).bytes, 0, len);
+        }
+      }
+      if (this.keyBytes != null) {
+        updateInt(crc, this.keyBytes.length);
+        crc.update(this.keyBytes, 0, this.keyBytes.length);
+      }
+      return (int) crc.getValue();
+    }
+
+    private void updateInt(CRC32 crc, int v) {
+      crc.update(v >>> 24);
+      crc.update(v >>> 16);
+      crc.update(v >>> 8);
+      crc.update(v);
+    }
+
+    public int getValueLength() {
+      return this.value.getLength();
+    }
+
     private void saveUserBits(boolean notToUseUserBits, byte userBits) {
       this.notToUseUserBits = notToUseUserBits;
       if (notToUseUserBits) {
@@ -6793,6 +7491,7 @@ public final class Oplog implements CompactableOplog, Flushable {
     public void initialize(byte opCode, long drId, VersionTag tag) throws IOException {
       this.opCode = opCode;
       assert this.opCode == OPLOG_CONFLICT_VERSION;
+      this.checksummed = false;
       this.size = 1;// for the opcode
       saveDrId(drId);
 
@@ -6835,7 +7534,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       } else if (this.opCode == OPLOG_MAGIC_SEQ_ID) {
         write(olf, this.magic.getBytes(), OPLOG_TYPE.getLen());
         bytesWritten += OPLOG_TYPE.getLen();
-      } else if (this.opCode == OPLOG_RVV) {
+      } else if (this.opCode == OPLOG_RVV || this.opCode == OPLOG_RECORD_FORMAT) {
         write(olf, this.value);
         bytesWritten += this.value.getLength();
       } else if (this.opCode == OPLOG_GEMFIRE_VERSION) {
@@ -6884,6 +7583,10 @@ public final class Oplog implements CompactableOplog, Flushable {
             bytesWritten += this.keyBytes.length;
           }
         }
+        if (this.checksummed) {
+          writeInt(olf, computeChecksum());
+          bytesWritten += 4;
+        }
       }
 
       writeByte(olf, END_OF_RECORD_ID);
@@ -6899,6 +7602,7 @@ public final class Oplog implements CompactableOplog, Flushable {
       this.keyBytes = null;
       this.notToUseUserBits = false;
       this.versionsBytes = null;
+      this.checksummed = false;
     }
   }
 
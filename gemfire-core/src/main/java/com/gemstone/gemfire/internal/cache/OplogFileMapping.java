@@ -0,0 +1,176 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * A read only memory mapping of an oplog crf that is no longer being appended
+ * to. Since the mapped bytes never change, values can be read from it
+ * without holding the oplog lock and without a seek and read system call.
+ * <p>
+ * Used when the <code>gemfire.disk.mmapReads</code> system property is set.
+ * A mapping keeps the disk space of its file in use, even after the file is
+ * deleted, until it is unmapped. So the oplog {@linkplain #close() closes}
+ * its mapping before it deletes or closes the crf, and the mapping is
+ * unmapped as soon as the readers that {@linkplain #retain() retained} it
+ * have {@linkplain #release() released} it. If the buffer can not be
+ * unmapped explicitly on this JVM it is unmapped when it is garbage
+ * collected.
+ *
+ * @since 9.0
+ */
+final class OplogFileMapping {
+
+  private static final Logger logger = LogService.getLogger();
+
+  /**
+   * Mapped files can not be deleted on Windows until the mapping is garbage
+   * collected, which would break oplog deletion.
+   */
+  private static final boolean SUPPORTED = !System.getProperty("os.name", "").startsWith("Windows");
+
+  private final MappedByteBuffer buffer;
+
+  /**
+   * The number of readers using the mapping plus one for the oplog until it
+   * closes the mapping.
+   */
+  private final AtomicInteger refCount = new AtomicInteger(1);
+
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  private OplogFileMapping(MappedByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Returns true if oplog files can be mapped on this platform.
+   */
+  static boolean isSupported() {
+    return SUPPORTED;
+  }
+
+  /**
+   * Maps the first <code>size</code> bytes of the given file. Returns null if
+   * the file is too large to be mapped with a single buffer.
+   */
+  static OplogFileMapping map(File f, long size) throws IOException {
+    RandomAccessFile raf = new RandomAccessFile(f, "r");
+    try {
+      FileChannel channel = raf.getChannel();
+      // never map past the end of the file; touching those pages is fatal
+      size = Math.min(size, channel.size());
+      if (size <= 0 || size > Integer.MAX_VALUE) {
+        return null;
+      }
+      return new OplogFileMapping(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+    } finally {
+      // the mapping stays valid after the channel is closed
+      raf.close();
+    }
+  }
+
+  /**
+   * Returns the <code>length</code> bytes at <code>offset</code> or null if
+   * they are not all contained in this mapping.
+   */
+  byte[] read(long offset, int length) {
+    if (offset < 0 || offset + length > this.buffer.capacity()) {
+      return null;
+    }
+    byte[] result = new byte[length];
+    ByteBuffer view = this.buffer.duplicate();
+    view.position((int) offset);
+    view.get(result);
+    return result;
+  }
+
+  long size() {
+    return this.buffer.capacity();
+  }
+
+  /**
+   * Keeps the mapping from being unmapped until {@link #release()} is called.
+   * Returns false if the mapping has already been unmapped, in which case it
+   * must not be read.
+   */
+  boolean retain() {
+    for (;;) {
+      int count = this.refCount.get();
+      if (count <= 0) {
+        return false;
+      }
+      if (this.refCount.compareAndSet(count, count + 1)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Releases a reference taken by {@link #retain()}. The last release unmaps
+   * the buffer.
+   */
+  void release() {
+    if (this.refCount.decrementAndGet() == 0) {
+      unmap(this.buffer);
+    }
+  }
+
+  /**
+   * Releases the reference of the oplog. The buffer is unmapped now, or once
+   * the last reader releases it. Closing more than once has no effect.
+   */
+  void close() {
+    if (this.closed.compareAndSet(false, true)) {
+      release();
+    }
+  }
+
+  /**
+   * Unmaps the buffer using its cleaner, which is the only way to free a
+   * mapping before it is garbage collected.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      java.lang.reflect.Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        java.lang.reflect.Method cleanMethod = cleaner.getClass().getMethod("clean");
+        cleanMethod.setAccessible(true);
+        cleanMethod.invoke(cleaner);
+      }
+    } catch (Exception e) {
+      // leave it to the garbage collector
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not unmap an oplog mapping, it will be unmapped when it is garbage collected", e);
+      }
+    }
+  }
+}
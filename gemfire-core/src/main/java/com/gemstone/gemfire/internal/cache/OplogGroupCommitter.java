@@ -0,0 +1,238 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Makes synchronous oplog writes durable in batches. Writers append their
+ * crf/drf records to the oplog write buffers while holding the oplog lock but
+ * do not flush or force them. Once they have released the oplog lock they
+ * call {@link #waitForCommit()}, which blocks until a single committer thread
+ * has flushed the buffers of every oplog written since the last commit and
+ * issued one <code>force</code> per file for the whole batch.
+ * <p>
+ * Enabled with the <code>gemfire.disk.groupCommit</code> system property.
+ * While the committer is forcing one batch the next batch accumulates, so the
+ * number of writers released per force grows with the number of concurrent
+ * writers. <code>gemfire.disk.groupCommitLingerMicros</code> can be set to
+ * have the committer wait a little longer for more writers before forcing.
+ *
+ * @since 9.0
+ */
+class OplogGroupCommitter implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  private final DiskStoreImpl parent;
+  private final long lingerNanos;
+  private final Thread thread;
+
+  /**
+   * Oplogs that have had records appended since the last commit. Guarded by
+   * <code>this</code>.
+   */
+  private Set<Oplog> dirtyOplogs = new LinkedHashSet<Oplog>();
+  /** The sequence number of the last write scheduled for commit. */
+  private long writeSeq;
+  /** The sequence number of the last write known to be on disk. */
+  private long commitSeq;
+  /**
+   * The sequence number of the last write that was part of a failed commit
+   * and the exception that caused it to fail.
+   */
+  private long failedSeq;
+  private IOException failure;
+  private boolean stopped;
+  /**
+   * Held while a batch is flushed and forced so that batches are committed
+   * one at a time and in order, by the committer thread or, once it has
+   * stopped, by the writers still waiting.
+   */
+  private final Object commitLock = new Object();
+
+  OplogGroupCommitter(DiskStoreImpl parent, long lingerMicros) {
+    this.parent = parent;
+    this.lingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    this.thread = new Thread(LoggingThreadGroup.createThreadGroup("Oplog Group Commit Thread Group", logger), this,
+        "Oplog Group Committer for " + parent.getName());
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    this.thread.start();
+  }
+
+  /**
+   * Called while holding the oplog lock after a synchronous record has been
+   * added to the write buffer of the given oplog.
+   */
+  synchronized void scheduleCommit(Oplog oplog) {
+    this.dirtyOplogs.add(oplog);
+    this.writeSeq++;
+    notifyAll();
+  }
+
+  /**
+   * Blocks until every write scheduled by the calling thread has been forced
+   * to disk. Must not be called while holding an oplog lock. If the committer
+   * has stopped before committing our writes, the caller commits them itself
+   * so it is never released before they are on disk.
+   *
+   * @throws IOException
+   *           if the commit that covered one of our writes failed
+   */
+  void waitForCommit() throws IOException, InterruptedException {
+    final DiskStoreStats stats = this.parent.getStats();
+    final long start = stats.startGroupCommitWait();
+    try {
+      final long mySeq;
+      synchronized (this) {
+        mySeq = this.writeSeq;
+        while (this.commitSeq < mySeq && !this.stopped) {
+          wait();
+        }
+      }
+      if (!isCommitted(mySeq)) {
+        commitPending(mySeq);
+      }
+      synchronized (this) {
+        if (this.failure != null && this.failedSeq >= mySeq) {
+          throw this.failure;
+        }
+      }
+    } finally {
+      stats.endGroupCommitWait(start);
+    }
+  }
+
+  private synchronized boolean isCommitted(long seq) {
+    return this.commitSeq >= seq;
+  }
+
+  /**
+   * Commits the writes scheduled so far unless a commit that has finished in
+   * the meantime already covered the given write.
+   */
+  private void commitPending(long seq) {
+    synchronized (this.commitLock) {
+      Set<Oplog> batch;
+      long batchSeq;
+      synchronized (this) {
+        if (this.commitSeq >= seq) {
+          return;
+        }
+        batch = this.dirtyOplogs;
+        batchSeq = this.writeSeq;
+        this.dirtyOplogs = new LinkedHashSet<Oplog>();
+      }
+      commit(batch, batchSeq);
+    }
+  }
+
+  /**
+   * Stops the committer thread after it has committed any pending writes.
+   */
+  void stop() {
+    synchronized (this) {
+      this.stopped = true;
+      notifyAll();
+    }
+    try {
+      this.thread.join();
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+      this.parent.getCache().getCancelCriterion().checkCancelInProgress(ie);
+    }
+  }
+
+  public void run() {
+    if (logger.isDebugEnabled()) {
+      logger.debug("Group committer started for disk store {}", this.parent.getName());
+    }
+    try {
+      while (true) {
+        Set<Oplog> batch;
+        long batchSeq;
+        synchronized (this) {
+          while (this.writeSeq == this.commitSeq && !this.stopped) {
+            wait();
+          }
+          if (this.writeSeq == this.commitSeq) {
+            // stopped and nothing left to commit
+            break;
+          }
+        }
+        if (this.lingerNanos > 0) {
+          TimeUnit.NANOSECONDS.sleep(this.lingerNanos);
+        }
+        synchronized (this.commitLock) {
+          synchronized (this) {
+            batch = this.dirtyOplogs;
+            batchSeq = this.writeSeq;
+            this.dirtyOplogs = new LinkedHashSet<Oplog>();
+          }
+          commit(batch, batchSeq);
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } finally {
+      synchronized (this) {
+        // anyone still waiting commits its own writes
+        this.stopped = true;
+        notifyAll();
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Group committer stopped for disk store {}", this.parent.getName());
+      }
+    }
+  }
+
+  /**
+   * Flushes and forces the given oplogs. Must be called while holding the
+   * commit lock.
+   */
+  private void commit(Set<Oplog> batch, long batchSeq) {
+    final DiskStoreStats stats = this.parent.getStats();
+    final long start = stats.startGroupCommit();
+    IOException ex = null;
+    for (Oplog oplog : batch) {
+      try {
+        oplog.groupCommit();
+      } catch (IOException e) {
+        ex = e;
+      }
+    }
+    synchronized (this) {
+      stats.endGroupCommit(start, batchSeq - this.commitSeq);
+      if (ex != null) {
+        this.failure = ex;
+        this.failedSeq = batchSeq;
+      }
+      this.commitSeq = batchSeq;
+      notifyAll();
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * Reads the drf and krf files of the oplogs being recovered into memory on a
+ * bounded pool of threads ahead of the recovery thread. The recovery thread
+ * still applies the oplogs one at a time, newest first, since that order is
+ * what resolves conflicting records for the same key, but it no longer waits
+ * for the disk between oplogs. Files that live in different disk directories
+ * are read concurrently.
+ * <p>
+ * Files are prefetched in the order the recovery thread will ask for them.
+ * At most <code>maxBytes</code> of prefetched but not yet consumed data is
+ * held at any time; a file larger than that is not prefetched and is read
+ * directly from disk by the recovery thread as before.
+ *
+ * @since 9.0
+ */
+class OplogRecoveryPrefetcher {
+  private static final Logger logger = LogService.getLogger();
+
+  private final DiskStoreImpl parent;
+  private final List<File> files;
+  private final long[] sizes;
+  private final Map<File, Integer> indexes;
+  private final Future<?>[] futures;
+  private final long maxBytes;
+  private final ThreadPoolExecutor pool;
+
+  /** The index of the next file to submit. Guarded by <code>this</code>. */
+  private int nextToSubmit;
+  /** The index of the next file that has not been taken or skipped. */
+  private int nextToTake;
+  /** The number of bytes submitted but not yet taken. */
+  private long bufferedBytes;
+
+  /**
+   * @param files
+   *          the files to prefetch in the order they will be taken
+   */
+  OplogRecoveryPrefetcher(DiskStoreImpl parent, List<File> files, int threads, long maxBytes) {
+    this.parent = parent;
+    this.files = files;
+    this.sizes = new long[files.size()];
+    this.indexes = new HashMap<File, Integer>();
+    for (int i = 0; i < files.size(); i++) {
+      this.sizes[i] = files.get(i).length();
+      this.indexes.put(files.get(i), i);
+    }
+    this.futures = new Future<?>[files.size()];
+    this.maxBytes = maxBytes;
+    final ThreadGroup tg = LoggingThreadGroup.createThreadGroup("Oplog Recovery Thread Group", logger);
+    final ThreadFactory tf = GemfireCacheHelper.CreateThreadFactory(tg, "Oplog Recovery Prefetcher for " + parent.getName());
+    this.pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), tf);
+    this.pool.allowCoreThreadTimeOut(true);
+  }
+
+  synchronized void start() {
+    submitMore();
+  }
+
+  /**
+   * Returns the contents of the given file if it was prefetched or null if the
+   * caller needs to read it from disk. Any files queued ahead of it that were
+   * not taken are discarded since recovery decided it did not need them.
+   */
+  byte[] take(File f) {
+    Future<?> future = null;
+    synchronized (this) {
+      Integer idx = this.indexes.get(f);
+      if (idx == null || idx < this.nextToTake) {
+        return null;
+      }
+      while (this.nextToTake <= idx) {
+        Future<?> skipped = this.futures[this.nextToTake];
+        this.futures[this.nextToTake] = null;
+        if (skipped != null) {
+          this.bufferedBytes -= this.sizes[this.nextToTake];
+          if (this.nextToTake != idx) {
+            skipped.cancel(false);
+          }
+        }
+        if (this.nextToTake == idx) {
+          future = skipped;
+        }
+        this.nextToTake++;
+      }
+      submitMore();
+    }
+    if (future == null) {
+      return null;
+    }
+    final DiskStoreStats stats = this.parent.getStats();
+    final long start = stats.startRecoveryPrefetchWait();
+    try {
+      return (byte[]) future.get();
+    } catch (ExecutionException ex) {
+      // let the recovery thread read it and report any error itself
+      if (logger.isDebugEnabled()) {
+        logger.debug("Could not prefetch {} for recovery of disk store {}", f, this.parent.getName(), ex.getCause());
+      }
+      return null;
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      this.parent.getCancelCriterion().checkCancelInProgress(ex);
+      return null;
+    } finally {
+      stats.endRecoveryPrefetchWait(start);
+    }
+  }
+
+  /**
+   * Stops prefetching and releases the worker threads.
+   */
+  void close() {
+    this.pool.shutdownNow();
+    synchronized (this) {
+      Arrays.fill(this.futures, null);
+      this.bufferedBytes = 0;
+    }
+  }
+
+  private void submitMore() {
+    while (this.nextToSubmit < this.files.size()) {
+      final int idx = this.nextToSubmit;
+      final long size = this.sizes[idx];
+      if (size <= 0 || size > this.maxBytes || size > Integer.MAX_VALUE) {
+        // empty, missing or too large to buffer; read it in place
+        this.nextToSubmit++;
+        continue;
+      }
+      if (this.bufferedBytes + size > this.maxBytes) {
+        break;
+      }
+      this.nextToSubmit++;
+      if (idx < this.nextToTake) {
+        continue;
+      }
+      this.bufferedBytes += size;
+      final File f = this.files.get(idx);
+      this.futures[idx] = this.pool.submit(new Callable<byte[]>() {
+        public byte[] call() throws IOException {
+          return readFile(f, (int) size);
+        }
+      });
+    }
+  }
+
+  private byte[] readFile(File f, int size) throws IOException {
+    final DiskStoreStats stats = this.parent.getStats();
+    final long start = stats.startRecoveryPrefetch();
+    byte[] bytes = new byte[size];
+    int count = 0;
+    FileInputStream fis = new FileInputStream(f);
+    try {
+      while (count < size) {
+        int n = fis.read(bytes, count, size - count);
+        if (n < 0) {
+          break;
+        }
+        count += n;
+      }
+    } finally {
+      fis.close();
+    }
+    if (count < size) {
+      bytes = Arrays.copyOf(bytes, count);
+    }
+    stats.endRecoveryPrefetch(start, count);
+    return bytes;
+  }
+}
@@ -461,6 +461,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
   private void basicClose() {
     flushAll();
     synchronized (this.crf) {
+      closeCrfMapping();
       if (!this.crf.RAFClosed) {
         try {
           this.crf.channel.close();
@@ -924,6 +925,84 @@ class OverflowOplog implements CompactableOplog, Flushable {
     } // sync
   }
 
+  /**
+   * Read only mapping of the crf, created on the first read after this oplog
+   * is done appending if the disk store maps reads.
+   */
+  private volatile OplogFileMapping crfMapping;
+  /**
+   * Set if the crf can not be mapped so we stop trying.
+   */
+  private volatile boolean crfMappingFailed;
+
+  /**
+   * Returns the mapping of the crf or null if reads from this oplog must go
+   * through {@link #attemptGet}.
+   */
+  private OplogFileMapping getCrfMapping() {
+    OplogFileMapping result = this.crfMapping;
+    // the unsynchronized checks keep reads of the active oplog from taking
+    // the lock an extra time
+    if (result == null && getParent().MMAP_READS && this.doneAppending && !this.crfMappingFailed) {
+      synchronized (this.crf) {
+        result = this.crfMapping;
+        if (result == null && !this.crfMappingFailed && !this.closed && this.crf.f != null) {
+          try {
+            result = OplogFileMapping.map(this.crf.f, this.crf.currSize);
+          } catch (IOException ex) {
+            // fall back to reading through the RAF
+            if (logger.isDebugEnabled()) {
+              logger.debug("Could not map {} for reading", this.crf.f, ex);
+            }
+            result = null;
+          }
+          if (result == null) {
+            this.crfMappingFailed = true;
+          } else {
+            this.crfMapping = result;
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Unmaps the crf so that its disk space is freed once it is deleted, and
+   * keeps it from being mapped again. Caller must synchronize on the crf.
+   */
+  private void closeCrfMapping() {
+    OplogFileMapping mapping = this.crfMapping;
+    this.crfMapping = null;
+    this.crfMappingFailed = true;
+    if (mapping != null) {
+      mapping.close();
+    }
+  }
+
+  /**
+   * Reads a value from the mapped crf without synchronizing on the crf.
+   * 
+   * @return null if the value is not available from a mapping
+   */
+  private BytesAndBits mappedGet(long offsetInOplog, int valueLength, byte userBits) {
+    OplogFileMapping mapping = getCrfMapping();
+    if (mapping == null || !mapping.retain()) {
+      return null;
+    }
+    byte[] valueBytes;
+    try {
+      valueBytes = mapping.read(offsetInOplog, valueLength);
+    } finally {
+      mapping.release();
+    }
+    if (valueBytes == null) {
+      return null;
+    }
+    this.stats.incOplogMappedReads();
+    return new BytesAndBits(valueBytes, userBits);
+  }
+
   private BytesAndBits attemptWriteBufferGet(long writePosition, long readPosition,
                                              int valueLength, byte userBits) {
     BytesAndBits bb = null;
@@ -978,7 +1057,10 @@ class OverflowOplog implements CompactableOplog, Flushable {
           dr.getCancelCriterion().checkCancelInProgress(null);
           boolean interrupted = Thread.interrupted();
           try {
-            bb = attemptGet(dr, offsetInOplog, valueLength, userBits);
+            bb = mappedGet(offsetInOplog, valueLength, userBits);
+            if (bb == null) {
+              bb = attemptGet(dr, offsetInOplog, valueLength, userBits);
+            }
             break;
           }
           catch (InterruptedIOException e) { // bug 39756
@@ -1331,6 +1413,62 @@ class OverflowOplog implements CompactableOplog, Flushable {
     this.compactorLock.unlock();
   }
 
+  /**
+   * The number of value bytes compaction has copied forward from this oplog.
+   * Only accessed by the compactor thread.
+   */
+  private long compactionBytesCopied;
+
+  /**
+   * Called by the compactor after copying an entry forward. If the compactor
+   * is throttled and has finished a slice, releases the compactor locks while
+   * waiting for the throttle.
+   * 
+   * @return true if the locks were released
+   */
+  private boolean throttleCompaction(OplogCompactor compactor, int copied) {
+    this.compactionBytesCopied += copied;
+    getParent().compactionCopied(copied);
+    CompactionThrottle throttle = compactor.getThrottle();
+    if (throttle != null && throttle.copied(copied)) {
+      unlockCompactor();
+      getParent().releaseCompactorReadLock();
+      try {
+        throttle.pause(compactor, getStats());
+      } finally {
+        getParent().acquireCompactorReadLock();
+        lockCompactor();
+      }
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Records the space freed by compacting this oplog. The crf size must be
+   * read before compaction starts since the crf is deleted by the compactor
+   * once the last live entry has been copied forward.
+   */
+  private void recordCompactionReclaimed(long crfSize) {
+    long reclaimed = crfSize - this.compactionBytesCopied;
+    if (reclaimed > 0) {
+      getStats().incCompactionBytesReclaimed(reclaimed);
+    }
+  }
+
+  /**
+   * Returns an estimate of the number of bytes compaction would need to copy
+   * forward from this oplog.
+   */
+  long estimateLiveBytes() {
+    long total = this.totalCount.get();
+    if (total <= 0) {
+      return 0;
+    }
+    long live = Math.max(0, this.totalLiveCount.get());
+    return (long) (this.crf.currSize * ((double) live / total));
+  }
+
   public int compact(OplogCompactor compactor) {
     if (!needsCompaction()) {
       return 0;
@@ -1340,7 +1478,9 @@ class OverflowOplog implements CompactableOplog, Flushable {
     try {
     lockCompactor();
     try {
+      final long crfSize = this.crf.currSize;
       if (hasNoLiveValues()) {
+        recordCompactionReclaimed(crfSize);
         handleNoLiveValues();
         return 0;
       }
@@ -1355,6 +1495,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
       boolean compactFailed = !compactor.keepCompactorRunning();
       int totalCount = 0;
       boolean didCompact = false;
+      int copied = 0;
       while ((de = getNextLiveEntry()) != null) {
         if (!compactor.keepCompactorRunning()) {
           compactFailed = true;
@@ -1405,6 +1546,7 @@ class OverflowOplog implements CompactableOplog, Flushable {
               }
               continue;
             }
+            copied = length;
             // write it to the current oplog
             getOplogSet().copyForwardForOverflowCompact(de, valueBytes, length, userBits);
             // the did's oplogId will now be set to the current active oplog
@@ -1424,10 +1566,17 @@ class OverflowOplog implements CompactableOplog, Flushable {
           if (!wrapper.isReusable()) {
             wrapper = new BytesAndBitsForCompactor();
           }
+          if (throttleCompaction(compactor, copied)
+              && (!compactor.keepCompactorRunning() || this.closed || this.deleted.get())) {
+            // the oplog was closed or destroyed while the locks were released
+            compactFailed = true;
+            break;
+          }
         }
       }
     
       if (!compactFailed) {
+        recordCompactionReclaimed(crfSize);
         // Need to still remove the oplog even if it had nothing to compact.
         handleNoLiveValues();
       }
@@ -151,11 +151,35 @@ public class OverflowOplogSet implements OplogSet {
         throw new DiskAccessException(LocalizedStrings.Oplog_DIRECTORIES_ARE_FULL_NOT_ABLE_TO_ACCOMODATE_THIS_OPERATIONSWITCHING_PROBLEM_FOR_ENTRY_HAVING_DISKID_0.toLocalizedString("needed " + minSize + " bytes"), parent);
       }
     }
-    int id = this.overflowOplogId.incrementAndGet();
+    int id = nextOverflowOplogId();
     lastOverflowDir = idx;
     return new OverflowOplog(id, this, getDirectories()[idx], minSize);
   }
 
+  /**
+   * Returns the id for a new overflow oplog. The ids wrap around once they
+   * pass {@link DiskId#MAX_OVERFLOW_OPLOG_ID} so that overflow only disk ids
+   * can keep them in an int; ids of oplogs that still exist are skipped.
+   */
+  private int nextOverflowOplogId() {
+    for (;;) {
+      int id = this.overflowOplogId.incrementAndGet();
+      if (id > DiskId.MAX_OVERFLOW_OPLOG_ID) {
+        this.overflowOplogId.compareAndSet(id, 0);
+        continue;
+      }
+      if (this.overflowMap.containsKey(id)) {
+        continue;
+      }
+      synchronized (this.compactableOverflowMap) {
+        if (this.compactableOverflowMap.containsKey(id)) {
+          continue;
+        }
+      }
+      return id;
+    }
+  }
+
   final void addOverflow(OverflowOplog oo) {
     this.overflowMap.put(oo.getOplogId(), oo);
   }
@@ -270,6 +294,22 @@ public class OverflowOplogSet implements OplogSet {
       }
     }
   }
+
+  /**
+   * Returns an estimate of the number of bytes compaction still has to copy
+   * forward from the oplogs that are ready to compact.
+   */
+  long getCompactionBacklogBytes() {
+    long result = 0;
+    synchronized (this.compactableOverflowMap) {
+      for (OverflowOplog oplog : this.compactableOverflowMap.values()) {
+        if (oplog.needsCompaction()) {
+          result += oplog.estimateLiveBytes();
+        }
+      }
+    }
+    return result;
+  }
   
   void testHookCloseAllOverflowChannels() {
     synchronized (this.overflowMap) {
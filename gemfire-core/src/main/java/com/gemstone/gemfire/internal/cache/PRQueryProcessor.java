@@ -28,10 +28,17 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.logging.log4j.Logger;
 
@@ -85,6 +92,32 @@ public class PRQueryProcessor
 
   /* For Test purpose */
   public static int TEST_NUM_THREADS = 0;
+
+  /**
+   * If true, and numThreads is not set, the local buckets of a query are
+   * split across the fork-join pool of {@link PRQueryExecutor} as far as the
+   * pool has idle threads, instead of being evaluated one after another by
+   * the thread that received the query.
+   * @since 9.0
+   */
+  public final static boolean ADAPTIVE_PARALLELISM = Boolean.getBoolean("gemfire.PRQueryProcessor.adaptiveParallelism");
+
+  /**
+   * The number of threads in the fork-join pool that evaluates buckets in
+   * parallel. Defaults to the number of cores.
+   * @since 9.0
+   */
+  public final static int PARALLELISM = Math.max(1, Integer.getInteger("gemfire.PRQueryProcessor.parallelism",
+      Runtime.getRuntime().availableProcessors()).intValue());
+
+  /**
+   * The most threads of the fork-join pool that one query uses.
+   * @since 9.0
+   */
+  public final static int MAX_PARALLELISM_PER_QUERY = Integer.getInteger("gemfire.PRQueryProcessor.maxParallelismPerQuery", PARALLELISM).intValue();
+
+  /* For Test purpose */
+  public static boolean TEST_ADAPTIVE_PARALLELISM = false;
   
   private PartitionedRegionDataStore _prds;
   private PartitionedRegion pr;
@@ -141,8 +174,12 @@ public class PRQueryProcessor
       //((IndexTrackingQueryObserver)observer).setIndexInfo(resultCollector.getIndexInfoMap());
     //}
     
+    int parallelism;
     if (NUM_THREADS > 1 || this.TEST_NUM_THREADS > 1) {  
       executeWithThreadPool(resultCollector);
+    } else if ((ADAPTIVE_PARALLELISM || TEST_ADAPTIVE_PARALLELISM)
+        && (parallelism = getParallelism(this._bucketsToQuery.size())) > 1) {
+      executeInParallel(resultCollector, parallelism);
     } else {
       executeSequentially(resultCollector, this._bucketsToQuery);
     }
@@ -227,6 +264,69 @@ public class PRQueryProcessor
     
   }
 
+  /**
+   * Returns the number of threads that should evaluate a query on the given
+   * number of buckets: the idle threads of the fork-join pool, but no more
+   * than {@link #MAX_PARALLELISM_PER_QUERY} or the number of buckets.
+   */
+  static int getParallelism(int numBuckets) {
+    int max = Math.min(MAX_PARALLELISM_PER_QUERY, numBuckets);
+    if (max <= 1) {
+      return 1;
+    }
+    ForkJoinPool pool = PRQueryExecutor.getForkJoinPool();
+    int idle = pool.getParallelism() - pool.getActiveThreadCount();
+    return Math.max(1, Math.min(max, idle));
+  }
+
+  /**
+   * Evaluates the query on the buckets using up to parallelism threads of
+   * the fork-join pool. The bucket list is split in halves until each part
+   * is small enough for one thread, so idle threads steal the parts that
+   * busy ones have not started yet.
+   * <p>
+   * The calling thread is the one monitored by the {@link QueryMonitor}. The
+   * pool threads share its query execution status, so they stop as soon as
+   * the query is canceled.
+   */
+  private void executeInParallel(Collection<Collection> resultCollector, int parallelism)
+    throws QueryException, InterruptedException, ForceReattemptException {
+    if (Thread.interrupted()) throw new InterruptedException();
+
+    QueryMonitor queryMonitor = null;
+    if (GemFireCacheImpl.getInstance() != null) {
+      queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
+    }
+    CompiledSelect cs = this.query.getSimpleSelect();
+    boolean isOrderBy = cs != null && cs.isOrderBy();
+    int partSize = (this._bucketsToQuery.size() + parallelism - 1) / parallelism;
+    ParallelQuery parallelQuery = new ParallelQuery(resultCollector, isOrderBy);
+    try {
+      if (queryMonitor != null) {
+        queryMonitor.monitorQueryThread(Thread.currentThread(), this.query);
+        parallelQuery.queryExecutionStatus = QueryMonitor.getQueryExecutionStatus();
+      }
+      PRQueryExecutor.getForkJoinPool().invoke(new BucketQueryAction(parallelQuery,
+          0, this._bucketsToQuery.size(), partSize));
+    } finally {
+      if (queryMonitor != null) {
+        queryMonitor.stopMonitoringQueryThread(Thread.currentThread(), this.query);
+      }
+    }
+    parallelQuery.throwFailure();
+    if (this.query.isCanceled()) {
+      throw this.query.getQueryCanceledException();
+    }
+
+    if (isOrderBy) {
+      ExecutionContext context = new QueryExecutionContext(this.parameters, this.pr.getCache());
+      int limit = this.query.getLimit(parameters);
+      Collection mergedResults = coalesceOrderedResults(resultCollector, context, cs, limit);
+      resultCollector.clear();
+      resultCollector.add(mergedResults);
+    }
+  }
+
   /**
    * @throws ForceReattemptException
    *           if bucket was moved so caller should try query again
@@ -381,10 +481,20 @@ public class PRQueryProcessor
   private void executeQueryOnBuckets(Collection<Collection> resultCollector,
       ExecutionContext context) throws ForceReattemptException,
       QueryInvocationTargetException, QueryException {
+    executeQueryOnBuckets(resultCollector, context, true);
+  }
+
+  /**
+   * @param monitor false if the calling thread must not be added to the
+   *          QueryMonitor because another thread is monitored for the query
+   */
+  private void executeQueryOnBuckets(Collection<Collection> resultCollector,
+      ExecutionContext context, boolean monitor) throws ForceReattemptException,
+      QueryInvocationTargetException, QueryException {
     // Check if QueryMonitor is enabled, if so add query to be monitored.
     QueryMonitor queryMonitor = null;
     context.setCqQueryContext(query.isCqQuery());
-    if (GemFireCacheImpl.getInstance() != null)
+    if (monitor && GemFireCacheImpl.getInstance() != null)
     {
       queryMonitor = GemFireCacheImpl.getInstance().getQueryMonitor();
     }
@@ -465,6 +575,9 @@ public class PRQueryProcessor
 
     private static ExecutorService execService = null;
 
+    /** evaluates the buckets of queries in parallel @since 9.0 */
+    private static ForkJoinPool forkJoinPool = null;
+
     /**
      * Closes the executor service. This is called from
      * {@link PartitionedRegion#afterRegionsClosedByCacheClose(GemFireCacheImpl)}
@@ -473,11 +586,30 @@ public class PRQueryProcessor
       if (execService != null) {
         execService.shutdown();
       }
+      if (forkJoinPool != null) {
+        forkJoinPool.shutdown();
+      }
     }
 
     static synchronized void shutdownNow() {
       if (execService != null)
         execService.shutdownNow();
+      if (forkJoinPool != null)
+        forkJoinPool.shutdownNow();
+    }
+
+    static synchronized ForkJoinPool getForkJoinPool() {
+      if (forkJoinPool == null || forkJoinPool.isShutdown()) {
+        forkJoinPool = new ForkJoinPool(PARALLELISM, new ForkJoinWorkerThreadFactory() {
+          private final AtomicInteger threadId = new AtomicInteger();
+          public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("PRQueryWorker-" + threadId.incrementAndGet());
+            return thread;
+          }
+        }, null, false);
+      }
+      return forkJoinPool;
     }
 
     static synchronized ExecutorService getExecutorService() {
@@ -545,6 +677,113 @@ public class PRQueryProcessor
     }    
   }
   
+  /**
+   * The state that the {@link BucketQueryAction}s of one query share.
+   */
+  private final class ParallelQuery {
+    final Collection<Collection> resultCollector;
+    final boolean isOrderBy;
+    final boolean pdxReadSerialized = DefaultQuery.getPdxReadSerialized();
+    /** the status of the thread monitored for the query, if any */
+    volatile AtomicBoolean queryExecutionStatus;
+    private final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+
+    ParallelQuery(Collection<Collection> resultCollector, boolean isOrderBy) {
+      this.resultCollector = resultCollector;
+      this.isOrderBy = isOrderBy;
+    }
+
+    boolean isDone() {
+      return this.failure.get() != null || query.isCanceled();
+    }
+
+    void setFailure(Exception e) {
+      this.failure.compareAndSet(null, e);
+    }
+
+    /**
+     * Throws the first exception a bucket evaluation failed with.
+     */
+    void throwFailure() throws QueryException, ForceReattemptException {
+      Exception e = this.failure.get();
+      if (e == null) {
+        return;
+      }
+      if (e instanceof QueryException) {
+        throw (QueryException)e;
+      } else if (e instanceof ForceReattemptException) {
+        throw (ForceReattemptException)e;
+      } else if (e instanceof RuntimeException) {
+        throw (RuntimeException)e;
+      } else {
+        throw new InternalGemFireException(LocalizedStrings.PRQueryProcessor_GOT_UNEXPECTED_EXCEPTION_WHILE_EXECUTING_QUERY_ON_PARTITIONED_REGION_BUCKET.toLocalizedString(), e);
+      }
+    }
+  }
+
+  /**
+   * Evaluates the query on the buckets from index lo (inclusive) to hi
+   * (exclusive) of the bucket list, forking halves while there are more
+   * than partSize buckets.
+   */
+  @SuppressWarnings("synthetic-access")
+  private final class BucketQueryAction extends RecursiveAction {
+    private static final long serialVersionUID = 0L;
+
+    private final ParallelQuery parallelQuery;
+    private final int lo;
+    private final int hi;
+    private final int partSize;
+
+    BucketQueryAction(ParallelQuery parallelQuery, int lo, int hi, int partSize) {
+      this.parallelQuery = parallelQuery;
+      this.lo = lo;
+      this.hi = hi;
+      this.partSize = partSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (this.hi - this.lo > this.partSize) {
+        int mid = (this.lo + this.hi) >>> 1;
+        invokeAll(new BucketQueryAction(this.parallelQuery, this.lo, mid, this.partSize),
+            new BucketQueryAction(this.parallelQuery, mid, this.hi, this.partSize));
+        return;
+      }
+      if (this.parallelQuery.isDone()) {
+        return;
+      }
+      boolean pdxReadSerialized = DefaultQuery.getPdxReadSerialized();
+      DefaultQuery.setPdxReadSerialized(this.parallelQuery.pdxReadSerialized);
+      QueryMonitor.setQueryExecutionStatus(this.parallelQuery.queryExecutionStatus);
+      try {
+        List<Integer> buckets = new ArrayList<Integer>(_bucketsToQuery.subList(this.lo, this.hi));
+        if (this.parallelQuery.isOrderBy) {
+          // each bucket's results are sorted separately and merged at the end
+          for (Integer bId : buckets) {
+            if (this.parallelQuery.isDone()) {
+              return;
+            }
+            executeOnBuckets(Collections.singletonList(bId));
+          }
+        } else {
+          executeOnBuckets(buckets);
+        }
+      } catch (Exception e) {
+        this.parallelQuery.setFailure(e);
+      } finally {
+        QueryMonitor.setQueryExecutionStatus(null);
+        DefaultQuery.setPdxReadSerialized(pdxReadSerialized);
+      }
+    }
+
+    private void executeOnBuckets(List<Integer> buckets) throws QueryException, ForceReattemptException {
+      ExecutionContext context = new QueryExecutionContext(parameters, pr.getCache(), query);
+      context.setBucketList(buckets);
+      executeQueryOnBuckets(this.parallelQuery.resultCollector, context, false);
+    }
+  }
+
   /**
    * Implementation of call-able task to execute query on a bucket region. This
    * task will be generated by the PRQueryProcessor.
@@ -1983,14 +1983,56 @@ public class PartitionedRegion extends LocalRegion implements
     SelectResults results = selectExpr
         .getEmptyResultSet(parameters, getCache(), query);
 
+    results = queryBuckets(query, parameters, results, allBuckets);
+
+    // Drop Duplicates if this is a DISTINCT query
+    boolean allowsDuplicates = results.getCollectionType().allowsDuplicates();
+    //Asif: No need to apply the limit to the SelectResults. 
+    // We know that even if we do not apply the limit,
+    //the results will satisfy the limit
+    // as it has been evaluated in the iteration of List to 
+    // populate the SelectsResuts     
+    //So if the results is instance of ResultsBag or is a StructSet or 
+    // a ResultsSet, if the limit exists, the data set size will 
+    // be exactly matching the limit
+    if (selectExpr.isDistinct()) {
+      // don't just convert to a ResultsSet (or StructSet), since
+      // the bags can convert themselves to a Set more efficiently
+      ObjectType elementType = results.getCollectionType().getElementType();
+      if (selectExpr.getOrderByAttrs() != null) {
+        // Set limit also, its not applied while building the final result set as order by is involved.
+       // results = new ResultsCollectionWrapper(elementType, results.asSet(), query.getLimit(parameters));
+      } else if (allowsDuplicates) {
+        results = new ResultsCollectionWrapper(elementType, results.asSet());
+      }
+      if (selectExpr.isCount() && (results.isEmpty() || selectExpr.isDistinct())) {
+        SelectResults resultCount = new ResultsBag(getCachePerfStats());//Constructor with elementType not visible.
+        resultCount.setElementType(new ObjectTypeImpl(Integer.class));
+        ((ResultsBag)resultCount).addAndGetOccurence(results.size());
+        return resultCount;
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Queries the given buckets with a {@link PartitionedRegionQueryEvaluator}
+   * and returns the results, retrying if the calling thread is interrupted.
+   * @param results the empty results the evaluator adds the results to
+   * @since 9.0
+   */
+  SelectResults queryBuckets(DefaultQuery query, Object[] parameters,
+      SelectResults results, Set<Integer> buckets)
+  throws FunctionDomainException, TypeMismatchException,
+  NameResolutionException, QueryInvocationTargetException
+  {
     PartitionedRegionQueryEvaluator prqe = new PartitionedRegionQueryEvaluator(this.getSystem(), this, query,
-        parameters, results, allBuckets);
+        parameters, results, buckets);
     for (;;) {
       this.getCancelCriterion().checkCancelInProgress(null);
       boolean interrupted = Thread.interrupted();
       try {
-        results = prqe.queryBuckets(null);
-        break;
+        return prqe.queryBuckets(null);
       }
       catch (InterruptedException e) {
         interrupted = true;
@@ -2015,36 +2057,7 @@ public class PartitionedRegion extends LocalRegion implements
           Thread.currentThread().interrupt();
         }
       }
-    } // for
-
-    // Drop Duplicates if this is a DISTINCT query
-    boolean allowsDuplicates = results.getCollectionType().allowsDuplicates();
-    //Asif: No need to apply the limit to the SelectResults. 
-    // We know that even if we do not apply the limit,
-    //the results will satisfy the limit
-    // as it has been evaluated in the iteration of List to 
-    // populate the SelectsResuts     
-    //So if the results is instance of ResultsBag or is a StructSet or 
-    // a ResultsSet, if the limit exists, the data set size will 
-    // be exactly matching the limit
-    if (selectExpr.isDistinct()) {
-      // don't just convert to a ResultsSet (or StructSet), since
-      // the bags can convert themselves to a Set more efficiently
-      ObjectType elementType = results.getCollectionType().getElementType();
-      if (selectExpr.getOrderByAttrs() != null) {
-        // Set limit also, its not applied while building the final result set as order by is involved.
-       // results = new ResultsCollectionWrapper(elementType, results.asSet(), query.getLimit(parameters));
-      } else if (allowsDuplicates) {
-        results = new ResultsCollectionWrapper(elementType, results.asSet());
-      }
-      if (selectExpr.isCount() && (results.isEmpty() || selectExpr.isDistinct())) {
-        SelectResults resultCount = new ResultsBag(getCachePerfStats());//Constructor with elementType not visible.
-        resultCount.setElementType(new ObjectTypeImpl(Integer.class));
-        ((ResultsBag)resultCount).addAndGetOccurence(results.size());
-        return resultCount;
-      }
     }
-    return results;
   }
 
   /**
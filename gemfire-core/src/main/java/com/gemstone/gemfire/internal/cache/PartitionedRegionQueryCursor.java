@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.cache.query.FunctionDomainException;
+import com.gemstone.gemfire.cache.query.NameResolutionException;
+import com.gemstone.gemfire.cache.query.QueryCursor;
+import com.gemstone.gemfire.cache.query.QueryCursorException;
+import com.gemstone.gemfire.cache.query.QueryException;
+import com.gemstone.gemfire.cache.query.QueryInvocationTargetException;
+import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.TypeMismatchException;
+import com.gemstone.gemfire.cache.query.internal.CompiledGroupBySelect;
+import com.gemstone.gemfire.cache.query.internal.CompiledSelect;
+import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
+import com.gemstone.gemfire.cache.query.internal.ResultsCollectionPdxDeserializerWrapper;
+import com.gemstone.gemfire.cache.query.types.CollectionType;
+import com.gemstone.gemfire.internal.logging.LogService;
+
+/**
+ * A {@link QueryCursor} that streams the results of a query on a
+ * <code>PartitionedRegion</code>. Instead of sending the query to all the
+ * buckets at once, it queries a batch of buckets with a
+ * {@link PartitionedRegionQueryEvaluator} each time the results of the
+ * previous batch have been consumed, so only the results of one batch are
+ * held at a time and the data stores are only asked for more results when
+ * the caller is ready for them.
+ * <p>
+ * The number of buckets in a batch adapts to the number of results the
+ * buckets queried so far returned, aiming at about a page of results per
+ * batch. This is an estimate, not a bound: the results of a batch are
+ * fetched together, so a batch whose buckets have more results than the
+ * earlier ones returns more than a page, and a batch has at least one
+ * bucket, so a page holds all the results of a single bucket.
+ * <p>
+ * Only queries whose results can be returned as they are produced can be
+ * streamed, see {@link #isStreamable(DefaultQuery)}. The limit of a query is
+ * applied across the batches.
+ *
+ * @since 9.0
+ */
+public class PartitionedRegionQueryCursor implements QueryCursor {
+
+  private static final Logger logger = LogService.getLogger();
+
+  private final PartitionedRegion pr;
+
+  private final DefaultQuery query;
+
+  private final Object[] parameters;
+
+  private final int pageSize;
+
+  private final int limit;
+
+  /** the buckets not queried yet, in the order they are queried */
+  private final Iterator<Integer> buckets;
+
+  private CollectionType collectionType;
+
+  private Iterator page = Collections.EMPTY_LIST.iterator();
+
+  private int bucketsPerBatch = 1;
+
+  private int bucketsQueried;
+
+  private long resultsFetched;
+
+  private int resultsReturned;
+
+  private boolean closed;
+
+  /**
+   * Creates a cursor over the results of the given query on the given region
+   * and fetches the first page of results, so that the errors of the query
+   * surface here rather than in the iteration.
+   */
+  public PartitionedRegionQueryCursor(PartitionedRegion pr, DefaultQuery query,
+      Object[] parameters, int pageSize) throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    this.pr = pr;
+    this.query = query;
+    this.parameters = parameters;
+    this.pageSize = pageSize;
+    this.limit = query.getLimit(parameters);
+
+    List<Integer> allBuckets = new ArrayList<Integer>();
+    final Iterator remoteIter = pr.getRegionAdvisor().getBucketSet().iterator();
+    try {
+      while (remoteIter.hasNext()) {
+        allBuckets.add((Integer)remoteIter.next());
+      }
+    }
+    catch (NoSuchElementException stop) {
+    }
+    Collections.sort(allBuckets);
+    this.buckets = allBuckets.iterator();
+
+    if (!this.buckets.hasNext()) {
+      this.collectionType = query.getSimpleSelect()
+          .getEmptyResultSet(parameters, pr.getCache(), query).getCollectionType();
+    }
+    fetchPage();
+  }
+
+  /**
+   * Returns true if the results of the given query can be streamed. The
+   * query must be a simple SELECT on a single partitioned region that is not
+   * executed in a function, without ORDER BY, DISTINCT, GROUP BY, aggregates
+   * or COUNT, which all need the whole result before returning any of it.
+   */
+  public static boolean isStreamable(DefaultQuery query) {
+    if (query.isQueryWithFunctionContext()) {
+      return false;
+    }
+    CompiledSelect select = query.getSimpleSelect();
+    return select != null && !(select instanceof CompiledGroupBySelect)
+        && !select.isOrderBy() && !select.isDistinct() && !select.isCount()
+        && !select.isGroupBy();
+  }
+
+  public CollectionType getCollectionType() {
+    return this.collectionType;
+  }
+
+  public boolean hasNext() {
+    if (this.closed || (this.limit >= 0 && this.resultsReturned >= this.limit)) {
+      return false;
+    }
+    if (!this.page.hasNext() && this.buckets.hasNext()) {
+      try {
+        fetchPage();
+      }
+      catch (QueryException e) {
+        throw new QueryCursorException(e.getMessage(), e);
+      }
+    }
+    return this.page.hasNext();
+  }
+
+  public Object next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    this.resultsReturned++;
+    return this.page.next();
+  }
+
+  public void close() {
+    this.closed = true;
+    this.page = Collections.EMPTY_LIST.iterator();
+  }
+
+  /**
+   * Queries batches of buckets until one of them returns results or all the
+   * buckets have been queried.
+   */
+  private void fetchPage() throws FunctionDomainException,
+      TypeMismatchException, NameResolutionException,
+      QueryInvocationTargetException {
+    while (!this.page.hasNext() && this.buckets.hasNext()) {
+      Set<Integer> batch = new HashSet<Integer>();
+      while (batch.size() < this.bucketsPerBatch && this.buckets.hasNext()) {
+        batch.add(this.buckets.next());
+      }
+      SelectResults results = queryBuckets(batch);
+      this.collectionType = results.getCollectionType();
+      this.bucketsQueried += batch.size();
+      this.resultsFetched += results.size();
+      this.bucketsPerBatch = nextBatchSize();
+      if (logger.isDebugEnabled()) {
+        logger.debug("Streaming query {} fetched {} results from buckets {}, next batch has {} buckets",
+            this.query.getQueryString(), results.size(), batch, this.bucketsPerBatch);
+      }
+      this.page = results.iterator();
+    }
+  }
+
+  /**
+   * Returns the number of buckets expected to have a page of results, based
+   * on the results of the buckets queried so far. Until a bucket returned
+   * results, the batch size doubles.
+   */
+  private int nextBatchSize() {
+    if (this.resultsFetched == 0) {
+      return (int)Math.min((long)this.bucketsPerBatch * 2, this.pr.getTotalNumberOfBuckets());
+    }
+    long buckets = this.pageSize * (long)this.bucketsQueried / this.resultsFetched;
+    return (int)Math.max(1, Math.min(buckets, this.pr.getTotalNumberOfBuckets()));
+  }
+
+  private SelectResults queryBuckets(Set<Integer> batch)
+      throws FunctionDomainException, TypeMismatchException,
+      NameResolutionException, QueryInvocationTargetException {
+    DefaultQuery.setPdxReadSerialized(this.pr.getCache(), true);
+    try {
+      SelectResults results = this.query.getSimpleSelect().getEmptyResultSet(
+          this.parameters, this.pr.getCache(), this.query);
+      results = this.pr.queryBuckets(this.query, this.parameters, results, batch);
+      if (this.query.needsPDXDeserializationWrapper(true)) {
+        // copy on read has already been applied by the evaluator
+        results = new ResultsCollectionPdxDeserializerWrapper(results, false);
+      }
+      return results;
+    }
+    finally {
+      DefaultQuery.setPdxReadSerialized(this.pr.getCache(), false);
+    }
+  }
+}
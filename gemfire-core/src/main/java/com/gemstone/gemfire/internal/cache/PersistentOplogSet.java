@@ -21,6 +21,7 @@ import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import java.io.File;
 import java.io.FilenameFilter;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -74,6 +75,12 @@ public class PersistentOplogSet implements OplogSet {
   private final Map<Long, Oplog> inactiveOplogs = new LinkedHashMap<Long, Oplog>(16, 0.75f, true);
   
   private final DiskStoreImpl parent;
+
+  /**
+   * Reads drf and krf files ahead of the recovery thread. Only set while
+   * {@link #recoverOplogs} is running.
+   */
+  private volatile OplogRecoveryPrefetcher recoveryPrefetcher;
   
   final AtomicInteger inactiveOpenCount = new AtomicInteger();
   
@@ -451,41 +458,50 @@ public class PersistentOplogSet implements OplogSet {
     }
     if (oplogSet.size() > 0) {
       long startOpLogRecovery = System.currentTimeMillis();
-      // first figure out all entries that have been destroyed
-      boolean latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        byteCount += oplog.recoverDrf(deletedIds,
-                                      this.alreadyRecoveredOnce.get(),
-                                      latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
-        }
-      }
-      parent.incDeadRecordCount(deletedIds.size());
-      // now figure out live entries
-      latestOplog = true;
-      for (Oplog oplog: oplogSet) {
-        long startOpLogRead = parent.getStats().startOplogRead();
-        long bytesRead = oplog.recoverCrf(deletedIds,
-                                          // @todo make recoverValues per region
-                                          recoverValues(),
-                                          recoverValuesSync(),
-                                          this.alreadyRecoveredOnce.get(),
-                                          oplogsNeedingValueRecovery, 
-                                          latestOplog);
-        latestOplog = false;
-        if (!this.alreadyRecoveredOnce.get()) {
-          updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+      startRecoveryPrefetcher(oplogSet);
+      try {
+        // first figure out all entries that have been destroyed
+        long startPhase = parent.getStats().startRecoveryPhase();
+        boolean latestOplog = true;
+        for (Oplog oplog: oplogSet) {
+          byteCount += oplog.recoverDrf(deletedIds,
+                                        this.alreadyRecoveredOnce.get(),
+                                        latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
         }
-        byteCount += bytesRead;
-        parent.getStats().endOplogRead(startOpLogRead, bytesRead);
-        
-        //Callback to the disk regions to indicate the oplog is recovered
-        //Used for offline export
-        for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
-          drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+        parent.incDeadRecordCount(deletedIds.size());
+        parent.getStats().endRecoveryDrf(startPhase);
+        // now figure out live entries
+        startPhase = parent.getStats().startRecoveryPhase();
+        latestOplog = true;
+        for (Oplog oplog: oplogSet) {
+          long startOpLogRead = parent.getStats().startOplogRead();
+          long bytesRead = oplog.recoverCrf(deletedIds,
+                                            // @todo make recoverValues per region
+                                            recoverValues(),
+                                            recoverValuesSync(),
+                                            this.alreadyRecoveredOnce.get(),
+                                            oplogsNeedingValueRecovery, 
+                                            latestOplog);
+          latestOplog = false;
+          if (!this.alreadyRecoveredOnce.get()) {
+            updateOplogEntryId(oplog.getMaxRecoveredOplogEntryId());
+          }
+          byteCount += bytesRead;
+          parent.getStats().endOplogRead(startOpLogRead, bytesRead);
+          
+          //Callback to the disk regions to indicate the oplog is recovered
+          //Used for offline export
+          for (DiskRecoveryStore drs: this.currentRecoveryMap.values()) {
+            drs.getDiskRegionView().oplogRecovered(oplog.oplogId);
+          }
         }
+        parent.getStats().endRecoveryCrf(startPhase);
+      } finally {
+        stopRecoveryPrefetcher();
       }
       long endOpLogRecovery = System.currentTimeMillis();
       long elapsed = endOpLogRecovery - startOpLogRecovery;
@@ -493,6 +509,7 @@ public class PersistentOplogSet implements OplogSet {
     }
     if (!parent.isOfflineCompacting()) {
       long startRegionInit = System.currentTimeMillis();
+      long startPhase = parent.getStats().startRecoveryPhase();
       // create the oplogs now so that loadRegionData can have them available
       //Create an array of Oplogs so that we are able to add it in a single shot
       // to the map
@@ -529,6 +546,7 @@ public class PersistentOplogSet implements OplogSet {
           parent.scheduleCompaction();
         }
         
+        parent.getStats().endRecoveryRegionInit(startPhase);
         long endRegionInit = System.currentTimeMillis();
         logger.info(LocalizedMessage.create(LocalizedStrings.DiskRegion_REGION_INIT_TIME, endRegionInit - startRegionInit));
       }
@@ -536,6 +554,59 @@ public class PersistentOplogSet implements OplogSet {
     return byteCount;
   }
 
+  /**
+   * Starts reading the drf and then the krf files of the given oplogs in the
+   * order {@link #recoverOplogs} will read them.
+   */
+  private void startRecoveryPrefetcher(TreeSet<Oplog> oplogSet) {
+    int threads = parent.getRecoveryThreads();
+    if (threads <= 0 || parent.RECOVERY_PREFETCH_MAX_BYTES <= 0) {
+      return;
+    }
+    List<File> files = new ArrayList<File>();
+    for (Oplog oplog: oplogSet) {
+      File f = oplog.getDrfFileToRecover();
+      if (f != null) {
+        files.add(f);
+      }
+    }
+    boolean recoverValuesSync = recoverValuesSync();
+    for (Oplog oplog: oplogSet) {
+      File f = oplog.getKrfFileToRecover(recoverValuesSync);
+      if (f != null) {
+        files.add(f);
+      }
+    }
+    if (files.size() < 2) {
+      // nothing to overlap
+      return;
+    }
+    OplogRecoveryPrefetcher prefetcher = new OplogRecoveryPrefetcher(parent, files,
+        Math.min(threads, files.size()), parent.RECOVERY_PREFETCH_MAX_BYTES);
+    prefetcher.start();
+    this.recoveryPrefetcher = prefetcher;
+  }
+
+  private void stopRecoveryPrefetcher() {
+    OplogRecoveryPrefetcher prefetcher = this.recoveryPrefetcher;
+    if (prefetcher != null) {
+      this.recoveryPrefetcher = null;
+      prefetcher.close();
+    }
+  }
+
+  /**
+   * Returns the prefetched contents of a drf or krf file being recovered or
+   * null if it was not prefetched.
+   */
+  final byte[] takePrefetched(File f) {
+    OplogRecoveryPrefetcher prefetcher = this.recoveryPrefetcher;
+    if (prefetcher == null) {
+      return null;
+    }
+    return prefetcher.take(f);
+  }
+
   protected boolean recoverValuesSync() {
     return parent.RECOVER_VALUES_SYNC;
   }
@@ -1067,6 +1138,25 @@ public class PersistentOplogSet implements OplogSet {
       // ArrayList<CompactableOplog>(this.oplogIdToOplog.values());
       // Collections.sort(l);
       // Iterator<Oplog> itr = l.iterator();
+      if (parent.isCompactionThrottled()) {
+        // The throttled compactor may not get through all of them for a while
+        // so compact the ones that free up the most space per byte copied first.
+        ArrayList<Oplog> candidates = new ArrayList<Oplog>();
+        for (Oplog oplog: this.oplogIdToOplog.values()) {
+          if (oplog.needsCompaction()) {
+            candidates.add(oplog);
+          }
+        }
+        Collections.sort(candidates, new Comparator<Oplog>() {
+          public int compare(Oplog o1, Oplog o2) {
+            return Double.compare(o2.getGarbageRatio(), o1.getGarbageRatio());
+          }
+        });
+        for (int i = 0; i < candidates.size() && l.size() < max; i++) {
+          l.add(candidates.get(i));
+        }
+        return;
+      }
       {
         Iterator<Oplog> itr = this.oplogIdToOplog.values().iterator();
         while (itr.hasNext() && l.size() < max) {
@@ -1079,6 +1169,22 @@ public class PersistentOplogSet implements OplogSet {
     }
   }
 
+  /**
+   * Returns an estimate of the number of bytes compaction still has to copy
+   * forward from the oplogs that are ready to compact.
+   */
+  long getCompactionBacklogBytes() {
+    long result = 0;
+    synchronized (this.oplogIdToOplog) {
+      for (Oplog oplog: this.oplogIdToOplog.values()) {
+        if (oplog.needsCompaction()) {
+          result += oplog.estimateLiveBytes();
+        }
+      }
+    }
+    return result;
+  }
+
   public void scheduleForRecovery(DiskRecoveryStore drs) {
     DiskRegionView dr = drs.getDiskRegionView();
     if (dr.isRecreated()
@@ -75,6 +75,7 @@ public class PoolStats {
   private final static int clientOpTimedOutId;
   private final static int clientOpFailedId;
   private final static int clientOpDurationId;
+  private final static int asyncRegionOpsQueuedId;
 
   static {
     String statName = "PoolStats";
@@ -115,6 +116,7 @@ public class PoolStats {
             f.createIntCounter("clientOpTimeouts", "Total number of clientOp attempts that have timed out", "clientOps"), 
             f.createLongCounter("clientOpSendTime", "Total amount of time, in nanoseconds spent doing clientOp sends", "nanoseconds"), 
             f.createLongCounter("clientOpTime", "Total amount of time, in nanoseconds spent doing clientOps", "nanoseconds"),
+            f.createIntGauge("asyncRegionOpsQueued", "Current number of asynchronous region operations waiting to be sent to a server", "asyncRegionOps"),
        });
 
     // Initialize id fields
@@ -151,6 +153,7 @@ public class PoolStats {
     clientOpTimedOutId = _type.nameToId("clientOpTimeouts");
     clientOpFailedId = _type.nameToId("clientOpFailures");
     clientOpDurationId = _type.nameToId("clientOpTime");
+    asyncRegionOpsQueuedId = _type.nameToId("asyncRegionOpsQueued");
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -316,4 +319,10 @@ public class PoolStats {
     this._stats.incInt(endClientOpId, 1);
     this._stats.incLong(clientOpDurationId, duration);
   }
+  public void incAsyncRegionOpsQueued(int delta) {
+    this._stats.incInt(asyncRegionOpsQueuedId, delta);
+  }
+  public int getAsyncRegionOpsQueued() {
+    return this._stats.getInt(asyncRegionOpsQueuedId);
+  }
 }
@@ -449,6 +449,12 @@ public abstract class UserSpecifiedRegionAttributes<K,V> implements RegionAttrib
    * @since 6.5
    */
   public boolean requiresPoolName = false;
+  /**
+   * If set to true then a client region created with these attributes
+   * registers interest in all keys, receiving updates as invalidates.
+   * @since 9.0
+   */
+  public boolean registersInvalidationInterest = false;
   /**
    * Holds index information. Hoisted up to this class in 7.0
    * 
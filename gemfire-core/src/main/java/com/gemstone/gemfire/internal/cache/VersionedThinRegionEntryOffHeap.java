@@ -18,6 +18,8 @@ package com.gemstone.gemfire.internal.cache;
 
 import java.util.UUID;
 
+import com.gemstone.gemfire.internal.offheap.OffHeapKeyHelper;
+
 public abstract class VersionedThinRegionEntryOffHeap extends VersionedThinRegionEntry implements OffHeapRegionEntry {
   public VersionedThinRegionEntryOffHeap(RegionEntryContext context, Object value) {
     super(context, value);
@@ -50,6 +52,9 @@ public abstract class VersionedThinRegionEntryOffHeap extends VersionedThinRegio
           return new VersionedThinRegionEntryOffHeapUUIDKey(context, (UUID)key, value);
         }
       }
+      if (OffHeapKeyHelper.OFF_HEAP_REGION_KEYS && key.getClass() == String.class) {
+        return new VersionedThinRegionEntryOffHeapOffHeapStringKey(context, (String)key, value);
+      }
       return new VersionedThinRegionEntryOffHeapObjectKey(context, key, value);
     }
 
@@ -183,6 +183,17 @@ public class HARegionQueue implements RegionQueue
   /** The ClientProxyMembershipID associated with the ha queue*/
   private final ClientProxyMembershipID clientProxyID;
 
+  /**
+   * If true then the updates that will only be sent to the client as
+   * invalidates are conflated even when their region does not have
+   * subscription conflation enabled. A client that turned conflate-events
+   * off still receives every event. Off unless the server sets
+   * gemfire.HARegionQueue.CONFLATE_INVALIDATES.
+   * @since 9.0
+   */
+  static boolean conflateInvalidates = Boolean
+      .getBoolean("gemfire.HARegionQueue.CONFLATE_INVALIDATES");
+
   /**
    * The statistics for this queue
    */
@@ -595,6 +606,11 @@ public class HARegionQueue implements RegionQueue
     if (event instanceof ClientMarkerMessageImpl) {
       return retVal;
     }
+    if (!retVal && conflateInvalidates
+        && this.clientConflation != HandShake.CONFLATION_OFF
+        && isSentAsInvalidate(event)) {
+      return true;
+    }
     switch (this.clientConflation) {
     case HandShake.CONFLATION_OFF:
       return false; // always disable
@@ -621,6 +637,31 @@ public class HARegionQueue implements RegionQueue
     return retVal;
   }
   
+  /**
+   * Returns true if the event is an update that this queue's client only
+   * receives as an invalidate. Any number of those for the same key tell
+   * the client the same thing, so only the latest needs to be sent.
+   * Creates are not conflated, as for any other client.
+   * @since 9.0
+   */
+  private boolean isSentAsInvalidate(Conflatable event) {
+    if (this.clientProxyID == null) {
+      return false;
+    }
+    Object cum = event;
+    if (event instanceof HAEventWrapper) {
+      cum = this.haContainer.get(event);
+    }
+    if (!(cum instanceof ClientUpdateMessageImpl)) {
+      return false;
+    }
+    ClientUpdateMessageImpl msg = (ClientUpdateMessageImpl)cum;
+    return msg.isUpdate()
+        && msg.isClientInterestedInInvalidates(this.clientProxyID)
+        && !msg.isClientInterestedInUpdates(this.clientProxyID)
+        && !msg.hasCqs(this.clientProxyID);
+  }
+
   /**
    * Adds an object at the queue's tail. The implemetation supports concurrent
    * put operations in a performant manner. This is done in following steps:
@@ -1533,6 +1574,65 @@ public class HARegionQueue implements RegionQueue
     return peek(batchSize, -1);
   }
 
+  /**
+   * Peeks up to maxSize of the events that follow the ones this thread has
+   * already peeked, without waiting for any to arrive. Like {@link #peek()}
+   * the counters are added to the thread-context, so one call of remove()
+   * removes the events peeked by both.
+   *
+   * @param maxSize
+   *          the most events to peek
+   * @return the events peeked, which may be none
+   * @since 9.0
+   */
+  public List peekAvailable(int maxSize)
+  {
+    List batch = new ArrayList();
+    if (maxSize <= 0) {
+      return batch;
+    }
+    List peekedEvents = (List)HARegionQueue.peekedEventsContext.get();
+    List counters = new ArrayList();
+    acquireReadLock();
+    try {
+      Iterator itr = this.idsAvailable.iterator();
+      while (batch.size() < maxSize && itr.hasNext()) {
+        Long counter = (Long)itr.next();
+        if (peekedEvents != null && peekedEvents.contains(counter)) {
+          continue;
+        }
+        Object event = this.region.get(counter);
+        event = (event instanceof HAEventWrapper) ? this.haContainer
+            .get(event) : event;
+        if (event != null) {
+          batch.add(event);
+          counters.add(counter);
+        }
+      }
+    }
+    finally {
+      releaseReadLock();
+    }
+    addPeekedCounters(peekedEvents, counters);
+    return batch;
+  }
+
+  /**
+   * Adds the counters of events peeked by {@link #peekAvailable(int)} to the
+   * thread-context.
+   */
+  protected void addPeekedCounters(List peekedEvents, List counters)
+  {
+    if (counters.isEmpty()) {
+      return;
+    }
+    if (peekedEvents == null) {
+      peekedEvents = new LinkedList();
+      HARegionQueue.peekedEventsContext.set(peekedEvents);
+    }
+    peekedEvents.addAll(counters);
+  }
+
   /**
    * Return a batch of minimum specified size
    * 
@@ -2695,6 +2795,38 @@ public class HARegionQueue implements RegionQueue
       }
     }
 
+    /**
+     * Like {@link #peek()} the peeked counters are taken out of idsAvailable
+     * and kept in durableIDsList until the client acks them.
+     */
+    @Override
+    public List peekAvailable(int maxSize)
+    {
+      List batch = new ArrayList();
+      List counters = new ArrayList();
+      acquireWriteLock();
+      try {
+        Iterator itr = this.idsAvailable.iterator();
+        while (batch.size() < maxSize && itr.hasNext()) {
+          Long counter = (Long)itr.next();
+          itr.remove();
+          Object event = this.region.get(counter);
+          event = (event instanceof HAEventWrapper) ? this.haContainer
+              .get(event) : event;
+          if (event != null) {
+            batch.add(event);
+            counters.add(counter);
+            this.durableIDsList.add(counter);
+          }
+        }
+      }
+      finally {
+        releaseWriteLock();
+      }
+      addPeekedCounters((List)HARegionQueue.peekedEventsContext.get(), counters);
+      return batch;
+    }
+
     @Override
     protected boolean checkPrevAcks()
     {
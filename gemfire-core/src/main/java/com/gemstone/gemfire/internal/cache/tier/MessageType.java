@@ -339,10 +339,16 @@ public class MessageType {
   public static final int PUT_ALL_WITH_CALLBACK = 108;
 
   public static final int REMOVE_ALL = 109;
+
+  /** a batch of server to client messages @since 9.0 */
+  public static final int CLIENT_EVENT_BATCH = 110;
+
+  /** a query whose results are streamed a page at a time @since 9.0 */
+  public static final int STREAMING_QUERY = 111;
   /**
    * Must be equal to last valid message id.
    */
-  private static final int LAST_VALID_MESSAGE_ID = REMOVE_ALL;
+  private static final int LAST_VALID_MESSAGE_ID = STREAMING_QUERY;
   
 
   public static boolean validate(int messageType) {
@@ -562,6 +568,10 @@ public class MessageType {
       return "PUT_ALL_WITH_CALLBACK";
     case REMOVE_ALL:
       return "REMOVE_ALL";
+    case CLIENT_EVENT_BATCH:
+      return "CLIENT_EVENT_BATCH";
+    case STREAMING_QUERY:
+      return "STREAMING_QUERY";
     default:
       return Integer.toString(type);
     }
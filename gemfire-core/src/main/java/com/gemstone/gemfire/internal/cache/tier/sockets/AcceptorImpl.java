@@ -673,6 +673,23 @@ public class AcceptorImpl extends Acceptor implements Runnable
   public boolean isSelector() {
     return this.maxThreads > 0;
   }
+  /**
+   * If true, which is the default, then a selector acceptor reads each
+   * client message on its selector thread without blocking and only hands
+   * complete messages to its thread pool. Connections stay registered
+   * with the selector between messages instead of being cancelled and
+   * switched to blocking mode for every message.
+   * @since 9.0
+   */
+  private static final boolean SELECTOR_FRAMING = !Boolean.getBoolean("BridgeServer.DISABLE_SELECTOR_FRAMING");
+
+  /**
+   * Returns true if this acceptor's selector thread frames client messages.
+   * @since 9.0
+   */
+  public boolean isFramingSelector() {
+    return isSelector() && SELECTOR_FRAMING;
+  }
   /**
    * This system property is only used if max-threads == 0.
    * This is for 5.0.2 backwards compatibility.
@@ -899,7 +916,7 @@ public class AcceptorImpl extends Acceptor implements Runnable
   private Selector tmpSel;
 
   private void checkForStuckKeys() {
-    if (!WORKAROUND_SELECTOR_BUG) return;
+    if (!WORKAROUND_SELECTOR_BUG || isFramingSelector()) return;
     if (tmpSel == null) {
       try {
         tmpSel = Selector.open();
@@ -1006,6 +1023,48 @@ public class AcceptorImpl extends Acceptor implements Runnable
   
   private int registeredKeys = 0;
 
+  /**
+   * How long the selector waits before it retries the frames waiting for
+   * incoming message limiter permits. Permits are usually freed by a
+   * connection that finished a message, which wakes up the selector anyway.
+   */
+  private static final long FRAME_PERMITS_RETRY_MILLIS = 100;
+
+  /**
+   * The keys of framed connections whose next message is waiting for
+   * incoming message limiter permits, in the order they started waiting.
+   * Their interest set is empty so their channels are not read until they
+   * get the permits. Only accessed by the selector thread.
+   */
+  private final List<SelectionKey> framesWaitingForPermits = new ArrayList<SelectionKey>();
+
+  /**
+   * Gives the limiter permits to the frames waiting for them, in order, and
+   * lets the selector read the channels of those that got them.
+   */
+  private void retryFramesWaitingForPermits() {
+    Iterator<SelectionKey> it = this.framesWaitingForPermits.iterator();
+    while (it.hasNext()) {
+      SelectionKey key = it.next();
+      if (!key.isValid()) {
+        // the connection was closed while it waited
+        it.remove();
+        continue;
+      }
+      ServerConnection sc = (ServerConnection)key.attachment();
+      if (!sc.acquireFramePermits()) {
+        // later frames keep waiting too so that large messages are not starved
+        break;
+      }
+      it.remove();
+      try {
+        key.interestOps(SelectionKey.OP_READ);
+      } catch (CancelledKeyException ignore) {
+        // closed since the check above; its termination released the permits
+      }
+    }
+  }
+
   public void runSelectorLoop() {
     //int zeroEventsCount = 0;
     try {
@@ -1052,7 +1111,13 @@ public class AcceptorImpl extends Acceptor implements Runnable
         if (registeredKeys == 0) {
           continue;
         }
-        int events = this.selector.select();
+        int events;
+        if (this.framesWaitingForPermits.isEmpty()) {
+          events = this.selector.select();
+        } else {
+          retryFramesWaitingForPermits();
+          events = this.selector.select(FRAME_PERMITS_RETRY_MILLIS);
+        }
         // select() could have returned due to wakeup() during close of cache
         if (this.cache.getCancelCriterion().cancelInProgress() != null) {
           break;
@@ -1110,7 +1175,45 @@ public class AcceptorImpl extends Acceptor implements Runnable
             keysIterator.remove();
             final ServerConnection sc = (ServerConnection)key.attachment();
             try {
-            if (key.isValid() && key.isReadable()) {
+            if (key.isValid() && key.isReadable() && sc.isFramed()) {
+              // read what we can of the message without blocking and only
+              // hand it to the pool once all of it is here
+              try {
+                if (!sc.readFrame(this.framesWaitingForPermits.isEmpty())) {
+                  if (sc.isWaitingForFramePermits()) {
+                    // stop reading the channel until the message's limiter
+                    // permits are available
+                    key.interestOps(0);
+                    this.framesWaitingForPermits.add(key);
+                  }
+                  continue;
+                }
+                // keep the key registered but ignore reads until the
+                // message is processed and the connection registers again
+                key.interestOps(0);
+                this.selectorRegistrations.remove(sc);
+                registeredKeys--;
+                sc.setProcessingMessage();
+              } catch (IOException ex) {
+                // includes EOF when the client closes its connection
+                key.cancel();
+                this.selectorRegistrations.remove(sc);
+                registeredKeys--;
+                finishCon(sc);
+                continue;
+              }
+              try {
+                AcceptorImpl.this.stats.incThreadQueueSize();
+                AcceptorImpl.this.pool.execute(sc);
+              } catch (RejectedExecutionException rejected) {
+                finishCon(sc);
+                AcceptorImpl.this.stats.decThreadQueueSize();
+                if (!isRunning()) {
+                  break;
+                }
+                logger.warn(LocalizedMessage.create(LocalizedStrings.AcceptorImpl_UNEXPECTED, rejected));
+              }
+            } else if (key.isValid() && key.isReadable()) {
               // this is the only event we currently register for
               try {
                 key.cancel();
@@ -1423,7 +1526,12 @@ public class AcceptorImpl extends Acceptor implements Runnable
   public ByteBuffer takeCommBuffer() {
     ByteBuffer result = (ByteBuffer)this.commBufferQueue.poll();
     if (result == null) {
-      result = ByteBuffer.allocateDirect(this.socketBufferSize);
+      if (isFramingSelector()) {
+        // framed messages are read and written with streams which need a heap buffer
+        result = ByteBuffer.allocate(this.socketBufferSize);
+      } else {
+        result = ByteBuffer.allocateDirect(this.socketBufferSize);
+      }
     }
     return result;
   }
@@ -132,7 +132,7 @@ public abstract class BaseCommand implements Command {
    * incoming client messages will wait until one of them completes or fails.
    * The bytes are computed based in the size sent in the incoming msg header.
    */
-  private static final int MAX_INCOMING_DATA = Integer.getInteger(
+  static final int MAX_INCOMING_DATA = Integer.getInteger(
       "BridgeServer.MAX_INCOMING_DATA", -1).intValue();
 
   /**
@@ -942,12 +942,29 @@ public abstract class BaseCommand implements Command {
     chunkedResponseMsg.sendChunk(servConn);
   }
   
+  /**
+   * Creates a reader for the selector thread to frame client messages with.
+   * It takes the permits of the incoming data and message limiters before
+   * it buffers a message, so messages it frames are received without them.
+   * @since 9.0
+   */
+  static MessageFrameReader createFrameReader() {
+    return new MessageFrameReader(MAX_INCOMING_DATA, incomingDataLimiter,
+        incomingMsgLimiter);
+  }
+
   static Message readRequest(ServerConnection servConn) {
     Message requestMsg = null;
     try {
       requestMsg = servConn.getRequestMessage();
-      requestMsg.recv(servConn, MAX_INCOMING_DATA, incomingDataLimiter,
-          MAX_INCOMING_MSGS, incomingMsgLimiter);
+      if (servConn.isFramed()) {
+        // the frame reader already holds the limiter permits
+        requestMsg.recv(servConn, MAX_INCOMING_DATA, null,
+            MAX_INCOMING_MSGS, null);
+      } else {
+        requestMsg.recv(servConn, MAX_INCOMING_DATA, incomingDataLimiter,
+            MAX_INCOMING_MSGS, incomingMsgLimiter);
+      }
       return requestMsg;
     }
     catch (EOFException eof) {
@@ -17,6 +17,7 @@
 package com.gemstone.gemfire.internal.cache.tier.sockets;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
@@ -25,6 +26,7 @@ import java.util.Set;
 import com.gemstone.gemfire.cache.RegionDestroyedException;
 import com.gemstone.gemfire.cache.operations.QueryOperationContext;
 import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryCursor;
 import com.gemstone.gemfire.cache.query.QueryException;
 import com.gemstone.gemfire.cache.query.QueryInvalidException;
 import com.gemstone.gemfire.cache.query.SelectResults;
@@ -309,6 +311,138 @@ public abstract class BaseCommandQuery extends BaseCommand {
     return true;
   }
   
+  /**
+   * Executes the given query with {@link DefaultQuery#executeStreaming} and
+   * sends its results back to the client as they are produced, in chunks of
+   * up to pageSize results. Writing a chunk blocks while the client is not
+   * reading, which holds back the query until the client has caught up.
+   * A query that needs post-operation authorization is executed and sent
+   * with {@link #processQueryUsingParams}, as the authorization callback
+   * is given the whole result.
+   *
+   * @return true if successful execution
+   *         false in case of failure.
+   * @since 9.0
+   */
+  protected static boolean processStreamingQuery(Message msg, Query query,
+      String queryString, Set regionNames, long start,
+      QueryOperationContext queryContext, ServerConnection servConn,
+      Object[] params, int pageSize)
+      throws IOException, InterruptedException {
+    if (servConn.getPostAuthzRequest() != null) {
+      return processQueryUsingParams(msg, query, queryString, regionNames,
+          start, null, queryContext, servConn, true, params);
+    }
+    CacheServerStats stats = servConn.getCacheServerStats();
+    CachedRegionHelper crHelper = servConn.getCachedRegionHelper();
+
+    {
+      long oldStart = start;
+      start = DistributionStats.getStatTime();
+      stats.incReadQueryRequestTime(start - oldStart);
+    }
+
+    ((DefaultQuery) query).setRemoteQuery(true);
+    QueryCursor cursor = null;
+    try {
+      cursor = ((DefaultQuery) query).executeStreaming(pageSize, params);
+      CollectionType collectionType = cursor.getCollectionType();
+      boolean isStructs = collectionType.getElementType().isStructType();
+      boolean hasSerializedObjects = ((DefaultQuery) query).isKeepSerialized();
+
+      long oldStart = start;
+      start = DistributionStats.getStatTime();
+      stats.incProcessQueryTime(start - oldStart);
+
+      ChunkedMessage queryResponseMsg = servConn.getQueryResponseMessage();
+      queryResponseMsg.setMessageType(MessageType.RESPONSE);
+      queryResponseMsg.setTransactionId(msg.getTransactionId());
+      queryResponseMsg.sendHeader();
+
+      int numberOfChunks = 0;
+      boolean lastChunk;
+      do {
+        Object chunk;
+        int chunkCapacity = Math.min(pageSize, maximumChunkSize);
+        if (hasSerializedObjects) {
+          ObjectPartList serializedObjs = new ObjectPartList(chunkCapacity, false);
+          for (int i = 0; i < pageSize && cursor.hasNext(); i++) {
+            addToObjectPartList(serializedObjs, cursor.next(), collectionType,
+                false, servConn, isStructs);
+          }
+          chunk = serializedObjs;
+        }
+        else {
+          List results = new ArrayList(chunkCapacity);
+          for (int i = 0; i < pageSize && cursor.hasNext(); i++) {
+            Object result = cursor.next();
+            if (isStructs && (result instanceof Struct)) {
+              result = ((Struct) result).getFieldValues();
+            }
+            results.add(result);
+          }
+          chunk = results.toArray();
+        }
+        lastChunk = !cursor.hasNext();
+        if (lastChunk) {
+          // Bug 36969, see processQueryUsingParams
+          Iterator itr = regionNames.iterator();
+          while (itr.hasNext()) {
+            String regionName = (String)itr.next();
+            if (crHelper.getRegion(regionName) == null) {
+              throw new RegionDestroyedException(
+                  LocalizedStrings.BaseCommand_REGION_DESTROYED_DURING_THE_EXECUTION_OF_THE_QUERY.toLocalizedString(), regionName);
+            }
+          }
+        }
+        writeQueryResponseChunk(chunk, collectionType, lastChunk, servConn);
+        numberOfChunks++;
+        if (logger.isTraceEnabled()) {
+          logger.trace("{}: Sent chunk {} of streamed query response for query: {}",
+              servConn.getName(), numberOfChunks, queryString);
+        }
+      } while (!lastChunk);
+      msg.clearParts();
+    }
+    catch (QueryInvalidException e) {
+      logger.warn(LocalizedMessage.create(
+        LocalizedStrings.BaseCommand_UNEXPECTED_QUERYINVALIDEXCEPTION_WHILE_PROCESSING_QUERY_0, queryString), e);
+      QueryInvalidException qie = new QueryInvalidException(LocalizedStrings.BaseCommand_0_QUERYSTRING_IS_1
+          .toLocalizedString(new Object[] {e.getLocalizedMessage(), queryString}));
+      writeQueryResponseException(msg, qie, false, servConn);
+      return false;
+    }
+    catch (DistributedSystemDisconnectedException se) {
+      if (msg != null && logger.isDebugEnabled()) {
+        logger.debug("{}: ignoring message of type {} from client {} because shutdown occurred during message processing.",
+            servConn.getName(), MessageType.getString(msg.getMessageType()), servConn.getProxyID());
+      }
+      servConn.setFlagProcessMessagesAsFalse();
+      return false;
+    }
+    catch (Exception e) {
+      checkForInterrupt(servConn, e);
+      DefaultQuery defaultQuery = (DefaultQuery)query;
+      if ((defaultQuery).isCanceled()){
+        e = new QueryException(defaultQuery.getQueryCanceledException().getMessage(), e.getCause());
+      }
+      writeQueryResponseException(msg, e, false, servConn);
+      return false;
+    }
+    finally {
+      if (cursor != null) {
+        cursor.close();
+      }
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: Sent streamed query response for query {}", servConn.getName(), queryString);
+    }
+
+    stats.incWriteQueryResponseTime(DistributionStats.getStatTime() - start);
+    return true;
+  }
+
   private static boolean sendCqResultsWithKey(ServerConnection servConn) {
     Version clientVersion = servConn.getClientVersion();
     if (clientVersion.compareTo(Version.GFE_65) >= 0) {
@@ -71,6 +71,7 @@ import com.gemstone.gemfire.cache.query.internal.cq.InternalCqQuery;
 import com.gemstone.gemfire.distributed.DistributedMember;
 import com.gemstone.gemfire.distributed.internal.DistributionManager;
 import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
+import com.gemstone.gemfire.internal.HeapDataOutputStream;
 import com.gemstone.gemfire.internal.SystemTimer;
 import com.gemstone.gemfire.internal.SystemTimer.SystemTimerTask;
 import com.gemstone.gemfire.internal.Version;
@@ -93,6 +94,7 @@ import com.gemstone.gemfire.internal.cache.ha.HARegionQueue;
 import com.gemstone.gemfire.internal.cache.ha.HARegionQueueAttributes;
 import com.gemstone.gemfire.internal.cache.ha.HARegionQueueStats;
 import com.gemstone.gemfire.internal.cache.tier.InterestType;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ClientUpdateMessageImpl.CqNameToOp;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.Get70;
 import com.gemstone.gemfire.internal.cache.versions.VersionTag;
@@ -200,6 +202,22 @@ public class CacheClientProxy implements ClientSession {
    */
   protected static final int MAXIMUM_SHUTDOWN_PEEKS = Integer.getInteger("gemfire.MAXIMUM_SHUTDOWN_PEEKS",50).intValue();
 
+  /**
+   * The most queued messages the dispatcher sends to a client as one
+   * {@link MessageType#CLIENT_EVENT_BATCH}.
+   * One or less disables batching.
+   * @since 9.0
+   */
+  protected static final int MAXIMUM_DISPATCH_BATCH_SIZE = Integer.getInteger("gemfire.CacheClientProxy.MAX_BATCH_SIZE", 100).intValue();
+
+  /**
+   * The number of milliseconds the dispatcher waits for more messages to
+   * be queued before it sends a batch that is not full. Zero means a batch
+   * only contains the messages that were already queued.
+   * @since 9.0
+   */
+  protected static final long DISPATCH_BATCH_LINGER_TIME = Long.getLong("gemfire.CacheClientProxy.BATCH_LINGER_TIME", 0).longValue();
+
   /**
    * The number of milliseconds to wait for an offering to the message queue
    */
@@ -2314,6 +2332,12 @@ public class CacheClientProxy implements ClientSession {
     private final ReadWriteLock socketLock = new ReentrantReadWriteLock();
 
     private final Lock socketWriteLock = socketLock.writeLock();
+
+    /**
+     * The heap buffer used to encode the messages of a batch. Only used by
+     * the dispatcher thread.
+     */
+    private ByteBuffer batchBuffer;
 //    /**
 //     * A boolean verifying whether a warning has already been issued if the
 //     * message queue has reached its capacity.
@@ -2572,8 +2596,12 @@ public class CacheClientProxy implements ClientSession {
             }
             waitForResumption();
           }
+          List batch = null;
           try {
             clientMessage = (ClientMessage)this._messageQueue.peek();
+            if (clientMessage != null && canBatch()) {
+              batch = peekBatch(clientMessage);
+            }
           }
           catch (RegionDestroyedException skipped) {
             break;
@@ -2585,11 +2613,23 @@ public class CacheClientProxy implements ClientSession {
           // Process the message
           long start = getStatistics().startTime();
           //// BUGFIX for BUG#38206 and BUG#37791
-          boolean isDispatched = dispatchMessage(clientMessage);
-          getStatistics().endMessage(start);
+          boolean isDispatched;
+          if (batch != null) {
+            isDispatched = dispatchBatch(batch);
+            getStatistics().endMessageBatch(start, batch.size());
+          } else {
+            isDispatched = dispatchMessage(clientMessage);
+            getStatistics().endMessage(start);
+          }
           if(isDispatched){
             this._messageQueue.remove();
-            if (clientMessage instanceof ClientMarkerMessageImpl) {
+            if (batch != null) {
+              for (Object msg : batch) {
+                if (msg instanceof ClientMarkerMessageImpl) {
+                  getProxy().markerEnqueued = false;
+                }
+              }
+            } else if (clientMessage instanceof ClientMarkerMessageImpl) {
               getProxy().markerEnqueued = false;
             }
           }
@@ -2781,36 +2821,7 @@ public class CacheClientProxy implements ClientSession {
       if (logger.isTraceEnabled(LogMarker.BRIDGE_SERVER)) {
         logger.trace(LogMarker.BRIDGE_SERVER, "Dispatching {}", clientMessage);
       }
-      Message message = null;
-
-      // byte[] latestValue =
-      // this._eventConflator.getLatestValue(clientMessage);
-
-     if (clientMessage instanceof ClientUpdateMessage) {
-        byte[] latestValue = (byte[])((ClientUpdateMessage)clientMessage).getValue();
-        if (logger.isTraceEnabled()) {
-          StringBuilder msg = new StringBuilder(100);
-          msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
-          if (((ClientUpdateMessage)clientMessage).valueIsObject()) {
-            if (latestValue != null) {
-              msg.append(" (").append(deserialize(latestValue)).append(")");
-            }
-            msg.append(" for ").append(clientMessage);
-          }
-          logger.trace(msg.toString());
-        }
-        
-        message = ((ClientUpdateMessageImpl)clientMessage).getMessage(getProxy(),
-            latestValue);
-        
-        if (AFTER_MESSAGE_CREATION_FLAG) {
-          ClientServerObserver bo = ClientServerObserverHolder.getInstance();
-          bo.afterMessageCreation(message);
-        }
-     }
-     else {
-       message = clientMessage.getMessage(getProxy(), true /* notify */);
-     }
+      Message message = createMessage(clientMessage);
 
       // //////////////////////////////
       // TEST CODE BEGIN (Throws exception to test closing proxy)
@@ -2857,6 +2868,123 @@ public class CacheClientProxy implements ClientSession {
      return isDispatched;
     }
     
+    /**
+     * Creates the message that is sent to the client for the given queued
+     * message.
+     */
+    private Message createMessage(ClientMessage clientMessage)
+        throws IOException
+    {
+      Message message = null;
+      if (clientMessage instanceof ClientUpdateMessage) {
+        byte[] latestValue = (byte[])((ClientUpdateMessage)clientMessage).getValue();
+        if (logger.isTraceEnabled()) {
+          StringBuilder msg = new StringBuilder(100);
+          msg.append(this).append(": Using latest value: ").append(Arrays.toString(latestValue));
+          if (((ClientUpdateMessage)clientMessage).valueIsObject()) {
+            if (latestValue != null) {
+              msg.append(" (").append(deserialize(latestValue)).append(")");
+            }
+            msg.append(" for ").append(clientMessage);
+          }
+          logger.trace(msg.toString());
+        }
+        
+        message = ((ClientUpdateMessageImpl)clientMessage).getMessage(getProxy(),
+            latestValue);
+        
+        if (AFTER_MESSAGE_CREATION_FLAG) {
+          ClientServerObserver bo = ClientServerObserverHolder.getInstance();
+          bo.afterMessageCreation(message);
+        }
+      }
+      else {
+        message = clientMessage.getMessage(getProxy(), true /* notify */);
+      }
+      return message;
+    }
+
+    /**
+     * Returns whether this dispatcher may send the client more than one
+     * queued message at a time. Clients older than 9.0 do not understand
+     * a {@link MessageType#CLIENT_EVENT_BATCH}.
+     */
+    private boolean canBatch() {
+      return MAXIMUM_DISPATCH_BATCH_SIZE > 1
+          && getProxy().getVersion().compareTo(Version.GFE_90) >= 0;
+    }
+
+    /**
+     * Peeks the messages that are queued behind the given one, waiting up to
+     * {@link #DISPATCH_BATCH_LINGER_TIME} for more if the batch is not full.
+     *
+     * @return the batch starting with first, or null if no other messages
+     *         are queued
+     */
+    private List peekBatch(ClientMessage first) throws InterruptedException {
+      int maxSize = MAXIMUM_DISPATCH_BATCH_SIZE - 1;
+      List batch = this._messageQueue.peekAvailable(maxSize);
+      if (batch.size() < maxSize && DISPATCH_BATCH_LINGER_TIME > 0) {
+        Thread.sleep(DISPATCH_BATCH_LINGER_TIME);
+        batch.addAll(this._messageQueue.peekAvailable(maxSize - batch.size()));
+      }
+      if (batch.isEmpty()) {
+        return null;
+      }
+      batch.add(0, first);
+      return batch;
+    }
+
+    /**
+     * Sends a batch of messages to the client attached to this proxy as one
+     * {@link MessageType#CLIENT_EVENT_BATCH}. Each message is encoded just
+     * as {@link #dispatchMessage(ClientMessage)} would send it and the
+     * client processes them in order.
+     *
+     * @param batch the <code>ClientMessage</code>s to send to the client
+     *
+     * @throws IOException
+     */
+    protected boolean dispatchBatch(List batch) throws IOException
+    {
+      if (logger.isTraceEnabled(LogMarker.BRIDGE_SERVER)) {
+        logger.trace(LogMarker.BRIDGE_SERVER, "Dispatching a batch of {} messages", batch.size());
+      }
+      if (this._proxy.isPaused()) {
+        if (logger.isDebugEnabled()) {
+          logger.debug("Message Dispatcher of a Paused CCProxy is trying to dispatch message");
+        }
+        return false;
+      }
+      if (this.batchBuffer == null) {
+        this.batchBuffer = ByteBuffer.allocate(getCommBuffer().capacity());
+      }
+      HeapDataOutputStream hdos = new HeapDataOutputStream(Version.CURRENT);
+      int count = 0;
+      for (Object clientMessage : batch) {
+        Message message = createMessage((ClientMessage)clientMessage);
+        if (message == null) {
+          continue;
+        }
+        message.setStreamComms(null, getSocket(), null, hdos, this.batchBuffer, null);
+        message.send();
+        count++;
+      }
+      Message batchMessage = new Message(2, getProxy().getVersion());
+      batchMessage.setMessageType(MessageType.CLIENT_EVENT_BATCH);
+      batchMessage.setTransactionId(0);
+      batchMessage.addIntPart(count);
+      batchMessage.addBytesPart(hdos.toByteArray());
+      sendMessage(batchMessage);
+      if (logger.isTraceEnabled()) {
+        logger.trace("{}: Dispatched a batch of {} messages", this, count);
+      }
+      for (int i = 0; i < batch.size(); i++) {
+        this._messageQueue.getStatistics().incEventsDispatched();
+      }
+      return true;
+    }
+
     private void sendMessage(Message message) throws IOException {
       if (message == null) {
         return;
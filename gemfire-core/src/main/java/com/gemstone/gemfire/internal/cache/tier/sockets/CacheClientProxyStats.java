@@ -61,6 +61,8 @@ public class CacheClientProxyStats implements MessageStats {
   private static final String DELTA_FULL_MESSAGES_SENT = "deltaFullMessagesSent";
   /** Name of the CQ count statistic */
   private static final String CQ_COUNT = "cqCount";
+  /** Name of the message batches sent statistic */
+  private static final String MESSAGE_BATCHES_SENT = "messageBatchesSent";
 
   /** Id of the messages received statistic */
   private static final int _messagesReceivedId;
@@ -84,6 +86,8 @@ public class CacheClientProxyStats implements MessageStats {
   private static final int _deltaFullMessagesSentId;
   /** Id of the CQ count statistic */
   private static final int _cqCountId;
+  /** Id of the message batches sent statistic */
+  private static final int _messageBatchesSentId;
   private final static int _sentBytesId;
 
   /**
@@ -153,6 +157,10 @@ public class CacheClientProxyStats implements MessageStats {
             f.createLongCounter("sentBytes",
                                 "Total number of bytes sent to client.",
                                 "bytes"),
+            f.createIntCounter
+              (MESSAGE_BATCHES_SENT,
+               "Number of times more than one client message was sent to the client in one batch.",
+               "operations"),
        });
 
     // Initialize id fields
@@ -168,6 +176,7 @@ public class CacheClientProxyStats implements MessageStats {
     _deltaFullMessagesSentId = _type.nameToId(DELTA_FULL_MESSAGES_SENT);
     _cqCountId = _type.nameToId(CQ_COUNT);
     _sentBytesId = _type.nameToId("sentBytes");
+    _messageBatchesSentId = _type.nameToId(MESSAGE_BATCHES_SENT);
   }
 
   //////////////////////  Instance Fields  //////////////////////
@@ -253,6 +262,14 @@ public class CacheClientProxyStats implements MessageStats {
     return this._stats.getInt(_messagesProcessedId);
   }
 
+  /**
+   * Returns the current value of the "messageBatchesSent" stat.
+   * @return the current value of the "messageBatchesSent" stat
+   */
+  public int getMessageBatchesSent() {
+    return this._stats.getInt(_messageBatchesSentId);
+  }
+
   /**
    * Returns the current value of the "messageProcessingTime" stat.
    * @return the current value of the "messageProcessingTime" stat
@@ -376,6 +393,22 @@ public class CacheClientProxyStats implements MessageStats {
     this._stats.incLong(_messageProcessingTimeId, elapsed);
   }
 
+  /**
+   * Like {@link #endMessage(long)} for a batch of messages that were sent
+   * to the client together.
+   * @since 9.0
+   */
+  public void endMessageBatch(long start, int numberOfMessages)
+  {
+    long ts = DistributionStats.getStatTime();
+
+    this._stats.incInt(_messagesProcessedId, numberOfMessages);
+    this._stats.incInt(_messageBatchesSentId, 1);
+
+    long elapsed = ts-start;
+    this._stats.incLong(_messageProcessingTimeId, elapsed);
+  }
+
   /**
    * Increments the "deltaMessagesSent" stats.
    */
@@ -146,6 +146,13 @@ public class CacheClientUpdater extends Thread implements ClientUpdater,
   private final ByteBuffer commBuffer;
   private boolean commBufferReleased;
 
+  /**
+   * Reads the messages of a {@link MessageType#CLIENT_EVENT_BATCH}.
+   * Only used by the updater thread.
+   */
+  private Message batchMessage;
+  private ByteBuffer batchBuffer;
+
   private final CCUStats stats;
   
   /**
@@ -1636,7 +1643,6 @@ public class CacheClientUpdater extends Thread implements ClientUpdater,
   protected void processMessages() {
     final boolean isDebugEnabled = logger.isDebugEnabled();
     try {
-      Part eid = null;
       Message _message = initializeMessage();
       if (quitting()) {
         if (isDebugEnabled) {
@@ -1689,78 +1695,10 @@ public class CacheClientUpdater extends Thread implements ClientUpdater,
             continue;
           }
 
-          boolean isDeltaSent = false;
-          boolean isCreateOrUpdate = _message.getMessageType() == MessageType.LOCAL_CREATE
-              || _message.getMessageType() == MessageType.LOCAL_UPDATE;
-          if (isCreateOrUpdate) {
-            isDeltaSent = ((Boolean)_message.getPart(2).getObject())
-                .booleanValue();
-          }
-          
-          // extract the eventId and verify if it is a duplicate event
-          // if it is a duplicate event, ignore
-          // @since 5.1
-          int numberOfParts = _message.getNumberOfParts();
-          eid = _message.getPart(numberOfParts - 1);
-          // TODO the message handling methods also deserialized the eventID - inefficient
-          EventID eventId = (EventID)eid.getObject();
-
-          // no need to verify if the instantiator msg is duplicate or not
-          if (_message.getMessageType() != MessageType.REGISTER_INSTANTIATORS && _message.getMessageType() != MessageType.REGISTER_DATASERIALIZERS ) {
-            if (this.qManager.getState().verifyIfDuplicate(eventId, !(this.isDurableClient || isDeltaSent))) {
-              continue;
-            }
-          }
-          if (logger.isTraceEnabled(LogMarker.BRIDGE_SERVER)) {
-            logger.trace(LogMarker.BRIDGE_SERVER, "Processing event with id {}" + eventId.expensiveToString());
-          }
-          this.isOpCompleted = true;
-          // Process the message
-          switch (_message.getMessageType()) {
-          case MessageType.LOCAL_CREATE:
-          case MessageType.LOCAL_UPDATE:
-            handleUpdate(_message);
-            break;
-          case MessageType.LOCAL_INVALIDATE:
-            handleInvalidate(_message);
-            break;
-          case MessageType.LOCAL_DESTROY:
-            handleDestroy(_message);
-            break;
-          case MessageType.LOCAL_DESTROY_REGION:
-            handleDestroyRegion(_message);
-            break;
-          case MessageType.CLEAR_REGION:
-            handleClearRegion(_message);
-            break;
-          case MessageType.REGISTER_INSTANTIATORS:
-            handleRegisterInstantiator(_message, eventId);
-            break;
-          case MessageType.REGISTER_DATASERIALIZERS:
-          handleRegisterDataSerializer(_message, eventId);
-            break;
-          case MessageType.CLIENT_MARKER:
-            handleMarker(_message);
-            break;
-          case MessageType.INVALIDATE_REGION:
-            handleInvalidateRegion(_message);
-            break;
-          case MessageType.CLIENT_REGISTER_INTEREST:
-            handleRegisterInterest(_message);
-            break;
-          case MessageType.CLIENT_UNREGISTER_INTEREST:
-            handleUnregisterInterest(_message);
-            break;
-          case MessageType.TOMBSTONE_OPERATION:
-            handleTombstoneOperation(_message);
-            break;
-          default:
-            logger.warn(LocalizedMessage.create(LocalizedStrings.CacheClientUpdater_0_RECEIVED_AN_UNSUPPORTED_MESSAGE_TYPE_1, new Object[] {this, MessageType.getString(_message.getMessageType())}));
-            break;
-          }
-
-          if (this.isOpCompleted && (this.isDurableClient || isDeltaSent)) {
-            this.qManager.getState().verifyIfDuplicate(eventId, true);
+          if (_message.getMessageType() == MessageType.CLIENT_EVENT_BATCH) {
+            processBatch(_message);
+          } else {
+            processMessage(_message);
           }
 
           // TODO we should maintain the client's "live" view of the server
@@ -1845,6 +1783,122 @@ public class CacheClientUpdater extends Thread implements ClientUpdater,
     }
   }
 
+  /**
+   * Processes one event message from the server and records its event id so
+   * that duplicates are ignored and the event is acked to the server.
+   */
+  private void processMessage(Message _message) throws Exception {
+    boolean isDeltaSent = false;
+    boolean isCreateOrUpdate = _message.getMessageType() == MessageType.LOCAL_CREATE
+        || _message.getMessageType() == MessageType.LOCAL_UPDATE;
+    if (isCreateOrUpdate) {
+      isDeltaSent = ((Boolean)_message.getPart(2).getObject())
+          .booleanValue();
+    }
+    
+    // extract the eventId and verify if it is a duplicate event
+    // if it is a duplicate event, ignore
+    // @since 5.1
+    int numberOfParts = _message.getNumberOfParts();
+    Part eid = _message.getPart(numberOfParts - 1);
+    // TODO the message handling methods also deserialized the eventID - inefficient
+    EventID eventId = (EventID)eid.getObject();
+
+    // no need to verify if the instantiator msg is duplicate or not
+    if (_message.getMessageType() != MessageType.REGISTER_INSTANTIATORS && _message.getMessageType() != MessageType.REGISTER_DATASERIALIZERS ) {
+      if (this.qManager.getState().verifyIfDuplicate(eventId, !(this.isDurableClient || isDeltaSent))) {
+        return;
+      }
+    }
+    if (logger.isTraceEnabled(LogMarker.BRIDGE_SERVER)) {
+      logger.trace(LogMarker.BRIDGE_SERVER, "Processing event with id {}" + eventId.expensiveToString());
+    }
+    this.isOpCompleted = true;
+    // Process the message
+    switch (_message.getMessageType()) {
+    case MessageType.LOCAL_CREATE:
+    case MessageType.LOCAL_UPDATE:
+      handleUpdate(_message);
+      break;
+    case MessageType.LOCAL_INVALIDATE:
+      handleInvalidate(_message);
+      break;
+    case MessageType.LOCAL_DESTROY:
+      handleDestroy(_message);
+      break;
+    case MessageType.LOCAL_DESTROY_REGION:
+      handleDestroyRegion(_message);
+      break;
+    case MessageType.CLEAR_REGION:
+      handleClearRegion(_message);
+      break;
+    case MessageType.REGISTER_INSTANTIATORS:
+      handleRegisterInstantiator(_message, eventId);
+      break;
+    case MessageType.REGISTER_DATASERIALIZERS:
+    handleRegisterDataSerializer(_message, eventId);
+      break;
+    case MessageType.CLIENT_MARKER:
+      handleMarker(_message);
+      break;
+    case MessageType.INVALIDATE_REGION:
+      handleInvalidateRegion(_message);
+      break;
+    case MessageType.CLIENT_REGISTER_INTEREST:
+      handleRegisterInterest(_message);
+      break;
+    case MessageType.CLIENT_UNREGISTER_INTEREST:
+      handleUnregisterInterest(_message);
+      break;
+    case MessageType.TOMBSTONE_OPERATION:
+      handleTombstoneOperation(_message);
+      break;
+    default:
+      logger.warn(LocalizedMessage.create(LocalizedStrings.CacheClientUpdater_0_RECEIVED_AN_UNSUPPORTED_MESSAGE_TYPE_1, new Object[] {this, MessageType.getString(_message.getMessageType())}));
+      break;
+    }
+
+    if (this.isOpCompleted && (this.isDurableClient || isDeltaSent)) {
+      this.qManager.getState().verifyIfDuplicate(eventId, true);
+    }
+  }
+
+  /**
+   * Processes the messages that the server sent together as one
+   * {@link MessageType#CLIENT_EVENT_BATCH}. Each of them goes through
+   * {@link #processMessage(Message)}, so their event ids are recorded just
+   * like those of messages sent one at a time and the next periodic ack
+   * acknowledges the whole batch at once.
+   * @since 9.0
+   */
+  private void processBatch(Message batch) throws Exception {
+    int count = batch.getPart(0).getInt();
+    byte[] bytes = batch.getPart(1).getSerializedForm();
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: Received a batch of {} messages", this, count);
+    }
+    if (this.batchMessage == null) {
+      this.batchMessage = new Message(2, Version.CURRENT);
+      this.batchBuffer = ByteBuffer.allocate(this.commBuffer.capacity());
+    }
+    Message msg = this.batchMessage;
+    msg.setStreamComms(null, this.socket, new ByteArrayInputStream(bytes), null, this.batchBuffer, null);
+    for (int i = 0; i < count; i++) {
+      if (quitting()) {
+        break;
+      }
+      try {
+        msg.recv();
+        if (msg.getMessageType() != MessageType.SERVER_TO_CLIENT_PING) {
+          processMessage(msg);
+        }
+      }
+      finally {
+        msg.clear();
+      }
+    }
+  }
+
   /**
    * Conditionally print a warning describing the failure
    * <p>
@@ -96,6 +96,7 @@ import com.gemstone.gemfire.internal.cache.tier.sockets.command.Request;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.RequestEventValue;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.RollbackCommand;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.Size;
+import com.gemstone.gemfire.internal.cache.tier.sockets.command.StreamingQuery;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.TXFailoverCommand;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.TXSynchronizationCommand;
 import com.gemstone.gemfire.internal.cache.tier.sockets.command.UnregisterInterest;
@@ -321,6 +322,7 @@ public class CommandInitializer {
     {
       Map<Integer, Command> gfe90Commands = new HashMap<Integer, Command>();
       gfe90Commands.putAll(ALL_COMMANDS.get(Version.GFE_82));
+      gfe90Commands.put(MessageType.STREAMING_QUERY, StreamingQuery.getCommand());
       ALL_COMMANDS.put(Version.GFE_90, gfe90Commands);
     }
   }
@@ -129,6 +129,11 @@ public class Message  {
   private Semaphore dataLimiter = null;
 //  private int MAX_MSGS = -1;
   private Semaphore msgLimiter = null;
+  /**
+   * The reader of the frames this message is received from; null unless the
+   * selector thread frames messages
+   */
+  private MessageFrameReader frameReader;
   private boolean hdrRead = false;  
   private int chunkSize = 1024;//Default Chunk Size.
 
@@ -346,7 +351,8 @@ public class Message  {
       v = null;
     }
     // create the HDOS with a flag telling it that it can keep any byte[] or ByteBuffers/ByteSources passed to it.
-    hdos = new HeapDataOutputStream(chunkSize, v, true);
+    // If pooling is enabled Part.clear gives the buffers of the hdos back once the message is done with.
+    hdos = new HeapDataOutputStream(chunkSize, v, true, true);
     // TODO OFFHEAP: Change Part to look for an HDOS and just pass a reference to its DirectByteBuffer.
     // Then change HDOS sendTo(SocketChannel...) to use the GatheringByteChannel to write a bunch of bbs.
     // TODO OFFHEAP This code optimizes one part which works pretty good for getAll since all the values are
@@ -393,7 +399,7 @@ public class Message  {
       if (version.equals(Version.CURRENT)){
         v = null;
       }
-      hdos = new HeapDataOutputStream(chunkSize, v);
+      hdos = new HeapDataOutputStream(chunkSize, v, false, true);
       try {
 //        logger.fine("hitesh before serializatino: " );
 //        
@@ -449,6 +455,23 @@ public class Message  {
     return FIXED_LENGTH;
   }
 
+  /**
+   * Returns the number of bytes that sending this message writes, including
+   * the security part of a client message. A security part that a server
+   * adds as it sends the message is not included.
+   * @since 9.0
+   */
+  public int getSendLength() {
+    int len = FIXED_LENGTH + PART_HEADER_SIZE * this.numberOfParts;
+    for (int i = 0; i < this.numberOfParts; i++) {
+      len += this.partsList[i].getLength();
+    }
+    if (this.securePart != null) {
+      len += PART_HEADER_SIZE + this.securePart.getLength();
+    }
+    return len;
+  }
+
   public int getNumberOfParts() {
     return this.numberOfParts;
   }
@@ -625,8 +648,14 @@ public class Message  {
           int partLen = part.getLength();
           cb.putInt(partLen);
           cb.put(part.getTypeCode());
+          final int pendingBytes = cb.position();
           if (partLen <= cb.remaining()) {
             part.sendTo(cb);
+          } else if (this.sockCh != null && part.sendWithPendingBytes(this.sockCh, cb)) {
+            // the buffered bytes and the off-heap part were written together
+            if (this.msgStats != null) {
+              this.msgStats.incSentBytes(pendingBytes + partLen);
+            }
           } else {
             flushBuffer();
             // send partBytes
@@ -905,6 +934,10 @@ public class Message  {
       logger.info(LocalizedMessage.create(LocalizedStrings.Message_RPL_NEG_LEN__0, len));
       throw new IOException(LocalizedStrings.Message_DEAD_CONNECTION.toLocalizedString());
     }    
+    if (this.frameReader != null) {
+      readFramedParts(numParts, len);
+      return;
+    }
     
     final ByteBuffer cb = getCommBuffer();
     cb.clear();
@@ -1001,6 +1034,29 @@ public class Message  {
     }
   }
 
+  /**
+   * Initializes the parts of this message with the byte arrays the frame
+   * reader read them into.
+   */
+  private void readFramedParts(final int numParts, final int len)
+  throws IOException {
+    final int readSecurePart = checkAndSetSecurityPart();
+    final MessageFrameReader frame = this.frameReader;
+    if (frame.getPartCount() != numParts + readSecurePart) {
+      throw new IOException(LocalizedStrings.Message_PART_LENGTH_0_AND_NUMBER_OF_PARTS_1_INCONSISTENT.toLocalizedString(
+            new Object[] {Integer.valueOf(len), Integer.valueOf(numParts)}));
+    }
+    for (int i = 0; i < numParts; i++) {
+      this.partsList[i].init(frame.getPartBytes(i), frame.getPartType(i));
+    }
+    if (readSecurePart == 1) {
+      this.securePart.init(frame.getPartBytes(numParts), frame.getPartType(numParts));
+    }
+    if (this.msgStats != null) {
+      this.msgStats.incReceivedBytes(len);
+    }
+  }
+
   protected int checkAndSetSecurityPart() {
     if ((this.earlyAck | MESSAGE_HAS_SECURE_PART) == this.earlyAck) {
       this.securePart = new Part();
@@ -1122,6 +1178,32 @@ public class Message  {
     this.cachedCommBuffer = bb;
     this.msgStats = msgStats;
   }
+  /**
+   * Like {@link #setComms(Socket, InputStream, OutputStream, ByteBuffer, MessageStats)}
+   * except that this message always reads from is and writes to os even if
+   * the socket has a channel. bb, or the thread local comm buffer if bb is
+   * null, must be a heap buffer.
+   * @since 9.0
+   */
+  public void setStreamComms(ServerConnection sc, Socket socket, InputStream is, OutputStream os, ByteBuffer bb, MessageStats msgStats) {
+    this.sc = sc;
+    Assert.assertTrue(socket != null);
+    this.socket = socket;
+    this.sockCh = null;
+    this.is = is;
+    this.os = os;
+    this.cachedCommBuffer = bb;
+    this.msgStats = msgStats;
+  }
+  /**
+   * Makes this message take its parts from the frames buffered by the given
+   * reader instead of reading them from its input stream, which must be the
+   * reader's stream.
+   * @since 9.0
+   */
+  public void setFrameReader(MessageFrameReader frameReader) {
+    this.frameReader = frameReader;
+  }
   /**
    * Undo any state changes done by setComms.
    * @since 5.7
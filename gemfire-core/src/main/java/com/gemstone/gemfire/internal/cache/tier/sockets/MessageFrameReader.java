@@ -0,0 +1,400 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Collects the bytes of one client {@link Message} from a non-blocking
+ * channel so that the selector thread can frame messages without ever
+ * blocking. Once {@link #readFrom(ReadableByteChannel)} returns true the
+ * whole message is buffered and a worker thread can parse it with the
+ * usual {@link Message} code. The header is read from
+ * {@link #getInputStream()} and the parts are handed over as the byte
+ * arrays they were read into, so payload bytes are copied no more often
+ * than when the worker reads them from the socket itself.
+ * <p>
+ * The frame is the fixed size message header followed by the payload
+ * length that the header declares. If that length is negative or larger
+ * than the maximum a server accepts then only the header is buffered and
+ * the frame is reported complete, so that the worker fails the message
+ * with the same exception it would have thrown when reading the socket.
+ * <p>
+ * Before any of the payload is read, a reader takes the permits of the
+ * server's incoming message and data limiters that the worker would
+ * otherwise have waited for. If they are not available the reader
+ * {@linkplain #isWaitingForPermits() waits for them} without reading any
+ * further, and the selector stops reading the channel until
+ * {@link #acquirePermits()} succeeds. The permits are released by
+ * {@link #reset()} once the message has been processed.
+ *
+ * @since 9.0
+ */
+public class MessageFrameReader {
+  /** offset of the payload length in the message header */
+  private static final int PAYLOAD_LENGTH_OFFSET = 4;
+  /** offset of the number of parts in the message header */
+  private static final int NUMBER_OF_PARTS_OFFSET = 8;
+  /** 4 bytes for the length of a part and 1 byte for its type */
+  private static final int PART_HEADER_SIZE = 5;
+  /**
+   * The most payload bytes read from the channel at a time to pick the part
+   * headers and small parts out of. A part that does not fit is read
+   * straight into its own byte array.
+   */
+  private static final int CHUNK_SIZE = 8192;
+
+  private final int maxPayloadLength;
+  private final Semaphore dataLimiter;
+  private final Semaphore msgLimiter;
+  private final ByteBuffer header = ByteBuffer.allocate(Message.FIXED_LENGTH);
+  private final FrameInputStream in = new FrameInputStream();
+
+  private int payloadLength;
+  /** the payload bytes that have not been read from the channel yet */
+  private int unread;
+  /** payload bytes read but not yet copied into a part, in read mode */
+  private ByteBuffer chunk;
+  private byte[][] parts;
+  private byte[] partTypes;
+  private int partCount;
+  /** the part whose bytes are being read, or null between parts */
+  private ByteBuffer currentPart;
+
+  private boolean waitingForPermits;
+  /** set by the selector thread, cleared by the thread processing the frame */
+  private volatile boolean permitsHeld;
+  private boolean complete;
+
+  /**
+   * @param maxPayloadLength the largest payload that will be buffered;
+   *          zero or less means there is no limit
+   */
+  public MessageFrameReader(int maxPayloadLength) {
+    this(maxPayloadLength, null, null);
+  }
+
+  /**
+   * @param maxPayloadLength the largest payload that will be buffered;
+   *          zero or less means there is no limit
+   * @param dataLimiter if not null, a permit is taken for each payload byte
+   * @param msgLimiter if not null, a permit is taken for each message
+   */
+  public MessageFrameReader(int maxPayloadLength, Semaphore dataLimiter, Semaphore msgLimiter) {
+    this.maxPayloadLength = maxPayloadLength;
+    this.dataLimiter = dataLimiter;
+    this.msgLimiter = msgLimiter;
+  }
+
+  /**
+   * Reads whatever part of the current frame is available from the channel.
+   *
+   * @return true if the current frame is now completely buffered
+   * @throws EOFException if the channel reached end of stream
+   */
+  public boolean readFrom(ReadableByteChannel channel) throws IOException {
+    return readFrom(channel, true);
+  }
+
+  /**
+   * Reads whatever part of the current frame is available from the channel.
+   *
+   * @param mayAcquirePermits false if the frame must wait for the limiter
+   *          permits even if they are available, so that it does not get
+   *          ahead of frames that are already waiting for them
+   * @return true if the current frame is now completely buffered
+   * @throws EOFException if the channel reached end of stream
+   */
+  public boolean readFrom(ReadableByteChannel channel, boolean mayAcquirePermits) throws IOException {
+    if (this.complete) {
+      return true;
+    }
+    if (this.header.hasRemaining()) {
+      if (channel.read(this.header) == -1) {
+        throw new EOFException();
+      }
+      if (this.header.hasRemaining()) {
+        return false;
+      }
+      int len = this.header.getInt(PAYLOAD_LENGTH_OFFSET);
+      if (len < 0 || (this.maxPayloadLength > 0 && len > this.maxPayloadLength)) {
+        return frameComplete();
+      }
+      this.payloadLength = len;
+      this.unread = len;
+    }
+    if (!this.permitsHeld && (!mayAcquirePermits || !acquirePermits())) {
+      this.waitingForPermits = true;
+      return false;
+    }
+    if (this.parts == null) {
+      int numParts = this.header.getInt(NUMBER_OF_PARTS_OFFSET);
+      if (numParts < 0 || numParts > this.payloadLength / PART_HEADER_SIZE) {
+        // the worker rejects the inconsistent header
+        return frameComplete();
+      }
+      // one more for a secure part
+      this.parts = new byte[numParts + 1][];
+      this.partTypes = new byte[numParts + 1];
+      this.chunk = ByteBuffer.allocate(Math.max(PART_HEADER_SIZE, Math.min(CHUNK_SIZE, this.payloadLength)));
+      this.chunk.flip();
+    }
+    return readParts(channel);
+  }
+
+  private boolean readParts(ReadableByteChannel channel) throws IOException {
+    final ByteBuffer cb = this.chunk;
+    for (;;) {
+      final ByteBuffer part = this.currentPart;
+      if (part != null) {
+        if (cb.hasRemaining()) {
+          int n = Math.min(cb.remaining(), part.remaining());
+          cb.get(part.array(), part.position(), n);
+          part.position(part.position() + n);
+        }
+        if (!part.hasRemaining()) {
+          this.currentPart = null;
+        } else if (part.remaining() > cb.capacity()) {
+          // the chunk is empty now; read the rest of a large part directly
+          int n = channel.read(part);
+          if (n == -1) {
+            throw new EOFException();
+          }
+          this.unread -= n;
+          if (n == 0) {
+            return false;
+          }
+        } else if (!fill(channel)) {
+          return false;
+        }
+        continue;
+      }
+      if (!cb.hasRemaining() && this.unread == 0) {
+        return frameComplete();
+      }
+      if (cb.remaining() < PART_HEADER_SIZE) {
+        if (this.unread == 0) {
+          throw new IOException("Message payload ends inside a part header");
+        }
+        if (!fill(channel)) {
+          return false;
+        }
+        continue;
+      }
+      int partLen = cb.getInt();
+      byte partType = cb.get();
+      if (partLen < 0 || partLen > cb.remaining() + this.unread) {
+        throw new IOException("Message part length " + partLen + " does not fit in its payload of " + this.payloadLength + " bytes");
+      }
+      byte[] partBytes = new byte[partLen];
+      addPart(partBytes, partType);
+      this.currentPart = ByteBuffer.wrap(partBytes);
+    }
+  }
+
+  /**
+   * Reads as much of the rest of the payload into the chunk as fits.
+   *
+   * @return false if nothing could be read without blocking
+   */
+  private boolean fill(ReadableByteChannel channel) throws IOException {
+    final ByteBuffer cb = this.chunk;
+    cb.compact();
+    if (cb.remaining() > this.unread) {
+      cb.limit(cb.position() + this.unread);
+    }
+    int n;
+    try {
+      n = channel.read(cb);
+    } finally {
+      cb.flip();
+    }
+    if (n == -1) {
+      throw new EOFException();
+    }
+    this.unread -= n;
+    return n > 0;
+  }
+
+  private void addPart(byte[] partBytes, byte partType) {
+    if (this.partCount == this.parts.length) {
+      byte[][] newParts = new byte[this.partCount * 2 + 1][];
+      System.arraycopy(this.parts, 0, newParts, 0, this.partCount);
+      this.parts = newParts;
+      byte[] newTypes = new byte[newParts.length];
+      System.arraycopy(this.partTypes, 0, newTypes, 0, this.partCount);
+      this.partTypes = newTypes;
+    }
+    this.parts[this.partCount] = partBytes;
+    this.partTypes[this.partCount] = partType;
+    this.partCount++;
+  }
+
+  private boolean frameComplete() {
+    this.header.flip();
+    this.chunk = null;
+    this.currentPart = null;
+    this.complete = true;
+    return true;
+  }
+
+  /**
+   * Returns true if the payload of the current frame can not be read until
+   * {@link #acquirePermits()} succeeds.
+   */
+  public boolean isWaitingForPermits() {
+    return this.waitingForPermits;
+  }
+
+  /**
+   * Takes the limiter permits for the current frame without waiting.
+   *
+   * @return true if the permits are held, in which case the rest of the
+   *         frame can be read
+   */
+  public synchronized boolean acquirePermits() {
+    if (this.permitsHeld) {
+      return true;
+    }
+    if (this.msgLimiter != null && !this.msgLimiter.tryAcquire()) {
+      return false;
+    }
+    if (this.dataLimiter != null && this.payloadLength > 0 && !this.dataLimiter.tryAcquire(this.payloadLength)) {
+      if (this.msgLimiter != null) {
+        this.msgLimiter.release();
+      }
+      return false;
+    }
+    this.permitsHeld = true;
+    this.waitingForPermits = false;
+    return true;
+  }
+
+  /**
+   * Releases the limiter permits of the current frame, if it holds them.
+   */
+  synchronized void releasePermits() {
+    if (this.permitsHeld) {
+      this.permitsHeld = false;
+      if (this.dataLimiter != null && this.payloadLength > 0) {
+        this.dataLimiter.release(this.payloadLength);
+      }
+      if (this.msgLimiter != null) {
+        this.msgLimiter.release();
+      }
+    }
+  }
+
+  /**
+   * Returns true if a complete frame is buffered.
+   */
+  public boolean isComplete() {
+    return this.complete;
+  }
+
+  /**
+   * Returns the number of parts in the current frame, including a secure
+   * part. Only valid once the frame is complete.
+   */
+  public int getPartCount() {
+    return this.partCount;
+  }
+
+  /**
+   * Returns the bytes of a part of the current frame. The caller owns the
+   * returned array.
+   */
+  public byte[] getPartBytes(int index) {
+    return this.parts[index];
+  }
+
+  public byte getPartType(int index) {
+    return this.partTypes[index];
+  }
+
+  /**
+   * Discards the current frame and releases its limiter permits so the next
+   * one can be read. Safe to call more than once.
+   */
+  public void reset() {
+    releasePermits();
+    this.header.clear();
+    this.payloadLength = 0;
+    this.unread = 0;
+    this.chunk = null;
+    this.parts = null;
+    this.partTypes = null;
+    this.partCount = 0;
+    this.currentPart = null;
+    this.waitingForPermits = false;
+    this.complete = false;
+  }
+
+  /**
+   * Returns a stream that reads the header of the current frame. The same
+   * stream is returned for every frame and it is at end of stream unless
+   * a complete frame is buffered.
+   */
+  public InputStream getInputStream() {
+    return this.in;
+  }
+
+  private class FrameInputStream extends InputStream {
+    private ByteBuffer current() {
+      if (!complete || !header.hasRemaining()) {
+        return null;
+      }
+      return header;
+    }
+
+    @Override
+    public int read() throws IOException {
+      ByteBuffer bb = current();
+      if (bb == null) {
+        return -1;
+      }
+      return bb.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      ByteBuffer bb = current();
+      if (bb == null) {
+        return -1;
+      }
+      int bytesRead = Math.min(len, bb.remaining());
+      bb.get(b, off, bytesRead);
+      return bytesRead;
+    }
+
+    @Override
+    public int available() {
+      if (!complete) {
+        return 0;
+      }
+      return header.remaining();
+    }
+  }
+}
@@ -75,6 +75,10 @@ public class Part {
 //   }
 
   public void clear() {
+    if (this.part instanceof HeapDataOutputStream) {
+      // the message is done with this part so a pooled hdos can be reused
+      ((HeapDataOutputStream)this.part).release();
+    }
     this.part = null;
     this.typeCode = BYTE_CODE;
   }
@@ -306,9 +310,10 @@ public class Part {
             if (buf.remaining() == 0) {
               HeapDataOutputStream.flushStream(out,  buf);
             }
-            buf.put(UnsafeMemoryChunk.readAbsoluteByte(addr));
-            addr++;
-            bytesToSend--;
+            int bytesThisTime = Math.min(bytesToSend, buf.remaining());
+            copyToBuffer(addr, bytesThisTime, buf);
+            addr += bytesThisTime;
+            bytesToSend -= bytesThisTime;
           }
         }
       } else {
@@ -334,12 +339,7 @@ public class Part {
           buf.put(bb);
         } else {
           int bytesToSend = c.getDataSize();
-          long addr = c.getAddressForReading(0, bytesToSend);
-          while (bytesToSend > 0) {
-            buf.put(UnsafeMemoryChunk.readAbsoluteByte(addr));
-            addr++;
-            bytesToSend--;
-          }
+          copyToBuffer(c.getAddressForReading(0, bytesToSend), bytesToSend, buf);
         }
       } else {
         HeapDataOutputStream hdos = (HeapDataOutputStream)this.part;
@@ -396,11 +396,8 @@ public class Part {
               bytesThisTime = BUF_MAX;
             }
             len -= bytesThisTime;
-            while (bytesThisTime > 0) {
-              buf.put(UnsafeMemoryChunk.readAbsoluteByte(addr));
-              addr++;
-              bytesThisTime--;
-            }
+            copyToBuffer(addr, bytesThisTime, buf);
+            addr += bytesThisTime;
             buf.flip();
             while (buf.remaining() > 0) {
               sc.write(buf);
@@ -416,6 +413,68 @@ public class Part {
     }
   }
   
+  /**
+   * Write the bytes already in the specified byte buffer followed by the
+   * contents of this part to the specified socket channel.
+   * If this part is an off-heap Chunk that can be viewed as a direct ByteBuffer
+   * then both are written with gathering writes so the Chunk goes from its
+   * off-heap address to the socket without first being copied to buf.
+   * The caller must keep the Chunk retained until this method returns.
+   * @return true if buf and this part were written and buf was cleared;
+   * false if nothing was written and the caller needs to flush buf and call
+   * {@link #sendTo(SocketChannel, ByteBuffer)}
+   */
+  public final boolean sendWithPendingBytes(SocketChannel sc, ByteBuffer buf) throws IOException {
+    if (!(this.part instanceof Chunk)) {
+      return false;
+    }
+    ByteBuffer bb = ((Chunk) this.part).createDirectByteBuffer();
+    if (bb == null) {
+      return false;
+    }
+    buf.flip();
+    final ByteBuffer[] srcs = new ByteBuffer[] {buf, bb};
+    while (bb.remaining() > 0) {
+      sc.write(srcs);
+    }
+    buf.clear();
+    return true;
+  }
+
+  /**
+   * Copies size bytes of off-heap memory starting at addr to the specified
+   * byte buffer using bulk copies instead of reading one byte at a time.
+   * Used when a direct ByteBuffer view of a Chunk can not be created.
+   * Precondition: buf has at least size bytes remaining.
+   */
+  private static void copyToBuffer(long addr, int size, ByteBuffer buf) {
+    final int pos = buf.position();
+    if (buf.hasArray()) {
+      UnsafeMemoryChunk.readAbsoluteBytes(addr, buf.array(), buf.arrayOffset() + pos, size);
+      buf.position(pos + size);
+      return;
+    }
+    long dstAddr = Chunk.getDirectByteBufferAddress(buf);
+    if (dstAddr != 0L) {
+      UnsafeMemoryChunk.copyMemory(addr, dstAddr + pos, size);
+      buf.position(pos + size);
+      return;
+    }
+    // readAbsoluteLong uses the native byte order so write through a view with the same order
+    ByteBuffer nativeBuf = buf.duplicate().order(ByteOrder.nativeOrder());
+    while (size >= 8) {
+      nativeBuf.putLong(UnsafeMemoryChunk.readAbsoluteLong(addr));
+      addr += 8;
+      size -= 8;
+    }
+    while (size > 0) {
+      nativeBuf.put(UnsafeMemoryChunk.readAbsoluteByte(addr));
+      addr++;
+      size--;
+    }
+    buf.position(nativeBuf.position());
+  }
+
   static private String typeCodeToString(byte c) {
     switch (c) {
     case BYTE_CODE:
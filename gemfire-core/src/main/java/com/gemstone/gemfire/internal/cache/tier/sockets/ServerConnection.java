@@ -20,12 +20,15 @@ package com.gemstone.gemfire.internal.cache.tier.sockets;
 import java.io.ByteArrayInputStream;
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.Socket;
 import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
 import java.security.Principal;
 import java.util.Iterator;
 import java.util.Map;
@@ -48,6 +51,7 @@ import com.gemstone.gemfire.distributed.internal.DistributionConfig;
 import com.gemstone.gemfire.distributed.internal.membership.InternalDistributedMember;
 import com.gemstone.gemfire.internal.Assert;
 import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.SocketOutputStream;
 import com.gemstone.gemfire.internal.SocketUtils;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.EventID;
@@ -875,6 +879,10 @@ public class ServerConnection implements Runnable {
         }
       }
       cleanup(timedOut);
+      if (this.frameReader != null) {
+        // the message being framed or processed will not be finished
+        this.frameReader.releasePermits();
+      }
       if (getAcceptor().isRunning()) {
         // If the client has departed notify bridge membership and unregister it from
         // the heartbeat monitor; other wise just remove the connection.
@@ -1130,6 +1138,11 @@ public class ServerConnection implements Runnable {
           Message.setTLCommBuffer(getAcceptor().takeCommBuffer());
           doOneMessage();
           if (this.processMessages && !(this.crHelper.isShutdown())) {
+            if (this.frameReader != null) {
+              this.frameReader.reset();
+            } else if (getAcceptor().isFramingSelector()) {
+              initFramedStreams();
+            }
             registerWithSelector(); // finished msg so reregister
             finishedMsg = true;
           }
@@ -1205,6 +1218,67 @@ public class ServerConnection implements Runnable {
   public SelectableChannel getSelectableChannel() {
     return this.theSocket.getChannel();
   }
+  /**
+   * Set once the handshake is done if the acceptor frames messages on its
+   * selector thread; null otherwise.
+   */
+  private MessageFrameReader frameReader;
+
+  /**
+   * Returns true if the selector should read this connection's messages
+   * with {@link #readFrame(boolean)} instead of handing the connection to a
+   * thread that reads them with blocking IO.
+   */
+  public boolean isFramed() {
+    return this.frameReader != null;
+  }
+
+  /**
+   * Reads whatever part of the next message the channel has without blocking.
+   * Only called by the selector thread.
+   * @return true if the whole message is now buffered and can be processed
+   */
+  public boolean readFrame(boolean mayAcquirePermits) throws IOException {
+    return this.frameReader.readFrom((SocketChannel)getSelectableChannel(), mayAcquirePermits);
+  }
+
+  /**
+   * Returns true if reading the next message has to wait until
+   * {@link #acquireFramePermits()} succeeds.
+   */
+  public boolean isWaitingForFramePermits() {
+    return this.frameReader.isWaitingForPermits();
+  }
+
+  /**
+   * Takes the incoming message limiter permits for the message being framed
+   * without waiting.
+   * @return true if they were taken and the message can be read
+   */
+  public boolean acquireFramePermits() {
+    return this.frameReader.acquirePermits();
+  }
+
+  /**
+   * Switches the messages of this connection to read from the buffered
+   * frame and to write to the socket channel in non-blocking mode so that
+   * the channel can stay registered with the selector between messages.
+   */
+  private void initFramedStreams() throws IOException {
+    OutputStream out = new SocketOutputStream(this.theSocket, 0);
+    this.frameReader = BaseCommand.createFrameReader();
+    InputStream in = this.frameReader.getInputStream();
+    this.requestMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.requestMsg.setFrameReader(this.frameReader);
+    this.replyMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.responseMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.errorMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.chunkedResponseMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.queryResponseMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.executeFunctionResponseMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.registerInterestResponseMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+    this.keySetResponseMsg.setStreamComms(this, this.theSocket, in, out, null, this.stats);
+  }
   public void registerWithSelector2(Selector s) throws IOException {
     /*this.sKey = */getSelectableChannel().register(s, SelectionKey.OP_READ, this);
   }
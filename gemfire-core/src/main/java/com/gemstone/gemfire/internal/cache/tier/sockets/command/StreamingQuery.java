@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets.command;
+
+import java.io.IOException;
+import java.util.Set;
+
+import com.gemstone.gemfire.cache.operations.QueryOperationContext;
+import com.gemstone.gemfire.cache.query.QueryInvalidException;
+import com.gemstone.gemfire.cache.query.QueryService;
+import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.tier.Command;
+import com.gemstone.gemfire.internal.cache.tier.sockets.BaseCommandQuery;
+import com.gemstone.gemfire.internal.cache.tier.sockets.CacheClientNotifier;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ServerConnection;
+import com.gemstone.gemfire.internal.security.AuthorizeRequest;
+
+/**
+ * Executes a query for a client and streams its results back as they are
+ * produced. The message parts are the query string, the page size, the
+ * number of parameters and the parameters.
+ *
+ * @since 9.0
+ */
+public class StreamingQuery extends BaseCommandQuery {
+
+  private final static StreamingQuery singleton = new StreamingQuery();
+
+  public static Command getCommand() {
+    return singleton;
+  }
+
+  private StreamingQuery() {
+  }
+
+  @Override
+  public void cmdExecute(Message msg, ServerConnection servConn, long start)
+      throws IOException, InterruptedException {
+    servConn.setAsTrue(REQUIRES_RESPONSE);
+    servConn.setAsTrue(REQUIRES_CHUNKED_RESPONSE);
+    // Retrieve the data from the message parts
+    String queryString = msg.getPart(0).getString();
+    int pageSize = msg.getPart(1).getInt();
+    Object[] queryParams = null;
+    try {
+      int params = msg.getPart(2).getInt();
+      if (params > 0) {
+        queryParams = new Object[params];
+        for (int i = 0; i < queryParams.length; i++) {
+          queryParams[i] = msg.getPart(i + 3).getObject();
+        }
+      }
+    } catch (ClassNotFoundException cne) {
+      throw new QueryInvalidException(cne.getMessage()
+          + queryString);
+    }
+
+    if (logger.isDebugEnabled()) {
+      logger.debug("{}: Received streaming query request from {} queryString: {} page size: {}{}", servConn.getName(), servConn.getSocketString(), queryString, pageSize, (queryParams != null ? (" with num query parameters :" + queryParams.length):""));
+    }
+    try {
+      // Create query
+      QueryService queryService = ((GemFireCacheImpl)servConn.getCachedRegionHelper().getCache())
+      .getLocalQueryService();
+      com.gemstone.gemfire.cache.query.Query query = null;
+
+      if (queryParams != null){
+        // Its a compiled query.
+        CacheClientNotifier ccn = servConn.getAcceptor().getCacheClientNotifier();
+        query = ccn.getCompiledQuery(queryString);
+        if (query == null) {
+          // This is first time the query is seen by this server.
+          query = queryService.newQuery(queryString);
+          ccn.addCompiledQuery((DefaultQuery)query);
+        }
+        ccn.getStats().incCompiledQueryUsedCount(1);
+        ((DefaultQuery)query).setLastUsed(true);
+      } else {
+        query = queryService.newQuery(queryString);
+      }
+
+      Set regionNames = ((DefaultQuery)query).getRegionsInQuery(queryParams);
+
+      // Authorization check
+      QueryOperationContext queryContext = null;
+      AuthorizeRequest authzRequest = servConn.getAuthzRequest();
+      if (authzRequest != null) {
+        queryContext = authzRequest.queryAuthorize(queryString, regionNames, queryParams);
+        String newQueryString = queryContext.getQuery();
+        if (queryString != null && !queryString.equals(newQueryString)) {
+          query = queryService.newQuery(newQueryString);
+          queryString = newQueryString;
+          regionNames = queryContext.getRegionNames();
+          if (regionNames == null) {
+            regionNames = ((DefaultQuery)query).getRegionsInQuery(null);
+          }
+        }
+      }
+
+      processStreamingQuery(msg, query, queryString, regionNames, start,
+          queryContext, servConn, queryParams == null ? new Object[0] : queryParams, pageSize);
+    } catch (QueryInvalidException e) {
+      throw new QueryInvalidException(e.getMessage()
+          + queryString );
+    }
+  }
+
+}
@@ -279,6 +279,7 @@ public class RegionAttributesCreation extends UserSpecifiedRegionAttributes impl
     if (attrs instanceof UserSpecifiedRegionAttributes) {
       UserSpecifiedRegionAttributes nonDefault = (UserSpecifiedRegionAttributes) attrs;
       this.requiresPoolName = nonDefault.requiresPoolName;
+      this.registersInvalidationInterest = nonDefault.registersInvalidationInterest;
       if (! defaults) {
         // Selectively set has* fields to true, propagating those non-default 
         // (aka user specified) fields as such
@@ -1086,6 +1087,9 @@ public class RegionAttributesCreation extends UserSpecifiedRegionAttributes impl
     }
 
     if (parentWithHas != null) {
+      if (parentWithHas.registersInvalidationInterest) {
+        this.registersInvalidationInterest = true;
+      }
       if (setDefaultPool && parentWithHas.requiresPoolName) {
         this.requiresPoolName = true;
         if (!hasPoolName()) {
@@ -277,7 +277,14 @@ import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
           dbbCreateFailed = true;
           return null;
         }
-        ctor.setAccessible(true);
+        try {
+          ctor.setAccessible(true);
+        } catch (RuntimeException e) {
+          // newer JVMs do not allow access to java.nio internals unless java.nio is opened to us
+          dbbClass = null;
+          dbbCreateFailed = true;
+          return null;
+        }
         dbbCtor = ctor;
       }
       try {
@@ -326,7 +333,14 @@ import com.gemstone.gemfire.internal.offheap.annotations.Unretained;
           dbbAddressFailed = true;
           return 0L;
         }
-        m.setAccessible(true);
+        try {
+          m.setAccessible(true);
+        } catch (RuntimeException e) {
+          // newer JVMs do not allow access to java.nio internals unless java.nio is opened to us
+          dbbClass = null;
+          dbbAddressFailed = true;
+          return 0L;
+        }
         dbbAddressMethod = m;
       }
       try {
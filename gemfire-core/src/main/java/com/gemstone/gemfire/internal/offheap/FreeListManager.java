@@ -21,10 +21,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReferenceArray;
@@ -38,6 +41,38 @@ import com.gemstone.gemfire.internal.offheap.MemoryBlock.State;
  * Manages the free lists for a SimpleMemoryAllocatorImpl
  */
 public class FreeListManager {
+  /**
+   * The number of free chunks of each size a thread may keep in its own cache.
+   * Zero, the default, disables the thread caches.
+   */
+  public static final String THREAD_CACHE_SIZE_PROPERTY = "gemfire.OFF_HEAP_THREAD_CACHE_SIZE";
+  /**
+   * Chunks up to this size, including the off-heap header, are kept in the thread caches.
+   */
+  public static final String THREAD_CACHE_MAX_CHUNK_SIZE_PROPERTY = "gemfire.OFF_HEAP_THREAD_CACHE_MAX_CHUNK_SIZE";
+  /**
+   * How many allocations and frees a thread does between returning
+   * the chunks it did not use to the shared free lists.
+   */
+  public static final String THREAD_CACHE_TRIM_INTERVAL_PROPERTY = "gemfire.OFF_HEAP_THREAD_CACHE_TRIM_INTERVAL";
+  /**
+   * The free memory fragmentation percentage at which the background
+   * defragmenter starts merging free chunks. Zero, the default, disables it.
+   */
+  public static final String DEFRAGMENT_THRESHOLD_PROPERTY = "gemfire.OFF_HEAP_DEFRAGMENT_THRESHOLD";
+  /**
+   * How often the background defragmenter checks the fragmentation.
+   */
+  public static final String DEFRAGMENT_INTERVAL_MILLIS_PROPERTY = "gemfire.OFF_HEAP_DEFRAGMENT_INTERVAL_MILLIS";
+  /**
+   * The longest a single background defragmentation pass may spend collecting free chunks.
+   */
+  public static final String DEFRAGMENT_BUDGET_MILLIS_PROPERTY = "gemfire.OFF_HEAP_DEFRAGMENT_BUDGET_MILLIS";
+  /**
+   * The number of chunks a defragmentation pass takes from a tiny free list at a time.
+   */
+  private static final int DEFRAGMENT_BATCH_SIZE = 256;
+
   final private AtomicReferenceArray<SyncChunkStack> tinyFreeLists = new AtomicReferenceArray<SyncChunkStack>(SimpleMemoryAllocatorImpl.TINY_FREE_LIST_COUNT);
   // hugeChunkSet is sorted by chunk size in ascending order. It will only contain chunks larger than MAX_TINY.
   private final ConcurrentSkipListSet<Chunk> hugeChunkSet = new ConcurrentSkipListSet<Chunk>();
@@ -105,6 +140,9 @@ public class FreeListManager {
         tinyFree += cl.computeTotalSize();
       }
     }
+    for (ThreadChunkCache cache: this.allThreadCaches) {
+      tinyFree += cache.computeTotalSize();
+    }
     return tinyFree;
   }
   long getFreeHugeMemory() {
@@ -122,20 +160,96 @@ public class FreeListManager {
   private final CopyOnWriteArrayList<Fragment> fragmentList;
   private final SimpleMemoryAllocatorImpl ma;
 
+  private final int threadCacheSize = Integer.getInteger(THREAD_CACHE_SIZE_PROPERTY, 0);
+  private final int threadCacheMaxChunkSize;
+  private final int threadCacheTrimInterval = Integer.getInteger(THREAD_CACHE_TRIM_INTERVAL_PROPERTY, 4096);
+  /**
+   * Each thread's cache of free tiny chunks.
+   * Only used if threadCacheMaxChunkSize is greater than zero.
+   */
+  private final ThreadLocal<ThreadChunkCache> threadCaches = new ThreadLocal<ThreadChunkCache>() {
+    @Override
+    protected ThreadChunkCache initialValue() {
+      return createThreadCache();
+    }
+  };
+  /**
+   * Every thread cache so that compaction can find the chunks they hold.
+   */
+  private final ConcurrentLinkedQueue<ThreadChunkCache> allThreadCaches = new ConcurrentLinkedQueue<ThreadChunkCache>();
+  private final int largestSlab;
+  /**
+   * The background defragmenter or null if it is disabled.
+   */
+  private final OffHeapDefragmenter defragmenter;
+  /**
+   * The tiny free list the next defragmentation pass starts with.
+   * Guarded by this.
+   */
+  private int defragmentTinyIndex;
+
   public FreeListManager(SimpleMemoryAllocatorImpl ma) {
     this.ma = ma;
+    if (this.threadCacheSize < 0) {
+      throw new IllegalStateException(THREAD_CACHE_SIZE_PROPERTY + " must be >= 0.");
+    }
+    if (this.threadCacheTrimInterval <= 0) {
+      throw new IllegalStateException(THREAD_CACHE_TRIM_INTERVAL_PROPERTY + " must be >= 1.");
+    }
+    if (this.threadCacheSize > 0) {
+      this.threadCacheMaxChunkSize = Math.min(SimpleMemoryAllocatorImpl.MAX_TINY,
+          Integer.getInteger(THREAD_CACHE_MAX_CHUNK_SIZE_PROPERTY, 256));
+    } else {
+      this.threadCacheMaxChunkSize = 0;
+    }
     UnsafeMemoryChunk[] slabs = ma.getSlabs();
     Fragment[] tmp = new Fragment[slabs.length];
     for (int i=0; i < slabs.length; i++) {
       tmp[i] = new Fragment(slabs[i].getMemoryAddress(), slabs[i].getSize());
     }
     this.fragmentList = new CopyOnWriteArrayList<Fragment>(tmp);
+    int largest = 0;
+    for (int i=0; i < slabs.length; i++) {
+      largest = Math.max(largest, slabs[i].getSize());
+    }
+    this.largestSlab = largest;
+
+    final int defragmentThreshold = Integer.getInteger(DEFRAGMENT_THRESHOLD_PROPERTY, 0);
+    if (defragmentThreshold < 0 || defragmentThreshold > 100) {
+      throw new IllegalStateException(DEFRAGMENT_THRESHOLD_PROPERTY + " must be >= 0 and <= 100.");
+    }
+    if (defragmentThreshold > 0) {
+      this.defragmenter = new OffHeapDefragmenter(this, defragmentThreshold,
+          Long.getLong(DEFRAGMENT_INTERVAL_MILLIS_PROPERTY, 1000),
+          TimeUnit.MILLISECONDS.toNanos(Long.getLong(DEFRAGMENT_BUDGET_MILLIS_PROPERTY, 5)));
+    } else {
+      this.defragmenter = null;
+    }
 
     if(ma.validateMemoryWithFill) {
       fillFragments();
     }
   }
 
+  /**
+   * Starts the background defragmenter if it is enabled.
+   */
+  void startDefragmenter() {
+    if (this.defragmenter != null) {
+      this.defragmenter.start();
+    }
+  }
+
+  /**
+   * Stops the background defragmenter and waits for it to finish
+   * any pass in progress. Must be called before the slabs are freed.
+   */
+  void stopDefragmenter() {
+    if (this.defragmenter != null) {
+      this.defragmenter.stop();
+    }
+  }
+
   /**
    * Fills all fragments with a fill used for data integrity validation.
    */
@@ -190,6 +304,9 @@ public class FreeListManager {
       // If useSlabs is false then the incoming size has already
       // been adjusted.
       size += Chunk.OFF_HEAP_HEADER_SIZE;
+      if (size <= this.threadCacheMaxChunkSize) {
+        return allocateFromThreadCache(size, chunkType);
+      }
     }
     if (size <= SimpleMemoryAllocatorImpl.MAX_TINY) {
       return allocateTiny(size, useSlabs, chunkType);
@@ -198,17 +315,81 @@ public class FreeListManager {
     }
   }
 
+  private Chunk allocateFromThreadCache(int size, ChunkType chunkType) {
+    final int idx = getNearestTinyMultiple(size);
+    final ThreadChunkCache cache = this.threadCaches.get();
+    long memAddr = cache.poll(idx);
+    if (memAddr != 0L) {
+      this.ma.stats.incThreadCacheAllocations();
+    } else {
+      this.ma.stats.incThreadCacheRefills();
+      final int refillCount = Math.max(1, this.threadCacheSize / 2);
+      final SyncChunkStack sharedList = getTinyFreeList(idx);
+      if (!cache.refill(idx, sharedList, refillCount)) {
+        // Nothing of this size is free so carve a run of them out of one fragment.
+        // The rest of the run goes on the shared free list and we take it from there.
+        Chunk result = allocateFromFragments((idx+1)*SimpleMemoryAllocatorImpl.TINY_MULTIPLE, chunkType, refillCount);
+        cache.refill(idx, sharedList, refillCount-1);
+        return result;
+      }
+      memAddr = cache.poll(idx);
+      if (memAddr == 0L) {
+        // a compaction drained the cache after we refilled it
+        return allocateTiny(size, true, chunkType);
+      }
+    }
+    Chunk result = this.ma.chunkFactory.newChunk(memAddr, chunkType);
+
+    // Data integrity check.
+    if(this.ma.validateMemoryWithFill) {
+      result.validateFill();
+    }
+
+    result.readyForAllocation(chunkType);
+    return result;
+  }
+
+  private ThreadChunkCache createThreadCache() {
+    // Give back what was cached by threads that have exited.
+    for (Iterator<ThreadChunkCache> it = this.allThreadCaches.iterator(); it.hasNext();) {
+      ThreadChunkCache cache = it.next();
+      if (!cache.isOwnerAlive()) {
+        it.remove();
+        cache.returnAll();
+      }
+    }
+    ThreadChunkCache result = new ThreadChunkCache(this, getNearestTinyMultiple(this.threadCacheMaxChunkSize)+1,
+        this.threadCacheSize, this.threadCacheTrimInterval);
+    this.allThreadCaches.add(result);
+    return result;
+  }
+
+  /**
+   * Called by a thread cache to put count of its chunks back on the shared free list.
+   */
+  void returnChunks(int idx, long[] addrs, int count) {
+    for (int i=0; i < count-1; i++) {
+      Chunk.setNext(addrs[i], addrs[i+1]);
+    }
+    getTinyFreeList(idx).offerChain(addrs[0], addrs[count-1]);
+    this.ma.stats.incThreadCacheReturns(count);
+  }
+
   private Chunk allocateFromFragments(int chunkSize, ChunkType chunkType) {
+    return allocateFromFragments(chunkSize, chunkType, SimpleMemoryAllocatorImpl.BATCH_SIZE);
+  }
+
+  private Chunk allocateFromFragments(int chunkSize, ChunkType chunkType, int batchSize) {
     do {
       final int lastAllocationId = this.lastFragmentAllocation.get();
       for (int i=lastAllocationId; i < this.fragmentList.size(); i++) {
-        Chunk result = allocateFromFragment(i, chunkSize, chunkType);
+        Chunk result = allocateFromFragment(i, chunkSize, chunkType, batchSize);
         if (result != null) {
           return result;
         }
       }
       for (int i=0; i < lastAllocationId; i++) {
-        Chunk result = allocateFromFragment(i, chunkSize, chunkType);
+        Chunk result = allocateFromFragment(i, chunkSize, chunkType, batchSize);
         if (result != null) {
           return result;
         }
@@ -280,132 +461,244 @@ public class FreeListManager {
         }
         ArrayList<SyncChunkStack> freeChunks = new ArrayList<SyncChunkStack>();
         collectFreeChunks(freeChunks);
-        final int SORT_ARRAY_BLOCK_SIZE = 128;
-        long[] sorted = new long[SORT_ARRAY_BLOCK_SIZE];
-        int sortedSize = 0;
-        boolean result = false;
-        int largestFragment = 0;
+        FreeChunkMerger merger = new FreeChunkMerger();
         for (SyncChunkStack l: freeChunks) {
           long addr = l.poll();
           while (addr != 0) {
-            int idx = Arrays.binarySearch(sorted, 0, sortedSize, addr);
-            //System.out.println("DEBUG addr=" + addr + " size=" + Chunk.getSize(addr) + " idx="+idx + " sortedSize=" + sortedSize);
-            if (idx >= 0) {
-              throw new IllegalStateException("duplicate memory address found during compaction!");
+            merger.add(addr);
+            addr = l.poll();
+          }
+        }
+        return createFragments(merger, chunkSize);
+      } // sync
+    } finally {
+      this.ma.getStats().endCompaction(startCompactionTime);
+      this.ma.getStats().setLargestFreeBlock(getLargestFreeBlock());
+    }
+  }
+
+  /**
+   * Merges adjacent free chunks into fragments the same way a compaction does
+   * but stops collecting free chunks once budgetNanos have passed.
+   * While a pass runs the free memory it collected can not be allocated,
+   * so bounding it keeps allocating threads from waiting on it for long.
+   * The unused ends of the fragments are always collected, followed by the
+   * huge chunks and then the tiny free lists starting where the previous
+   * pass stopped. Chunks in thread caches are left alone since their threads
+   * are likely to reuse them soon.
+   * @return true if every free chunk was collected;
+   *         false if the pass ran out of time and some were left for the next one.
+   */
+  boolean defragment(long budgetNanos) {
+    final long startDefragmentationTime = this.ma.getStats().startDefragmentation();
+    try {
+      synchronized (this) {
+        final long deadline = System.nanoTime() + budgetNanos;
+        FreeChunkMerger merger = new FreeChunkMerger();
+        ArrayList<SyncChunkStack> fragmentChunks = new ArrayList<SyncChunkStack>();
+        collectFreeFragmentChunks(fragmentChunks);
+        for (SyncChunkStack l: fragmentChunks) {
+          for (long addr = l.poll(); addr != 0L; addr = l.poll()) {
+            merger.add(addr);
+          }
+        }
+        boolean complete = true;
+        Chunk c;
+        while (complete && (c = this.hugeChunkSet.pollFirst()) != null) {
+          merger.add(c.getMemoryAddress());
+          complete = System.nanoTime() - deadline < 0;
+        }
+        final int tinyCount = this.tinyFreeLists.length();
+        for (int n=0; complete && n < tinyCount; n++) {
+          final int i = (this.defragmentTinyIndex + n) % tinyCount;
+          SyncChunkStack cl = this.tinyFreeLists.get(i);
+          if (cl == null) continue;
+          long addr = cl.pollChain(DEFRAGMENT_BATCH_SIZE);
+          while (addr != 0L) {
+            while (addr != 0L) {
+              long next = Chunk.getNext(addr);
+              merger.add(addr);
+              addr = next;
             }
-            idx = -idx;
-            idx--;
-            if (idx == sortedSize) {
-              // addr is > everything in the array
-              if (sortedSize == 0) {
-                // nothing was in the array
-                sorted[0] = addr;
-                sortedSize++;
-              } else {
-                // see if we can conflate into sorted[idx]
-                long lowAddr = sorted[idx-1];
-                int lowSize = Chunk.getSize(lowAddr);
-                if (lowAddr + lowSize == addr) {
-                  // append the addr chunk to lowAddr
-                  Chunk.setSize(lowAddr, lowSize + Chunk.getSize(addr));
-                } else {
-                  if (sortedSize >= sorted.length) {
-                    long[] newSorted = new long[sorted.length+SORT_ARRAY_BLOCK_SIZE];
-                    System.arraycopy(sorted, 0, newSorted, 0, sorted.length);
-                    sorted = newSorted;
-                  }
-                  sortedSize++;
-                  sorted[idx] = addr;
-                }
-              }
-            } else {
-              int addrSize = Chunk.getSize(addr);
-              long highAddr = sorted[idx];
-              if (addr + addrSize == highAddr) {
-                // append highAddr chunk to addr
-                Chunk.setSize(addr, addrSize + Chunk.getSize(highAddr));
-                sorted[idx] = addr;
-              } else {
-                boolean insert = idx==0;
-                if (!insert) {
-                  long lowAddr = sorted[idx-1];
-                  //                  if (lowAddr == 0L) {
-                  //                    long[] tmp = Arrays.copyOf(sorted, sortedSize);
-                  //                    throw new IllegalStateException("addr was zero at idx=" + (idx-1) + " sorted="+ Arrays.toString(tmp));
-                  //                  }
-                  int lowSize = Chunk.getSize(lowAddr);
-                  if (lowAddr + lowSize == addr) {
-                    // append the addr chunk to lowAddr
-                    Chunk.setSize(lowAddr, lowSize + addrSize);
-                  } else {
-                    insert = true;
-                  }
-                }
-                if (insert) {
-                  if (sortedSize >= sorted.length) {
-                    long[] newSorted = new long[sorted.length+SORT_ARRAY_BLOCK_SIZE];
-                    System.arraycopy(sorted, 0, newSorted, 0, idx);
-                    newSorted[idx] = addr;
-                    System.arraycopy(sorted, idx, newSorted, idx+1, sortedSize-idx);
-                    sorted = newSorted;
-                  } else {
-                    System.arraycopy(sorted, idx, sorted, idx+1, sortedSize-idx);
-                    sorted[idx] = addr;
-                  }
-                  sortedSize++;
-                }
-              }
+            if (System.nanoTime() - deadline >= 0) {
+              complete = false;
+              this.defragmentTinyIndex = i;
+              break;
             }
-            addr = l.poll();
+            addr = cl.pollChain(DEFRAGMENT_BATCH_SIZE);
           }
         }
-        for (int i=sortedSize-1; i > 0; i--) {
-          long addr = sorted[i];
-          long lowAddr = sorted[i-1];
+        createFragments(merger, 0);
+        return complete;
+      } // sync
+    } finally {
+      this.ma.getStats().endDefragmentation(startDefragmentationTime);
+      this.ma.getStats().setLargestFreeBlock(getLargestFreeBlock());
+    }
+  }
+
+  /**
+   * Returns the size of the largest block of free memory that can be
+   * allocated without a compaction; either the unused end of a fragment or a free huge chunk.
+   */
+  int getLargestFreeBlock() {
+    int result = 0;
+    for (Fragment f: this.fragmentList) {
+      result = Math.max(result, f.freeSpace());
+    }
+    Iterator<Chunk> it = this.hugeChunkSet.descendingIterator();
+    if (it.hasNext()) {
+      result = Math.max(result, it.next().getSize());
+    }
+    return result;
+  }
+
+  /**
+   * Returns the percentage of free memory that is not in the largest free block.
+   * Since no block can be bigger than a slab the free memory is capped at the
+   * largest slab size so that having more than one slab does not count as fragmentation.
+   */
+  int getFreeFragmentation() {
+    long free = Math.min(getFreeMemory(), this.largestSlab);
+    if (free <= 0) {
+      return 0;
+    }
+    long largest = Math.min(getLargestFreeBlock(), free);
+    return (int) (((free - largest) * 100) / free);
+  }
+
+  /**
+   * Collects free chunks into an array sorted by address,
+   * merging each one with its neighbors when they are adjacent in memory.
+   */
+  private static final class FreeChunkMerger {
+    private static final int SORT_ARRAY_BLOCK_SIZE = 128;
+    private long[] sorted = new long[SORT_ARRAY_BLOCK_SIZE];
+    private int sortedSize = 0;
+
+    void add(long addr) {
+      int idx = Arrays.binarySearch(this.sorted, 0, this.sortedSize, addr);
+      //System.out.println("DEBUG addr=" + addr + " size=" + Chunk.getSize(addr) + " idx="+idx + " this.sortedSize=" + this.sortedSize);
+      if (idx >= 0) {
+        throw new IllegalStateException("duplicate memory address found during compaction!");
+      }
+      idx = -idx;
+      idx--;
+      if (idx == this.sortedSize) {
+        // addr is > everything in the array
+        if (this.sortedSize == 0) {
+          // nothing was in the array
+          this.sorted[0] = addr;
+          this.sortedSize++;
+        } else {
+          // see if we can conflate into this.sorted[idx]
+          long lowAddr = this.sorted[idx-1];
           int lowSize = Chunk.getSize(lowAddr);
           if (lowAddr + lowSize == addr) {
-            // append addr chunk to lowAddr
+            // append the addr chunk to lowAddr
             Chunk.setSize(lowAddr, lowSize + Chunk.getSize(addr));
-            sorted[i] = 0L;
+          } else {
+            if (this.sortedSize >= this.sorted.length) {
+              long[] newSorted = new long[this.sorted.length+SORT_ARRAY_BLOCK_SIZE];
+              System.arraycopy(this.sorted, 0, newSorted, 0, this.sorted.length);
+              this.sorted = newSorted;
+            }
+            this.sortedSize++;
+            this.sorted[idx] = addr;
           }
         }
-        this.lastFragmentAllocation.set(0);
-        ArrayList<Fragment> tmp = new ArrayList<Fragment>();
-        for (int i=sortedSize-1; i >= 0; i--) {
-          long addr = sorted[i];
-          if (addr == 0L) continue;
-          int addrSize = Chunk.getSize(addr);
-          Fragment f = new Fragment(addr, addrSize);
-          if (addrSize >= chunkSize) {
-            result = true;
+      } else {
+        int addrSize = Chunk.getSize(addr);
+        long highAddr = this.sorted[idx];
+        if (addr + addrSize == highAddr) {
+          // append highAddr chunk to addr
+          Chunk.setSize(addr, addrSize + Chunk.getSize(highAddr));
+          this.sorted[idx] = addr;
+        } else {
+          boolean insert = idx==0;
+          if (!insert) {
+            long lowAddr = this.sorted[idx-1];
+            //                  if (lowAddr == 0L) {
+            //                    long[] tmp = Arrays.copyOf(this.sorted, this.sortedSize);
+            //                    throw new IllegalStateException("addr was zero at idx=" + (idx-1) + " sorted="+ Arrays.toString(tmp));
+            //                  }
+            int lowSize = Chunk.getSize(lowAddr);
+            if (lowAddr + lowSize == addr) {
+              // append the addr chunk to lowAddr
+              Chunk.setSize(lowAddr, lowSize + addrSize);
+            } else {
+              insert = true;
+            }
           }
-          if (addrSize > largestFragment) {
-            largestFragment = addrSize;
-            // TODO it might be better to sort them biggest first
-            tmp.add(0, f);
-          } else {
-            tmp.add(f);
+          if (insert) {
+            if (this.sortedSize >= this.sorted.length) {
+              long[] newSorted = new long[this.sorted.length+SORT_ARRAY_BLOCK_SIZE];
+              System.arraycopy(this.sorted, 0, newSorted, 0, idx);
+              newSorted[idx] = addr;
+              System.arraycopy(this.sorted, idx, newSorted, idx+1, this.sortedSize-idx);
+              this.sorted = newSorted;
+            } else {
+              System.arraycopy(this.sorted, idx, this.sorted, idx+1, this.sortedSize-idx);
+              this.sorted[idx] = addr;
+            }
+            this.sortedSize++;
           }
         }
-        this.fragmentList.addAll(tmp);
+      }
+    }
+  }
 
-        // Reinitialize fragments with fill pattern data
-        if(this.ma.validateMemoryWithFill) {
-          fillFragments();
-        }
+  /**
+   * Replaces the fragment list with fragments made from the merged free chunks.
+   * Must be called while synchronized on this.
+   * @return true if one of the new fragments can hold chunkSize bytes.
+   */
+  private boolean createFragments(FreeChunkMerger merger, int chunkSize) {
+    boolean result = false;
+    int largestFragment = 0;
+    for (int i=merger.sortedSize-1; i > 0; i--) {
+      long addr = merger.sorted[i];
+      long lowAddr = merger.sorted[i-1];
+      int lowSize = Chunk.getSize(lowAddr);
+      if (lowAddr + lowSize == addr) {
+        // append addr chunk to lowAddr
+        Chunk.setSize(lowAddr, lowSize + Chunk.getSize(addr));
+        merger.sorted[i] = 0L;
+      }
+    }
+    this.lastFragmentAllocation.set(0);
+    ArrayList<Fragment> tmp = new ArrayList<Fragment>();
+    for (int i=merger.sortedSize-1; i >= 0; i--) {
+      long addr = merger.sorted[i];
+      if (addr == 0L) continue;
+      int addrSize = Chunk.getSize(addr);
+      Fragment f = new Fragment(addr, addrSize);
+      if (addrSize >= chunkSize) {
+        result = true;
+      }
+      if (addrSize > largestFragment) {
+        largestFragment = addrSize;
+        // TODO it might be better to sort them biggest first
+        tmp.add(0, f);
+      } else {
+        tmp.add(f);
+      }
+    }
+    this.fragmentList.addAll(tmp);
+
+    // Reinitialize fragments with fill pattern data
+    if(this.ma.validateMemoryWithFill) {
+      fillFragments();
+    }
 
-        // Signal any waiters that a compaction happened.
-        this.compactCount.incrementAndGet();
+    // Signal any waiters that a compaction happened.
+    this.compactCount.incrementAndGet();
 
-        this.ma.getStats().setLargestFragment(largestFragment);
-        this.ma.getStats().setFragments(tmp.size());        
-        updateFragmentation();
+    this.ma.getStats().setLargestFragment(largestFragment);
+    this.ma.getStats().setFragments(tmp.size());        
+    updateFragmentation();
 
-        return result;
-      } // sync
-    } finally {
-      this.ma.getStats().endCompaction(startCompactionTime);
-    }
+    return result;
   }
 
   private void updateFragmentation() {      
@@ -431,6 +724,7 @@ public class FreeListManager {
     collectFreeFragmentChunks(l);
     collectFreeHugeChunks(l);
     collectFreeTinyChunks(l);
+    collectFreeThreadCacheChunks(l);
   }
   private void collectFreeFragmentChunks(List<SyncChunkStack> l) {
     if (this.fragmentList.size() == 0) return;
@@ -475,6 +769,19 @@ public class FreeListManager {
       }
     }
   }
+  private void collectFreeThreadCacheChunks(List<SyncChunkStack> l) {
+    SyncChunkStack result = new SyncChunkStack();
+    for (Iterator<ThreadChunkCache> it = this.allThreadCaches.iterator(); it.hasNext();) {
+      ThreadChunkCache cache = it.next();
+      cache.drainTo(result);
+      if (!cache.isOwnerAlive()) {
+        it.remove();
+      }
+    }
+    if (!result.isEmpty()) {
+      l.add(result);
+    }
+  }
   private void collectFreeHugeChunks(List<SyncChunkStack> l) {
     Chunk c = this.hugeChunkSet.pollFirst();
     SyncChunkStack result = null;
@@ -488,7 +795,7 @@ public class FreeListManager {
     }
   }
 
-  private Chunk allocateFromFragment(final int fragIdx, final int chunkSize, ChunkType chunkType) {
+  private Chunk allocateFromFragment(final int fragIdx, final int chunkSize, ChunkType chunkType, int batchSize) {
     if (fragIdx >= this.fragmentList.size()) return null;
     final Fragment fragment;
     try {
@@ -505,8 +812,8 @@ public class FreeListManager {
       int fragmentFreeSize = fragmentSize - oldOffset;
       if (fragmentFreeSize >= chunkSize) {
         // this fragment has room
-        // Try to allocate up to BATCH_SIZE more chunks from it
-        int allocSize = chunkSize * SimpleMemoryAllocatorImpl.BATCH_SIZE;
+        // Try to allocate up to batchSize more chunks from it
+        int allocSize = chunkSize * batchSize;
         if (allocSize > fragmentFreeSize) {
           allocSize = (fragmentFreeSize / chunkSize) * chunkSize;
         }
@@ -647,7 +954,9 @@ public class FreeListManager {
       this.ma.stats.incFreeMemory(cSize);
       this.ma.notifyListeners();
     }
-    if (cSize <= SimpleMemoryAllocatorImpl.MAX_TINY) {
+    if (updateStats && cSize <= this.threadCacheMaxChunkSize) {
+      this.threadCaches.get().offer(getNearestTinyMultiple(cSize), addr);
+    } else if (cSize <= SimpleMemoryAllocatorImpl.MAX_TINY) {
       freeTiny(addr, cSize);
     } else {
       freeHuge(addr, cSize);
@@ -670,6 +979,14 @@ public class FreeListManager {
     }
 
   }
+  private SyncChunkStack getTinyFreeList(int idx) {
+    SyncChunkStack clq = this.tinyFreeLists.get(idx);
+    if (clq == null) {
+      this.tinyFreeLists.compareAndSet(idx, null, new SyncChunkStack());
+      clq = this.tinyFreeLists.get(idx);
+    }
+    return clq;
+  }
   private void freeHuge(long addr, int cSize) {
     this.hugeChunkSet.add(this.ma.chunkFactory.newChunk(addr)); // TODO make this a collection of longs
   }
@@ -718,6 +1035,13 @@ public class FreeListManager {
         addr = Chunk.getNext(addr);
       }
     }
+    for (ThreadChunkCache cache: this.allThreadCaches) {
+      for (int i = 0; i < getNearestTinyMultiple(this.threadCacheMaxChunkSize)+1; i++) {
+        for (long addr: cache.getCachedAddresses(i)) {
+          value.add(new MemoryBlockNode(sma, new TinyMemoryBlock(addr, i)));
+        }
+      }
+    }
     return value;
   }
   List<MemoryBlock> getAllocatedBlocks() {
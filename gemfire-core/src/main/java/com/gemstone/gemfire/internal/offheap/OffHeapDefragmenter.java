@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import org.apache.logging.log4j.Logger;
+
+import com.gemstone.gemfire.internal.logging.LogService;
+import com.gemstone.gemfire.internal.logging.LoggingThreadGroup;
+
+/**
+ * A background thread that keeps the free off-heap memory of a
+ * FreeListManager from fragmenting so that allocating threads
+ * rarely need to do a full compaction themselves.
+ * Every intervalMillis it checks how much of the free memory is
+ * outside the largest free block and, if that percentage is at or above
+ * the threshold, runs a {@link FreeListManager#defragment time bounded pass}.
+ * A pass that runs out of time is followed by another one at the next check.
+ * If complete passes stop making the largest free block any bigger, because
+ * the free memory is held apart by live objects, the checks back off.
+ * 
+ * @since 9.0
+ */
+class OffHeapDefragmenter implements Runnable {
+  private static final Logger logger = LogService.getLogger();
+
+  /** The most the interval between checks is multiplied by when passes are not helping. */
+  private static final int MAX_BACKOFF = 32;
+
+  private final FreeListManager freeList;
+  private final int threshold;
+  private final long intervalMillis;
+  private final long budgetNanos;
+  private final Thread thread;
+  private volatile boolean stopped;
+
+  OffHeapDefragmenter(FreeListManager freeList, int threshold, long intervalMillis, long budgetNanos) {
+    this.freeList = freeList;
+    this.threshold = threshold;
+    this.intervalMillis = intervalMillis;
+    this.budgetNanos = budgetNanos;
+    final ThreadGroup group = LoggingThreadGroup.createThreadGroup("OffHeapDefragmenter", logger);
+    this.thread = new Thread(group, this, "Off-Heap Defragmenter");
+    this.thread.setDaemon(true);
+  }
+
+  void start() {
+    this.thread.start();
+  }
+
+  /**
+   * Stops the defragmenter and waits for a pass in progress to finish.
+   */
+  void stop() {
+    synchronized (this) {
+      this.stopped = true;
+      notifyAll();
+    }
+    try {
+      this.thread.join();
+    } catch (InterruptedException ignore) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public void run() {
+    int backoff = 1;
+    while (waitForNextCheck(this.intervalMillis * backoff)) {
+      if (this.freeList.getFreeFragmentation() < this.threshold) {
+        backoff = 1;
+        continue;
+      }
+      final int largestBefore = this.freeList.getLargestFreeBlock();
+      final boolean complete = this.freeList.defragment(this.budgetNanos);
+      if (!complete || this.freeList.getLargestFreeBlock() > largestBefore) {
+        backoff = 1;
+      } else if (backoff < MAX_BACKOFF) {
+        backoff *= 2;
+      }
+      if (logger.isDebugEnabled()) {
+        logger.debug("Off-heap defragmentation pass complete={} largestFreeBlock={} fragmentation={}",
+            complete, this.freeList.getLargestFreeBlock(), this.freeList.getFreeFragmentation());
+      }
+    }
+  }
+
+  /**
+   * Returns false if the defragmenter was stopped while waiting.
+   */
+  private synchronized boolean waitForNextCheck(long millis) {
+    if (!this.stopped) {
+      try {
+        wait(millis);
+      } catch (InterruptedException ignore) {
+        return false;
+      }
+    }
+    return !this.stopped;
+  }
+}
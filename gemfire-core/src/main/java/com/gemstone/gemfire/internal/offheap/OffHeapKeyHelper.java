@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import com.gemstone.gemfire.OutOfOffHeapMemoryException;
+import com.gemstone.gemfire.internal.cache.OffHeapKeyRegionEntry;
+
+/**
+ * The class just has static methods that operate on instances of
+ * {@link OffHeapKeyRegionEntry}.
+ * <p>
+ * An entry keeps its key on the heap until it stores an off heap value.
+ * The key is then copied to its own off heap chunk and the heap String is
+ * dropped. When the entry is destroyed (its value becomes a removed token
+ * or a tombstone) the key is copied back to the heap, since the entry may
+ * still be used, and its chunk is released. Once the value is REMOVED_PHASE2
+ * the key stays on the heap. This ties the lifetime of an off heap key to
+ * that of the entry's off heap value so any code path that frees the value
+ * also frees the key.
+ * <p>
+ * The chunk holds an int whose high bits are the length of the key and whose
+ * low bit says if each char was stored as one byte, followed by the chars.
+ * 
+ * @since 9.0
+ */
+public class OffHeapKeyHelper {
+  /**
+   * If true then off heap regions store String keys that can not be inlined
+   * into the entry off heap.
+   */
+  public static boolean OFF_HEAP_REGION_KEYS = Boolean.getBoolean("gemfire.OFF_HEAP_REGION_KEYS");
+
+  /**
+   * The key is on the heap and will be moved off heap when the entry stores an off heap value.
+   */
+  public static final long HEAP_KEY = 0L;
+  /**
+   * The key is on the heap and stays there because the entry is REMOVED_PHASE2.
+   * Odd so that it is never a chunk address.
+   */
+  public static final long REMOVED_KEY = 1L;
+
+  private static final int KEY_HEADER_SIZE = 4;
+
+  private OffHeapKeyHelper() {
+  }
+
+  /**
+   * Called each time the value address of the entry changes.
+   */
+  public static void valueAddressChanged(OffHeapKeyRegionEntry re, long newAddress) {
+    if (newAddress == OffHeapRegionEntryHelper.REMOVED_PHASE2_ADDRESS) {
+      moveKeyToHeap(re, REMOVED_KEY);
+    } else if (OffHeapRegionEntryHelper.isAddressRemoved(newAddress)) {
+      moveKeyToHeap(re, HEAP_KEY);
+    } else if (OffHeapRegionEntryHelper.isOffHeap(newAddress)) {
+      moveKeyOffHeap(re);
+    }
+  }
+
+  private static boolean isKeyAddress(long keyAddress) {
+    return keyAddress != HEAP_KEY && keyAddress != REMOVED_KEY;
+  }
+
+  private static void moveKeyOffHeap(OffHeapKeyRegionEntry re) {
+    if (re.getKeyAddress() != HEAP_KEY) {
+      return;
+    }
+    final String key = re.getHeapKey();
+    if (key == null) {
+      // still being constructed
+      return;
+    }
+    final int len = key.length();
+    final boolean byteEncoded = isByteEncodingOk(key);
+    final byte[] bytes = new byte[byteEncoded ? len : len*2];
+    int idx = 0;
+    for (int i=0; i < len; i++) {
+      char c = key.charAt(i);
+      if (!byteEncoded) {
+        bytes[idx++] = (byte) (c >>> 8);
+      }
+      bytes[idx++] = (byte) c;
+    }
+    Chunk c;
+    try {
+      c = (Chunk) SimpleMemoryAllocatorImpl.getAllocator().allocate(KEY_HEADER_SIZE + bytes.length, GemFireChunk.TYPE);
+    } catch (OutOfOffHeapMemoryException ignore) {
+      // The value has already been stored so keep the key on the heap
+      // and let the cache close.
+      return;
+    }
+    final long addr = c.getMemoryAddress();
+    UnsafeMemoryChunk.writeAbsoluteInt(addr + Chunk.OFF_HEAP_HEADER_SIZE, (len << 1) | (byteEncoded ? 1 : 0));
+    c.writeBytes(KEY_HEADER_SIZE, bytes);
+    if (re.setKeyAddress(HEAP_KEY, addr)) {
+      // fails if the key was already moved back to the heap
+      re.setHeapKey(key, null);
+    } else {
+      // someone else moved or removed the key
+      Chunk.release(addr, true);
+    }
+  }
+
+  /**
+   * Copies an off heap key back to the heap and releases its chunk.
+   * @param newState HEAP_KEY or REMOVED_KEY
+   */
+  private static void moveKeyToHeap(OffHeapKeyRegionEntry re, long newState) {
+    while (true) {
+      long addr = re.getKeyAddress();
+      if (addr == REMOVED_KEY || addr == newState) {
+        return;
+      }
+      if (addr == HEAP_KEY) {
+        if (re.setKeyAddress(HEAP_KEY, newState)) {
+          return;
+        }
+      } else {
+        // Readers that find the address changed fall back to the heap key
+        // so it must be set before the address is changed.
+        final String key = readKey(addr);
+        String oldKey;
+        do {
+          oldKey = re.getHeapKey();
+        } while (!re.setHeapKey(oldKey, key));
+        if (re.setKeyAddress(addr, newState)) {
+          Chunk.release(addr, true);
+          return;
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the key of the given entry creating a new String if it is off heap.
+   */
+  public static String getKey(OffHeapKeyRegionEntry re) {
+    String result = re.getHeapKey();
+    if (result != null) {
+      return result;
+    }
+    long addr = re.getKeyAddress();
+    while (isKeyAddress(addr)) {
+      if (Chunk.retain(addr)) {
+        try {
+          if (addr == re.getKeyAddress()) {
+            return readKey(addr);
+          }
+        } finally {
+          Chunk.release(addr, true);
+        }
+      }
+      addr = re.getKeyAddress();
+    }
+    return re.getHeapKey();
+  }
+
+  /**
+   * Returns true if k equals the key of the given entry without
+   * creating a String for an off heap key.
+   */
+  public static boolean isKeyEqual(OffHeapKeyRegionEntry re, Object k) {
+    if (!(k instanceof String)) {
+      return false;
+    }
+    final String str = (String) k;
+    String heapKey = re.getHeapKey();
+    if (heapKey != null) {
+      return str.equals(heapKey);
+    }
+    long addr = re.getKeyAddress();
+    while (isKeyAddress(addr)) {
+      if (Chunk.retain(addr)) {
+        try {
+          if (addr == re.getKeyAddress()) {
+            return keyEquals(addr, str);
+          }
+        } finally {
+          Chunk.release(addr, true);
+        }
+      }
+      addr = re.getKeyAddress();
+    }
+    return str.equals(re.getHeapKey());
+  }
+
+  private static String readKey(long addr) {
+    final long dataAddr = addr + Chunk.OFF_HEAP_HEADER_SIZE;
+    final int header = UnsafeMemoryChunk.readAbsoluteInt(dataAddr);
+    final int len = header >>> 1;
+    final boolean byteEncoded = (header & 1) != 0;
+    final char[] chars = new char[len];
+    long charAddr = dataAddr + KEY_HEADER_SIZE;
+    for (int i=0; i < len; i++) {
+      chars[i] = readChar(charAddr, i, byteEncoded);
+    }
+    return new String(chars);
+  }
+
+  private static boolean keyEquals(long addr, String str) {
+    final long dataAddr = addr + Chunk.OFF_HEAP_HEADER_SIZE;
+    final int header = UnsafeMemoryChunk.readAbsoluteInt(dataAddr);
+    final int len = header >>> 1;
+    if (str.length() != len) {
+      return false;
+    }
+    final boolean byteEncoded = (header & 1) != 0;
+    long charAddr = dataAddr + KEY_HEADER_SIZE;
+    for (int i=0; i < len; i++) {
+      if (str.charAt(i) != readChar(charAddr, i, byteEncoded)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static char readChar(long charAddr, int i, boolean byteEncoded) {
+    if (byteEncoded) {
+      return (char) (UnsafeMemoryChunk.readAbsoluteByte(charAddr + i) & 0xff);
+    } else {
+      long a = charAddr + i*2;
+      return (char) (((UnsafeMemoryChunk.readAbsoluteByte(a) & 0xff) << 8) | (UnsafeMemoryChunk.readAbsoluteByte(a+1) & 0xff));
+    }
+  }
+
+  private static boolean isByteEncodingOk(String key) {
+    for (int i=0; i < key.length(); i++) {
+      if (key.charAt(i) > 0xff) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
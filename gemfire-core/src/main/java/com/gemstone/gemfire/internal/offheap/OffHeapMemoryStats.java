@@ -36,6 +36,12 @@ public interface OffHeapMemoryStats {
   public long startCompaction();
   public void endCompaction(long start);
   public void setFragmentation(int value);
+  public long startDefragmentation();
+  public void endDefragmentation(long start);
+  public void setLargestFreeBlock(int value);
+  public void incThreadCacheAllocations();
+  public void incThreadCacheRefills();
+  public void incThreadCacheReturns(int chunks);
   
   public long getFreeMemory();
   public long getMaxMemory();
@@ -47,6 +53,12 @@ public interface OffHeapMemoryStats {
   public int getLargestFragment();
   public int getFragmentation();
   public long getCompactionTime();
+  public int getDefragmentations();
+  public long getDefragmentationTime();
+  public int getLargestFreeBlock();
+  public long getThreadCacheAllocations();
+  public long getThreadCacheRefills();
+  public long getThreadCacheReturns();
   
   public Statistics getStats();
   public void close();
@@ -44,7 +44,7 @@ public class OffHeapRegionEntryHelper {
   private static final long LOCAL_INVALID_ADDRESS = 2L<<1;
   private static final long DESTROYED_ADDRESS = 3L<<1;
   public static final long REMOVED_PHASE1_ADDRESS = 4L<<1;
-  private static final long REMOVED_PHASE2_ADDRESS = 5L<<1;
+  public static final long REMOVED_PHASE2_ADDRESS = 5L<<1;
   private static final long END_OF_STREAM_ADDRESS = 6L<<1;
   private static final long NOT_AVAILABLE_ADDRESS = 7L<<1;
   private static final long TOMBSTONE_ADDRESS = 8L<<1;
@@ -92,6 +92,15 @@ public class OffHeapRegionEntryHelper {
     return encodedAddressToObject(ohAddress, true, true);
   }
   
+  /**
+   * Returns true if the address is one of the tokens stored
+   * in an entry that has been destroyed or is being created.
+   */
+  public static boolean isAddressRemoved(long address) {
+    return address == REMOVED_PHASE1_ADDRESS || address == REMOVED_PHASE2_ADDRESS
+        || address == TOMBSTONE_ADDRESS || address == DESTROYED_ADDRESS;
+  }
+
   //TODO:Asif:Check if this is a valid equality conditions
   public static boolean isAddressInvalidOrRemoved(long address) {
     return address == INVALID_ADDRESS || address == LOCAL_INVALID_ADDRESS 
@@ -63,6 +63,12 @@ public class OffHeapStorage implements OffHeapMemoryStats {
   private static final int largestFragmentId;
   private static final int compactionTimeId;
   private static final int fragmentationId;
+  private static final int defragmentationsId;
+  private static final int defragmentationTimeId;
+  private static final int largestFreeBlockId;
+  private static final int threadCacheAllocationsId;
+  private static final int threadCacheRefillsId;
+  private static final int threadCacheReturnsId;
   // NOTE!!!! When adding new stats make sure and update the initialize method on this class
   
   // creates and registers the statistics type
@@ -78,6 +84,12 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String largestFragmentDesc = "The largest fragment of memory found by the last compaction of off heap memory. Updated every time a compaction is done.";
     final String objectsDesc = "The number of objects stored in off-heap memory.";
     final String readsDesc = "The total number of reads of off-heap memory. Only reads of a full object increment this statistic. If only a part of the object is read this statistic is not incremented.";
+    final String defragmentationsDesc = "The total number of background passes that merged adjacent free off-heap memory into larger fragments.";
+    final String defragmentationTimeDesc = "The total time spent by background passes merging adjacent free off-heap memory.";
+    final String largestFreeBlockDesc = "The largest block of free off-heap memory that can be allocated without a compaction. Updated every time a compaction or defragmentation is done.";
+    final String threadCacheAllocationsDesc = "The total number of off-heap allocations served from the allocating thread's own cache of free chunks without touching the shared free lists.";
+    final String threadCacheRefillsDesc = "The total number of times a thread found its cache of free chunks empty and refilled it from the shared free lists or a fragment.";
+    final String threadCacheReturnsDesc = "The total number of free chunks that threads returned from their caches to the shared free lists.";
     final String maxMemoryDesc = "The maximum amount of off-heap memory, in bytes. This is the amount of memory allocated at startup and does not change.";
 
     final String usedMemory = "usedMemory";
@@ -90,6 +102,12 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     final String objects = "objects";
     final String reads = "reads";
     final String maxMemory = "maxMemory";
+    final String defragmentations = "defragmentations";
+    final String defragmentationTime = "defragmentationTime";
+    final String largestFreeBlock = "largestFreeBlock";
+    final String threadCacheAllocations = "threadCacheAllocations";
+    final String threadCacheRefills = "threadCacheRefills";
+    final String threadCacheReturns = "threadCacheReturns";
     
     statsType = f.createType(
         statsTypeName,
@@ -105,6 +123,12 @@ public class OffHeapStorage implements OffHeapMemoryStats {
             f.createIntGauge(objects, objectsDesc, "objects"),
             f.createLongCounter(reads, readsDesc, "operations"),
             f.createLongGauge(maxMemory, maxMemoryDesc, "bytes"),
+            f.createIntCounter(defragmentations, defragmentationsDesc, "operations"),
+            f.createLongCounter(defragmentationTime, defragmentationTimeDesc, "nanoseconds", false),
+            f.createIntGauge(largestFreeBlock, largestFreeBlockDesc, "bytes"),
+            f.createLongCounter(threadCacheAllocations, threadCacheAllocationsDesc, "operations"),
+            f.createLongCounter(threadCacheRefills, threadCacheRefillsDesc, "operations"),
+            f.createLongCounter(threadCacheReturns, threadCacheReturnsDesc, "chunks"),
         }
     );
     
@@ -118,6 +142,12 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     objectsId = statsType.nameToId(objects);
     readsId = statsType.nameToId(reads);
     maxMemoryId = statsType.nameToId(maxMemory);
+    defragmentationsId = statsType.nameToId(defragmentations);
+    defragmentationTimeId = statsType.nameToId(defragmentationTime);
+    largestFreeBlockId = statsType.nameToId(largestFreeBlock);
+    threadCacheAllocationsId = statsType.nameToId(threadCacheAllocations);
+    threadCacheRefillsId = statsType.nameToId(threadCacheRefills);
+    threadCacheReturnsId = statsType.nameToId(threadCacheReturns);
   }
 
   public static long parseOffHeapMemorySize(String value) {
@@ -357,6 +387,69 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     return this.stats.getInt(fragmentationId);
   }
   
+  @Override
+  public long startDefragmentation() {
+    return DistributionStats.getStatTime();
+  }
+
+  @Override
+  public void endDefragmentation(long start) {
+    this.stats.incInt(defragmentationsId, 1);
+    if (DistributionStats.enableClockStats) {
+      this.stats.incLong(defragmentationTimeId, DistributionStats.getStatTime()-start);
+    }
+  }
+
+  @Override
+  public int getDefragmentations() {
+    return this.stats.getInt(defragmentationsId);
+  }
+
+  @Override
+  public long getDefragmentationTime() {
+    return this.stats.getLong(defragmentationTimeId);
+  }
+
+  @Override
+  public void setLargestFreeBlock(int value) {
+    this.stats.setInt(largestFreeBlockId, value);
+  }
+
+  @Override
+  public int getLargestFreeBlock() {
+    return this.stats.getInt(largestFreeBlockId);
+  }
+
+  @Override
+  public void incThreadCacheAllocations() {
+    this.stats.incLong(threadCacheAllocationsId, 1);
+  }
+
+  @Override
+  public long getThreadCacheAllocations() {
+    return this.stats.getLong(threadCacheAllocationsId);
+  }
+
+  @Override
+  public void incThreadCacheRefills() {
+    this.stats.incLong(threadCacheRefillsId, 1);
+  }
+
+  @Override
+  public long getThreadCacheRefills() {
+    return this.stats.getLong(threadCacheRefillsId);
+  }
+
+  @Override
+  public void incThreadCacheReturns(int chunks) {
+    this.stats.incLong(threadCacheReturnsId, chunks);
+  }
+
+  @Override
+  public long getThreadCacheReturns() {
+    return this.stats.getLong(threadCacheReturnsId);
+  }
+  
   public Statistics getStats() {
     return this.stats;
   }
@@ -378,10 +471,36 @@ public class OffHeapStorage implements OffHeapMemoryStats {
     setLargestFragment(oldStats.getLargestFragment());
     setCompactionTime(oldStats.getCompactionTime());
     setFragmentation(oldStats.getFragmentation());
+    setDefragmentations(oldStats.getDefragmentations());
+    setDefragmentationTime(oldStats.getDefragmentationTime());
+    setLargestFreeBlock(oldStats.getLargestFreeBlock());
+    setThreadCacheAllocations(oldStats.getThreadCacheAllocations());
+    setThreadCacheRefills(oldStats.getThreadCacheRefills());
+    setThreadCacheReturns(oldStats.getThreadCacheReturns());
     
     oldStats.close();
   }
 
+  private void setDefragmentations(int value) {
+    this.stats.setInt(defragmentationsId, value);
+  }
+
+  private void setDefragmentationTime(long value) {
+    this.stats.setLong(defragmentationTimeId, value);
+  }
+
+  private void setThreadCacheAllocations(long value) {
+    this.stats.setLong(threadCacheAllocationsId, value);
+  }
+
+  private void setThreadCacheRefills(long value) {
+    this.stats.setLong(threadCacheRefillsId, value);
+  }
+
+  private void setThreadCacheReturns(long value) {
+    this.stats.setLong(threadCacheReturnsId, value);
+  }
+
   private void setCompactionTime(long value) {
     stats.setLong(compactionTimeId, value);
   }
@@ -285,6 +285,7 @@ public final class SimpleMemoryAllocatorImpl implements MemoryAllocator, MemoryI
     this.stats.incFreeMemory(this.totalSlabSize);
     
     this.freeList = new FreeListManager(this);
+    this.freeList.startDefragmenter();
   }
   
   public List<Chunk> getLostChunks() {
@@ -437,6 +438,7 @@ public final class SimpleMemoryAllocatorImpl implements MemoryAllocator, MemoryI
   private void realClose() {
     // Removing this memory immediately can lead to a SEGV. See 47885.
     if (setClosed()) {
+      this.freeList.stopDefragmenter();
       freeSlabsAsync(this.slabs);
       this.stats.close();
       singleton = null;
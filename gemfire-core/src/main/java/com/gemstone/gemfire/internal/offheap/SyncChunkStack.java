@@ -56,6 +56,44 @@ public class SyncChunkStack {
     }
     return result;
   }
+  /**
+   * Pushes a chain of chunks, linked by their next addresses,
+   * onto this stack while holding the lock only once.
+   * @param head the first chunk of the chain
+   * @param tail the last chunk of the chain
+   */
+  public void offerChain(long head, long tail) {
+    assert head != 0 && tail != 0;
+    SimpleMemoryAllocatorImpl.validateAddress(head);
+    SimpleMemoryAllocatorImpl.validateAddress(tail);
+    synchronized (this) {
+      Chunk.setNext(tail, this.topAddr);
+      this.topAddr = head;
+    }
+  }
+  /**
+   * Removes up to max chunks from this stack while holding
+   * the lock only once. The removed chunks stay linked by
+   * their next addresses and the last one's next is zero.
+   * @return the address of the first removed chunk or zero if this stack was empty
+   */
+  public long pollChain(int max) {
+    long result;
+    synchronized (this) {
+      result = this.topAddr;
+      if (result != 0L) {
+        long tail = result;
+        for (int i=1; i < max; i++) {
+          long next = Chunk.getNext(tail);
+          if (next == 0L) break;
+          tail = next;
+        }
+        this.topAddr = Chunk.getNext(tail);
+        Chunk.setNext(tail, 0L);
+      }
+    }
+    return result;
+  }
   /**
    * Returns the address of the "top" item in this stack.
    */
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+
+/**
+ * A cache of free tiny chunks owned by a single thread.
+ * When enabled the FreeListManager gives each thread one of these
+ * for the smallest size classes so that most allocations and frees
+ * of small objects never touch the shared free lists.
+ * A thread that finds its cache empty refills it with a batch of chunks
+ * taken from the shared free list while holding its lock only once.
+ * If the shared free list is empty too then the FreeListManager carves
+ * a run of chunks of that size out of a single fragment and caches the run.
+ * A thread whose cache is full returns the oldest half of it in one batch.
+ * Every trimInterval operations the chunks of each size that were not used
+ * since the previous trim are given back to the shared free lists so that
+ * a thread that stops allocating a size does not keep holding on to it.
+ * <p>
+ * The owner thread is the only one that adds to or takes from a cache
+ * but a compaction can drain it from any thread so all access is synchronized.
+ * Since the lock is almost never contended this is cheap.
+ * 
+ * @since 9.0
+ */
+class ThreadChunkCache {
+  private final FreeListManager freeList;
+  private final WeakReference<Thread> owner;
+  private final int capacity;
+  private final int trimInterval;
+  /**
+   * The addresses of the cached chunks of each size class used as a stack.
+   * The oldest chunks are at the bottom.
+   */
+  private final long[][] chunks;
+  private final int[] counts;
+  /**
+   * The lowest count each size class had since the last trim.
+   */
+  private final int[] lowWater;
+  private int opsSinceTrim;
+
+  ThreadChunkCache(FreeListManager freeList, int sizeClasses, int capacity, int trimInterval) {
+    this.freeList = freeList;
+    this.owner = new WeakReference<Thread>(Thread.currentThread());
+    this.capacity = capacity;
+    this.trimInterval = trimInterval;
+    this.chunks = new long[sizeClasses][];
+    this.counts = new int[sizeClasses];
+    this.lowWater = new int[sizeClasses];
+  }
+
+  /**
+   * Returns true if the thread that owns this cache is still running.
+   */
+  boolean isOwnerAlive() {
+    Thread t = this.owner.get();
+    return t != null && t.isAlive();
+  }
+
+  /**
+   * Removes a cached chunk of the given size class.
+   * @return the address of the chunk or zero if none are cached.
+   */
+  synchronized long poll(int idx) {
+    maybeTrim();
+    int count = this.counts[idx];
+    if (count == 0) {
+      return 0L;
+    }
+    count--;
+    this.counts[idx] = count;
+    if (count < this.lowWater[idx]) {
+      this.lowWater[idx] = count;
+    }
+    return this.chunks[idx][count];
+  }
+
+  /**
+   * Caches up to refillCount chunks taken from the given shared free list.
+   * @return false if the shared free list was empty.
+   */
+  synchronized boolean refill(int idx, SyncChunkStack source, int refillCount) {
+    int room = Math.min(refillCount, this.capacity - this.counts[idx]);
+    if (room <= 0) {
+      return true;
+    }
+    long addr = source.pollChain(room);
+    if (addr == 0L) {
+      return false;
+    }
+    long[] cached = getChunks(idx);
+    int count = this.counts[idx];
+    while (addr != 0L) {
+      cached[count++] = addr;
+      addr = Chunk.getNext(addr);
+    }
+    this.counts[idx] = count;
+    return true;
+  }
+
+  /**
+   * Caches a free chunk of the given size class. If the cache for that
+   * size is full then its oldest half is first returned to the shared free list.
+   */
+  synchronized void offer(int idx, long addr) {
+    maybeTrim();
+    long[] cached = getChunks(idx);
+    int count = this.counts[idx];
+    if (count == this.capacity) {
+      int surplus = (count + 1) / 2;
+      returnOldest(idx, surplus);
+      count -= surplus;
+    }
+    cached[count] = addr;
+    this.counts[idx] = count + 1;
+  }
+
+  /**
+   * Moves all the cached chunks to the given stack.
+   * Used by compaction which needs to see all the free memory.
+   */
+  synchronized void drainTo(SyncChunkStack dest) {
+    for (int idx=0; idx < this.chunks.length; idx++) {
+      for (int i=0; i < this.counts[idx]; i++) {
+        dest.offer(this.chunks[idx][i]);
+      }
+      this.counts[idx] = 0;
+      this.lowWater[idx] = 0;
+    }
+  }
+
+  /**
+   * Returns all the cached chunks to the shared free lists.
+   */
+  synchronized void returnAll() {
+    for (int idx=0; idx < this.chunks.length; idx++) {
+      returnOldest(idx, this.counts[idx]);
+    }
+  }
+
+  synchronized long computeTotalSize() {
+    long result = 0;
+    for (int idx=0; idx < this.chunks.length; idx++) {
+      for (int i=0; i < this.counts[idx]; i++) {
+        result += Chunk.getSize(this.chunks[idx][i]);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a copy of the addresses of the cached chunks of the given size class.
+   */
+  synchronized long[] getCachedAddresses(int idx) {
+    if (this.chunks[idx] == null) {
+      return new long[0];
+    }
+    return Arrays.copyOf(this.chunks[idx], this.counts[idx]);
+  }
+
+  private long[] getChunks(int idx) {
+    long[] result = this.chunks[idx];
+    if (result == null) {
+      result = new long[this.capacity];
+      this.chunks[idx] = result;
+    }
+    return result;
+  }
+
+  private void maybeTrim() {
+    this.opsSinceTrim++;
+    if (this.opsSinceTrim >= this.trimInterval) {
+      this.opsSinceTrim = 0;
+      for (int idx=0; idx < this.chunks.length; idx++) {
+        // lowWater chunks sat unused since the last trim; give back half of them
+        int unused = (this.lowWater[idx] + 1) / 2;
+        if (unused > 0) {
+          returnOldest(idx, unused);
+        }
+        this.lowWater[idx] = this.counts[idx];
+      }
+    }
+  }
+
+  private void returnOldest(int idx, int count) {
+    if (count <= 0) {
+      return;
+    }
+    long[] cached = this.chunks[idx];
+    this.freeList.returnChunks(idx, cached, count);
+    int remaining = this.counts[idx] - count;
+    System.arraycopy(cached, count, cached, 0, remaining);
+    this.counts[idx] = remaining;
+    if (this.lowWater[idx] > remaining) {
+      this.lowWater[idx] = remaining;
+    }
+  }
+}
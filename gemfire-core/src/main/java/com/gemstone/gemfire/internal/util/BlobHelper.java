@@ -25,6 +25,7 @@ import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.internal.ByteArrayDataInput;
 import com.gemstone.gemfire.internal.DSCODE;
 import com.gemstone.gemfire.internal.HeapDataOutputStream;
+import com.gemstone.gemfire.internal.SerializationBufferPool;
 import com.gemstone.gemfire.internal.Version;
 import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.offheap.Chunk;
@@ -57,9 +58,15 @@ public class BlobHelper {
   throws IOException
   {
     final long start = startSerialization();
-    HeapDataOutputStream hdos = new HeapDataOutputStream(version);
-    DataSerializer.writeObject(obj, hdos);
-    byte[] result = hdos.toByteArray();
+    HeapDataOutputStream hdos = new HeapDataOutputStream(SerializationBufferPool.MIN_BUFFER_SIZE, version, false, true);
+    byte[] result;
+    try {
+      DataSerializer.writeObject(obj, hdos);
+      // toByteArray copies out of the buffers if they are pooled
+      result = hdos.toByteArray();
+    } finally {
+      hdos.release();
+    }
     endSerialization(start, result.length);
     return result;
   }
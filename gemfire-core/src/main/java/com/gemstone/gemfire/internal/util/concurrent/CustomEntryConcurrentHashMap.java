@@ -68,6 +68,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
 
 import com.gemstone.gemfire.CancelException;
 import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
@@ -197,6 +198,11 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
    */
   private static final Object NO_OBJECT_TOKEN = new Object();
 
+  /**
+   * Returned by Segment#findEntry when the caller must retry under a lock.
+   */
+  private static final Object OPTIMISTIC_READ_FAILED = new Object();
+
 // End GemStone addition
 
   /* ---------------- Fields -------------- */
@@ -516,6 +522,20 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
      */
     final ReentrantReadWriteLock listUpdateLock;
 
+    /**
+     * Write locked while holding the {@link #listUpdateLock} write lock so
+     * that {@link #get} and {@link #containsKey} can first try to walk a
+     * bucket without acquiring the read lock; see {@link #findEntry}.
+     */
+    final StampedLock listUpdateStamp;
+
+    /**
+     * The number of entries {@link #findEntry} visits between checks that no
+     * list update happened. A concurrent update can make a lock-free walk
+     * revisit entries, so it must not walk forever.
+     */
+    private static final int OPTIMISTIC_READ_CHECK_INTERVAL = 64;
+
 // End GemStone addition
 
     Segment(final int initialCapacity, final float lf,
@@ -523,6 +543,7 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
       this.loadFactor = lf;
       this.entryCreator = entryCreator;
       this.listUpdateLock = new ReentrantReadWriteLock();
+      this.listUpdateStamp = new StampedLock();
       setTable(Segment.<K, V> newEntryArray(initialCapacity));
     }
 
@@ -591,8 +612,53 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
 
     /* Specialized implementations of map methods */
 
+    /**
+     * Walks the bucket for the given key without acquiring the
+     * {@link #listUpdateLock}.
+     * 
+     * @return the matching entry, null if there is none, or
+     *         {@link #OPTIMISTIC_READ_FAILED} if a list update happened
+     *         during the walk and the caller must retry under the read lock
+     */
+    private Object findEntry(final Object key, final int hash) {
+      final long stamp = this.listUpdateStamp.tryOptimisticRead();
+      if (stamp == 0L) {
+        return OPTIMISTIC_READ_FAILED;
+      }
+      HashEntry<K, V> e = getFirst(hash);
+      int steps = 0;
+      while (e != null) {
+        if (e.getEntryHash() == hash && equalityKeyCompare(key, e)) {
+          break;
+        }
+        if (++steps == OPTIMISTIC_READ_CHECK_INTERVAL) {
+          if (!this.listUpdateStamp.validate(stamp)) {
+            return OPTIMISTIC_READ_FAILED;
+          }
+          steps = 0;
+        }
+        e = e.getNextEntry();
+      }
+      if (!this.listUpdateStamp.validate(stamp)) {
+        return OPTIMISTIC_READ_FAILED;
+      }
+      return e;
+    }
+
     final V get(final Object key, final int hash) {
       if (this.count != 0) { // read-volatile
+// GemStone change to first try without any lock
+        final Object found = findEntry(key, hash);
+        if (found == null) {
+          return null;
+        }
+        if (found != OPTIMISTIC_READ_FAILED) {
+          @SuppressWarnings("unchecked")
+          final V v = ((HashEntry<K, V>)found).getMapValue();
+          if (v != null) {
+            return v;
+          }
+        }
 // GemStone change to acquire the read lock on list updates
         final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock
             .readLock();
@@ -649,6 +715,11 @@ public class CustomEntryConcurrentHashMap<K, V> extends AbstractMap<K, V> implem
 
     final boolean containsKey(final Object key, final int hash) {
       if (this.count != 0) { // read-volatile
+// GemStone change to first try without any lock
+        final Object found = findEntry(key, hash);
+        if (found != OPTIMISTIC_READ_FAILED) {
+          return found != null;
+        }
 // GemStone change to acquire the read lock on list updates
         final ReentrantReadWriteLock.ReadLock listLock = this.listUpdateLock
             .readLock();
@@ -966,6 +1037,7 @@ RETRYLOOP:
             final ReentrantReadWriteLock.WriteLock listWriteLock =
                 this.listUpdateLock.writeLock();
             listWriteLock.lock();
+            final long stamp = this.listUpdateStamp.writeLock();
             try {
               if (newFirst != null) {
                 this.table[i] = newFirst; // deliberately using volatile write
@@ -978,6 +1050,7 @@ RETRYLOOP:
                 newTable[k] = p;
               }
             } finally {
+              this.listUpdateStamp.unlockWrite(stamp);
               listWriteLock.unlock();
             }
             /* (original code)
@@ -1047,6 +1120,7 @@ RETRYLOOP:
             final ReentrantReadWriteLock.WriteLock listWriteLock =
                 this.listUpdateLock.writeLock();
             listWriteLock.lock();
+            final long stamp = this.listUpdateStamp.writeLock();
             try {
               if (p == null) {
                 tab[index] = e.getNextEntry();
@@ -1055,6 +1129,7 @@ RETRYLOOP:
                 p.setNextEntry(e.getNextEntry());
               }
             } finally {
+              this.listUpdateStamp.unlockWrite(stamp);
               listWriteLock.unlock();
             }
             /* (original code)
@@ -590,6 +590,11 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
     return super.readField(fieldName);
   }
 
+  @Override
+  protected synchronized Object readField(PdxField ft) {
+    return super.readField(ft);
+  }
+
   @Override
   protected synchronized Object basicGetObject() {
     DMStats stats = InternalDataSerializer.getDMStats(null);
@@ -628,6 +633,21 @@ public class PdxInstanceImpl extends PdxReaderImpl implements PdxInstance, Senda
   public Object getRawField(String fieldName){
     return getUnmodifiableReader(fieldName).readRawField(fieldName);
   }
+
+  /**
+   * Like {@link #getRawField(String)} but for a field that the caller
+   * already looked up in the given type, which must be {@link #getPdxType()}.
+   * The query engine keeps the field of the last type it saw so it can skip
+   * the lookup by name.
+   */
+  public Object getRawField(PdxType type, PdxField field) {
+    PdxReaderImpl ur = getUnmodifiableReader(field.getFieldName());
+    if (ur.getPdxType() != type) {
+      // the reader was rewritten with a different type
+      return ur.readRawField(field.getFieldName());
+    }
+    return ur.readRawField(field);
+  }
   
   
  public Object getDefaultValueIfFieldExistsInAnyPdxVersions(String fieldName,
@@ -626,54 +626,7 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     if (ft == null) {
       return null;
     }
-    switch (ft.getFieldType()) {
-    case CHAR:
-      return readChar(ft);
-    case BOOLEAN:
-      return readBoolean(ft);
-    case BYTE:
-      return readByte(ft);
-    case SHORT:
-      return readShort(ft);
-    case INT:
-      return readInt(ft);
-    case LONG:
-      return readLong(ft);
-    case FLOAT:
-      return readFloat(ft);
-    case DOUBLE:
-      return readDouble(ft);
-    case DATE:
-      return readDate(ft);
-    case STRING:
-      return readString(ft);
-    case OBJECT:
-      return readObject(ft);
-    case BOOLEAN_ARRAY:
-      return readBooleanArray(ft);
-    case CHAR_ARRAY:
-      return readCharArray(ft);
-    case BYTE_ARRAY:
-      return readByteArray(ft);
-    case SHORT_ARRAY:
-      return readShortArray(ft);
-    case INT_ARRAY:
-      return readIntArray(ft);
-    case LONG_ARRAY:
-      return readLongArray(ft);
-    case FLOAT_ARRAY:
-      return readFloatArray(ft);
-    case DOUBLE_ARRAY:
-      return readDoubleArray(ft);
-    case STRING_ARRAY:
-      return readStringArray(ft);
-    case OBJECT_ARRAY:
-      return readObjectArray(ft);
-    case ARRAY_OF_BYTE_ARRAYS:
-      return readArrayOfByteArrays(ft);
-    default:
-      throw new InternalGemFireException("Unhandled field type " + ft.getFieldType());
-    }
+    return readField(ft);
   }
 
   public static boolean TESTHOOK_TRACKREADS = false;
@@ -869,11 +822,75 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
     if (ft == null) {
       return null;
     }
+    return readRawField(ft);
+  }
+
+  /**
+   * Same as {@link #readRawField(String)} but for a field the caller has
+   * already looked up in this reader's {@link PdxType}.
+   * @param ft
+   * @return PdxString if field is a String otherwise the field's value
+   */
+  public Object readRawField(PdxField ft){
     if (ft.getFieldType() == FieldType.STRING) {
       return readPdxString(ft);
     }
     else{
-      return readField(field);
+      return readField(ft);
+    }
+  }
+
+  /**
+   * Reads the value of the given field without looking it up by name.
+   */
+  protected Object readField(PdxField ft) {
+    switch (ft.getFieldType()) {
+    case CHAR:
+      return readChar(ft);
+    case BOOLEAN:
+      return readBoolean(ft);
+    case BYTE:
+      return readByte(ft);
+    case SHORT:
+      return readShort(ft);
+    case INT:
+      return readInt(ft);
+    case LONG:
+      return readLong(ft);
+    case FLOAT:
+      return readFloat(ft);
+    case DOUBLE:
+      return readDouble(ft);
+    case DATE:
+      return readDate(ft);
+    case STRING:
+      return readString(ft);
+    case OBJECT:
+      return readObject(ft);
+    case BOOLEAN_ARRAY:
+      return readBooleanArray(ft);
+    case CHAR_ARRAY:
+      return readCharArray(ft);
+    case BYTE_ARRAY:
+      return readByteArray(ft);
+    case SHORT_ARRAY:
+      return readShortArray(ft);
+    case INT_ARRAY:
+      return readIntArray(ft);
+    case LONG_ARRAY:
+      return readLongArray(ft);
+    case FLOAT_ARRAY:
+      return readFloatArray(ft);
+    case DOUBLE_ARRAY:
+      return readDoubleArray(ft);
+    case STRING_ARRAY:
+      return readStringArray(ft);
+    case OBJECT_ARRAY:
+      return readObjectArray(ft);
+    case ARRAY_OF_BYTE_ARRAYS:
+      return readArrayOfByteArrays(ft);
+    default:
+      throw new InternalGemFireException("Unhandled field type " + ft.getFieldType());
     }
   }
   
@@ -883,22 +900,22 @@ public class PdxReaderImpl implements InternalPdxReader, java.io.Serializable {
    * @return returns {@link PdxString}
    */
   public PdxString readPdxString(PdxField ft){
-    ByteSource buffer = dis.getBuffer();
-    byte[] bytes = null;
-    if(buffer.hasArray()){
-      bytes = buffer.array();
-    }
-    else{
-      // TODO OFFHEAP: this is going to break once we have a ByteSource that is offheap.
-      // Should we just copy the offheap ByteSource to a heap byte[] here or change
-      // PdxString to work with a ByteSource?
-      throw new IllegalStateException();
-    }
-    int offset = getPositionForField(ft) + buffer.arrayOffset();
+    int pos = getPositionForField(ft);
+    byte header = dis.readByte(pos);
     // Do not create PdxString if the field is NULL
-    if(bytes[offset] == DSCODE.NULL || bytes[offset] == DSCODE.NULL_STRING){
+    if(header == DSCODE.NULL || header == DSCODE.NULL_STRING){
       return null;
     }
-    return new PdxString(bytes, offset); 
+    ByteSource buffer = dis.getBuffer();
+    if(buffer.hasArray()){
+      return new PdxString(buffer.array(), pos + buffer.arrayOffset());
+    }
+    // The blob is in a direct ByteBuffer or an off-heap Chunk.
+    // Copy just the serialized bytes of this field so that the
+    // PdxString does not keep a reference to memory that can be freed.
+    ByteSource raw = getRaw(ft);
+    byte[] bytes = new byte[raw.remaining()];
+    raw.get(bytes);
+    return new PdxString(bytes, 0);
   }
 }
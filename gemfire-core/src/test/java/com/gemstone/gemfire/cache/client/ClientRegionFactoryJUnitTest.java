@@ -49,7 +49,10 @@ import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.util.CacheListenerAdapter;
 import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.UserSpecifiedRegionAttributes;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
 /**
@@ -221,6 +224,44 @@ public class ClientRegionFactoryJUnitTest {
                  0);
   }
 
+  @Test
+  public void testNEAR_CACHE() throws Exception {
+    ClientCache c = new ClientCacheFactory().create();
+    RegionAttributes ra = ((GemFireCacheImpl)c).getRegionAttributes(NEAR_CACHE.toString());
+    assertEquals(DataPolicy.NORMAL, ra.getDataPolicy());
+    assertEquals(EvictionAttributes.createLRUEntryAttributes(), ra.getEvictionAttributes());
+    assertTrue(((UserSpecifiedRegionAttributes)ra).registersInvalidationInterest);
+    // the default pool does not have subscriptions enabled
+    ClientRegionFactory factory = c.createClientRegionFactory(NEAR_CACHE);
+    try {
+      r1 = factory.create(this.r1Name);
+      fail("expected SubscriptionNotEnabledException");
+    } catch (SubscriptionNotEnabledException expected) {
+    }
+    assertNull(c.getRegion(this.r1Name));
+  }
+
+  @Test
+  public void testNEAR_CACHEWithoutServer() throws Exception {
+    // nothing listens on the port, so the interest registration fails
+    int port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET);
+    ClientCache c = new ClientCacheFactory()
+        .addPoolServer("localhost", port)
+        .setPoolSubscriptionEnabled(true)
+        .create();
+    ClientRegionFactory factory = c.createClientRegionFactory(NEAR_CACHE);
+    for (int i = 0; i < 2; i++) {
+      // a failed create leaves nothing behind, so trying again fails the
+      // same way instead of with RegionExistsException
+      try {
+        r1 = factory.create(this.r1Name);
+        fail("expected ServerConnectivityException");
+      } catch (ServerConnectivityException expected) {
+      }
+      assertNull(c.getRegion(this.r1Name));
+    }
+  }
+
   @Test
   public void testAddCacheListener() throws Exception {
     ClientCache c = new ClientCacheFactory().create();
@@ -20,7 +20,12 @@ import static org.junit.Assert.*;
 
 import java.net.InetSocketAddress;
 import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -29,15 +34,21 @@ import org.junit.experimental.categories.Category;
 
 import com.gemstone.gemfire.cache.Cache;
 import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Operation;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
 import com.gemstone.gemfire.cache.client.Pool;
 import com.gemstone.gemfire.cache.client.PoolFactory;
 import com.gemstone.gemfire.cache.client.PoolManager;
 import com.gemstone.gemfire.cache.client.ServerConnectivityException;
 import com.gemstone.gemfire.cache.server.CacheServer;
 import com.gemstone.gemfire.distributed.DistributedSystem;
+import com.gemstone.gemfire.distributed.PoolCancelledException;
 import com.gemstone.gemfire.distributed.internal.ServerLocation;
 import com.gemstone.gemfire.internal.AvailablePort;
 import com.gemstone.gemfire.internal.AvailablePortHelper;
+import com.gemstone.gemfire.internal.cache.EntryEventImpl;
+import com.gemstone.gemfire.internal.cache.EventID;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
 /**
@@ -256,5 +267,66 @@ public class ConnectionPoolImplJUnitTest {
     assertEquals(location1, pool.executeOnPrimary(testOp));
     assertEquals(location1, pool.executeOnQueuesAndReturnPrimaryResult(testOp));
   }
+
+  @Test
+  public void testExecuteAsync() throws Exception {
+    CacheServer server1 = cache.addCacheServer();
+    server1.setPort(port);
+    server1.start();
+
+    PoolFactory cpf = PoolManager.createFactory();
+    cpf.addServer("localhost", port);
+    PoolImpl pool = (PoolImpl) cpf.create("pool1");
+
+    List<CompletableFuture<Object>> futures = new ArrayList<CompletableFuture<Object>>();
+    for (int i = 0; i < 100; i++) {
+      futures.add(pool.executeAsync(new PingOp.PingOpImpl()));
+    }
+    for (CompletableFuture<Object> future : futures) {
+      assertNull(future.get(30, TimeUnit.SECONDS));
+    }
+    int asyncOps = 0;
+    for (Endpoint endpoint : pool.getEndpointMap().values()) {
+      asyncOps += endpoint.getStats().getAsyncRegionOps();
+      assertEquals(0, endpoint.getStats().getAsyncRegionOpsInProgress());
+    }
+    assertEquals(100, asyncOps);
+    assertEquals(0, pool.getStats().getAsyncRegionOpsQueued());
+
+    pool.destroy();
+    try {
+      pool.executeAsync(new PingOp.PingOpImpl()).get(30, TimeUnit.SECONDS);
+      fail("Should have failed");
+    } catch (ExecutionException expected) {
+      assertTrue(expected.getCause() instanceof PoolCancelledException);
+    }
+  }
+
+  @Test
+  public void testExecuteAsyncKeepsOrderOfThread() throws Exception {
+    Region<Object, Object> region = cache.createRegionFactory(RegionShortcut.REPLICATE).create("async");
+    CacheServer server1 = cache.addCacheServer();
+    server1.setPort(port);
+    server1.start();
+
+    PoolFactory cpf = PoolManager.createFactory();
+    cpf.addServer("localhost", port);
+    PoolImpl pool = (PoolImpl) cpf.create("pool1");
+
+    // the puts are spread over the dispatcher threads unless each thread's
+    // ops are kept together, and a put that reaches the server after a
+    // later one would be dropped as a duplicate
+    List<CompletableFuture<Object>> futures = new ArrayList<CompletableFuture<Object>>();
+    for (int i = 0; i < 1000; i++) {
+      EntryEventImpl event = new EntryEventImpl(new EventID(cache.getDistributedSystem()));
+      futures.add(pool.executeAsync(new PutOp.PutOpImpl(region, "key", Integer.valueOf(i),
+          null, event, Operation.UPDATE, false, null, null, true, false)));
+    }
+    for (CompletableFuture<Object> future : futures) {
+      future.get(30, TimeUnit.SECONDS);
+    }
+    assertEquals(Integer.valueOf(999), region.get("key"));
+    assertEquals(0, pool.getStats().getAsyncRegionOpsQueued());
+  }
   
 }
@@ -23,6 +23,7 @@ import java.net.Socket;
 import java.net.SocketTimeoutException;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -41,6 +42,8 @@ import com.gemstone.gemfire.cache.client.internal.pooling.ConnectionManager;
 import com.gemstone.gemfire.distributed.DistributedMember;
 import com.gemstone.gemfire.distributed.internal.InternalDistributedSystem;
 import com.gemstone.gemfire.distributed.internal.ServerLocation;
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.internal.cache.tier.sockets.Message;
 import com.gemstone.gemfire.internal.cache.tier.sockets.ServerQueueStatus;
 import com.gemstone.gemfire.internal.logging.InternalLogWriter;
 import com.gemstone.gemfire.internal.logging.LocalLogWriter;
@@ -417,6 +420,152 @@ public class OpExecutorImplJUnitTest extends TestCase {
     assertEquals(0, borrows);
     assertEquals(0, returns);
   }
+
+  public void testExecutePipelined() {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3, 10, false, cancelCriterion, null);
+    List<String> events = new ArrayList<String>();
+    int count = OpPipeline.MAX_IN_FLIGHT + 4;
+    List<PipelineTestOp> ops = new ArrayList<PipelineTestOp>();
+    for (int i = 0; i < count; i++) {
+      ops.add(new PipelineTestOp(i, events, null));
+    }
+    OpPipeline pipeline = exec.executePipelined(ops);
+    for (int i = 0; i < count; i++) {
+      assertEquals(Integer.valueOf(i), pipeline.getResult(i));
+    }
+    // all the messages that fit in the pipeline were sent before the first reply was read
+    assertEquals("read 0", events.get(OpPipeline.MAX_IN_FLIGHT));
+    assertEquals(2 * count, events.size());
+    assertEquals(1, borrows);
+    assertEquals(1, returns);
+    assertEquals(0, invalidateConnections);
+  }
+
+  public void testExecutePipelinedRetriesAfterConnectionFailure() {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3, 10, false, cancelCriterion, null);
+    List<String> events = new ArrayList<String>();
+    List<PipelineTestOp> ops = new ArrayList<PipelineTestOp>();
+    for (int i = 0; i < 6; i++) {
+      ops.add(new PipelineTestOp(i, events, i == 2 ? new IOException("connection reset") : null));
+    }
+    OpPipeline pipeline = exec.executePipelined(ops);
+    for (int i = 0; i < 6; i++) {
+      assertNull(pipeline.getFailure(i));
+      assertEquals(Integer.valueOf(i), pipeline.getResult(i));
+    }
+    // the failed op and the ones sent after it were retried
+    assertFalse(ops.get(1).getMessage().isRetry());
+    for (int i = 2; i < 6; i++) {
+      assertTrue(ops.get(i).getMessage().isRetry());
+    }
+    assertTrue(invalidateConnections > 0);
+  }
+
+  public void testExecutePipelinedServerFailure() {
+    OpExecutorImpl exec = new OpExecutorImpl(manager, queueManager, endpointManager, riTracker, 3, 10, false, cancelCriterion, null);
+    List<String> events = new ArrayList<String>();
+    List<PipelineTestOp> ops = new ArrayList<PipelineTestOp>();
+    for (int i = 0; i < 4; i++) {
+      ops.add(new PipelineTestOp(i, events, i == 1 ? new ServerOperationException("Something didn't work") : null));
+    }
+    OpPipeline pipeline = exec.executePipelined(ops);
+    assertTrue(pipeline.getFailure(1) instanceof ServerOperationException);
+    try {
+      pipeline.getResult(1);
+      fail("Should have got an exception");
+    } catch (ServerOperationException expected) {
+    }
+    for (int i = 0; i < 4; i++) {
+      if (i != 1) {
+        assertEquals(Integer.valueOf(i), pipeline.getResult(i));
+      }
+    }
+  }
+
+  public void testPipelineBoundsBytesInFlight() throws Exception {
+    List<String> events = new ArrayList<String>();
+    List<PipelineTestOp> ops = new ArrayList<PipelineTestOp>();
+    int[] lengths = {100, 100, 100, 1000, 100};
+    for (int i = 0; i < lengths.length; i++) {
+      ops.add(new PipelineTestOp(i, events, null, lengths[i]));
+    }
+    OpPipeline pipeline = new OpPipeline(ops);
+    pipeline.execute(new DummyConnection(new ServerLocation("localhost", 0)), 16, 250);
+    for (int i = 0; i < lengths.length; i++) {
+      assertEquals(Integer.valueOf(i), pipeline.getResult(i));
+    }
+    // no more than 250 bytes are unanswered unless a message is sent alone
+    String[] expected = {"send 0", "send 1", "read 0", "send 2", "read 1",
+        "read 2", "send 3", "read 3", "send 4", "read 4"};
+    assertEquals(Arrays.asList(expected), events);
+  }
+
+  /**
+   * An op that records when its message is sent and its reply read
+   * instead of using a socket. It fails the first read if given an exception.
+   */
+  private static class PipelineTestOp extends AbstractOp {
+    private final int id;
+    private final List<String> events;
+    private Exception failure;
+    private final int length;
+
+    PipelineTestOp(int id, List<String> events, Exception failure) {
+      this(id, events, failure, -1);
+    }
+
+    PipelineTestOp(int id, List<String> events, Exception failure, int length) {
+      super(MessageType.PING, 0);
+      this.id = id;
+      this.events = events;
+      this.failure = failure;
+      this.length = length;
+    }
+
+    @Override
+    int getPipelinedLength() {
+      return this.length == -1 ? super.getPipelinedLength() : this.length;
+    }
+
+    @Override
+    protected void attemptSend(Connection cnx) throws Exception {
+      this.events.add("send " + this.id);
+    }
+
+    @Override
+    protected Object attemptReadResponse(Connection cnx) throws Exception {
+      this.events.add("read " + this.id);
+      Exception e = this.failure;
+      if (e != null) {
+        this.failure = null;
+        throw e;
+      }
+      return Integer.valueOf(this.id);
+    }
+
+    @Override
+    protected Object processResponse(Message msg) throws Exception {
+      return null;
+    }
+
+    @Override
+    protected boolean isErrorResponse(int msgType) {
+      return false;
+    }
+
+    @Override
+    protected long startAttempt(ConnectionStats stats) {
+      return 0;
+    }
+
+    @Override
+    protected void endSendAttempt(ConnectionStats stats, long start) {
+    }
+
+    @Override
+    protected void endAttempt(ConnectionStats stats, long start) {
+    }
+  }
   
   public class DummyManager implements ConnectionManager {
     protected int numServers  = Integer.MAX_VALUE;
@@ -487,6 +636,7 @@ public class OpExecutorImplJUnitTest extends TestCase {
   public class DummyConnection implements Connection {
     
     private ServerLocation server;
+    private final Socket socket = new Socket();
 
     public DummyConnection(ServerLocation serverLocation) {
       this.server = serverLocation;
@@ -508,7 +658,7 @@ public class OpExecutorImplJUnitTest extends TestCase {
     }
 
     public Socket getSocket() {
-      return null;
+      return this.socket;
     }
 
     public ConnectionStats getStats() {
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.cache.client.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolFactory;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.ServerOperationException;
+import com.gemstone.gemfire.cache.client.internal.StreamingQueryOp.StreamingQueryCursor;
+import com.gemstone.gemfire.cache.client.internal.StreamingQueryOp.StreamingQueryOpImpl;
+import com.gemstone.gemfire.cache.query.QueryCursor;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.distributed.DistributedSystem;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests {@link StreamingQueryOp} against the StreamingQuery command of a
+ * cache server running in the same VM.
+ *
+ * @since 9.0
+ */
+@Category(IntegrationTest.class)
+public class StreamingQueryOpJUnitTest {
+
+  private static final String QUERY = "select * from /streaming";
+
+  private Cache cache;
+  private PoolImpl pool;
+
+  @Before
+  public void setUp() throws Exception {
+    Properties props = new Properties();
+    props.setProperty("mcast-port", "0");
+    props.setProperty("locators", "");
+    cache = CacheFactory.create(DistributedSystem.connect(props));
+    Region<Integer, Integer> region = cache.<Integer, Integer>createRegionFactory(
+        RegionShortcut.PARTITION).create("streaming");
+    for (int i = 0; i < 10000; i++) {
+      region.put(i, i);
+    }
+    int port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET);
+    CacheServer server = cache.addCacheServer();
+    server.setPort(port);
+    server.start();
+
+    PoolFactory cpf = PoolManager.createFactory();
+    cpf.addServer("localhost", port);
+    cpf.setMaxConnections(1);
+    pool = (PoolImpl)cpf.create("streamingpool");
+  }
+
+  @After
+  public void tearDown() {
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void testStreamsAllResults() throws Exception {
+    QueryCursor cursor = StreamingQueryOp.execute(pool, QUERY, null, 100);
+    try {
+      assertNotNull(cursor.getCollectionType());
+      Set<Object> results = new HashSet<Object>();
+      while (cursor.hasNext()) {
+        assertTrue(results.add(cursor.next()));
+      }
+      assertEquals(10000, results.size());
+    } finally {
+      cursor.close();
+    }
+    // the connection was read to the end and can be used again
+    assertEquals(10000, QueryOp.execute(pool, QUERY, null).size());
+  }
+
+  @Test
+  public void testParameters() throws Exception {
+    QueryCursor cursor = StreamingQueryOp.execute(pool,
+        "select * from /streaming s where s < $1", new Object[] { 25 }, 10);
+    int count = 0;
+    while (cursor.hasNext()) {
+      assertTrue((Integer)cursor.next() < 25);
+      count++;
+    }
+    assertEquals(25, count);
+  }
+
+  @Test
+  public void testCloseDestroysConnection() throws Exception {
+    int disconnects = pool.getStats().getDisConnects();
+    QueryCursor cursor = StreamingQueryOp.execute(pool, QUERY, null, 10);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(cursor.hasNext());
+      cursor.next();
+    }
+    cursor.close();
+    assertFalse(cursor.hasNext());
+    // closing again has no effect
+    cursor.close();
+
+    // the reader destroys the connection instead of reading the rest
+    long end = System.currentTimeMillis() + 30000;
+    while (pool.getStats().getDisConnects() == disconnects) {
+      assertTrue("the connection of the closed query was not destroyed",
+          System.currentTimeMillis() < end);
+      Thread.sleep(50);
+    }
+    assertEquals(10000, QueryOp.execute(pool, QUERY, null).size());
+  }
+
+  @Test
+  public void testPageTimeoutAbandonsQuery() throws Exception {
+    int disconnects = pool.getStats().getDisConnects();
+    StreamingQueryCursor cursor = new StreamingQueryCursor(100);
+    StreamingQueryOpImpl op = new StreamingQueryOpImpl(QUERY, new Object[0],
+        10, cursor);
+    // nobody takes the pages, so the op gives up once the prefetched
+    // pages are queued
+    try {
+      pool.execute(op);
+      fail("expected ServerOperationException");
+    } catch (ServerOperationException expected) {
+    }
+    assertEquals(disconnects + 1, pool.getStats().getDisConnects());
+
+    int count = 0;
+    try {
+      while (cursor.hasNext()) {
+        cursor.next();
+        count++;
+      }
+      fail("expected ServerOperationException");
+    } catch (ServerOperationException expected) {
+    }
+    assertEquals(StreamingQueryOp.PREFETCH_PAGES * 10, count);
+  }
+
+  @Test
+  public void testNoRetryAfterDelivery() throws Exception {
+    StreamingQueryCursor cursor = new StreamingQueryCursor();
+    StreamingQueryOpImpl op = new StreamingQueryOpImpl(
+        "select * from /streaming s where s < 5", new Object[0], 10, cursor);
+    pool.execute(op);
+    cursor.finish(StreamingQueryCursor.END);
+    // a retry of an op that has returned results is refused
+    try {
+      pool.execute(op);
+      fail("expected ServerOperationException");
+    } catch (ServerOperationException expected) {
+    }
+    int count = 0;
+    while (cursor.hasNext()) {
+      cursor.next();
+      count++;
+    }
+    assertEquals(5, count);
+  }
+
+  @Test
+  public void testCloseWakesUpWaitingCaller() throws Exception {
+    final StreamingQueryCursor cursor = new StreamingQueryCursor();
+    final boolean[] hasNext = new boolean[] { true };
+    Thread caller = new Thread(new Runnable() {
+      public void run() {
+        hasNext[0] = cursor.hasNext();
+      }
+    });
+    caller.start();
+    Thread.sleep(100);
+    cursor.close();
+    caller.join(30000);
+    assertFalse(caller.isAlive());
+    assertFalse(hasNext[0]);
+  }
+}
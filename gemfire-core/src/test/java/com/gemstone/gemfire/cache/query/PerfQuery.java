@@ -324,6 +324,16 @@ public class PerfQuery {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public QueryCursor executeStreaming(int pageSize) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public QueryCursor executeStreaming(int pageSize, Object[] params) {
+      throw new UnsupportedOperationException();
+    }
+
   }
   
   
@@ -27,6 +27,7 @@ import static org.junit.Assert.fail;
 
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.After;
@@ -419,6 +420,9 @@ public class QueryObserverCallbackJUnitTest{
     public void orderByColumnsEqual() {
       
     }
+
+    public void afterIndexSelection(List indexes, int estimatedSize) {
+    }
     
   }
 }
@@ -17,6 +17,7 @@
 package com.gemstone.gemfire.cache.query.internal.index;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -26,6 +27,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
@@ -37,13 +39,17 @@ import org.junit.experimental.categories.Category;
 import util.TestException;
 
 import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
 import com.gemstone.gemfire.cache.query.Index;
 import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.QueryTestUtils;
 import com.gemstone.gemfire.cache.query.SelectResults;
+import com.gemstone.gemfire.cache.query.Struct;
 import com.gemstone.gemfire.cache.query.data.Portfolio;
 import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
 import com.gemstone.gemfire.cache.query.internal.DefaultQuery.TestHook;
+import com.gemstone.gemfire.cache.query.internal.QueryObserverAdapter;
+import com.gemstone.gemfire.cache.query.internal.QueryObserverHolder;
 import com.gemstone.gemfire.internal.cache.persistence.query.CloseableIterator;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
@@ -473,6 +479,166 @@ public class CompactRangeIndexJUnitTest  {
     return results;
   }
   
+  @Test
+  public void testCostBasedIndexSelection() throws Exception {
+    IndexManager.COST_BASED_INDEX_SELECTION_FOR_TEST = true;
+    try {
+      Index idIndex = utils.createIndex("idIndex", "p.ID", "/exampleRegion p");
+      utils.createIndex("statusIndex", "p.status", "/exampleRegion p");
+      Region region = utils.getCache().getRegion("exampleRegion");
+      for (int i = 0; i < 100; i++) {
+        region.put("KEY-" + i, new Portfolio(i));
+      }
+      final List chosenIndexes = new ArrayList();
+      QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+        @Override
+        public void afterIndexSelection(List indexes, int estimatedSize) {
+          chosenIndexes.clear();
+          chosenIndexes.addAll(indexes);
+        }
+      });
+      QueryService qs = utils.getCache().getQueryService();
+
+      // the equality on status matches half the region, so the range on ID is
+      // the better index even though the rules prefer equalities
+      SelectResults results = (SelectResults) qs.newQuery(
+          "select * from /exampleRegion p where p.ID < 5 and p.status = 'active'").execute();
+      assertEquals(3, results.size());
+      assertEquals(Arrays.asList(idIndex), chosenIndexes);
+
+      // the index would fetch the whole region, so the region is scanned
+      results = (SelectResults) qs.newQuery(
+          "select * from /exampleRegion p where p.ID >= 0").execute();
+      assertEquals(100, results.size());
+      assertTrue(chosenIndexes.isEmpty());
+    } finally {
+      IndexManager.COST_BASED_INDEX_SELECTION_FOR_TEST = false;
+      QueryObserverHolder.reset();
+    }
+  }
+
+  @Test
+  public void testCompositeIndex() throws Exception {
+    final Index compositeIndex = utils.createIndex("statusId", "p.status, p.ID", "/exampleRegion p");
+    Region region = utils.getCache().getRegion("exampleRegion");
+    for (int i = 0; i < 100; i++) {
+      region.put("KEY-" + i, new Portfolio(i));
+    }
+    final List usedIndexes = new ArrayList();
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void beforeIndexLookup(Index index, int lowerBoundOperator,
+          Object lowerBoundKey, int upperBoundOperator, Object upperBoundKey,
+          Set NotEqualKeys) {
+        usedIndexes.add(index);
+      }
+    });
+    try {
+      QueryService qs = utils.getCache().getQueryService();
+      SelectResults results = (SelectResults) qs.newQuery(
+          "select * from /exampleRegion p where p.status = 'active' and p.ID > 90").execute();
+      assertEquals(4, results.size());
+      assertEquals(Arrays.asList(compositeIndex), usedIndexes);
+
+      // an equality on the first expression alone is a prefix lookup
+      usedIndexes.clear();
+      results = (SelectResults) qs.newQuery(
+          "select * from /exampleRegion p where p.status = 'inactive' and p.ID <= 9 order by p.ID desc").execute();
+      assertEquals(Arrays.asList(compositeIndex), usedIndexes);
+      List ids = new ArrayList();
+      for (Object o : results) {
+        ids.add(((Portfolio) o).ID);
+      }
+      assertEquals(Arrays.asList(9, 7, 5, 3, 1), ids);
+
+      // updates move the entry to its new key
+      Portfolio p = new Portfolio(95);
+      p.status = "active";
+      region.put("KEY-95", p);
+      results = (SelectResults) qs.newQuery(
+          "select * from /exampleRegion p where p.status = 'active' and p.ID > 90").execute();
+      assertEquals(5, results.size());
+    } finally {
+      QueryObserverHolder.reset();
+    }
+  }
+
+  @Test
+  public void testCoveringCompositeIndex() throws Exception {
+    utils.createIndex("statusIdPk", "p.status, p.ID, p.pk", "/exampleRegion p");
+    Region region = utils.getCache().getRegion("exampleRegion");
+    for (int i = 0; i < 100; i++) {
+      region.put("KEY-" + i, new Portfolio(i));
+    }
+    final boolean[] projectedFromEntries = new boolean[1];
+    QueryObserverHolder.setInstance(new QueryObserverAdapter() {
+      @Override
+      public void beforeApplyingProjectionOnFilterEvaluatedResults(Object preProjectionApplied) {
+        projectedFromEntries[0] = true;
+      }
+    });
+    try {
+      QueryService qs = utils.getCache().getQueryService();
+      // the select list only has expressions of the index, so the results
+      // are built from the index keys
+      SelectResults results = (SelectResults) qs.newQuery(
+          "select p.pk, p.ID from /exampleRegion p where p.status = 'active' and p.ID > 90 order by p.ID").execute();
+      assertFalse(projectedFromEntries[0]);
+      assertEquals(4, results.size());
+      Struct first = (Struct) results.asList().get(0);
+      assertEquals("92", first.get("pk"));
+      assertEquals(92, first.get("ID"));
+
+      results = (SelectResults) qs.newQuery(
+          "select p.ID from /exampleRegion p where p.status = 'inactive' and p.ID < 6 order by p.ID").execute();
+      assertFalse(projectedFromEntries[0]);
+      assertEquals(Arrays.asList(1, 3, 5), results.asList());
+
+      // the type is not an expression of the index
+      results = (SelectResults) qs.newQuery(
+          "select p.type from /exampleRegion p where p.status = 'active' and p.ID > 90").execute();
+      assertTrue(projectedFromEntries[0]);
+      assertEquals(4, results.size());
+    } finally {
+      QueryObserverHolder.reset();
+    }
+  }
+
+  @Test
+  public void testCoveringCompositeIndexDoesNotDeserializeValues() throws Exception {
+    // off-heap values are stored serialized, so every read of a value
+    // deserializes a new Portfolio
+    utils.closeCache();
+    Properties props = new Properties();
+    props.setProperty("mcast-port", "0");
+    props.setProperty("off-heap-memory-size", "10m");
+    utils.createCache(props);
+    Region region = utils.getCache().createRegionFactory(RegionShortcut.REPLICATE)
+        .setOffHeap(true).create("offHeapRegion");
+    utils.createIndex("statusIdPk", "p.status, p.ID, p.pk", "/offHeapRegion p");
+    for (int i = 0; i < 100; i++) {
+      region.put("KEY-" + i, new Portfolio(i));
+    }
+    region.destroy("KEY-92");
+    region.invalidate("KEY-94");
+
+    QueryService qs = utils.getCache().getQueryService();
+    Portfolio.resetInstanceCount();
+    SelectResults results = (SelectResults) qs.newQuery(
+        "select p.pk, p.ID from /offHeapRegion p where p.status = 'active' and p.ID > 90 order by p.ID").execute();
+    assertEquals(0, Portfolio.instanceCount.get());
+    // the destroyed and the invalidated entries are skipped
+    assertEquals(2, results.size());
+    assertEquals(96, ((Struct) results.asList().get(0)).get("ID"));
+    assertEquals(98, ((Struct) results.asList().get(1)).get("ID"));
+
+    // the type is not an expression of the index, so the values are read
+    results = (SelectResults) qs.newQuery(
+        "select p.type from /offHeapRegion p where p.status = 'active' and p.ID > 90").execute();
+    assertEquals(2, results.size());
+    assertTrue(Portfolio.instanceCount.get() > 0);
+  }
+
   @After
   public void tearDown() throws Exception{
     utils.closeCache();
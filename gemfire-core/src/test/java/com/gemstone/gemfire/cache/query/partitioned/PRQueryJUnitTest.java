@@ -19,7 +19,9 @@ package com.gemstone.gemfire.cache.query.partitioned;
 import static org.junit.Assert.fail;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -31,10 +33,13 @@ import com.gemstone.gemfire.cache.Region;
 import com.gemstone.gemfire.cache.RegionShortcut;
 import com.gemstone.gemfire.cache.query.CacheUtils;
 import com.gemstone.gemfire.cache.query.Query;
+import com.gemstone.gemfire.cache.query.QueryCursor;
 import com.gemstone.gemfire.cache.query.QueryService;
 import com.gemstone.gemfire.cache.query.SelectResults;
 import com.gemstone.gemfire.cache.query.data.PortfolioData;
+import com.gemstone.gemfire.cache.query.internal.DefaultQuery;
 import com.gemstone.gemfire.internal.Assert;
+import com.gemstone.gemfire.internal.cache.PartitionedRegionQueryCursor;
 import com.gemstone.gemfire.internal.cache.PartitionedRegionTestHelper;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
@@ -173,6 +178,60 @@ public class PRQueryJUnitTest
     Assert.assertTrue(("" + iterator.next()).equals("2"));
  }
 
+  /**
+   * Tests that a streaming query on a PartitionedRegion returns the results of
+   * all the buckets a page at a time, applies the limit across pages, and
+   * returns the complete result of an order by query.
+   */
+  @Test
+  public void testStreamingQuery() throws Exception
+  {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(
+        regionName, "100", 0);
+    PortfolioData[] portfolios = new PortfolioData[100];
+    for (int j = 0; j < 100; j++) {
+      portfolios[j] = new PortfolioData(j);
+    }
+    try {
+      populateData(region, portfolios);
+      QueryService queryService = region.getCache().getQueryService();
+
+      Query query = queryService.newQuery("select p.ID from /" + regionName + " p where p.ID >= $1");
+      QueryCursor cursor = query.executeStreaming(7, new Object[] {new Integer(10)});
+      Assert.assertTrue(PartitionedRegionQueryCursor.isStreamable((DefaultQuery)query));
+      Set ids = new HashSet();
+      while (cursor.hasNext()) {
+        Assert.assertTrue(ids.add(cursor.next()));
+      }
+      Assert.assertTrue(ids.size() == 90);
+      for (int j = 10; j < 100; j++) {
+        Assert.assertTrue(ids.contains(new Integer(j)));
+      }
+      // the execution is recorded once the cursor is exhausted
+      Assert.assertTrue(query.getStatistics().getNumExecutions() == 1);
+      cursor.close();
+      Assert.assertTrue(query.getStatistics().getNumExecutions() == 1);
+
+      query = queryService.newQuery("select * from /" + regionName + " p limit 15");
+      cursor = query.executeStreaming(4);
+      int count = 0;
+      while (cursor.hasNext()) {
+        cursor.next();
+        count++;
+      }
+      Assert.assertTrue(count == 15);
+
+      query = queryService.newQuery("select p.ID from /" + regionName + " p order by p.ID");
+      cursor = query.executeStreaming(10);
+      for (int j = 0; j < 100; j++) {
+        Assert.assertTrue(cursor.next().equals(new Integer(j)));
+      }
+      Assert.assertTrue(!cursor.hasNext());
+    } finally {
+      region.close();
+    }
+  }
+
   /**
    * Populates the region with the Objects stores in the data Object array.
    * 
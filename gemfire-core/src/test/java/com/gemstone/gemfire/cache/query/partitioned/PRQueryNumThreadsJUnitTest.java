@@ -150,6 +150,36 @@ public class PRQueryNumThreadsJUnitTest
     }
   }
 
+  @Test
+  public void testQueryWithAdaptiveParallelism() throws Exception
+  {
+    Region region = PartitionedRegionTestHelper.createPartitionedRegion(
+        regionName, "100", 0);
+    PortfolioData[] portfolios = new PortfolioData[100];
+    for (int j = 0; j < 100; j++) {
+      portfolios[j] = new PortfolioData(j);
+    }
+    PRQueryProcessor.TEST_ADAPTIVE_PARALLELISM = true;
+    try {
+      populateData(region, portfolios);
+
+      SelectResults resSet = region.query("ID > 5 and ID <=15");
+      Assert.assertTrue(resSet.size() == 10);
+
+      String queryString = "Select distinct p.ID from /" + region.getName() + " p where p.ID < 50 order by p.ID desc";
+      Query query = region.getCache().getQueryService().newQuery(queryString);
+      SelectResults sr = (SelectResults)query.execute();
+      Assert.assertTrue(sr.size() == 50);
+      int expected = 49;
+      for (Object r : sr.asList()) {
+        Assert.assertTrue(((Integer)r).intValue() == expected--);
+      }
+    } finally {
+      PRQueryProcessor.TEST_ADAPTIVE_PARALLELISM = false;
+      region.close();
+    }
+  }
+
   /**
    * Populates the region with the Objects stores in the data Object array.
    * 
@@ -151,4 +151,78 @@ public class HeapDataOutputStreamJUnitTest extends TestCase {
     }
   }
 
+  public void testPooledToByteArrayCopies() {
+    SerializationBufferPool.poolSize = 1;
+    try {
+      HeapDataOutputStream out = new HeapDataOutputStream(SerializationBufferPool.MIN_BUFFER_SIZE, Version.CURRENT, false, true);
+      assertTrue(out.isPooled());
+      byte[] bytes = new byte[SerializationBufferPool.MIN_BUFFER_SIZE];
+      for (int i = 0; i < bytes.length; i++) {
+        bytes[i] = (byte)i;
+      }
+      // exactly fills the pooled buffer which would otherwise be returned as is
+      out.write(bytes, 0, bytes.length);
+      byte[] actual = out.toByteArray();
+      out.release();
+      assertTrue(Arrays.equals(bytes, actual));
+      // a second release does nothing
+      out.release();
+    } finally {
+      SerializationBufferPool.poolSize = SerializationBufferPool.POOL_SIZE;
+    }
+  }
+
+  public void testDisabledPoolIsBypassed() {
+    SerializationBufferPool.poolSize = 0;
+    try {
+      HeapDataOutputStream out = new HeapDataOutputStream(100, Version.CURRENT, false, true);
+      assertFalse(out.isPooled());
+      byte[] bytes = new byte[100];
+      out.write(bytes, 0, bytes.length);
+      // a full buffer is handed back without a copy, as for any other stream
+      byte[] actual = out.toByteArray();
+      assertSame(actual, out.toByteArray());
+      assertEquals(100, actual.length);
+    } finally {
+      SerializationBufferPool.poolSize = SerializationBufferPool.POOL_SIZE;
+    }
+  }
+
+  public void testReleaseOfUnpooledStreamDoesNothing() {
+    HeapDataOutputStream out = new HeapDataOutputStream(64, Version.CURRENT);
+    assertFalse(out.isPooled());
+    out.writeInt(7);
+    out.release();
+    assertEquals(4, out.size());
+  }
+
+  public void testPoolReusesBuffers() {
+    SerializationBufferPool pool = new SerializationBufferPool(1);
+    ByteBuffer bb = pool.acquire(100);
+    assertEquals(SerializationBufferPool.MIN_BUFFER_SIZE, bb.capacity());
+    ByteBuffer bb2 = pool.acquire(SerializationBufferPool.MIN_BUFFER_SIZE + 1);
+    assertEquals(2 * SerializationBufferPool.MIN_BUFFER_SIZE, bb2.capacity());
+
+    bb.putInt(1);
+    pool.release(bb);
+    assertEquals(1, pool.getFreeCount(100));
+    // the pool only keeps one buffer of each size
+    pool.release(ByteBuffer.allocate(SerializationBufferPool.MIN_BUFFER_SIZE));
+    assertEquals(1, pool.getFreeCount(100));
+
+    ByteBuffer reused = pool.acquire(SerializationBufferPool.MIN_BUFFER_SIZE);
+    assertSame(bb, reused);
+    assertEquals(0, reused.position());
+    assertEquals(reused.capacity(), reused.limit());
+    assertEquals(0, pool.getFreeCount(100));
+  }
+
+  public void testPoolDoesNotKeepHugeBuffers() {
+    SerializationBufferPool pool = new SerializationBufferPool(1);
+    ByteBuffer bb = pool.acquire(SerializationBufferPool.MAX_BUFFER_SIZE + 1);
+    assertEquals(SerializationBufferPool.MAX_BUFFER_SIZE + 1, bb.capacity());
+    assertFalse(SerializationBufferPool.isPoolable(bb.capacity()));
+    pool.release(bb);
+    assertNotSame(bb, pool.acquire(SerializationBufferPool.MAX_BUFFER_SIZE + 1));
+  }
 }
@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.Cache;
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.PoolFactory;
+import com.gemstone.gemfire.cache.client.PoolManager;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.cache.client.internal.QueryOp;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.distributed.DistributedSystem;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests that the client ops give the pooled buffers of their messages
+ * back to the {@link SerializationBufferPool} of the calling thread.
+ *
+ * @since 9.0
+ */
+@Category(IntegrationTest.class)
+public class SerializationBufferPoolJUnitTest {
+
+  private static final String QUERY = "select * from /pooled p where p < $1";
+
+  private Cache cache;
+  private PoolImpl pool;
+
+  @Before
+  public void setUp() throws Exception {
+    SerializationBufferPool.poolSize = 2;
+    Properties props = new Properties();
+    props.setProperty("mcast-port", "0");
+    props.setProperty("locators", "");
+    cache = CacheFactory.create(DistributedSystem.connect(props));
+    Region<Integer, Integer> region = cache.<Integer, Integer>createRegionFactory(
+        RegionShortcut.REPLICATE).create("pooled");
+    for (int i = 0; i < 10; i++) {
+      region.put(i, i);
+    }
+    int port = AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET);
+    CacheServer server = cache.addCacheServer();
+    server.setPort(port);
+    server.start();
+
+    PoolFactory cpf = PoolManager.createFactory();
+    cpf.addServer("localhost", port);
+    pool = (PoolImpl)cpf.create("pooledpool");
+  }
+
+  @After
+  public void tearDown() {
+    SerializationBufferPool.poolSize = SerializationBufferPool.POOL_SIZE;
+    if (cache != null && !cache.isClosed()) {
+      cache.close();
+    }
+  }
+
+  @Test
+  public void testClientOpReleasesBuffers() throws Exception {
+    SerializationBufferPool bufferPool = SerializationBufferPool.getPool();
+    // the pool keeps at most two buffers, so without the release three ops
+    // would leave it empty
+    for (int i = 0; i < 3; i++) {
+      // the query parameter is serialized into a pooled buffer
+      assertEquals(5, QueryOp.execute(pool, QUERY, new Object[] { 5 }).size());
+      // which is back in the pool once the op is done
+      assertTrue(bufferPool.getFreeCount(SerializationBufferPool.MIN_BUFFER_SIZE) > 0);
+    }
+  }
+}
@@ -18,6 +18,7 @@ package com.gemstone.gemfire.internal.cache;
 
 import org.junit.experimental.categories.Category;
 
+import com.gemstone.gemfire.internal.size.ReflectionSingleObjectSizer;
 import com.gemstone.gemfire.test.junit.categories.UnitTest;
 
 import junit.framework.TestCase;
@@ -232,6 +233,50 @@ public class DiskIdJUnitTest extends TestCase
         DiskId.isInstanceofOverflowOnlyWithLongOffset(diskId));
   }
 
+  /**
+   * Tests that overflow only disk ids that keep their id in an int
+   * still return the oplog id and user bits that were set
+   */
+  public void testOverflowIntDiskIdOplogIdAndUserBits()
+  {
+    DiskId did = DiskId.createDiskId(2, false /*is overflow type*/, true);
+    int[] oplogIds = new int[] { -1, 0, 1, 1024, -1024,
+        DiskId.MAX_OVERFLOW_OPLOG_ID, -DiskId.MAX_OVERFLOW_OPLOG_ID };
+    byte[] userBitsArray = new byte[] { 0, -1, (byte)0x80, 0x7f,
+        EntryBits.setTombstone(EntryBits.setSerialized((byte)0, true), true) };
+    for (int oplogId : oplogIds) {
+      for (byte userBits : userBitsArray) {
+        did.setOplogId(oplogId);
+        did.setUserBits(userBits);
+        assertEquals(oplogId, did.getOplogId());
+        assertEquals(userBits, did.getUserBits());
+        did.setUserBits(userBits);
+        did.setOplogId(oplogId);
+        assertEquals(oplogId, did.getOplogId());
+        assertEquals(userBits, did.getUserBits());
+      }
+    }
+    try {
+      did.setOplogId(DiskId.MAX_OVERFLOW_OPLOG_ID + 1);
+      fail("expected IllegalStateException");
+    } catch (IllegalStateException expected) {
+    }
+  }
+
+  /**
+   * Tests that keeping the id of an overflow only disk id in an int
+   * makes it smaller than the persistent disk id with the same fields
+   */
+  public void testOverflowIntDiskIdIsSmaller()
+  {
+    ReflectionSingleObjectSizer sizer = new ReflectionSingleObjectSizer();
+    long overflow = sizer.sizeof(DiskId.createDiskId(2, false, true));
+    long overflowNoLL = sizer.sizeof(DiskId.createDiskId(2, false, false));
+    long overflowLong = sizer.sizeof(DiskId.createDiskId(4096, false, true));
+    assertTrue("overflow " + overflow + " long offset " + overflowLong, overflow < overflowLong);
+    assertTrue("overflow " + overflow + " no list " + overflowNoLL, overflowNoLL < overflow);
+  }
+
   private DiskId getDiskId()
   {
     return DiskId.createDiskId(1024, true /* is persistence type*/, true);
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.DataPolicy;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests synchronous persistent writes with
+ * {@link DiskStoreImpl#GROUP_COMMIT_PROPERTY_NAME} enabled.
+ */
+@Category(IntegrationTest.class)
+public class OplogGroupCommitJUnitTest extends DiskRegionTestingBase {
+
+  private static final int THREADS = 8;
+  private static final int OPS_PER_THREAD = 200;
+
+  @Before
+  public void setUp() throws Exception {
+    System.setProperty(DiskStoreImpl.GROUP_COMMIT_PROPERTY_NAME, "true");
+    super.setUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try {
+      super.tearDown();
+    } finally {
+      System.clearProperty(DiskStoreImpl.GROUP_COMMIT_PROPERTY_NAME);
+    }
+  }
+
+  @Test
+  public void testConcurrentWritersAreGroupCommitted() throws Exception {
+    final Region region = createRegion();
+    DiskStoreImpl store = ((LocalRegion) region).getDiskStore();
+    assertNotNull(store.getGroupCommitter());
+
+    doConcurrentOps(region);
+
+    DiskStoreStats stats = store.getStats();
+    long expectedWrites = THREADS * OPS_PER_THREAD * 4;
+    assertEquals(expectedWrites, stats.getGroupCommitWrites());
+    assertTrue("expected at least one group commit", stats.getGroupCommits() > 0);
+    assertTrue(stats.getGroupCommits() <= expectedWrites);
+
+    cache.close();
+    cache = createCache();
+    Region recovered = createRegion();
+    for (int t = 0; t < THREADS; t++) {
+      for (int i = 0; i < OPS_PER_THREAD; i++) {
+        assertEquals("B", recovered.get(key(t, i)));
+        assertNull(recovered.get(key(t, i) + "-destroyed"));
+      }
+    }
+  }
+
+  @Test
+  public void testWriterCommitsItselfAfterCommitterStopped() throws Exception {
+    Region region = createRegion();
+    DiskStoreImpl store = ((LocalRegion) region).getDiskStore();
+    DiskStoreStats stats = store.getStats();
+    store.getGroupCommitter().stop();
+    long commits = stats.getGroupCommits();
+    long writes = stats.getGroupCommitWrites();
+
+    region.put("key", "value");
+
+    assertEquals(commits + 1, stats.getGroupCommits());
+    assertEquals(writes + 1, stats.getGroupCommitWrites());
+    cache.close();
+    cache = createCache();
+    assertEquals("value", createRegion().get("key"));
+  }
+
+  @Test
+  public void testGroupCommitDisabledByDefault() {
+    System.clearProperty(DiskStoreImpl.GROUP_COMMIT_PROPERTY_NAME);
+    Region region = createRegion();
+    DiskStoreImpl store = ((LocalRegion) region).getDiskStore();
+    assertNull(store.getGroupCommitter());
+    region.put("key", "value");
+    assertEquals(0, store.getStats().getGroupCommits());
+  }
+
+  private void doConcurrentOps(final Region region) throws InterruptedException {
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      final int threadId = t;
+      threads[t] = new Thread(new Runnable() {
+        public void run() {
+          try {
+            start.await();
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+              region.put(key(threadId, i), "A");
+              region.put(key(threadId, i), "B");
+            }
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+              region.put(key(threadId, i) + "-destroyed", "A");
+              region.destroy(key(threadId, i) + "-destroyed");
+            }
+          } catch (Throwable e) {
+            failure.compareAndSet(null, e);
+          }
+        }
+      }, "groupCommitWriter-" + t);
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+  }
+
+  private static String key(int threadId, int i) {
+    return threadId + "-" + i;
+  }
+
+  private Region createRegion() {
+    if (cache.findDiskStore("store") == null) {
+      cache.createDiskStoreFactory().setDiskDirs(dirs).create("store");
+    }
+    return cache.createRegionFactory().setDiskStoreName("store").setDiskSynchronous(true)
+        .setDataPolicy(DataPolicy.PERSISTENT_REPLICATE).create("regionName");
+  }
+}
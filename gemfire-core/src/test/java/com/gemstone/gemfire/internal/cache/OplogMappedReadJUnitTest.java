@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.DataPolicy;
+import com.gemstone.gemfire.cache.EvictionAction;
+import com.gemstone.gemfire.cache.EvictionAttributes;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests faulting values in from memory mapped oplogs with
+ * {@link DiskStoreImpl#MMAP_READS_PROPERTY_NAME} enabled.
+ */
+@Category(IntegrationTest.class)
+public class OplogMappedReadJUnitTest extends DiskRegionTestingBase {
+
+  private static final int ENTRIES = 5000;
+
+  @Before
+  public void setUp() throws Exception {
+    System.setProperty(DiskStoreImpl.MMAP_READS_PROPERTY_NAME, "true");
+    super.setUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try {
+      super.tearDown();
+    } finally {
+      System.clearProperty(DiskStoreImpl.MMAP_READS_PROPERTY_NAME);
+    }
+  }
+
+  @Test
+  public void testPersistentOverflowFaultsFromMappedOplogs() {
+    Region region = createRegion(DataPolicy.PERSISTENT_REPLICATE);
+    putAndCheck(region);
+  }
+
+  @Test
+  public void testOverflowFaultsFromMappedOplogs() {
+    Region region = createRegion(DataPolicy.REPLICATE);
+    putAndCheck(region);
+  }
+
+  @Test
+  public void testRecoveredValuesFaultFromMappedOplogs() {
+    Region region = createRegion(DataPolicy.PERSISTENT_REPLICATE);
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i));
+    }
+    cache.close();
+    cache = createCache();
+    region = createRegion(DataPolicy.PERSISTENT_REPLICATE);
+    for (int i = 0; i < ENTRIES; i++) {
+      assertEquals(value(i), region.get(i));
+    }
+    assertTrue(((LocalRegion) region).getDiskStore().getStats().getOplogMappedReads() > 0);
+  }
+
+  @Test
+  public void testMappingIsUnmappedAfterLastReaderReleasesIt() throws Exception {
+    File f = File.createTempFile("OplogMappedReadJUnitTest", ".crf");
+    try {
+      byte[] bytes = value(7).getBytes("UTF-8");
+      FileOutputStream out = new FileOutputStream(f);
+      try {
+        out.write(bytes);
+      } finally {
+        out.close();
+      }
+      OplogFileMapping mapping = OplogFileMapping.map(f, bytes.length);
+      assertTrue(mapping.retain());
+      mapping.close();
+      // a reader that retained the mapping before it was closed can still use it
+      assertArrayEquals(bytes, mapping.read(0, bytes.length));
+      mapping.release();
+      // once it is unmapped new readers have to go through the file
+      assertFalse(mapping.retain());
+      mapping.close();
+      assertFalse(mapping.retain());
+    } finally {
+      f.delete();
+    }
+  }
+
+  private void putAndCheck(Region region) {
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i));
+    }
+    // read everything back twice so the second pass hits oplogs that
+    // were mapped by the first one
+    for (int pass = 0; pass < 2; pass++) {
+      for (int i = 0; i < ENTRIES; i++) {
+        assertEquals(value(i), region.get(i));
+      }
+    }
+    assertTrue(((LocalRegion) region).getDiskStore().getStats().getOplogMappedReads() > 0);
+  }
+
+  private static String value(int i) {
+    StringBuilder sb = new StringBuilder();
+    for (int j = 0; j < 100; j++) {
+      sb.append(i);
+    }
+    return sb.toString();
+  }
+
+  private Region createRegion(DataPolicy dataPolicy) {
+    if (cache.findDiskStore("store") == null) {
+      cache.createDiskStoreFactory().setMaxOplogSize(1).setDiskDirs(dirs).create("store");
+    }
+    return cache.createRegionFactory().setDiskStoreName("store").setDiskSynchronous(true)
+        .setDataPolicy(dataPolicy)
+        .setEvictionAttributes(EvictionAttributes.createLRUEntryAttributes(10, EvictionAction.OVERFLOW_TO_DISK))
+        .create("regionName");
+  }
+}
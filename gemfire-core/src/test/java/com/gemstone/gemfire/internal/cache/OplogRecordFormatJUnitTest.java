@@ -0,0 +1,208 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.DataPolicy;
+import com.gemstone.gemfire.cache.DiskAccessException;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.compression.SnappyCompressor;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests writing and recovering oplogs with
+ * {@link DiskStoreImpl#RECORD_CHECKSUMS_PROPERTY_NAME} and
+ * {@link DiskStoreImpl#VALUE_COMPRESSOR_PROPERTY_NAME} set.
+ */
+@Category(IntegrationTest.class)
+public class OplogRecordFormatJUnitTest extends DiskRegionTestingBase {
+
+  private static final int ENTRIES = 1000;
+
+  @After
+  public void tearDown() throws Exception {
+    try {
+      super.tearDown();
+    } finally {
+      System.clearProperty(DiskStoreImpl.RECORD_CHECKSUMS_PROPERTY_NAME);
+      System.clearProperty(DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME);
+    }
+  }
+
+  @Test
+  public void testRecoverCompressedAndChecksummedOplogs() {
+    System.setProperty(DiskStoreImpl.RECORD_CHECKSUMS_PROPERTY_NAME, "true");
+    System.setProperty(DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME, SnappyCompressor.class.getName());
+    Region region = createRegion(1);
+    putEntries(region);
+    DiskStoreStats stats = ((LocalRegion) region).getDiskStore().getStats();
+    assertTrue(stats.getValueBytesAfterCompression() < stats.getValueBytesBeforeCompression());
+    checkEntries(region);
+    cache.close();
+
+    // the oplogs say how they were written so recovery does not need the
+    // properties
+    System.clearProperty(DiskStoreImpl.RECORD_CHECKSUMS_PROPERTY_NAME);
+    System.clearProperty(DiskStoreImpl.VALUE_COMPRESSOR_PROPERTY_NAME);
+    cache = createCache();
+    region = createRegion(1);
+    checkEntries(region);
+    // old oplogs keep their format after new ones are written without it
+    ((LocalRegion) region).getDiskStore().forceRoll();
+    region.put("new", "new value");
+    cache.close();
+
+    deleteKrfs();
+    cache = createCache();
+    region = createRegion(1);
+    checkEntries(region);
+    assertEquals("new value", region.get("new"));
+    assertEquals(0, ((LocalRegion) region).getDiskStore().getStats().getRecordChecksumFailures());
+  }
+
+  @Test
+  public void testTornLastRecordIsDropped() throws IOException {
+    System.setProperty(DiskStoreImpl.RECORD_CHECKSUMS_PROPERTY_NAME, "true");
+    Region region = createRegion(100);
+    putEntries(region);
+    region.put("last", "the last value written");
+    cache.close();
+
+    deleteKrfs();
+    corrupt("the last value written");
+    cache = createCache();
+    region = createRegion(100);
+    checkEntries(region);
+    assertNull(region.get("last"));
+    assertEquals(1, ((LocalRegion) region).getDiskStore().getStats().getRecordChecksumFailures());
+  }
+
+  @Test
+  public void testCorruptRecordFailsRecovery() throws IOException {
+    System.setProperty(DiskStoreImpl.RECORD_CHECKSUMS_PROPERTY_NAME, "true");
+    Region region = createRegion(100);
+    region.put("first", "the first value written");
+    putEntries(region);
+    cache.close();
+
+    deleteKrfs();
+    corrupt("the first value written");
+    cache = createCache();
+    try {
+      createRegion(100);
+      fail("expected DiskAccessException");
+    } catch (DiskAccessException expected) {
+    }
+  }
+
+  private static void putEntries(Region region) {
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i));
+    }
+    for (int i = 0; i < ENTRIES; i += 2) {
+      region.put(i, value(i + 1));
+    }
+  }
+
+  private static void checkEntries(Region region) {
+    for (int i = 0; i < ENTRIES; i++) {
+      assertEquals(i % 2 == 0 ? value(i + 1) : value(i), region.get(i));
+    }
+  }
+
+  private static String value(int i) {
+    StringBuilder sb = new StringBuilder();
+    for (int j = 0; j < 50; j++) {
+      sb.append("value").append(i);
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Deletes the krf files so recovery reads the crf files.
+   */
+  private static void deleteKrfs() {
+    for (File dir : dirs) {
+      for (File f : dir.listFiles()) {
+        if (f.getName().endsWith(".krf")) {
+          assertTrue(f.delete());
+        }
+      }
+    }
+  }
+
+  /**
+   * Flips a byte of the given string in the crf that contains it.
+   */
+  private static void corrupt(String value) throws IOException {
+    byte[] pattern = value.getBytes(Charset.forName("US-ASCII"));
+    for (File dir : dirs) {
+      for (File f : dir.listFiles()) {
+        if (!f.getName().endsWith(".crf")) {
+          continue;
+        }
+        byte[] bytes = Files.readAllBytes(f.toPath());
+        int idx = indexOf(bytes, pattern);
+        if (idx >= 0) {
+          RandomAccessFile raf = new RandomAccessFile(f, "rw");
+          try {
+            raf.seek(idx);
+            raf.write(bytes[idx] ^ 0xff);
+          } finally {
+            raf.close();
+          }
+          return;
+        }
+      }
+    }
+    fail("did not find " + value + " in a crf");
+  }
+
+  private static int indexOf(byte[] bytes, byte[] pattern) {
+    outer: for (int i = 0; i <= bytes.length - pattern.length; i++) {
+      for (int j = 0; j < pattern.length; j++) {
+        if (bytes[i + j] != pattern[j]) {
+          continue outer;
+        }
+      }
+      return i;
+    }
+    return -1;
+  }
+
+  private Region createRegion(int maxOplogSizeMB) {
+    if (cache.findDiskStore("store") == null) {
+      cache.createDiskStoreFactory().setMaxOplogSize(maxOplogSizeMB).setAutoCompact(false).setDiskDirs(dirs).create("store");
+    }
+    return cache.createRegionFactory().setDiskStoreName("store").setDiskSynchronous(true)
+        .setDataPolicy(DataPolicy.PERSISTENT_REPLICATE).create("regionName");
+  }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.DataPolicy;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests recovering a disk store with many oplogs while the drf and krf files
+ * are read ahead by {@link OplogRecoveryPrefetcher}.
+ */
+@Category(IntegrationTest.class)
+public class OplogRecoveryPrefetchJUnitTest extends DiskRegionTestingBase {
+
+  private static final int ENTRIES = 5000;
+
+  @After
+  public void tearDown() throws Exception {
+    try {
+      super.tearDown();
+    } finally {
+      System.clearProperty(DiskStoreImpl.RECOVERY_THREADS_PROPERTY_NAME);
+    }
+  }
+
+  @Test
+  public void testRecoveryWithPrefetch() {
+    System.setProperty(DiskStoreImpl.RECOVERY_THREADS_PROPERTY_NAME, "4");
+    DiskStoreStats stats = createAndRecover();
+    assertTrue("expected files to be prefetched", stats.getRecoveryPrefetches() > 0);
+    assertTrue(stats.getRecoveryPrefetchBytes() > 0);
+  }
+
+  @Test
+  public void testRecoveryWithoutPrefetch() {
+    System.setProperty(DiskStoreImpl.RECOVERY_THREADS_PROPERTY_NAME, "0");
+    DiskStoreStats stats = createAndRecover();
+    assertEquals(0, stats.getRecoveryPrefetches());
+  }
+
+  private DiskStoreStats createAndRecover() {
+    Region region = createRegion();
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i));
+    }
+    // overwrite and destroy entries written to older oplogs
+    for (int i = 0; i < ENTRIES; i += 3) {
+      region.put(i, value(i + 1));
+    }
+    for (int i = 1; i < ENTRIES; i += 3) {
+      region.destroy(i);
+    }
+    cache.close();
+
+    cache = createCache();
+    region = createRegion();
+    for (int i = 0; i < ENTRIES; i++) {
+      if (i % 3 == 0) {
+        assertEquals(value(i + 1), region.get(i));
+      } else if (i % 3 == 1) {
+        assertNull(region.get(i));
+      } else {
+        assertEquals(value(i), region.get(i));
+      }
+    }
+    return ((LocalRegion) region).getDiskStore().getStats();
+  }
+
+  private static String value(int i) {
+    StringBuilder sb = new StringBuilder();
+    for (int j = 0; j < 100; j++) {
+      sb.append(i);
+    }
+    return sb.toString();
+  }
+
+  private Region createRegion() {
+    if (cache.findDiskStore("store") == null) {
+      cache.createDiskStoreFactory().setMaxOplogSize(1).setDiskDirs(dirs).create("store");
+    }
+    return cache.createRegionFactory().setDiskStoreName("store").setDiskSynchronous(true)
+        .setDataPolicy(DataPolicy.PERSISTENT_REPLICATE).create("regionName");
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.DataPolicy;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests compaction with
+ * {@link DiskStoreImpl#COMPACTION_MAX_MB_PER_SEC_PROPERTY_NAME} set.
+ */
+@Category(IntegrationTest.class)
+public class OplogThrottledCompactionJUnitTest extends DiskRegionTestingBase {
+
+  private static final int ENTRIES = 3000;
+
+  @Before
+  public void setUp() throws Exception {
+    System.setProperty(DiskStoreImpl.COMPACTION_MAX_MB_PER_SEC_PROPERTY_NAME, "2");
+    System.setProperty("gemfire.disk.compactionSliceKB", "64");
+    super.setUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try {
+      super.tearDown();
+    } finally {
+      System.clearProperty(DiskStoreImpl.COMPACTION_MAX_MB_PER_SEC_PROPERTY_NAME);
+      System.clearProperty("gemfire.disk.compactionSliceKB");
+    }
+  }
+
+  @Test
+  public void testThrottledCompaction() {
+    Region region = createRegion();
+    DiskStoreImpl store = ((LocalRegion) region).getDiskStore();
+    assertTrue(store.isCompactionThrottled());
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i));
+    }
+    // leave a third of the entries live in the older oplogs
+    for (int i = 0; i < ENTRIES; i++) {
+      if (i % 3 != 0) {
+        region.put(i, value(i + 1));
+      }
+    }
+    assertTrue(store.forceCompaction());
+
+    DiskStoreStats stats = store.getStats();
+    assertTrue("expected the compactor to pause between slices", stats.getCompactionThrottleWaits() > 0);
+    assertTrue(stats.getCompactionBytesReclaimed() > 0);
+    assertEquals(0, store.numCompactableOplogs());
+    checkValues(region);
+
+    cache.close();
+    cache = createCache();
+    checkValues(createRegion());
+  }
+
+  @Test
+  public void testRegionClosedWhileCompactionIsPaused() throws Exception {
+    final Region region = createRegion();
+    Region other = createRegion("otherRegion");
+    final DiskStoreImpl store = ((LocalRegion) region).getDiskStore();
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i));
+      other.put(i, value(i));
+    }
+    for (int i = 0; i < ENTRIES; i++) {
+      if (i % 3 != 0) {
+        region.put(i, value(i + 1));
+        other.put(i, value(i + 1));
+      }
+    }
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      Future<Boolean> compaction = executor.submit(new Callable<Boolean>() {
+        public Boolean call() {
+          return store.forceCompaction();
+        }
+      });
+      // close a region while the compactor is paused between slices, which
+      // is when it does not hold the compactor locks
+      long deadline = System.currentTimeMillis() + 30000;
+      while (store.getStats().getCompactionThrottleWaits() == 0 && !compaction.isDone()
+          && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      other.close();
+      assertTrue(compaction.get(60, TimeUnit.SECONDS));
+    } finally {
+      executor.shutdownNow();
+    }
+    checkValues(region);
+
+    cache.close();
+    cache = createCache();
+    checkValues(createRegion());
+    checkValues(createRegion("otherRegion"));
+  }
+
+  @Test
+  public void testUnthrottledByDefault() {
+    System.clearProperty(DiskStoreImpl.COMPACTION_MAX_MB_PER_SEC_PROPERTY_NAME);
+    Region region = createRegion();
+    DiskStoreImpl store = ((LocalRegion) region).getDiskStore();
+    for (int i = 0; i < ENTRIES; i++) {
+      region.put(i, value(i));
+      region.put(i, value(i + 1));
+    }
+    store.forceCompaction();
+    assertEquals(0, store.getStats().getCompactionThrottleWaits());
+  }
+
+  private void checkValues(Region region) {
+    for (int i = 0; i < ENTRIES; i++) {
+      assertEquals(i % 3 == 0 ? value(i) : value(i + 1), region.get(i));
+    }
+  }
+
+  private static String value(int i) {
+    StringBuilder sb = new StringBuilder();
+    for (int j = 0; j < 100; j++) {
+      sb.append(i);
+    }
+    return sb.toString();
+  }
+
+  private Region createRegion() {
+    return createRegion("regionName");
+  }
+
+  private Region createRegion(String name) {
+    if (cache.findDiskStore("store") == null) {
+      cache.createDiskStoreFactory().setMaxOplogSize(1).setAutoCompact(false).setAllowForceCompaction(true)
+          .setCompactionThreshold(90).setDiskDirs(dirs).create("store");
+    }
+    return cache.createRegionFactory().setDiskStoreName("store").setDiskSynchronous(true)
+        .setDataPolicy(DataPolicy.PERSISTENT_REPLICATE).create(name);
+  }
+}
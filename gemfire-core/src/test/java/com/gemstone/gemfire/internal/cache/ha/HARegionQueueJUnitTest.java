@@ -49,11 +49,18 @@ import com.gemstone.gemfire.cache.CacheFactory;
 import com.gemstone.gemfire.cache.CacheListener;
 import com.gemstone.gemfire.cache.EntryEvent;
 import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
 import com.gemstone.gemfire.cache.util.CacheListenerAdapter;
 import com.gemstone.gemfire.distributed.DistributedSystem;
 import com.gemstone.gemfire.internal.cache.Conflatable;
+import com.gemstone.gemfire.internal.cache.EnumListenerEvent;
 import com.gemstone.gemfire.internal.cache.EventID;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
 import com.gemstone.gemfire.internal.cache.RegionQueue;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ClientProxyMembershipID;
+import com.gemstone.gemfire.internal.cache.tier.sockets.ClientUpdateMessageImpl;
+import com.gemstone.gemfire.internal.cache.tier.sockets.HandShake;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
 import dunit.DistributedTestCase;
@@ -2055,6 +2062,38 @@ public class HARegionQueueJUnitTest
 
   }
 
+  /**
+   * Tests that peekAvailable peeks the events behind the one already peeked
+   * by peek() and that one remove() removes all of them.
+   */
+  @Test
+  public void testPeekAvailableAfterPeek() throws Exception
+  {
+    HARegionQueueAttributes haa = new HARegionQueueAttributes();
+    haa.setExpiryTime(300);
+    HARegionQueue regionqueue = HARegionQueue.getHARegionQueueInstance("testing", cache, haa, HARegionQueue.BLOCKING_HA_QUEUE, false);
+    for (int i = 0; i < 10; ++i) {
+      regionqueue.put(new ConflatableObject("key" + i, "value", new EventID(
+          new byte[] { 1 }, 1, i), false, "testing"));
+    }
+
+    Conflatable first = (Conflatable)regionqueue.peek();
+    assertEquals(0, first.getEventId().getSequenceID());
+    List objs = regionqueue.peekAvailable(5);
+    assertEquals(5, objs.size());
+    for (int j = 0; j < objs.size(); j++) {
+      assertEquals(j + 1, ((Conflatable)objs.get(j)).getEventId().getSequenceID());
+    }
+    regionqueue.remove();
+    assertEquals(4, regionqueue.size());
+
+    assertEquals(6, ((Conflatable)regionqueue.peek()).getEventId().getSequenceID());
+    assertEquals(3, regionqueue.peekAvailable(10).size());
+    regionqueue.remove();
+    assertEquals(0, regionqueue.size());
+    assertEquals(0, regionqueue.peekAvailable(10).size());
+  }
+
   private void testBatchPeekWithRemove(boolean createBlockingQueue)
   {
     HARegionQueueAttributes haa = new HARegionQueueAttributes();
@@ -2151,4 +2190,79 @@ public class HARegionQueueJUnitTest
       Assert.assertEquals("messageSyncInterval not updated.",
           updatedMessageSyncInterval, HARegionQueue.getMessageSyncInterval());
   }
+
+  /**
+   * Tests that the updates queued for a near cache client, which only
+   * receives invalidates, are conflated when the server asks for it, while
+   * its creates and the events of a client that turned conflation off are
+   * all kept.
+   */
+  @Test
+  public void testConflationOfUpdatesSentAsInvalidates() throws Exception
+  {
+    // subscription conflation is not enabled on the region
+    LocalRegion region = (LocalRegion)cache.createRegionFactory(RegionShortcut.REPLICATE)
+        .create("testConflationOfUpdatesSentAsInvalidates");
+    ClientProxyMembershipID clientId = new ClientProxyMembershipID(
+        cache.getDistributedSystem().getDistributedMember());
+    boolean conflateInvalidates = HARegionQueue.conflateInvalidates;
+    try {
+      HARegionQueue.conflateInvalidates = false;
+      HARegionQueue queue = createClientQueue("notConflatedByDefault", clientId,
+          HandShake.CONFLATION_DEFAULT);
+      putCreateAndUpdates(queue, region, clientId, true);
+      assertEquals(3, queue.size());
+
+      HARegionQueue.conflateInvalidates = true;
+      queue = createClientQueue("conflated", clientId, HandShake.CONFLATION_DEFAULT);
+      putCreateAndUpdates(queue, region, clientId, true);
+      // the create and the latest update are left, both sent as invalidates
+      assertEquals(2, queue.size());
+      ClientUpdateMessageImpl create = (ClientUpdateMessageImpl)queue.take();
+      assertTrue(create.isCreate());
+      ClientUpdateMessageImpl update = (ClientUpdateMessageImpl)queue.take();
+      assertTrue(update.isUpdate());
+      assertEquals("value-2", update.getValue());
+      assertTrue(update.isClientInterestedInInvalidates(clientId));
+      assertFalse(update.isClientInterestedInUpdates(clientId));
+
+      // a client that receives values gets every update
+      queue = createClientQueue("receivesValues", clientId, HandShake.CONFLATION_DEFAULT);
+      putCreateAndUpdates(queue, region, clientId, false);
+      assertEquals(3, queue.size());
+
+      // as does a client that turned conflation off
+      queue = createClientQueue("conflationOff", clientId, HandShake.CONFLATION_OFF);
+      putCreateAndUpdates(queue, region, clientId, true);
+      assertEquals(3, queue.size());
+    }
+    finally {
+      HARegionQueue.conflateInvalidates = conflateInvalidates;
+    }
+  }
+
+  private HARegionQueue createClientQueue(String name,
+      ClientProxyMembershipID clientId, byte clientConflation) throws Exception
+  {
+    return HARegionQueue.getHARegionQueueInstance(name, (GemFireCacheImpl)cache,
+        new HARegionQueueAttributes(), HARegionQueue.NON_BLOCKING_HA_QUEUE, false,
+        null, clientId, clientConflation, true, false);
+  }
+
+  /**
+   * Queues a create and two updates of the same key for the client.
+   */
+  private void putCreateAndUpdates(HARegionQueue queue, LocalRegion region,
+      ClientProxyMembershipID clientId, boolean invalidatesOnly) throws Exception
+  {
+    EnumListenerEvent[] ops = { EnumListenerEvent.AFTER_CREATE,
+        EnumListenerEvent.AFTER_UPDATE, EnumListenerEvent.AFTER_UPDATE };
+    for (int i = 0; i < ops.length; i++) {
+      ClientUpdateMessageImpl msg = new ClientUpdateMessageImpl(ops[i], region,
+          "key", "value-" + i, (byte)0x01, null, clientId,
+          new EventID(new byte[] { 1 }, 1, i + 1));
+      msg.addClientInterestList(clientId, !invalidatesOnly);
+      queue.put(msg);
+    }
+  }
 }
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.EntryEvent;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionFactory;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.cache.client.ClientCacheFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionFactory;
+import com.gemstone.gemfire.cache.client.ClientRegionShortcut;
+import com.gemstone.gemfire.cache.client.internal.PoolImpl;
+import com.gemstone.gemfire.cache.client.internal.QueueStateImpl.SequenceIdAndExpirationObject;
+import com.gemstone.gemfire.cache.server.CacheServer;
+import com.gemstone.gemfire.cache.util.CacheListenerAdapter;
+import com.gemstone.gemfire.distributed.DistributedSystem;
+import com.gemstone.gemfire.distributed.internal.DistributionConfig;
+import com.gemstone.gemfire.internal.AvailablePort;
+import com.gemstone.gemfire.internal.cache.EntryEventImpl;
+import com.gemstone.gemfire.internal.cache.EventID;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.ha.ThreadIdentifier;
+
+import dunit.DistributedTestCase;
+import dunit.Host;
+import dunit.VM;
+
+/**
+ * Tests that the events queued for a client are dispatched to it in batches
+ * by {@link CacheClientProxy} and that {@link CacheClientUpdater} applies the
+ * events of a batch in order, skipping the ones the client has already seen.
+ *
+ * @since 9.0
+ */
+@SuppressWarnings("serial")
+public class ClientEventBatchDUnitTest extends DistributedTestCase {
+
+  private static final String REGION_NAME = "ClientEventBatchDUnitTest_region";
+
+  private static final String KEY = "KEY";
+
+  private static final int NUM_PUTS = 20;
+
+  private static final int NUM_SEEN = 5;
+
+  private static VM server;
+
+  private static VM client;
+
+  private static GemFireCacheImpl cache;
+
+  /** The events of the puts done on the server, in order */
+  private static final List<EventID> serverEvents = new ArrayList<EventID>();
+
+  /** The values received by the client, in order */
+  private static final List<Integer> clientValues = new ArrayList<Integer>();
+
+  public ClientEventBatchDUnitTest(String name) {
+    super(name);
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    server = Host.getHost(0).getVM(0);
+    client = Host.getHost(0).getVM(1);
+  }
+
+  @Override
+  public void tearDown2() throws Exception {
+    client.invoke(ClientEventBatchDUnitTest.class, "closeCache");
+    server.invoke(ClientEventBatchDUnitTest.class, "closeCache");
+  }
+
+  public void testBatchIsAppliedInOrderWithoutDuplicates() throws Exception {
+    int port = (Integer)server.invoke(ClientEventBatchDUnitTest.class,
+        "createCacheServer");
+
+    // register durable interest and go away, so that the puts are queued
+    // for the client while its proxy is paused
+    client.invoke(ClientEventBatchDUnitTest.class, "createClientCache",
+        new Object[] { client.getHost(), port });
+    client.invoke(ClientEventBatchDUnitTest.class, "registerInterest");
+    client.invoke(ClientEventBatchDUnitTest.class, "readyForEvents");
+    client.invoke(ClientEventBatchDUnitTest.class, "closeCache",
+        new Object[] { Boolean.TRUE });
+
+    server.invoke(ClientEventBatchDUnitTest.class, "doPuts");
+    EventID lastSeen = (EventID)server.invoke(ClientEventBatchDUnitTest.class,
+        "getServerEvent", new Object[] { NUM_SEEN - 1 });
+
+    // come back having already seen the first few events, as after a failover
+    client.invoke(ClientEventBatchDUnitTest.class, "createClientCache",
+        new Object[] { client.getHost(), port });
+    client.invoke(ClientEventBatchDUnitTest.class, "markAsSeen",
+        new Object[] { lastSeen });
+    client.invoke(ClientEventBatchDUnitTest.class, "readyForEvents");
+
+    client.invoke(ClientEventBatchDUnitTest.class, "verifyClientValues");
+    server.invoke(ClientEventBatchDUnitTest.class, "verifyBatchesSent");
+  }
+
+  public static void closeCache() throws Exception {
+    closeCache(Boolean.FALSE);
+  }
+
+  public static void closeCache(Boolean keepAlive) throws Exception {
+    if (cache != null && !cache.isClosed()) {
+      cache.close(keepAlive);
+    }
+    cache = null;
+  }
+
+  public static Integer createCacheServer() throws Exception {
+    Properties props = new Properties();
+    props.setProperty("locators", "localhost[" + getDUnitLocatorPort() + "]");
+    ClientEventBatchDUnitTest test = new ClientEventBatchDUnitTest(
+        "ClientEventBatchDUnitTest");
+    DistributedSystem ds = test.getSystem(props);
+    ds.disconnect();
+    cache = (GemFireCacheImpl)CacheFactory.create(test.getSystem());
+
+    RegionFactory<String, Integer> rf = cache
+        .createRegionFactory(RegionShortcut.REPLICATE);
+    rf.addCacheListener(new CacheListenerAdapter<String, Integer>() {
+      @Override
+      public void afterCreate(EntryEvent<String, Integer> event) {
+        record(event);
+      }
+
+      @Override
+      public void afterUpdate(EntryEvent<String, Integer> event) {
+        record(event);
+      }
+
+      private void record(EntryEvent<String, Integer> event) {
+        synchronized (serverEvents) {
+          serverEvents.add(((EntryEventImpl)event).getEventId());
+        }
+      }
+    });
+    rf.create(REGION_NAME);
+
+    CacheServer server = cache.addCacheServer();
+    server.setPort(AvailablePort.getRandomAvailablePort(AvailablePort.SOCKET));
+    server.start();
+    return server.getPort();
+  }
+
+  public static void createClientCache(Host host, Integer port)
+      throws Exception {
+    Properties props = new Properties();
+    props.setProperty(DistributionConfig.MCAST_PORT_NAME, "0");
+    props.setProperty(DistributionConfig.LOCATORS_NAME, "");
+    props.setProperty(DistributionConfig.DURABLE_CLIENT_ID_NAME,
+        "ClientEventBatchDUnitTest_client");
+    props.setProperty(DistributionConfig.DURABLE_CLIENT_TIMEOUT_NAME, "300");
+    DistributedSystem ds = new ClientEventBatchDUnitTest(
+        "ClientEventBatchDUnitTest").getSystem(props);
+    ds.disconnect();
+
+    ClientCacheFactory ccf = new ClientCacheFactory(props);
+    ccf.setPoolSubscriptionEnabled(true);
+    ccf.setPoolSubscriptionAckInterval(50);
+    ccf.addPoolServer(host.getHostName(), port);
+    cache = (GemFireCacheImpl)ccf.create();
+
+    synchronized (clientValues) {
+      clientValues.clear();
+    }
+    ClientRegionFactory<String, Integer> crf = cache
+        .createClientRegionFactory(ClientRegionShortcut.CACHING_PROXY);
+    crf.addCacheListener(new CacheListenerAdapter<String, Integer>() {
+      @Override
+      public void afterCreate(EntryEvent<String, Integer> event) {
+        record(event);
+      }
+
+      @Override
+      public void afterUpdate(EntryEvent<String, Integer> event) {
+        record(event);
+      }
+
+      private void record(EntryEvent<String, Integer> event) {
+        synchronized (clientValues) {
+          clientValues.add(event.getNewValue());
+        }
+      }
+    });
+    crf.create(REGION_NAME);
+  }
+
+  public static void registerInterest() {
+    cache.getRegion(REGION_NAME).registerInterest("ALL_KEYS", true);
+  }
+
+  public static void readyForEvents() {
+    cache.readyForEvents();
+  }
+
+  public static void doPuts() {
+    Region<String, Integer> region = cache.getRegion(REGION_NAME);
+    for (int i = 1; i <= NUM_PUTS; i++) {
+      region.put(KEY, i);
+    }
+  }
+
+  public static EventID getServerEvent(Integer index) {
+    synchronized (serverEvents) {
+      assertEquals(NUM_PUTS, serverEvents.size());
+      return serverEvents.get(index);
+    }
+  }
+
+  /**
+   * Records the given event, and with it all the earlier events of its
+   * thread, as already received by the client.
+   */
+  @SuppressWarnings("unchecked")
+  public static void markAsSeen(EventID eventId) throws Exception {
+    Constructor<SequenceIdAndExpirationObject> ctor = SequenceIdAndExpirationObject.class
+        .getDeclaredConstructor(long.class, long.class);
+    ctor.setAccessible(true);
+    Map map = ((PoolImpl)cache.getDefaultPool()).getThreadIdToSequenceIdMap();
+    synchronized (map) {
+      map.put(new ThreadIdentifier(eventId.getMembershipID(), eventId.getThreadID()),
+          ctor.newInstance(eventId.getSequenceID(), -1L));
+    }
+  }
+
+  public static void verifyClientValues() {
+    WaitCriterion ev = new WaitCriterion() {
+      public boolean done() {
+        synchronized (clientValues) {
+          return clientValues.contains(NUM_PUTS);
+        }
+      }
+      public String description() {
+        return "client did not receive the last update, received " + clientValues;
+      }
+    };
+    waitForCriterion(ev, 30 * 1000, 200, true);
+
+    List<Integer> expected = new ArrayList<Integer>();
+    for (int i = NUM_SEEN + 1; i <= NUM_PUTS; i++) {
+      expected.add(i);
+    }
+    synchronized (clientValues) {
+      assertEquals(expected, clientValues);
+    }
+  }
+
+  public static void verifyBatchesSent() {
+    CacheClientProxy proxy = CacheClientNotifier.getInstance().getClientProxies()
+        .iterator().next();
+    assertTrue("no batch was sent to the client",
+        proxy.getStatistics().getMessageBatchesSent() > 0);
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.Semaphore;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.cache.tier.MessageType;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Tests framing client messages with {@link MessageFrameReader}.
+ */
+@Category(UnitTest.class)
+public class MessageFrameReaderJUnitTest {
+
+  @Test
+  public void testFrameArrivingInPieces() throws IOException {
+    // small parts are picked out of the chunk buffer, the large one is read
+    // straight into its array
+    int[] partLengths = {10, 0, 20000, 3};
+    byte[] frame = createFrame(partLengths);
+    // three bytes per read, and every other read finds nothing
+    ChunkedChannel ch = new ChunkedChannel(frame, 3);
+    MessageFrameReader reader = new MessageFrameReader(0);
+    int reads = 0;
+    while (!reader.readFrom(ch)) {
+      assertFalse(reader.isComplete());
+      assertEquals(0, reader.getInputStream().available());
+      reads++;
+    }
+    assertTrue(reads > 1);
+    assertTrue(reader.isComplete());
+    checkFrame(frame, partLengths, reader);
+    assertEquals(-1, reader.getInputStream().read());
+  }
+
+  @Test
+  public void testFrameArrivingAtOnce() throws IOException {
+    int[] partLengths = {100, 9000, 1, 8187};
+    byte[] frame = createFrame(partLengths);
+    MessageFrameReader reader = new MessageFrameReader(0);
+    assertTrue(reader.readFrom(new ChunkedChannel(frame, frame.length)));
+    checkFrame(frame, partLengths, reader);
+  }
+
+  @Test
+  public void testDoesNotReadPastFrame() throws IOException {
+    int[] firstParts = {10};
+    int[] secondParts = {4, 16};
+    byte[] first = createFrame(firstParts);
+    byte[] second = createFrame(secondParts);
+    byte[] both = new byte[first.length + second.length];
+    System.arraycopy(first, 0, both, 0, first.length);
+    System.arraycopy(second, 0, both, first.length, second.length);
+    ChunkedChannel ch = new ChunkedChannel(both, both.length);
+    MessageFrameReader reader = new MessageFrameReader(0);
+    while (!reader.readFrom(ch)) {
+    }
+    checkFrame(first, firstParts, reader);
+    reader.reset();
+    while (!reader.readFrom(ch)) {
+    }
+    checkFrame(second, secondParts, reader);
+  }
+
+  @Test
+  public void testOversizedPayloadIsNotBuffered() throws IOException {
+    byte[] frame = createFrame(new int[] {100});
+    MessageFrameReader reader = new MessageFrameReader(50);
+    assertTrue(reader.readFrom(new ChunkedChannel(frame, frame.length)));
+    // only the header is buffered so that the worker rejects the message
+    assertEquals(Message.FIXED_LENGTH, readAll(reader.getInputStream()).length);
+    assertEquals(0, reader.getPartCount());
+  }
+
+  @Test
+  public void testEmptyPayload() throws IOException {
+    byte[] frame = createFrame(new int[0]);
+    MessageFrameReader reader = new MessageFrameReader(0);
+    assertTrue(reader.readFrom(new ChunkedChannel(frame, frame.length)));
+    checkFrame(frame, new int[0], reader);
+  }
+
+  @Test
+  public void testEndOfStream() throws IOException {
+    byte[] frame = createFrame(new int[] {10});
+    byte[] partial = new byte[Message.FIXED_LENGTH + 5];
+    System.arraycopy(frame, 0, partial, 0, partial.length);
+    ChunkedChannel ch = new ChunkedChannel(partial, 4);
+    MessageFrameReader reader = new MessageFrameReader(0);
+    try {
+      while (!reader.readFrom(ch)) {
+      }
+      fail("expected EOFException");
+    } catch (EOFException expected) {
+    }
+  }
+
+  @Test
+  public void testPartLongerThanPayload() throws IOException {
+    byte[] frame = createFrame(new int[] {10});
+    // claim that the part is longer than the rest of the payload
+    ByteBuffer.wrap(frame).putInt(Message.FIXED_LENGTH, 11);
+    MessageFrameReader reader = new MessageFrameReader(0);
+    try {
+      reader.readFrom(new ChunkedChannel(frame, frame.length));
+      fail("expected IOException");
+    } catch (IOException expected) {
+    }
+  }
+
+  @Test
+  public void testPayloadWaitsForLimiterPermits() throws IOException {
+    Semaphore dataLimiter = new Semaphore(100);
+    Semaphore msgLimiter = new Semaphore(2);
+    byte[] first = createFrame(new int[] {55}); // 60 byte payload
+    byte[] second = createFrame(new int[] {45}); // 50 byte payload
+    MessageFrameReader firstReader = new MessageFrameReader(0, dataLimiter, msgLimiter);
+    MessageFrameReader secondReader = new MessageFrameReader(0, dataLimiter, msgLimiter);
+    assertTrue(firstReader.readFrom(new ChunkedChannel(first, first.length)));
+    assertEquals(40, dataLimiter.availablePermits());
+    assertEquals(1, msgLimiter.availablePermits());
+
+    ChunkedChannel ch = new ChunkedChannel(second, second.length);
+    assertFalse(secondReader.readFrom(ch));
+    assertTrue(secondReader.isWaitingForPermits());
+    // nothing past the header is read without the permits
+    assertEquals(Message.FIXED_LENGTH, ch.position());
+    assertFalse(secondReader.readFrom(ch));
+    assertFalse(secondReader.acquirePermits());
+    assertEquals(40, dataLimiter.availablePermits());
+    assertEquals(1, msgLimiter.availablePermits());
+
+    firstReader.reset();
+    assertEquals(100, dataLimiter.availablePermits());
+    assertEquals(2, msgLimiter.availablePermits());
+    assertTrue(secondReader.acquirePermits());
+    assertFalse(secondReader.isWaitingForPermits());
+    while (!secondReader.readFrom(ch)) {
+    }
+    checkFrame(second, new int[] {45}, secondReader);
+    assertEquals(50, dataLimiter.availablePermits());
+    secondReader.reset();
+    // releasing more than once has no effect
+    secondReader.reset();
+    secondReader.releasePermits();
+    assertEquals(100, dataLimiter.availablePermits());
+    assertEquals(2, msgLimiter.availablePermits());
+  }
+
+  @Test
+  public void testWaitsBehindOtherFrames() throws IOException {
+    Semaphore dataLimiter = new Semaphore(100);
+    byte[] frame = createFrame(new int[] {10});
+    MessageFrameReader reader = new MessageFrameReader(0, dataLimiter, null);
+    ChunkedChannel ch = new ChunkedChannel(frame, frame.length);
+    assertFalse(reader.readFrom(ch, false));
+    assertTrue(reader.isWaitingForPermits());
+    assertEquals(100, dataLimiter.availablePermits());
+    assertTrue(reader.acquirePermits());
+    assertTrue(reader.readFrom(ch, false));
+    checkFrame(frame, new int[] {10}, reader);
+  }
+
+  /**
+   * Creates a message with a part of each of the given lengths. The bytes
+   * of a part are its index plus its offset in the part.
+   */
+  private static byte[] createFrame(int[] partLengths) {
+    int payloadLength = 0;
+    for (int len : partLengths) {
+      payloadLength += 5 + len;
+    }
+    ByteBuffer bb = ByteBuffer.allocate(Message.FIXED_LENGTH + payloadLength);
+    bb.putInt(MessageType.PING);
+    bb.putInt(payloadLength);
+    bb.putInt(partLengths.length);
+    bb.putInt(-1);
+    bb.put((byte) 0);
+    for (int i = 0; i < partLengths.length; i++) {
+      bb.putInt(partLengths[i]);
+      bb.put((byte) (i % 2));
+      for (int j = 0; j < partLengths[i]; j++) {
+        bb.put((byte) (i + j));
+      }
+    }
+    return bb.array();
+  }
+
+  private static void checkFrame(byte[] frame, int[] partLengths, MessageFrameReader reader) throws IOException {
+    assertTrue(reader.isComplete());
+    byte[] header = new byte[Message.FIXED_LENGTH];
+    System.arraycopy(frame, 0, header, 0, header.length);
+    assertArrayEquals(header, readAll(reader.getInputStream()));
+    assertEquals(partLengths.length, reader.getPartCount());
+    for (int i = 0; i < partLengths.length; i++) {
+      byte[] bytes = reader.getPartBytes(i);
+      assertEquals(partLengths[i], bytes.length);
+      assertEquals((byte) (i % 2), reader.getPartType(i));
+      for (int j = 0; j < bytes.length; j++) {
+        assertEquals((byte) (i + j), bytes[j]);
+      }
+    }
+  }
+
+  private static byte[] readAll(InputStream in) throws IOException {
+    byte[] result = new byte[in.available()];
+    int off = 0;
+    while (off < result.length) {
+      int n = in.read(result, off, result.length - off);
+      assertTrue(n > 0);
+      off += n;
+    }
+    return result;
+  }
+
+  /**
+   * A non-blocking channel that hands out at most chunkSize bytes per read
+   * and has nothing available on every other read.
+   */
+  private static class ChunkedChannel implements ReadableByteChannel {
+    private final ByteBuffer data;
+    private final int chunkSize;
+    private boolean empty;
+
+    ChunkedChannel(byte[] data, int chunkSize) {
+      this.data = ByteBuffer.wrap(data);
+      this.chunkSize = chunkSize;
+    }
+
+    int position() {
+      return this.data.position();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) {
+      if (!this.data.hasRemaining()) {
+        return -1;
+      }
+      this.empty = !this.empty;
+      if (!this.empty && this.chunkSize < this.data.capacity()) {
+        return 0;
+      }
+      int n = Math.min(this.chunkSize, Math.min(dst.remaining(), this.data.remaining()));
+      for (int i = 0; i < n; i++) {
+        dst.put(this.data.get());
+      }
+      return n;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.cache.tier.sockets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.internal.offheap.Chunk;
+import com.gemstone.gemfire.internal.offheap.NullOffHeapMemoryStats;
+import com.gemstone.gemfire.internal.offheap.NullOutOfOffHeapMemoryListener;
+import com.gemstone.gemfire.internal.offheap.SimpleMemoryAllocatorImpl;
+import com.gemstone.gemfire.internal.offheap.UnsafeMemoryChunk;
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Tests sending a {@link Part} whose value is an off-heap {@link Chunk}.
+ */
+@Category(UnitTest.class)
+public class PartJUnitTest {
+
+  private static final int VALUE_SIZE = 10000;
+
+  private SimpleMemoryAllocatorImpl ma;
+  private byte[] value;
+  private Chunk chunk;
+  private Part part;
+
+  @Before
+  public void setUp() {
+    this.ma = SimpleMemoryAllocatorImpl.create(new NullOutOfOffHeapMemoryListener(), new NullOffHeapMemoryStats(), new UnsafeMemoryChunk[]{new UnsafeMemoryChunk(1024*1024)});
+    this.value = new byte[VALUE_SIZE];
+    for (int i = 0; i < VALUE_SIZE; i++) {
+      this.value[i] = (byte) i;
+    }
+    this.chunk = (Chunk) this.ma.allocateAndInitialize(this.value, false, false, null);
+    this.part = new Part();
+    this.part.setPartState(this.chunk, false);
+  }
+
+  @After
+  public void tearDown() {
+    this.chunk.release();
+    SimpleMemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  @Test
+  public void testSendToHeapBuffer() {
+    ByteBuffer buf = ByteBuffer.allocate(VALUE_SIZE + 5);
+    buf.put((byte) 1);
+    this.part.sendTo(buf);
+    assertEquals(VALUE_SIZE + 1, buf.position());
+    assertArrayEquals(this.value, getBytes(buf, 1));
+  }
+
+  @Test
+  public void testSendToDirectBuffer() {
+    ByteBuffer buf = ByteBuffer.allocateDirect(VALUE_SIZE + 5);
+    buf.put((byte) 1);
+    this.part.sendTo(buf);
+    assertEquals(VALUE_SIZE + 1, buf.position());
+    assertArrayEquals(this.value, getBytes(buf, 1));
+  }
+
+  @Test
+  public void testSendToStream() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ByteBuffer buf = ByteBuffer.allocate(100);
+    this.part.sendTo(out, buf);
+    buf.flip();
+    out.write(buf.array(), 0, buf.limit());
+    assertArrayEquals(this.value, out.toByteArray());
+  }
+
+  @Test
+  public void testSendToSocketChannel() throws IOException {
+    ServerSocketChannel ssc = ServerSocketChannel.open();
+    try {
+      ssc.bind(new InetSocketAddress("localhost", 0));
+      SocketChannel client = SocketChannel.open(ssc.getLocalAddress());
+      SocketChannel server = ssc.accept();
+      try {
+        ByteBuffer buf = ByteBuffer.allocateDirect(100);
+        this.part.sendTo(server, buf);
+        assertArrayEquals(this.value, read(client, VALUE_SIZE));
+
+        buf.put((byte) 7);
+        if (this.part.sendWithPendingBytes(server, buf)) {
+          assertEquals(0, buf.position());
+          byte[] expected = new byte[VALUE_SIZE + 1];
+          expected[0] = 7;
+          System.arraycopy(this.value, 0, expected, 1, VALUE_SIZE);
+          assertArrayEquals(expected, read(client, VALUE_SIZE + 1));
+        } else {
+          // a direct ByteBuffer view of the chunk could not be created
+          assertEquals(1, buf.position());
+        }
+      } finally {
+        client.close();
+        server.close();
+      }
+    } finally {
+      ssc.close();
+    }
+  }
+
+  @Test
+  public void testHeapPartIsNotGathered() throws IOException {
+    Part heapPart = new Part();
+    heapPart.setPartState(this.value, false);
+    ByteBuffer buf = ByteBuffer.allocate(100);
+    buf.put((byte) 7);
+    assertTrue(!heapPart.sendWithPendingBytes(null, buf));
+    assertEquals(1, buf.position());
+  }
+
+  private static byte[] getBytes(ByteBuffer buf, int offset) {
+    buf.flip();
+    buf.position(offset);
+    byte[] result = new byte[buf.remaining()];
+    buf.get(result);
+    return result;
+  }
+
+  private static byte[] read(SocketChannel sc, int size) throws IOException {
+    byte[] result = new byte[size];
+    InputStream in = sc.socket().getInputStream();
+    int off = 0;
+    while (off < size) {
+      int n = in.read(result, off, size - off);
+      assertTrue(n > 0);
+      off += n;
+    }
+    return result;
+  }
+}
@@ -99,6 +99,49 @@ public class NullOffHeapMemoryStats implements OffHeapMemoryStats {
     return 0;
   }
   @Override
+  public long startDefragmentation() {
+    return 0;
+  }
+  @Override
+  public void endDefragmentation(long start) {
+  }
+  @Override
+  public int getDefragmentations() {
+    return 0;
+  }
+  @Override
+  public long getDefragmentationTime() {
+    return 0;
+  }
+  @Override
+  public void setLargestFreeBlock(int value) {
+  }
+  @Override
+  public int getLargestFreeBlock() {
+    return 0;
+  }
+  @Override
+  public void incThreadCacheAllocations() {
+  }
+  @Override
+  public long getThreadCacheAllocations() {
+    return 0;
+  }
+  @Override
+  public void incThreadCacheRefills() {
+  }
+  @Override
+  public long getThreadCacheRefills() {
+    return 0;
+  }
+  @Override
+  public void incThreadCacheReturns(int chunks) {
+  }
+  @Override
+  public long getThreadCacheReturns() {
+    return 0;
+  }
+  @Override
   public void close() {
   }
   @Override
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Tests merging free off-heap memory with {@link FreeListManager#defragment}
+ * and the background {@link OffHeapDefragmenter}.
+ */
+@Category(UnitTest.class)
+public class OffHeapDefragmenterJUnitTest {
+
+  private static final int TOTAL_MEM = 1024*1024;
+
+  private SimpleMemoryAllocatorImpl ma;
+  private CountingStats stats;
+
+  @After
+  public void tearDown() {
+    System.clearProperty(FreeListManager.DEFRAGMENT_THRESHOLD_PROPERTY);
+    System.clearProperty(FreeListManager.DEFRAGMENT_INTERVAL_MILLIS_PROPERTY);
+    System.clearProperty(FreeListManager.DEFRAGMENT_BUDGET_MILLIS_PROPERTY);
+    SimpleMemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  private void createAllocator() {
+    this.stats = new CountingStats();
+    this.ma = SimpleMemoryAllocatorImpl.create(new NullOutOfOffHeapMemoryListener(), this.stats, new UnsafeMemoryChunk[]{new UnsafeMemoryChunk(TOTAL_MEM)});
+  }
+
+  /**
+   * Fills the memory with small objects and then frees all of them.
+   */
+  private void fragment() {
+    List<MemoryChunk> mcs = new ArrayList<MemoryChunk>();
+    for (int i = 0; i < TOTAL_MEM/(56+Chunk.OFF_HEAP_HEADER_SIZE); i++) {
+      mcs.add(this.ma.allocate(56, null));
+    }
+    for (MemoryChunk mc : mcs) {
+      mc.release();
+    }
+    assertEquals(TOTAL_MEM, this.ma.getFreeMemory());
+    assertEquals(0, this.ma.freeList.getLargestFreeBlock());
+    assertEquals(100, this.ma.freeList.getFreeFragmentation());
+  }
+
+  @Test
+  public void testIncrementalPassesMergeAllFreeMemory() {
+    createAllocator();
+    fragment();
+    int passes = 0;
+    // with no time budget each pass only merges one batch of chunks
+    while (!this.ma.freeList.defragment(0)) {
+      passes++;
+      assertTrue(passes < TOTAL_MEM);
+    }
+    assertTrue(passes > 1);
+    assertEquals(TOTAL_MEM, this.ma.freeList.getLargestFreeBlock());
+    assertEquals(0, this.ma.freeList.getFreeFragmentation());
+    assertEquals(0, this.stats.compactions.get());
+    assertEquals(TOTAL_MEM, this.stats.largestFreeBlock);
+  }
+
+  @Test
+  public void testBackgroundDefragmenter() throws InterruptedException {
+    System.setProperty(FreeListManager.DEFRAGMENT_THRESHOLD_PROPERTY, "20");
+    System.setProperty(FreeListManager.DEFRAGMENT_INTERVAL_MILLIS_PROPERTY, "10");
+    System.setProperty(FreeListManager.DEFRAGMENT_BUDGET_MILLIS_PROPERTY, "1");
+    createAllocator();
+    fragment();
+    long end = System.currentTimeMillis() + 30000;
+    while (this.ma.freeList.getFreeFragmentation() >= 20 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    assertTrue(this.ma.freeList.getFreeFragmentation() < 20);
+    assertTrue(this.stats.defragmentations.get() > 0);
+    // the whole memory can now be allocated without stopping to compact it
+    this.ma.allocate(TOTAL_MEM-Chunk.OFF_HEAP_HEADER_SIZE, null).release();
+    assertEquals(0, this.stats.compactions.get());
+  }
+
+  private static class CountingStats extends NullOffHeapMemoryStats {
+    private final AtomicInteger compactions = new AtomicInteger();
+    private final AtomicInteger defragmentations = new AtomicInteger();
+    private volatile int largestFreeBlock;
+
+    @Override
+    public void endCompaction(long start) {
+      this.compactions.incrementAndGet();
+    }
+    @Override
+    public void endDefragmentation(long start) {
+      this.defragmentations.incrementAndGet();
+    }
+    @Override
+    public void setLargestFreeBlock(int value) {
+      this.largestFreeBlock = value;
+    }
+  }
+}
@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.cache.CacheFactory;
+import com.gemstone.gemfire.cache.Region;
+import com.gemstone.gemfire.cache.RegionShortcut;
+import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
+import com.gemstone.gemfire.internal.cache.LocalRegion;
+import com.gemstone.gemfire.internal.cache.OffHeapKeyRegionEntry;
+import com.gemstone.gemfire.internal.cache.PartitionedRegion;
+import com.gemstone.gemfire.internal.cache.RegionEntry;
+import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
+
+/**
+ * Tests off heap regions with {@link OffHeapKeyHelper#OFF_HEAP_REGION_KEYS} set.
+ */
+@Category(IntegrationTest.class)
+public class OffHeapRegionKeysJUnitTest {
+
+  private static final int ENTRIES = 1000;
+
+  private GemFireCacheImpl cache;
+  private MemoryAllocator ma;
+
+  @Before
+  public void setUp() {
+    OffHeapKeyHelper.OFF_HEAP_REGION_KEYS = true;
+    Properties props = new Properties();
+    props.setProperty("locators", "");
+    props.setProperty("mcast-port", "0");
+    props.setProperty("off-heap-memory-size", "10m");
+    this.cache = (GemFireCacheImpl) new CacheFactory(props).create();
+    this.ma = this.cache.getOffHeapStore();
+  }
+
+  @After
+  public void tearDown() {
+    OffHeapKeyHelper.OFF_HEAP_REGION_KEYS = false;
+    try {
+      this.cache.close();
+    } finally {
+      SimpleMemoryAllocatorImpl.freeOffHeapMemory();
+    }
+  }
+
+  @Test
+  public void testLocal() {
+    doKeysTest(RegionShortcut.LOCAL);
+  }
+
+  @Test
+  public void testReplicate() {
+    doKeysTest(RegionShortcut.REPLICATE);
+  }
+
+  @Test
+  public void testPR() {
+    doKeysTest(RegionShortcut.PARTITION);
+  }
+
+  private void doKeysTest(RegionShortcut shortcut) {
+    Region<String, byte[]> r = this.cache.<String, byte[]>createRegionFactory(shortcut).setOffHeap(true).create("keys");
+    for (int i = 0; i < ENTRIES; i++) {
+      r.put(key(i), value(i));
+    }
+    long usedWithKeys = this.ma.getUsedMemory();
+    for (int i = 0; i < ENTRIES; i++) {
+      RegionEntry re = getRegionEntry(r, key(i));
+      assertTrue(re instanceof OffHeapKeyRegionEntry);
+      OffHeapKeyRegionEntry ohre = (OffHeapKeyRegionEntry) re;
+      assertNull("key should be off heap", ohre.getHeapKey());
+      assertEquals(key(i), re.getKey());
+      assertTrue(OffHeapKeyHelper.isKeyEqual(ohre, key(i)));
+      assertFalse(OffHeapKeyHelper.isKeyEqual(ohre, key(i + 1)));
+      assertEquals(value(i).length, r.get(key(i)).length);
+      assertTrue(r.containsKey(key(i)));
+    }
+    assertTrue(r.keySet().contains(key(ENTRIES - 1)));
+
+    // destroying an entry frees both its value and its key
+    for (int i = 0; i < ENTRIES; i += 2) {
+      r.destroy(key(i));
+    }
+    assertTrue(this.ma.getUsedMemory() < usedWithKeys);
+    for (int i = 1; i < ENTRIES; i += 2) {
+      assertNotNull(r.get(key(i)));
+    }
+    // an update keeps the key off heap
+    r.put(key(1), value(2));
+    assertNull(((OffHeapKeyRegionEntry) getRegionEntry(r, key(1))).getHeapKey());
+    assertEquals(key(1), getRegionEntry(r, key(1)).getKey());
+
+    r.destroyRegion();
+    assertEquals(0, this.ma.getUsedMemory());
+  }
+
+  private static RegionEntry getRegionEntry(Region<String, byte[]> r, String key) {
+    if (r instanceof PartitionedRegion) {
+      return ((PartitionedRegion) r).getBucketRegion(key).getRegionEntry(key);
+    }
+    return ((LocalRegion) r).getRegionEntry(key);
+  }
+
+  private static String key(int i) {
+    // long enough that it can not be inlined; every third key needs two bytes per char
+    return (i % 3 == 0 ? "\u03bb" : "") + "a key that is too long to be inlined " + i;
+  }
+
+  private static byte[] value(int i) {
+    return new byte[100 + i % 10];
+  }
+}
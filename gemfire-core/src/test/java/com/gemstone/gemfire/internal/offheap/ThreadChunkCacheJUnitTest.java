@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.offheap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Tests the per-thread caches of tiny chunks enabled by
+ * {@link FreeListManager#THREAD_CACHE_SIZE_PROPERTY}.
+ */
+@Category(UnitTest.class)
+public class ThreadChunkCacheJUnitTest {
+
+  private static final int CACHE_SIZE = 8;
+  private static final int TOTAL_MEM = 1024*1024;
+
+  private SimpleMemoryAllocatorImpl ma;
+  private CountingStats stats;
+
+  @Before
+  public void setUp() {
+    System.setProperty(FreeListManager.THREAD_CACHE_SIZE_PROPERTY, String.valueOf(CACHE_SIZE));
+    System.setProperty(FreeListManager.THREAD_CACHE_TRIM_INTERVAL_PROPERTY, "100");
+    this.stats = new CountingStats();
+    this.ma = SimpleMemoryAllocatorImpl.create(new NullOutOfOffHeapMemoryListener(), this.stats, new UnsafeMemoryChunk[]{new UnsafeMemoryChunk(TOTAL_MEM)});
+  }
+
+  @After
+  public void tearDown() {
+    System.clearProperty(FreeListManager.THREAD_CACHE_SIZE_PROPERTY);
+    System.clearProperty(FreeListManager.THREAD_CACHE_TRIM_INTERVAL_PROPERTY);
+    SimpleMemoryAllocatorImpl.freeOffHeapMemory();
+  }
+
+  @Test
+  public void testFreedChunkIsReusedFromThreadCache() {
+    MemoryChunk mc = this.ma.allocate(8, null);
+    assertEquals(1, this.stats.refills.get());
+    long addr = ((Chunk) mc).getMemoryAddress();
+    mc.release();
+    assertEquals(TOTAL_MEM, this.ma.getFreeMemory());
+    mc = this.ma.allocate(8, null);
+    assertEquals(addr, ((Chunk) mc).getMemoryAddress());
+    assertEquals(1, this.stats.refills.get());
+    // the refill carved a run of chunks so the next few allocations are cached
+    for (int i = 1; i < CACHE_SIZE/2; i++) {
+      this.ma.allocate(8, null);
+    }
+    assertEquals(1, this.stats.refills.get());
+    assertEquals(CACHE_SIZE/2, this.stats.allocations.get());
+  }
+
+  @Test
+  public void testSurplusIsReturnedToSharedFreeList() {
+    List<MemoryChunk> mcs = new ArrayList<MemoryChunk>();
+    for (int i = 0; i < CACHE_SIZE*4; i++) {
+      mcs.add(this.ma.allocate(8, null));
+    }
+    long freeTiny = this.ma.freeList.getFreeTinyMemory();
+    for (MemoryChunk mc : mcs) {
+      mc.release();
+    }
+    assertTrue(this.stats.returns.get() >= CACHE_SIZE*3);
+    assertEquals(TOTAL_MEM, this.ma.getFreeMemory());
+    assertEquals(freeTiny + CACHE_SIZE*4*mcs.get(0).getSize(), this.ma.freeList.getFreeTinyMemory());
+  }
+
+  @Test
+  public void testUnusedChunksAreTrimmed() {
+    List<MemoryChunk> mcs = new ArrayList<MemoryChunk>();
+    for (int i = 0; i < CACHE_SIZE; i++) {
+      mcs.add(this.ma.allocate(8, null));
+    }
+    for (MemoryChunk mc : mcs) {
+      mc.release();
+    }
+    long returned = this.stats.returns.get();
+    // only use a different size so the cached 8 byte chunks sit idle
+    for (int i = 0; i < 300; i++) {
+      this.ma.allocate(100, null).release();
+    }
+    assertTrue(this.stats.returns.get() > returned);
+  }
+
+  @Test
+  public void testCompactionSeesChunksCachedByOtherThreads() throws Exception {
+    final int perObjectOverhead = Chunk.OFF_HEAP_HEADER_SIZE;
+    final List<MemoryChunk> mcs = new ArrayList<MemoryChunk>();
+    for (int i = 0; i < TOTAL_MEM/(8+perObjectOverhead); i++) {
+      mcs.add(this.ma.allocate(8, null));
+    }
+    assertEquals(0, this.ma.getFreeMemory());
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread t = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (MemoryChunk mc : mcs) {
+            mc.release();
+          }
+        } catch (Throwable ex) {
+          failure.set(ex);
+        }
+      }
+    });
+    t.start();
+    t.join();
+    assertEquals(null, failure.get());
+    assertEquals(TOTAL_MEM, this.ma.getFreeMemory());
+    // a single allocation of all the memory only works if compaction
+    // also collected the chunks cached by the thread that freed them
+    this.ma.allocate(TOTAL_MEM-perObjectOverhead, null).release();
+  }
+
+  @Test
+  public void testConcurrentAllocations() throws Exception {
+    final int threadCount = 8;
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread[] threads = new Thread[threadCount];
+    for (int i = 0; i < threadCount; i++) {
+      final int seed = i;
+      threads[i] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            Random random = new Random(seed);
+            List<MemoryChunk> live = new ArrayList<MemoryChunk>();
+            for (int j = 0; j < 20000; j++) {
+              if (live.size() > 50 || (!live.isEmpty() && random.nextBoolean())) {
+                live.remove(random.nextInt(live.size())).release();
+              } else {
+                live.add(ma.allocate(1 + random.nextInt(300), null));
+              }
+            }
+            for (MemoryChunk mc : live) {
+              mc.release();
+            }
+          } catch (Throwable ex) {
+            failure.compareAndSet(null, ex);
+          }
+        }
+      });
+      threads[i].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(null, failure.get());
+    assertEquals(TOTAL_MEM, this.ma.getFreeMemory());
+    assertTrue(this.stats.allocations.get() > 0);
+    this.ma.allocate(TOTAL_MEM-Chunk.OFF_HEAP_HEADER_SIZE, null).release();
+  }
+
+  private static class CountingStats extends NullOffHeapMemoryStats {
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong refills = new AtomicLong();
+    private final AtomicLong returns = new AtomicLong();
+
+    @Override
+    public void incThreadCacheAllocations() {
+      this.allocations.incrementAndGet();
+    }
+    @Override
+    public void incThreadCacheRefills() {
+      this.refills.incrementAndGet();
+    }
+    @Override
+    public void incThreadCacheReturns(int chunks) {
+      this.returns.addAndGet(chunks);
+    }
+  }
+}
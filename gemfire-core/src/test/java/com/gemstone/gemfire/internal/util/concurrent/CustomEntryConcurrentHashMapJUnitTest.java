@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.gemstone.gemfire.internal.util.concurrent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import com.gemstone.gemfire.test.junit.categories.UnitTest;
+
+/**
+ * Tests that lock-free reads of {@link CustomEntryConcurrentHashMap} see
+ * every entry that is present for the whole read while other threads
+ * remove entries and grow the map.
+ */
+@Category(UnitTest.class)
+public class CustomEntryConcurrentHashMapJUnitTest {
+
+  private static final int STABLE_KEYS = 1000;
+  private static final int CHURN_KEYS = 20000;
+  private static final long RUN_MILLIS = 2000;
+
+  @Test
+  public void testReadsDuringRemovesAndRehash() throws Exception {
+    final CustomEntryConcurrentHashMap<Integer, Integer> map = new CustomEntryConcurrentHashMap<Integer, Integer>(16, 0.75f, 1);
+    for (int i = 0; i < STABLE_KEYS; i++) {
+      map.put(i, i);
+    }
+    final AtomicBoolean done = new AtomicBoolean();
+    final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+    Thread writer = new Thread(new Runnable() {
+      public void run() {
+        try {
+          while (!done.get()) {
+            for (int i = STABLE_KEYS; i < STABLE_KEYS + CHURN_KEYS; i++) {
+              map.put(i, i);
+            }
+            for (int i = STABLE_KEYS; i < STABLE_KEYS + CHURN_KEYS; i++) {
+              map.remove(i);
+            }
+          }
+        } catch (Throwable t) {
+          failure.compareAndSet(null, t);
+        }
+      }
+    });
+    Thread[] readers = new Thread[4];
+    for (int r = 0; r < readers.length; r++) {
+      readers[r] = new Thread(new Runnable() {
+        public void run() {
+          try {
+            while (!done.get()) {
+              for (int i = 0; i < STABLE_KEYS; i++) {
+                assertEquals(Integer.valueOf(i), map.get(i));
+                assertTrue(map.containsKey(i));
+              }
+              assertNull(map.get(-1));
+            }
+          } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+        }
+      });
+    }
+    writer.start();
+    for (Thread t : readers) {
+      t.start();
+    }
+    Thread.sleep(RUN_MILLIS);
+    done.set(true);
+    writer.join();
+    for (Thread t : readers) {
+      t.join();
+    }
+    if (failure.get() != null) {
+      throw new AssertionError(failure.get());
+    }
+    assertEquals(STABLE_KEYS, map.size());
+  }
+}
@@ -27,6 +27,7 @@ import java.io.IOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -46,7 +47,12 @@ import com.gemstone.gemfire.internal.cache.GemFireCacheImpl;
 import com.gemstone.gemfire.pdx.PdxInstanceFactory;
 import com.gemstone.gemfire.pdx.internal.EnumInfo.PdxInstanceEnumInfo;
 import com.gemstone.gemfire.pdx.internal.PdxInstanceEnum;
+import com.gemstone.gemfire.pdx.internal.PdxInputStream;
 import com.gemstone.gemfire.pdx.internal.PdxInstanceFactoryImpl;
+import com.gemstone.gemfire.pdx.internal.PdxInstanceImpl;
+import com.gemstone.gemfire.pdx.internal.PdxString;
+import com.gemstone.gemfire.pdx.internal.PdxType;
+import com.gemstone.gemfire.pdx.internal.PdxWriterImpl;
 import com.gemstone.gemfire.test.junit.categories.IntegrationTest;
 
 /**
@@ -96,6 +102,33 @@ public class PdxInstanceJUnitTest {
     assertEquals(Arrays.asList(new String[]{"afield"}), fieldInstance.getFieldNames());
     assertEquals("hello", fieldInstance.getField("afield"));
   }
+
+  @Test
+  public void testGetRawFieldFromDirectBuffer() throws IOException, ClassNotFoundException {
+    PdxInstanceImpl instance = (PdxInstanceImpl) getPdx(new TestPdx() {
+      public void toData(PdxWriter out) {
+        out.writeInt("intField", 53);
+        out.writeString("stringField", "hello");
+        out.writeString("nullField", null);
+      }
+    });
+    PdxType type = instance.getPdxType();
+    assertEquals(Integer.valueOf(53), instance.getRawField(type, type.getPdxField("intField")));
+    assertEquals(new PdxString("hello"), instance.getRawField(type, type.getPdxField("stringField")));
+
+    // copy the blob, without its header, into a direct buffer
+    byte[] bytes = instance.toBytes();
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length - PdxWriterImpl.HEADER_SIZE);
+    direct.put(bytes, PdxWriterImpl.HEADER_SIZE, direct.capacity());
+    direct.flip();
+    PdxInstanceImpl directInstance = new PdxInstanceImpl(type, new PdxInputStream(direct), direct.remaining());
+
+    assertEquals(Integer.valueOf(53), directInstance.getRawField("intField"));
+    assertEquals(new PdxString("hello"), directInstance.getRawField("stringField"));
+    assertEquals(new PdxString("hello"), directInstance.getRawField(type, type.getPdxField("stringField")));
+    assertEquals(null, directInstance.getRawField("nullField"));
+    assertEquals(instance, directInstance);
+  }
   
   @Test
   public void testHashCodeAndEqualsSameType() throws IOException, ClassNotFoundException {